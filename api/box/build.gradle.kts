@@ -25,6 +25,11 @@ repositories {
     mavenCentral()
 }
 
+// shared caches
+dependencies {
+    implementation("com.lockbox:common-cache:1")
+}
+
 // useful things
 dependencies {
     compileOnly("org.projectlombok:lombok")
@@ -47,6 +52,7 @@ dependencies {
     implementation("com.fasterxml.jackson.core:jackson-core")
     implementation("com.fasterxml.jackson.core:jackson-annotations")
     implementation("com.fasterxml.jackson.datatype:jackson-datatype-jsr310")
+    implementation("com.fasterxml.jackson.dataformat:jackson-dataformat-cbor")
 }
 
 // validation
@@ -58,8 +64,9 @@ dependencies {
 // database (postgres (r2dbc) & flyway for migrations & redis for caching)
 dependencies {
     runtimeOnly("org.postgresql:postgresql")
-    runtimeOnly("org.postgresql:r2dbc-postgresql")
+    implementation("org.postgresql:r2dbc-postgresql")
     implementation("org.springframework.boot:spring-boot-starter-data-redis-reactive")
+    implementation("com.github.ben-manes.caffeine:caffeine")
     implementation("org.springframework.boot:spring-boot-starter-data-r2dbc")
 
     implementation("org.flywaydb:flyway-core")
@@ -91,6 +98,7 @@ dependencies {
 
     implementation("org.apache.logging.log4j:log4j-api:2.24.3")
     implementation("org.apache.logging.log4j:log4j-core:2.24.3")
+    runtimeOnly("com.lmax:disruptor:4.0.0")
 }
 
 configurations.all {
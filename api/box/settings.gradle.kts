@@ -1,2 +1,3 @@
 rootProject.name = "box-api"
 
+includeBuild("../common-cache")
@@ -2,6 +2,7 @@ package com.lockbox.box;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 /**
  * The main entry point for the User Service Spring Boot application.
@@ -22,6 +23,7 @@ import org.springframework.boot.autoconfigure.SpringBootApplication;
  * @since 1.0
  */
 @SpringBootApplication(scanBasePackages = "com.lockbox.box")
+@EnableScheduling
 public class BoxServiceApplication {
 
     /**
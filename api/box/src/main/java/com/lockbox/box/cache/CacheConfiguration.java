@@ -0,0 +1,95 @@
+package com.lockbox.box.cache;
+
+import com.lockbox.box.database.model.Box;
+import com.lockbox.cache.CacheSpec;
+import com.lockbox.cache.CborCacheCodec;
+import com.lockbox.cache.InvalidationBus;
+import com.lockbox.cache.InvalidationEvent;
+import com.lockbox.cache.TwoLevelCache;
+import com.lockbox.cache.TwoLevelCaches;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.r2dbc.R2dbcProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.ReactiveRedisConnectionFactory;
+import org.springframework.r2dbc.core.DatabaseClient;
+
+import java.time.Duration;
+import java.util.function.Function;
+
+/**
+ * Caches of the box service.
+ *
+ * @author serezk4
+ * @version 1.0
+ * @see TwoLevelCaches
+ * @since 1.0
+ */
+@Configuration
+public class CacheConfiguration {
+
+    /**
+     * Invalidation events of the box service, on {@code box.cache.invalidation.channel}.
+     *
+     * @param databaseClient      the client notifications are published with
+     * @param r2dbcProperties     the connection settings of the listening connection
+     * @param meterRegistry       the meter registry
+     * @param channel             the channel of the notifications
+     * @param reconnectMinBackoff the first delay before reconnecting
+     * @param reconnectMaxBackoff the longest delay before reconnecting
+     * @return the invalidation bus
+     */
+    @Bean
+    InvalidationBus invalidationBus(
+            final DatabaseClient databaseClient,
+            final R2dbcProperties r2dbcProperties,
+            final MeterRegistry meterRegistry,
+            final @Value("${box.cache.invalidation.channel:box_cache_invalidation}") String channel,
+            final @Value("${box.cache.invalidation.reconnect-min-backoff:PT1S}") Duration reconnectMinBackoff,
+            final @Value("${box.cache.invalidation.reconnect-max-backoff:PT30S}") Duration reconnectMaxBackoff
+    ) {
+        return new InvalidationBus(databaseClient, r2dbcProperties, meterRegistry,
+                channel, reconnectMinBackoff, reconnectMaxBackoff);
+    }
+
+    /**
+     * The factory of the caches below, bounding Redis calls by {@code box.cache.l2-timeout}.
+     *
+     * @param redisConnectionFactory the Redis connection factory
+     * @param invalidationBus        the invalidation bus
+     * @param meterRegistry          the meter registry
+     * @param applicationName        the application name, prefixing Redis keys
+     * @param l2Timeout              the bound of every Redis call
+     * @return the cache factory
+     */
+    @Bean
+    TwoLevelCaches twoLevelCaches(
+            final ReactiveRedisConnectionFactory redisConnectionFactory,
+            final InvalidationBus invalidationBus,
+            final MeterRegistry meterRegistry,
+            final @Value("${spring.application.name}") String applicationName,
+            final @Value("${box.cache.l2-timeout:PT0.2S}") Duration l2Timeout
+    ) {
+        return new TwoLevelCaches(redisConnectionFactory, invalidationBus, meterRegistry, applicationName, l2Timeout);
+    }
+
+    /**
+     * Boxes by MAC address. Looked up on every status report, evicted whenever a box is saved.
+     *
+     * @param caches the cache factory
+     * @return the box cache
+     */
+    @Bean
+    TwoLevelCache<String, Box> boxCache(TwoLevelCaches caches) {
+        return caches.create(CacheSpec.<String, Box>builder()
+                .name("boxes")
+                .codec(CborCacheCodec.of(Box.class))
+                .keyFormatter(Function.identity())
+                .l1MaximumSize(50_000)
+                .l1Ttl(Duration.ofMinutes(5))
+                .l2Ttl(Duration.ofMinutes(30))
+                .invalidatedBy(InvalidationEvent.Type.BOX_CHANGED, Function.identity())
+                .build());
+    }
+}
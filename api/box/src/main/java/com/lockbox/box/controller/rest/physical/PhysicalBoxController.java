@@ -10,10 +10,14 @@ import com.lockbox.box.database.mapper.BoxStatusMapper;
 import com.lockbox.box.database.mapper.PublicBoxUpdateMapper;
 import com.lockbox.box.database.model.Box;
 import com.lockbox.box.database.model.BoxSignup;
+import com.lockbox.box.database.model.BoxStatus;
 import com.lockbox.box.database.service.BoxService;
 import com.lockbox.box.database.service.BoxSignupService;
 import com.lockbox.box.database.service.BoxStatusService;
 import com.lockbox.box.database.service.BoxUpdateService;
+import com.lockbox.box.fleet.FleetHealthAggregator;
+import com.lockbox.box.journal.StatusJournal;
+import com.lockbox.box.journal.StatusJournalRecord;
 import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Past;
@@ -25,9 +29,12 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 
 import java.sql.Timestamp;
 import java.time.Instant;
+import java.util.Optional;
+import java.util.regex.Pattern;
 
 /**
  * REST controller for managing physical lock box operations.
@@ -78,6 +85,8 @@ import java.time.Instant;
 @Log4j2
 public class PhysicalBoxController {
 
+    private static final Pattern MAC_ADDRESS = Pattern.compile("^([0-9A-Fa-f]{2}:){5}[0-9A-Fa-f]{2}$");
+
     BoxSignupService boxSignupService;
     BoxService boxService;
     BoxStatusService boxStatusService;
@@ -87,6 +96,9 @@ public class PhysicalBoxController {
     BoxStatusMapper boxStatusMapper;
     PublicBoxUpdateMapper publicBoxUpdateMapper;
 
+    FleetHealthAggregator fleetHealthAggregator;
+    Optional<StatusJournal> statusJournal;
+
     /**
      * Registers (signs up) a new lock box using a provided signup code and MAC address.
      * <p>
@@ -149,7 +161,8 @@ public class PhysicalBoxController {
                     }
 
                     Box updatedBox = tuple.getT2().setOwnerSub(tuple.getT1());
-                    sink.next(boxService.save(updatedBox));
+                    sink.next(boxService.save(updatedBox)
+                            .doOnNext(box -> fleetHealthAggregator.reassign(box.getMacAddress(), box.getOwnerSub())));
                 }).flatMap(box -> box.map(boxMapper::toDto)
                         .map(ApiResponse::ok))
                 .onErrorResume(e -> Mono.just(ApiResponse.bad(e.getMessage())));
@@ -197,6 +210,10 @@ public class PhysicalBoxController {
      * This request updates the lock box with MAC address {@code 00:1A:2B:3C:4D:5E}, setting its battery level
      * to {@code 85.0%}, signal strength to {@code -45 dBm}, and marking it as open.
      *
+     * <p>When the ingest journal is enabled ({@code box.journal.enabled}), the status is appended to the
+     * {@link StatusJournal} and acknowledged without waiting for the database; boxes that already reported
+     * a status are not looked up at all.</p>
+     *
      * @param request a {@link BoxStatusDto} containing the new status details of the lock box
      * @return a {@link Mono} containing a {@link ResponseEntity} with an {@link ApiResponse.Body}
      * wrapping the updated {@link BoxStatusDto}
@@ -206,13 +223,64 @@ public class PhysicalBoxController {
     public Mono<ResponseEntity<ApiResponse.Body<BoxStatusDto>>> status(
             final @RequestBody BoxStatusDto request
     ) {
+        if (statusJournal.isPresent())
+            return journal(statusJournal.get(), boxStatusMapper.toEntity(request))
+                    .map(boxStatusMapper::toDto)
+                    .map(ApiResponse::ok);
+
         return boxService.findByMacAddress(request.getMacAddress())
                 .switchIfEmpty(Mono.error(new RuntimeException("box.not.found")))
-                .flatMap(_box -> boxStatusService.save(boxStatusMapper.toEntity(request)))
+                .flatMap(_box -> boxStatusService.save(boxStatusMapper.toEntity(request))
+                        .doOnNext(saved -> fleetHealthAggregator.accept(_box, saved)))
                 .map(boxStatusMapper::toDto)
                 .map(ApiResponse::ok);
     }
 
+    /**
+     * Appends a status to the ingest journal, looking the box up only if it has never reported before.
+     * <p>
+     * The status timestamp is fixed at acceptance time so that the replayed row keeps it.
+     * </p>
+     *
+     * @param journal the ingest journal
+     * @param status  the accepted status
+     * @return a {@link Mono} emitting the journaled status
+     */
+    private Mono<BoxStatus> journal(StatusJournal journal, BoxStatus status) {
+        if (!isValid(status)) return Mono.error(new IllegalArgumentException("box.status.invalid"));
+        if (status.getTimestamp() == null) status.setTimestamp(Timestamp.from(Instant.now()));
+
+        Mono<Long> append = Mono.fromCallable(() -> journal.append(StatusJournalRecord.of(status, Instant.now())));
+        if (journal.isForceOnAppend()) append = append.subscribeOn(Schedulers.boundedElastic());
+
+        if (fleetHealthAggregator.knows(status.getMacAddress()))
+            return append.doOnSuccess(sequence -> fleetHealthAggregator.acceptKnown(status))
+                    .thenReturn(status);
+
+        Mono<Long> appendUnknown = append;
+        return boxService.findByMacAddress(status.getMacAddress())
+                .switchIfEmpty(Mono.error(new RuntimeException("box.not.found")))
+                .flatMap(_box -> appendUnknown.doOnSuccess(sequence -> fleetHealthAggregator.accept(_box, status)))
+                .thenReturn(status);
+    }
+
+    /**
+     * Checks a status against the constraints of {@link BoxStatus}, which the {@code box_statuses} table enforces
+     * too. A journaled status is acknowledged before it is written, so one the table would reject must be
+     * refused here, or it would be lost on replay.
+     *
+     * @param status the status
+     * @return {@code true} if the status can be stored
+     */
+    private static boolean isValid(BoxStatus status) {
+        return status.getMacAddress() != null && MAC_ADDRESS.matcher(status.getMacAddress()).matches()
+                && status.getBatteryLevel() != null
+                && status.getBatteryLevel() >= 0 && status.getBatteryLevel() <= 100
+                && status.getSignalStrength() != null
+                && status.getSignalStrength() >= -100 && status.getSignalStrength() <= 0
+                && status.getOpened() != null;
+    }
+
     /**
      * Retrieves updates for a specific lock box based on its MAC address and a timestamp.
      * <p>
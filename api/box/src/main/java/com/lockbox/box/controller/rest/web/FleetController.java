@@ -0,0 +1,78 @@
+package com.lockbox.box.controller.rest.web;
+
+import com.lockbox.box.controller.response.ApiResponse;
+import com.lockbox.box.fleet.FleetHealthAggregator;
+import com.lockbox.box.fleet.FleetSummary;
+import com.lockbox.box.security.auth.model.CustomUserDetails;
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.FieldDefaults;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
+
+/**
+ * REST controller serving fleet health summaries.
+ * <p>
+ * Summaries are answered from {@link FleetHealthAggregator} and never touch the database, so they are
+ * safe to poll from dashboards.
+ * </p>
+ *
+ * <p><strong>Supported Operations:</strong></p>
+ * <ul>
+ *     <li>{@code GET /fleet/summary} - summary of the boxes owned by the authenticated user.</li>
+ *     <li>{@code GET /fleet/summary/all} - summary of the whole fleet, {@code admin} role only.</li>
+ * </ul>
+ *
+ * @author serezk4
+ * @version 1.0
+ * @since 1.0
+ */
+@RestController
+@RequestMapping("/fleet")
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+@RequiredArgsConstructor
+@Validated
+@Log4j2
+public class FleetController {
+
+    private static final String ADMIN_ROLE = "admin";
+
+    FleetHealthAggregator fleetHealthAggregator;
+
+    /**
+     * Retrieves the health summary of the boxes owned by the authenticated user.
+     *
+     * @param principal the authenticated user's details, used to scope the summary
+     * @return a reactive {@link Mono} containing the owner-scoped {@link FleetSummary}
+     */
+    @GetMapping("/summary")
+    public Mono<ResponseEntity<ApiResponse.Body<FleetSummary>>> ownerSummary(
+            final @AuthenticationPrincipal CustomUserDetails principal
+    ) {
+        return Mono.fromSupplier(() -> fleetHealthAggregator.summary(principal.getSub()))
+                .map(ApiResponse::ok);
+    }
+
+    /**
+     * Retrieves the health summary of the whole fleet.
+     *
+     * @param principal the authenticated user's details, must carry the {@code admin} role
+     * @return a reactive {@link Mono} containing the fleet-wide {@link FleetSummary},
+     * or {@code 403 Forbidden} for non-admin users
+     */
+    @GetMapping("/summary/all")
+    public Mono<ResponseEntity<ApiResponse.Body<FleetSummary>>> fleetSummary(
+            final @AuthenticationPrincipal CustomUserDetails principal
+    ) {
+        if (principal.getRoles() == null || !principal.getRoles().contains(ADMIN_ROLE))
+            return Mono.just(ApiResponse.bad("fleet.summary.forbidden", HttpStatus.FORBIDDEN));
+
+        return Mono.fromSupplier(fleetHealthAggregator::summary)
+                .map(ApiResponse::ok);
+    }
+}
@@ -4,6 +4,7 @@ import com.lockbox.box.database.model.Box;
 import com.lockbox.box.database.model.BoxStatus;
 import com.lockbox.box.database.service.BoxService;
 import com.lockbox.box.database.service.BoxStatusService;
+import com.lockbox.box.fleet.FleetHealthAggregator;
 import com.lockbox.box.security.auth.model.CustomUserDetails;
 import lombok.AccessLevel;
 import lombok.RequiredArgsConstructor;
@@ -37,6 +38,7 @@ import java.util.stream.IntStream;
 public class GenerateController {
     BoxService boxService;
     BoxStatusService boxStatusService;
+    FleetHealthAggregator fleetHealthAggregator;
 
     /**
      * Generates a set of demo lock boxes along with their initial status entries.
@@ -75,7 +77,8 @@ public class GenerateController {
                             .opened(Math.random() > 0.5)
                             .signalStrength(-Math.random() * 99 - 1)
                             .build();
-                    return boxStatusService.save(boxStatus);
+                    return boxStatusService.save(boxStatus)
+                            .doOnNext(saved -> fleetHealthAggregator.accept(box, saved));
                 });
     }
 
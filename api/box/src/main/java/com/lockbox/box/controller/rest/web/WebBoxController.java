@@ -14,6 +14,7 @@ import com.lockbox.box.database.service.BoxService;
 import com.lockbox.box.database.service.BoxSignupService;
 import com.lockbox.box.database.service.BoxStatusService;
 import com.lockbox.box.database.service.BoxWithStatusService;
+import com.lockbox.box.fleet.FleetHealthAggregator;
 import com.lockbox.box.security.auth.model.CustomUserDetails;
 import jakarta.validation.constraints.Max;
 import jakarta.validation.constraints.Min;
@@ -67,6 +68,8 @@ public class WebBoxController {
     BoxWithStatusMapper boxWithStatusMapper;
     BoxStatusMapper boxStatusMapper;
 
+    FleetHealthAggregator fleetHealthAggregator;
+
     /**
      * Retrieves a list of all lock boxes owned by the authenticated user.
      * <p>
@@ -233,6 +236,7 @@ public class WebBoxController {
                     return _box;
                 })
                 .flatMap(boxService::save)
+                .doOnNext(box -> fleetHealthAggregator.reassign(box.getMacAddress(), null))
                 .map(boxMapper::toDto)
                 .map(ApiResponse::ok);
     }
@@ -0,0 +1,75 @@
+package com.lockbox.box.database.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.r2dbc.spi.Closeable;
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.ConnectionFactoryMetadata;
+import io.r2dbc.spi.Wrapped;
+import org.reactivestreams.Publisher;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link ConnectionFactory} decorator timing how long callers wait for a connection.
+ * <p>
+ * When the delegate is the connection pool this is the pool acquire latency, recorded as the
+ * {@code r2dbc.pool.acquire} timer with a percentile histogram. Pool occupancy gauges
+ * ({@code r2dbc.pool.acquired}, {@code r2dbc.pool.pending}, ...) are still bound by Spring Boot,
+ * which unwraps this decorator through {@link Wrapped}.
+ * </p>
+ *
+ * @author serezk4
+ * @version 1.0
+ * @since 1.0
+ */
+class AcquireTimingConnectionFactory implements ConnectionFactory, Wrapped<ConnectionFactory>, Closeable {
+
+    static final String METRIC = "r2dbc.pool.acquire";
+
+    private final ConnectionFactory delegate;
+    private final Timer acquired;
+    private final Timer failed;
+
+    AcquireTimingConnectionFactory(ConnectionFactory delegate, String name, MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.acquired = timer(name, "success", meterRegistry);
+        this.failed = timer(name, "error", meterRegistry);
+    }
+
+    @Override
+    public Publisher<? extends Connection> create() {
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            return Mono.<Connection>from(delegate.create())
+                    .doOnSuccess(connection -> acquired.record(System.nanoTime() - start, TimeUnit.NANOSECONDS))
+                    .doOnError(error -> failed.record(System.nanoTime() - start, TimeUnit.NANOSECONDS));
+        });
+    }
+
+    @Override
+    public ConnectionFactoryMetadata getMetadata() {
+        return delegate.getMetadata();
+    }
+
+    @Override
+    public ConnectionFactory unwrap() {
+        return delegate;
+    }
+
+    @Override
+    public Publisher<Void> close() {
+        return delegate instanceof Closeable closeable ? closeable.close() : Mono.empty();
+    }
+
+    private static Timer timer(String name, String outcome, MeterRegistry meterRegistry) {
+        return Timer.builder(METRIC)
+                .description("Time spent waiting for a database connection")
+                .tag("name", name)
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,129 @@
+package com.lockbox.box.database.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+import java.lang.reflect.Array;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Map;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Records the latency of every database query under the {@code db.query} timer.
+ * <p>
+ * Timers are tagged with the query name and its outcome ({@code success}, {@code error} or
+ * {@code cancelled}) and publish a percentile histogram. Queries slower than
+ * {@code box.r2dbc.slow-query-threshold} are logged together with the shape of their bind
+ * parameters (names, types and collection sizes, never values).
+ * </p>
+ * <p>
+ * Repository methods are recorded automatically through {@link RepositoryQueryMetricsListener};
+ * raw SQL issued through {@code DatabaseClient} is wrapped explicitly with {@link #timed(String, Map, Flux)}.
+ * </p>
+ *
+ * @author serezk4
+ * @version 1.0
+ * @since 1.0
+ */
+@Component
+@Log4j2
+public class QueryMetrics {
+
+    public static final String METRIC = "db.query";
+
+    private final MeterRegistry meterRegistry;
+    private final Duration slowQueryThreshold;
+
+    public QueryMetrics(
+            final MeterRegistry meterRegistry,
+            final @Value("${box.r2dbc.slow-query-threshold:PT0.5S}") Duration slowQueryThreshold
+    ) {
+        this.meterRegistry = meterRegistry;
+        this.slowQueryThreshold = slowQueryThreshold;
+    }
+
+    /**
+     * Times a query emitting many rows, from subscription until it terminates.
+     *
+     * @param query  the query name used as the {@code query} tag
+     * @param binds  bind parameters of the query, used only to log their shape
+     * @param source the query publisher
+     * @param <T>    the row type
+     * @return the timed publisher
+     */
+    public <T> Flux<T> timed(String query, Map<String, ?> binds, Flux<T> source) {
+        return Flux.defer(() -> {
+            long start = System.nanoTime();
+            return source.doFinally(signal -> record(query, Duration.ofNanos(System.nanoTime() - start),
+                    outcome(signal), () -> shapeOf(binds)));
+        });
+    }
+
+    /**
+     * Times a query emitting at most one result, from subscription until it terminates.
+     *
+     * @param query  the query name used as the {@code query} tag
+     * @param binds  bind parameters of the query, used only to log their shape
+     * @param source the query publisher
+     * @param <T>    the result type
+     * @return the timed publisher
+     */
+    public <T> Mono<T> timed(String query, Map<String, ?> binds, Mono<T> source) {
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            return source.doFinally(signal -> record(query, Duration.ofNanos(System.nanoTime() - start),
+                    outcome(signal), () -> shapeOf(binds)));
+        });
+    }
+
+    /**
+     * Records a finished query.
+     *
+     * @param query     the query name used as the {@code query} tag
+     * @param duration  how long the query took
+     * @param outcome   {@code success}, {@code error} or {@code cancelled}
+     * @param bindShape supplier of the bind shape, evaluated only for slow queries
+     */
+    void record(String query, Duration duration, String outcome, Supplier<String> bindShape) {
+        Timer.builder(METRIC)
+                .description("Database query latency")
+                .tag("query", query)
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(duration);
+
+        if (duration.compareTo(slowQueryThreshold) >= 0)
+            log.warn("Slow query {} took {} ms ({}), binds: {}", query, duration.toMillis(), outcome, bindShape.get());
+    }
+
+    static String outcome(SignalType signal) {
+        return switch (signal) {
+            case ON_COMPLETE -> "success";
+            case ON_ERROR -> "error";
+            default -> "cancelled";
+        };
+    }
+
+    static String shapeOf(Map<String, ?> binds) {
+        return binds.entrySet().stream()
+                .map(bind -> bind.getKey() + ":" + shapeOf(bind.getValue()))
+                .collect(Collectors.joining(", ", "{", "}"));
+    }
+
+    static String shapeOf(Object value) {
+        if (value == null) return "null";
+        if (value instanceof Collection<?> collection) return "Collection[" + collection.size() + "]";
+        if (value.getClass().isArray())
+            return value.getClass().getComponentType().getSimpleName() + "[" + Array.getLength(value) + "]";
+        return value.getClass().getSimpleName();
+    }
+}
@@ -0,0 +1,55 @@
+package com.lockbox.box.database.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.r2dbc.spi.ConnectionFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.repository.core.support.RepositoryFactoryBeanSupport;
+
+/**
+ * Wires database instrumentation into the R2DBC infrastructure.
+ * <p>
+ * Connection factories are wrapped in {@link AcquireTimingConnectionFactory} and every repository
+ * factory gets a {@link RepositoryQueryMetricsListener}. Both post-processors resolve their
+ * collaborators lazily so that they do not force early initialization of the meter registry.
+ * </p>
+ *
+ * <p>Pool sizing itself is regular Spring Boot configuration under {@code spring.r2dbc.pool}.</p>
+ *
+ * @author serezk4
+ * @version 1.0
+ * @see QueryMetrics
+ * @since 1.0
+ */
+@Configuration
+public class R2dbcMetricsConfiguration {
+
+    @Bean
+    static BeanPostProcessor acquireTimingPostProcessor(ObjectProvider<MeterRegistry> meterRegistry) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof ConnectionFactory connectionFactory
+                        && !(bean instanceof AcquireTimingConnectionFactory))
+                    return new AcquireTimingConnectionFactory(connectionFactory, beanName, meterRegistry.getObject());
+                return bean;
+            }
+        };
+    }
+
+    @Bean
+    static BeanPostProcessor repositoryQueryMetricsPostProcessor(ObjectProvider<QueryMetrics> queryMetrics) {
+        RepositoryQueryMetricsListener listener = new RepositoryQueryMetricsListener(queryMetrics);
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessBeforeInitialization(Object bean, String beanName) {
+                if (bean instanceof RepositoryFactoryBeanSupport<?, ?, ?> repositoryFactoryBean)
+                    repositoryFactoryBean.addRepositoryFactoryCustomizer(
+                            repositoryFactory -> repositoryFactory.addInvocationListener(listener));
+                return bean;
+            }
+        };
+    }
+}
@@ -28,4 +28,19 @@ public interface BoxWithStatusRepository extends ReactiveCrudRepository<BoxWithS
     Flux<BoxWithStatus> findAllByOwnerSub(String ownerSub, int limit, int offset);
 
     Mono<BoxWithStatus> findByOwnerSubAndMacAddress(String ownerSub, String macAddress);
+
+    /**
+     * Retrieves the latest status of every box that has reported at least once.
+     * <p>
+     * Used to reconcile in-memory fleet aggregates; scans the whole view, so it must not be called
+     * on a request path.
+     * </p>
+     *
+     * @return a {@link Flux} containing one {@link BoxWithStatus} per reporting box
+     */
+    @Query("""
+                SELECT * FROM view_boxes_statuses
+                WHERE last_status_timestamp IS NOT NULL
+            """)
+    Flux<BoxWithStatus> findAllWithStatus();
 }
@@ -0,0 +1,106 @@
+package com.lockbox.box.database.routing;
+
+import io.micrometer.core.instrument.Tags;
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.Wrapped;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.actuate.metrics.r2dbc.ConnectionPoolMetrics;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.r2dbc.R2dbcProperties;
+import org.springframework.boot.context.properties.PropertyMapper;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.r2dbc.ConnectionFactoryBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.core.env.Environment;
+
+/**
+ * Sends read-only work to a replica when {@code box.r2dbc.replica.url} is set.
+ * <p>
+ * The connection pool auto-configured by Spring Boot stays the primary; it is wrapped in a
+ * {@link ReadWriteRoutingConnectionFactory} together with a replica pool sized from
+ * {@code spring.r2dbc.pool}. Without a replica URL nothing is routed and every query hits the primary.
+ * </p>
+ *
+ * @author serezk4
+ * @version 1.0
+ * @see ReadWriteRoutingConnectionFactory
+ * @since 1.0
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "box.r2dbc.replica", name = "url")
+public class ReadReplicaConfiguration {
+
+    private static final String PRIMARY_BEAN = "connectionFactory";
+
+    /**
+     * Wraps the primary connection factory before any other post-processor decorates it.
+     *
+     * @param environment the environment to bind replica and pool settings from
+     * @return the routing post-processor
+     */
+    @Bean
+    static BeanPostProcessor readReplicaRoutingPostProcessor(Environment environment) {
+        return new RoutingPostProcessor(environment);
+    }
+
+    /**
+     * Binds the replica pool gauges, tagged {@code name=replica}.
+     *
+     * @param connectionFactory the (decorated) routing connection factory
+     * @return the replica pool metrics
+     */
+    @Bean
+    ConnectionPoolMetrics replicaConnectionPoolMetrics(ConnectionFactory connectionFactory) {
+        ConnectionFactory current = connectionFactory;
+        while (!(current instanceof ReadWriteRoutingConnectionFactory) && current instanceof Wrapped<?> wrapped)
+            current = (ConnectionFactory) wrapped.unwrap();
+
+        if (!(current instanceof ReadWriteRoutingConnectionFactory routing)
+                || !(routing.replica() instanceof ConnectionPool replicaPool))
+            throw new IllegalStateException("read replica routing is not installed");
+        return new ConnectionPoolMetrics(replicaPool, "replica", Tags.empty());
+    }
+
+    private record RoutingPostProcessor(Environment environment) implements BeanPostProcessor, Ordered {
+
+        @Override
+        public Object postProcessAfterInitialization(Object bean, String beanName) {
+            if (!PRIMARY_BEAN.equals(beanName) || !(bean instanceof ConnectionFactory primary)) return bean;
+            return new ReadWriteRoutingConnectionFactory(primary, replica());
+        }
+
+        @Override
+        public int getOrder() {
+            return Ordered.HIGHEST_PRECEDENCE;
+        }
+
+        private ConnectionPool replica() {
+            Binder binder = Binder.get(environment);
+            R2dbcProperties r2dbc = binder.bind("spring.r2dbc", R2dbcProperties.class).orElseGet(R2dbcProperties::new);
+            ReplicaProperties replica = binder.bind("box.r2dbc.replica", ReplicaProperties.class).get();
+
+            ConnectionFactory connectionFactory = ConnectionFactoryBuilder.withUrl(replica.url())
+                    .username(replica.username() != null ? replica.username() : r2dbc.getUsername())
+                    .password(replica.password() != null ? replica.password() : r2dbc.getPassword())
+                    .build();
+
+            R2dbcProperties.Pool pool = r2dbc.getPool();
+            ConnectionPoolConfiguration.Builder builder = ConnectionPoolConfiguration.builder(connectionFactory)
+                    .name("replica");
+            PropertyMapper map = PropertyMapper.get().alwaysApplyingWhenNonNull();
+            map.from(pool.getInitialSize()).to(builder::initialSize);
+            map.from(pool.getMaxSize()).to(builder::maxSize);
+            map.from(pool.getMinIdle()).to(builder::minIdle);
+            map.from(pool.getMaxIdleTime()).to(builder::maxIdleTime);
+            map.from(pool.getMaxLifeTime()).to(builder::maxLifeTime);
+            map.from(pool.getMaxAcquireTime()).to(builder::maxAcquireTime);
+            map.from(pool.getMaxCreateConnectionTime()).to(builder::maxCreateConnectionTime);
+            map.from(pool.getValidationQuery()).to(builder::validationQuery);
+            return new ConnectionPool(builder.build());
+        }
+    }
+}
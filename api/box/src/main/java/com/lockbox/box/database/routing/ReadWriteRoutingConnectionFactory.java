@@ -0,0 +1,82 @@
+package com.lockbox.box.database.routing;
+
+import io.r2dbc.spi.Closeable;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.Wrapped;
+import org.reactivestreams.Publisher;
+import org.springframework.r2dbc.connection.lookup.AbstractRoutingConnectionFactory;
+import org.springframework.transaction.NoTransactionException;
+import org.springframework.transaction.reactive.TransactionSynchronizationManager;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+
+/**
+ * Routes connections to the primary or to a read replica depending on the current transaction.
+ * <p>
+ * Connections requested within a {@code readOnly} transactional scope that did not start a physical
+ * transaction ({@code propagation = SUPPORTS}) go to the replica; everything else, including any
+ * read-write transaction and code running outside of {@code @Transactional}, goes to the primary.
+ * A read-only scope nested in a read-write transaction joins the already bound primary connection.
+ * </p>
+ *
+ * <p>{@link #unwrap()} exposes the primary so that Spring Boot keeps binding its pool metrics.</p>
+ *
+ * @author serezk4
+ * @version 1.0
+ * @see ReadReplicaConfiguration
+ * @since 1.0
+ */
+public class ReadWriteRoutingConnectionFactory extends AbstractRoutingConnectionFactory
+        implements Wrapped<ConnectionFactory>, Closeable {
+
+    /**
+     * Lookup keys of the target connection factories.
+     */
+    public enum Route {
+        PRIMARY, REPLICA
+    }
+
+    private final ConnectionFactory primary;
+    private final ConnectionFactory replica;
+
+    public ReadWriteRoutingConnectionFactory(ConnectionFactory primary, ConnectionFactory replica) {
+        this.primary = primary;
+        this.replica = replica;
+        setTargetConnectionFactories(Map.of(Route.PRIMARY, primary, Route.REPLICA, replica));
+        setDefaultTargetConnectionFactory(primary);
+        setLenientFallback(false);
+        afterPropertiesSet();
+    }
+
+    @Override
+    protected Mono<Object> determineCurrentLookupKey() {
+        return TransactionSynchronizationManager.forCurrentTransaction()
+                .map(synchronization -> (Object) (synchronization.isCurrentTransactionReadOnly()
+                        && !synchronization.isActualTransactionActive() ? Route.REPLICA : Route.PRIMARY))
+                .onErrorResume(NoTransactionException.class, e -> Mono.just(Route.PRIMARY));
+    }
+
+    /**
+     * Returns the replica connection factory.
+     *
+     * @return the replica
+     */
+    public ConnectionFactory replica() {
+        return replica;
+    }
+
+    @Override
+    public ConnectionFactory unwrap() {
+        return primary;
+    }
+
+    @Override
+    public Publisher<Void> close() {
+        return Mono.when(close(primary), close(replica));
+    }
+
+    private static Publisher<Void> close(ConnectionFactory connectionFactory) {
+        return connectionFactory instanceof Closeable closeable ? closeable.close() : Mono.empty();
+    }
+}
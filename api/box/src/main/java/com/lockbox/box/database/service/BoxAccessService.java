@@ -3,12 +3,15 @@ package com.lockbox.box.database.service;
 import com.lockbox.box.database.model.BoxAccess;
 import com.lockbox.box.database.repository.BoxAccessRepository;
 import com.lockbox.box.database.util.TokenGenerator;
+import com.lockbox.cache.InvalidationBus;
+import com.lockbox.cache.InvalidationEvent;
 import lombok.AccessLevel;
 import lombok.RequiredArgsConstructor;
 import lombok.experimental.FieldDefaults;
 import lombok.extern.log4j.Log4j2;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Isolation;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
@@ -22,23 +25,31 @@ import java.util.UUID;
 @Log4j2
 public class BoxAccessService {
     BoxAccessRepository boxAccessRepository;
+    InvalidationBus invalidationBus;
 
     public Mono<BoxAccess> save(BoxAccess boxAccess) {
-        return boxAccessRepository.save(boxAccess.setToken(TokenGenerator.generateToken()));
+        return boxAccessRepository.save(boxAccess.setToken(TokenGenerator.generateToken()))
+                .flatMap(saved -> invalidationBus
+                        .publish(InvalidationEvent.Type.BOX_ACCESS_CHANGED, saved.getUuid().toString())
+                        .thenReturn(saved));
     }
 
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
     public Mono<BoxAccess> findById(UUID id) {
         return boxAccessRepository.findById(id);
     }
 
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
     public Mono<BoxAccess> findByToken(String token) {
         return boxAccessRepository.findByToken(token);
     }
 
     public Mono<Void> deleteById(UUID id) {
-        return boxAccessRepository.deleteById(id);
+        return boxAccessRepository.deleteById(id)
+                .then(invalidationBus.publish(InvalidationEvent.Type.BOX_ACCESS_CHANGED, id.toString()));
     }
 
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
     public Flux<BoxAccess> findAllByMacAddress(String macAddress) {
         return boxAccessRepository.findAllByMacAddress(macAddress);
     }
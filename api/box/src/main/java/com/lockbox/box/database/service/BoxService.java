@@ -2,6 +2,9 @@ package com.lockbox.box.database.service;
 
 import com.lockbox.box.database.model.Box;
 import com.lockbox.box.database.repository.BoxRepository;
+import com.lockbox.cache.InvalidationBus;
+import com.lockbox.cache.InvalidationEvent;
+import com.lockbox.cache.TwoLevelCache;
 import lombok.AccessLevel;
 import lombok.RequiredArgsConstructor;
 import lombok.experimental.FieldDefaults;
@@ -9,6 +12,7 @@ import lombok.extern.log4j.Log4j2;
 import org.springframework.r2dbc.core.DatabaseClient;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Isolation;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
@@ -18,7 +22,9 @@ import reactor.core.publisher.Mono;
  * and retrieving them by owner ID.
  * <p>
  * This class handles business logic related to box management and ensures transactions
- * operate with {@code READ_COMMITTED} isolation to maintain data integrity.
+ * operate with {@code READ_COMMITTED} isolation to maintain data integrity. Lookups run without
+ * a physical transaction ({@code SUPPORTS}, read-only), so they skip the {@code BEGIN}/{@code COMMIT}
+ * round trips and may be served by the read replica.
  * </p>
  * <p>
  * The {@code BoxService} leverages reactive types such as {@link Mono} and {@link Flux}
@@ -51,6 +57,16 @@ public class BoxService {
 
     DatabaseClient databaseClient;
 
+    /**
+     * Bus announcing box changes to the in-process caches of every node.
+     */
+    InvalidationBus invalidationBus;
+
+    /**
+     * Two-level cache of boxes by MAC address, kept fresh by {@link #invalidationBus}.
+     */
+    TwoLevelCache<String, Box> boxCache;
+
     /**
      * Saves a {@link Box} entity to the database.
      *
@@ -58,7 +74,8 @@ public class BoxService {
      * @return a {@link Mono} containing the saved {@link Box} entity
      */
     public Mono<Box> save(Box box) {
-        return boxRepository.save(box);
+        return boxRepository.save(box)
+                .flatMap(this::invalidate);
     }
 
     /**
@@ -68,17 +85,19 @@ public class BoxService {
      * @return a {@link Mono} containing the upserted {@link Box} entity
      */
     public Mono<Box> upsert(Box box) {
-        return boxRepository.upsert(box);
+        return boxRepository.upsert(box)
+                .flatMap(this::invalidate);
     }
 
     /**
-     * Retrieves a {@link Box} entity by its MAC address.
+     * Retrieves a {@link Box} entity by its MAC address, from the cache when possible.
      *
      * @param macAddress the MAC address of the box
      * @return a {@link Mono} containing the {@link Box} entity with the specified MAC address
      */
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
     public Mono<Box> findByMacAddress(String macAddress) {
-        return boxRepository.findById(macAddress);
+        return boxCache.get(macAddress, boxRepository::findById);
     }
 
     /**
@@ -87,6 +106,7 @@ public class BoxService {
      * @param ownerSub the ID of the owner
      * @return a {@link Mono} containing the total count of {@link Box} entities matching the owner ID
      */
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
     public Mono<Long> countAllByOwnerSub(String ownerSub) {
         return boxRepository.countAllByOwnerSub(ownerSub);
     }
@@ -98,6 +118,7 @@ public class BoxService {
      * @param ownerSub   the ID of the owner
      * @return a {@link Mono} containing a box mac address
      */
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
     public Mono<String> existsByMacAddressAndOwnerSub(String macAddress, String ownerSub) {
         return boxRepository.existsByMacAddressAndOwnerSub(macAddress, ownerSub)
                 .filter(exists -> exists).map(exists -> macAddress);
@@ -110,7 +131,13 @@ public class BoxService {
      * @param ownerSub   the ID of the owner
      * @return a {@link Mono} containing the {@link Box} entity with the specified MAC address and owner ID
      */
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
     public Mono<Box> findByMacAddressAndOwnerSub(String macAddress, String ownerSub) {
         return boxRepository.findByMacAddressAndOwnerSub(macAddress, ownerSub);
     }
+
+    private Mono<Box> invalidate(Box box) {
+        return invalidationBus.publish(InvalidationEvent.Type.BOX_CHANGED, box.getMacAddress())
+                .thenReturn(box);
+    }
 }
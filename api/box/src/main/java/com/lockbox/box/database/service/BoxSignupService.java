@@ -8,6 +8,7 @@ import lombok.experimental.FieldDefaults;
 import lombok.extern.log4j.Log4j2;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Isolation;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 import reactor.core.publisher.Mono;
 
@@ -23,10 +24,13 @@ public class BoxSignupService {
         return boxSignupRepository.save(boxSignup);
     }
 
+    // read right after save() to pick up the generated code, so it must stay on the primary
+    @Transactional(propagation = Propagation.SUPPORTS)
     public Mono<BoxSignup> findById(Long id) {
         return boxSignupRepository.findById(id);
     }
 
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
     public Mono<BoxSignup> findByCode(Integer code) {
         return boxSignupRepository.findByCode(code);
     }
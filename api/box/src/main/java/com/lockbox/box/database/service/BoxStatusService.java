@@ -8,6 +8,7 @@ import lombok.experimental.FieldDefaults;
 import lombok.extern.log4j.Log4j2;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Isolation;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 import reactor.core.publisher.Mono;
 
@@ -15,8 +16,8 @@ import reactor.core.publisher.Mono;
  * Service layer for managing {@link BoxStatus} entities, handling business logic related to
  * box status updates and retrieval.
  * <p>
- * This class operates with {@code READ_COMMITTED} isolation level to maintain data consistency,
- * ensuring that only committed data is read during transactions.
+ * Writes operate with {@code READ_COMMITTED} isolation level to maintain data consistency;
+ * lookups run without a physical transaction and may be served by the read replica.
  * </p>
  * <p>
  * Reactive types, such as {@link Mono}, are used to support non-blocking I/O and optimize
@@ -63,6 +64,7 @@ public class BoxStatusService {
      * @param macAddress the MAC address of the box
      * @return a {@link Mono} containing the latest {@link BoxStatus} for the specified MAC address
      */
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
     public Mono<BoxStatus> findTopByMacAddress(String macAddress) {
         return boxStatusRepository.findFirstByMacAddressOrderByTimestampDesc(macAddress)
                 .switchIfEmpty(
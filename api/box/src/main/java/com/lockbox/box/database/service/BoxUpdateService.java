@@ -8,6 +8,7 @@ import lombok.experimental.FieldDefaults;
 import lombok.extern.log4j.Log4j2;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Isolation;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
@@ -26,6 +27,7 @@ public class BoxUpdateService {
         return boxUpdateRepository.save(boxUpdate);
     }
 
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
     public Flux<BoxUpdate> findAllByMacAddressAndTimestampAfter(String macAddress, Timestamp timestamp) {
         return boxUpdateRepository.findAllByMacAddressAndTimestampAfter(macAddress, timestamp);
     }
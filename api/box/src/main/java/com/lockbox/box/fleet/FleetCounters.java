@@ -0,0 +1,55 @@
+package com.lockbox.box.fleet;
+
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Mutable counters backing one fleet summary (either the whole fleet or a single owner).
+ * <p>
+ * Not thread-safe: instances are only touched while holding the {@link FleetHealthAggregator} monitor.
+ * </p>
+ */
+final class FleetCounters {
+
+    static final int BATTERY_BUCKETS = 10;
+
+    long boxes;
+    long lowBattery;
+    long opened;
+    final long[] battery = new long[BATTERY_BUCKETS];
+    final long[] signal = new long[SignalQuality.values().length];
+
+    /**
+     * Adds ({@code sign = 1}) or removes ({@code sign = -1}) a snapshot from the counters.
+     */
+    void apply(FleetSnapshot snapshot, int sign) {
+        boxes += sign;
+        if (snapshot.batteryLevel() < FleetHealthAggregator.LOW_BATTERY_THRESHOLD) lowBattery += sign;
+        if (snapshot.opened()) opened += sign;
+        battery[batteryBucket(snapshot.batteryLevel())] += sign;
+        signal[SignalQuality.of(snapshot.signalStrength()).ordinal()] += sign;
+    }
+
+    boolean isEmpty() {
+        return boxes == 0;
+    }
+
+    FleetSummary toSummary(Instant reconciledAt) {
+        Map<String, Long> batteryHistogram = new LinkedHashMap<>();
+        int width = 100 / BATTERY_BUCKETS;
+        for (int i = 0; i < BATTERY_BUCKETS; i++)
+            batteryHistogram.put((i * width) + "-" + ((i + 1) * width), battery[i]);
+
+        Map<String, Long> signalQuality = new LinkedHashMap<>();
+        for (SignalQuality quality : SignalQuality.values())
+            signalQuality.put(quality.getAlias(), signal[quality.ordinal()]);
+
+        return new FleetSummary(boxes, lowBattery, opened, batteryHistogram, signalQuality, reconciledAt);
+    }
+
+    static int batteryBucket(double batteryLevel) {
+        int bucket = (int) (batteryLevel / (100.0 / BATTERY_BUCKETS));
+        return Math.max(0, Math.min(BATTERY_BUCKETS - 1, bucket));
+    }
+}
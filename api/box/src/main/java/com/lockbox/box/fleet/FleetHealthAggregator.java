@@ -0,0 +1,185 @@
+package com.lockbox.box.fleet;
+
+import com.lockbox.box.database.model.Box;
+import com.lockbox.box.database.model.BoxStatus;
+import com.lockbox.box.database.model.BoxWithStatus;
+import com.lockbox.box.database.repository.BoxWithStatusRepository;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import reactor.core.publisher.Mono;
+
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Keeps fleet health aggregates in memory so that summaries never have to scan {@code box_statuses}.
+ * <p>
+ * Every accepted status replaces the previous snapshot of its box, and the counters of the whole fleet
+ * and of the box owner are adjusted by the difference. A periodic reconcile reloads the latest status of
+ * every box from {@code view_boxes_statuses} and swaps it in, which repairs drift caused by writes that
+ * bypassed this component (other replicas, manual SQL, ownership changes).
+ * </p>
+ *
+ * <p>All state is guarded by the instance monitor; updates are O(1) and never block on I/O.</p>
+ *
+ * @author serezk4
+ * @version 1.0
+ * @see FleetSummary
+ * @since 1.0
+ */
+@Component
+@Log4j2
+public class FleetHealthAggregator {
+
+    /**
+     * Battery level (percent, exclusive) under which a box is counted as low on battery.
+     */
+    public static final double LOW_BATTERY_THRESHOLD = 20.0;
+
+    private final BoxWithStatusRepository boxWithStatusRepository;
+
+    private final Map<String, FleetSnapshot> snapshots = new HashMap<>();
+    private final Map<String, FleetCounters> owners = new HashMap<>();
+    private FleetCounters total = new FleetCounters();
+    private Instant reconciledAt;
+
+    public FleetHealthAggregator(BoxWithStatusRepository boxWithStatusRepository) {
+        this.boxWithStatusRepository = boxWithStatusRepository;
+    }
+
+    /**
+     * Takes a freshly accepted status into the aggregates.
+     *
+     * @param box    the box the status belongs to
+     * @param status the accepted status
+     */
+    public synchronized void accept(Box box, BoxStatus status) {
+        if (status.getBatteryLevel() == null || status.getSignalStrength() == null || status.getOpened() == null)
+            return;
+
+        put(box.getMacAddress(), new FleetSnapshot(
+                box.getOwnerSub(),
+                status.getBatteryLevel(),
+                status.getSignalStrength(),
+                status.getOpened(),
+                Instant.now()
+        ));
+    }
+
+    /**
+     * Takes a freshly accepted status of an already known box into the aggregates, keeping its owner.
+     *
+     * @param status the accepted status
+     * @return {@code true} if the box was known and the status was applied
+     */
+    public synchronized boolean acceptKnown(BoxStatus status) {
+        FleetSnapshot current = snapshots.get(status.getMacAddress());
+        if (current == null) return false;
+
+        accept(new Box().setMacAddress(status.getMacAddress()).setOwnerSub(current.ownerSub()), status);
+        return true;
+    }
+
+    /**
+     * Checks whether a box has already reported a status, either since startup or in the last reconcile.
+     *
+     * @param macAddress the MAC address of the box
+     * @return {@code true} if the box is part of the aggregates
+     */
+    public synchronized boolean knows(String macAddress) {
+        return snapshots.containsKey(macAddress);
+    }
+
+    /**
+     * Moves a box to another owner without waiting for the next reconcile.
+     *
+     * @param macAddress the MAC address of the box
+     * @param ownerSub   the new owner, or {@code null} if the box was unassigned
+     */
+    public synchronized void reassign(String macAddress, String ownerSub) {
+        FleetSnapshot current = snapshots.get(macAddress);
+        if (current != null) put(macAddress, current.withOwner(ownerSub));
+    }
+
+    /**
+     * Returns the summary of the whole fleet.
+     *
+     * @return the fleet-wide {@link FleetSummary}
+     */
+    public synchronized FleetSummary summary() {
+        return total.toSummary(reconciledAt);
+    }
+
+    /**
+     * Returns the summary of the boxes owned by the given user.
+     *
+     * @param ownerSub the owner sub
+     * @return the owner-scoped {@link FleetSummary}, empty if the owner has no reporting boxes
+     */
+    public synchronized FleetSummary summary(String ownerSub) {
+        return owners.getOrDefault(ownerSub, new FleetCounters()).toSummary(reconciledAt);
+    }
+
+    /**
+     * Rebuilds the aggregates from the latest status of every box.
+     * <p>
+     * Snapshots accepted while the reload was running are newer than what the database returned
+     * and are kept over the reloaded ones. The scan is read-only and may be served by the read replica.
+     * </p>
+     *
+     * @return a {@link Mono} completing once the rebuilt state is swapped in
+     */
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    @Scheduled(
+            initialDelayString = "${box.fleet.reconcile-initial-delay:PT5S}",
+            fixedDelayString = "${box.fleet.reconcile-interval:PT5M}"
+    )
+    public Mono<Void> reconcile() {
+        Instant startedAt = Instant.now();
+        return boxWithStatusRepository.findAllWithStatus()
+                .collectMap(BoxWithStatus::getMacAddress, box -> new FleetSnapshot(
+                        box.getOwnerSub(),
+                        box.getBatteryLevel(),
+                        box.getSignalStrength(),
+                        box.isOpened(),
+                        startedAt
+                ))
+                .doOnNext(reloaded -> swap(reloaded, startedAt))
+                .doOnError(error -> log.error("Fleet health reconcile failed", error))
+                .onErrorComplete()
+                .then();
+    }
+
+    private synchronized void swap(Map<String, FleetSnapshot> reloaded, Instant startedAt) {
+        snapshots.forEach((macAddress, snapshot) -> {
+            if (snapshot.observedAt().isAfter(startedAt)) reloaded.put(macAddress, snapshot);
+        });
+
+        snapshots.clear();
+        owners.clear();
+        total = new FleetCounters();
+        reloaded.forEach(this::put);
+        reconciledAt = startedAt;
+
+        log.debug("Fleet health reconciled: {} boxes", snapshots.size());
+    }
+
+    private void put(String macAddress, FleetSnapshot snapshot) {
+        FleetSnapshot previous = snapshots.put(macAddress, snapshot);
+        if (previous != null) apply(previous, -1);
+        apply(snapshot, 1);
+    }
+
+    private void apply(FleetSnapshot snapshot, int sign) {
+        total.apply(snapshot, sign);
+        if (snapshot.ownerSub() == null) return;
+
+        FleetCounters counters = owners.computeIfAbsent(snapshot.ownerSub(), owner -> new FleetCounters());
+        counters.apply(snapshot, sign);
+        if (counters.isEmpty()) owners.remove(snapshot.ownerSub());
+    }
+}
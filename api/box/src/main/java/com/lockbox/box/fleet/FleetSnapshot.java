@@ -0,0 +1,24 @@
+package com.lockbox.box.fleet;
+
+import java.time.Instant;
+
+/**
+ * Latest known health reading of a single box, as held by {@link FleetHealthAggregator}.
+ *
+ * @param ownerSub       owner of the box, {@code null} for unassigned boxes
+ * @param batteryLevel   battery level in percent
+ * @param signalStrength signal strength in dBm
+ * @param opened         whether the box was reported open
+ * @param observedAt     local time the reading was taken into the aggregate
+ */
+record FleetSnapshot(
+        String ownerSub,
+        double batteryLevel,
+        double signalStrength,
+        boolean opened,
+        Instant observedAt
+) {
+    FleetSnapshot withOwner(String newOwnerSub) {
+        return new FleetSnapshot(newOwnerSub, batteryLevel, signalStrength, opened, observedAt);
+    }
+}
@@ -0,0 +1,52 @@
+package com.lockbox.box.fleet;
+
+import lombok.Value;
+
+import java.io.Serializable;
+import java.time.Instant;
+import java.util.Map;
+
+/**
+ * Point-in-time fleet health summary served by the fleet endpoints.
+ * <p>
+ * All counts refer to the latest known status of each box. Boxes that never reported a status
+ * are not included.
+ * </p>
+ *
+ * @author serezk4
+ * @version 1.0
+ * @since 1.0
+ */
+@Value
+public class FleetSummary implements Serializable {
+
+    /**
+     * Number of boxes with at least one reported status.
+     */
+    long boxes;
+
+    /**
+     * Number of boxes whose battery level is below {@link FleetHealthAggregator#LOW_BATTERY_THRESHOLD}.
+     */
+    long lowBattery;
+
+    /**
+     * Number of boxes currently reported as open.
+     */
+    long opened;
+
+    /**
+     * Battery level histogram, keyed by range in percent (e.g. {@code "20-30"}).
+     */
+    Map<String, Long> batteryHistogram;
+
+    /**
+     * Number of boxes per {@link SignalQuality} bucket, keyed by bucket alias.
+     */
+    Map<String, Long> signalQuality;
+
+    /**
+     * Time of the last successful reconcile against the database, {@code null} before the first one.
+     */
+    Instant reconciledAt;
+}
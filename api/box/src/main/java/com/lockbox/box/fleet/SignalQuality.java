@@ -0,0 +1,49 @@
+package com.lockbox.box.fleet;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.FieldDefaults;
+
+/**
+ * Signal quality buckets used by the fleet health summary.
+ * <p>
+ * Buckets are ordered from best to worst; a reading belongs to the first bucket whose
+ * {@link #floor} it reaches. Thresholds follow the usual RSSI interpretation for Wi-Fi devices.
+ * </p>
+ *
+ * @author serezk4
+ * @version 1.0
+ * @since 1.0
+ */
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+@RequiredArgsConstructor
+@Getter
+public enum SignalQuality {
+    EXCELLENT("excellent", -50),
+    GOOD("good", -67),
+    FAIR("fair", -80),
+    POOR("poor", Double.NEGATIVE_INFINITY);
+
+    /**
+     * Name of the bucket as exposed in the API.
+     */
+    String alias;
+
+    /**
+     * Lowest signal strength (dBm, inclusive) that still belongs to this bucket.
+     */
+    double floor;
+
+    /**
+     * Resolves the bucket for the given signal strength.
+     *
+     * @param signalStrength the signal strength in dBm
+     * @return the matching {@link SignalQuality}
+     */
+    public static SignalQuality of(double signalStrength) {
+        for (SignalQuality quality : values())
+            if (signalStrength >= quality.floor) return quality;
+        return POOR;
+    }
+}
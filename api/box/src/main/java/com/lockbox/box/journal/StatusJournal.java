@@ -0,0 +1,291 @@
+package com.lockbox.box.journal;
+
+import lombok.extern.log4j.Log4j2;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Durable, append-only journal of accepted box statuses backed by memory-mapped segment files.
+ * <p>
+ * Statuses are appended as fixed-size records to the current segment and acknowledged right away;
+ * {@link StatusJournalReplayer} later drains them into {@code box_statuses} and advances the checkpoint.
+ * Each record carries a CRC and is marked committed only after its payload is written, so a torn
+ * write is detected on restart and the journal resumes right before it.
+ * </p>
+ *
+ * <p><b>Layout:</b></p>
+ * <ul>
+ *     <li>{@code segment-<first sequence>.log} - preallocated segments of {@code segmentRecords} records.</li>
+ *     <li>{@code checkpoint} - sequence of the first record not yet replayed, replaced atomically.</li>
+ * </ul>
+ *
+ * <p>Delivery is at-least-once: records replayed right before a crash may be replayed again.</p>
+ *
+ * @author serezk4
+ * @version 1.0
+ * @see StatusJournalReplayer
+ * @since 1.0
+ */
+@Log4j2
+public final class StatusJournal implements Closeable {
+
+    static final int RECORD_SIZE = 64;
+    static final int MAC_LENGTH = 17;
+
+    private static final int COMMITTED = 0x4C42534A;
+    private static final int PAYLOAD_OFFSET = 8;
+
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final String CHECKPOINT_FILE = "checkpoint";
+
+    private final Path directory;
+    private final int segmentRecords;
+    private final boolean forceOnAppend;
+    private final TreeMap<Long, MappedByteBuffer> segments = new TreeMap<>();
+
+    private long writeSequence;
+    private long checkpoint;
+
+    private StatusJournal(Path directory, int segmentRecords, boolean forceOnAppend) {
+        this.directory = directory;
+        this.segmentRecords = segmentRecords;
+        this.forceOnAppend = forceOnAppend;
+    }
+
+    /**
+     * Opens the journal in the given directory, recovering segments and the checkpoint left by a previous run.
+     *
+     * @param directory      the journal directory, created if missing
+     * @param segmentRecords number of records per segment file
+     * @param forceOnAppend  whether every append is forced to the storage device before it is acknowledged
+     * @return the opened journal
+     * @throws IOException if the directory or its files cannot be read
+     */
+    public static StatusJournal open(Path directory, int segmentRecords, boolean forceOnAppend) throws IOException {
+        if (segmentRecords <= 0) throw new IllegalArgumentException("segmentRecords must be positive");
+
+        StatusJournal journal = new StatusJournal(directory, segmentRecords, forceOnAppend);
+        Files.createDirectories(directory);
+        journal.recover();
+        return journal;
+    }
+
+    /**
+     * Appends a record to the journal.
+     *
+     * @param record the record to append
+     * @return the sequence number assigned to the record
+     * @throws IOException if a new segment cannot be created
+     */
+    public synchronized long append(StatusJournalRecord record) throws IOException {
+        long sequence = writeSequence;
+        MappedByteBuffer segment = segmentFor(sequence);
+        write(segment, slot(sequence), record);
+        if (forceOnAppend) segment.force();
+        writeSequence = sequence + 1;
+        return sequence;
+    }
+
+    /**
+     * Reads up to {@code max} records starting at the checkpoint.
+     *
+     * @param max the maximum number of records to read
+     * @return the batch, empty if everything has been replayed
+     */
+    public synchronized Batch read(int max) {
+        long to = Math.min(writeSequence, checkpoint + max);
+        List<StatusJournalRecord> records = new ArrayList<>((int) (to - checkpoint));
+        for (long sequence = checkpoint; sequence < to; sequence++)
+            records.add(read(segments.floorEntry(sequence).getValue(), slot(sequence)));
+        return new Batch(checkpoint, to, records);
+    }
+
+    /**
+     * Marks every record before {@code upTo} as replayed and drops segments that are no longer needed.
+     *
+     * @param upTo the sequence of the first record that still has to be replayed
+     * @throws IOException if the checkpoint cannot be persisted
+     */
+    public synchronized void commit(long upTo) throws IOException {
+        if (upTo <= checkpoint) return;
+        if (upTo > writeSequence) throw new IllegalArgumentException("commit beyond write position: " + upTo);
+
+        Path temporary = directory.resolve(CHECKPOINT_FILE + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            channel.write(ByteBuffer.allocate(Long.BYTES).putLong(0, upTo));
+            channel.force(true);
+        }
+        Files.move(temporary, directory.resolve(CHECKPOINT_FILE),
+                StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        checkpoint = upTo;
+
+        long active = base(writeSequence);
+        while (!segments.isEmpty() && segments.firstKey() + segmentRecords <= checkpoint
+                && segments.firstKey() < active) {
+            long base = segments.pollFirstEntry().getKey();
+            Files.deleteIfExists(segmentPath(base));
+        }
+    }
+
+    /**
+     * Returns the number of records accepted but not yet replayed.
+     *
+     * @return the journal lag in records
+     */
+    public synchronized long lag() {
+        return writeSequence - checkpoint;
+    }
+
+    /**
+     * Returns how long the oldest pending record has been waiting for replay.
+     *
+     * @return the age of the oldest pending record, {@link Duration#ZERO} if nothing is pending
+     */
+    public synchronized Duration oldestPendingAge() {
+        if (writeSequence == checkpoint) return Duration.ZERO;
+        StatusJournalRecord oldest = read(segments.floorEntry(checkpoint).getValue(), slot(checkpoint));
+        Duration age = Duration.between(oldest.acceptedAt(), Instant.now());
+        return age.isNegative() ? Duration.ZERO : age;
+    }
+
+    public boolean isForceOnAppend() {
+        return forceOnAppend;
+    }
+
+    @Override
+    public synchronized void close() {
+        segments.values().forEach(MappedByteBuffer::force);
+        segments.clear();
+    }
+
+    private void recover() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : files.toList()) {
+                String name = file.getFileName().toString();
+                if (!name.startsWith(SEGMENT_PREFIX) || !name.endsWith(SEGMENT_SUFFIX)) continue;
+                long base = Long.parseLong(name.substring(SEGMENT_PREFIX.length(),
+                        name.length() - SEGMENT_SUFFIX.length()));
+                segments.put(base, map(base));
+            }
+        }
+
+        if (segments.isEmpty()) {
+            writeSequence = 0;
+        } else {
+            Map.Entry<Long, MappedByteBuffer> last = segments.lastEntry();
+            int index = 0;
+            while (index < segmentRecords && isCommitted(last.getValue(), index * RECORD_SIZE)) index++;
+            writeSequence = last.getKey() + index;
+        }
+
+        Path checkpointPath = directory.resolve(CHECKPOINT_FILE);
+        long lowest = segments.isEmpty() ? writeSequence : segments.firstKey();
+        checkpoint = Files.exists(checkpointPath)
+                ? ByteBuffer.wrap(Files.readAllBytes(checkpointPath)).getLong()
+                : lowest;
+        checkpoint = Math.max(lowest, Math.min(checkpoint, writeSequence));
+
+        log.info("Status journal opened at {}: checkpoint={}, writeSequence={}", directory, checkpoint, writeSequence);
+    }
+
+    private MappedByteBuffer segmentFor(long sequence) throws IOException {
+        long base = base(sequence);
+        MappedByteBuffer segment = segments.get(base);
+        if (segment == null) {
+            segment = map(base);
+            segments.put(base, segment);
+        }
+        return segment;
+    }
+
+    private MappedByteBuffer map(long base) throws IOException {
+        long size = (long) segmentRecords * RECORD_SIZE;
+        try (RandomAccessFile file = new RandomAccessFile(segmentPath(base).toFile(), "rw")) {
+            if (file.length() != size) file.setLength(size);
+            return file.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, size);
+        }
+    }
+
+    private Path segmentPath(long base) {
+        return directory.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, base, SEGMENT_SUFFIX));
+    }
+
+    private long base(long sequence) {
+        return sequence - Math.floorMod(sequence, segmentRecords);
+    }
+
+    private int slot(long sequence) {
+        return (int) Math.floorMod(sequence, segmentRecords) * RECORD_SIZE;
+    }
+
+    private static void write(MappedByteBuffer segment, int offset, StatusJournalRecord record) {
+        byte[] mac = record.macAddress().getBytes(StandardCharsets.US_ASCII);
+        if (mac.length != MAC_LENGTH) throw new IllegalArgumentException("invalid mac address: " + record.macAddress());
+
+        segment.putInt(offset, 0);
+        segment.putLong(offset + 8, record.acceptedAt().toEpochMilli());
+        segment.putLong(offset + 16, record.timestamp().toEpochMilli());
+        segment.putDouble(offset + 24, record.batteryLevel());
+        segment.putDouble(offset + 32, record.signalStrength());
+        segment.put(offset + 40, (byte) (record.opened() ? 1 : 0));
+        segment.put(offset + 41, mac);
+        segment.putInt(offset + 4, checksum(segment, offset));
+        segment.putInt(offset, COMMITTED);
+    }
+
+    private static StatusJournalRecord read(MappedByteBuffer segment, int offset) {
+        byte[] mac = new byte[MAC_LENGTH];
+        segment.get(offset + 41, mac);
+        return new StatusJournalRecord(
+                new String(mac, StandardCharsets.US_ASCII),
+                segment.getDouble(offset + 24),
+                segment.getDouble(offset + 32),
+                segment.get(offset + 40) == 1,
+                Instant.ofEpochMilli(segment.getLong(offset + 16)),
+                Instant.ofEpochMilli(segment.getLong(offset + 8))
+        );
+    }
+
+    private static boolean isCommitted(MappedByteBuffer segment, int offset) {
+        return segment.getInt(offset) == COMMITTED && segment.getInt(offset + 4) == checksum(segment, offset);
+    }
+
+    private static int checksum(MappedByteBuffer segment, int offset) {
+        CRC32 crc = new CRC32();
+        crc.update(segment.slice(offset + PAYLOAD_OFFSET, RECORD_SIZE - PAYLOAD_OFFSET));
+        return (int) crc.getValue();
+    }
+
+    /**
+     * A contiguous range of journal records.
+     *
+     * @param from    sequence of the first record in the batch
+     * @param to      sequence right after the last record in the batch
+     * @param records the records, in sequence order
+     */
+    public record Batch(long from, long to, List<StatusJournalRecord> records) {
+        public boolean isEmpty() {
+            return records.isEmpty();
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.lockbox.box.journal;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.io.IOException;
+
+/**
+ * Wires the optional box status ingest journal.
+ * <p>
+ * Active only with {@code box.journal.enabled=true}; otherwise statuses are written straight to the database.
+ * Exposes {@code box.journal.lag} (records) and {@code box.journal.lag.age} (seconds) gauges.
+ * </p>
+ *
+ * @author serezk4
+ * @version 1.0
+ * @see StatusJournal
+ * @since 1.0
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "box.journal", name = "enabled", havingValue = "true")
+@EnableConfigurationProperties(StatusJournalProperties.class)
+public class StatusJournalConfiguration {
+
+    @Bean(destroyMethod = "close")
+    public StatusJournal statusJournal(
+            final StatusJournalProperties properties,
+            final MeterRegistry meterRegistry
+    ) throws IOException {
+        StatusJournal journal = StatusJournal.open(
+                properties.directory(),
+                properties.segmentRecords(),
+                properties.forceOnAppend()
+        );
+
+        Gauge.builder("box.journal.lag", journal, StatusJournal::lag)
+                .description("Statuses accepted into the journal but not yet replayed into box_statuses")
+                .baseUnit("records")
+                .register(meterRegistry);
+        Gauge.builder("box.journal.lag.age", journal, j -> j.oldestPendingAge().toMillis() / 1000.0)
+                .description("Age of the oldest status waiting for replay")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+
+        return journal;
+    }
+}
@@ -0,0 +1,25 @@
+package com.lockbox.box.journal;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.nio.file.Path;
+
+/**
+ * Configuration of the box status ingest journal ({@code box.journal.*}).
+ *
+ * @param enabled        whether statuses are journaled before they reach the database
+ * @param directory      directory holding segment files and the checkpoint; must survive restarts
+ * @param segmentRecords number of records per segment file (64 bytes each)
+ * @param batchSize      maximum number of statuses inserted by one replay statement
+ * @param forceOnAppend  whether each append is forced to disk before it is acknowledged
+ */
+@ConfigurationProperties(prefix = "box.journal")
+public record StatusJournalProperties(
+        @DefaultValue("false") boolean enabled,
+        @DefaultValue("/var/lib/lockbox/box-journal") Path directory,
+        @DefaultValue("65536") int segmentRecords,
+        @DefaultValue("500") int batchSize,
+        @DefaultValue("false") boolean forceOnAppend
+) {
+}
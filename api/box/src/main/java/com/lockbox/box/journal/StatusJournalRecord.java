@@ -0,0 +1,59 @@
+package com.lockbox.box.journal;
+
+import com.lockbox.box.database.model.BoxStatus;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+
+/**
+ * A box status as stored in the {@link StatusJournal}.
+ *
+ * @param macAddress     MAC address of the box
+ * @param batteryLevel   battery level in percent
+ * @param signalStrength signal strength in dBm
+ * @param opened         whether the box was reported open
+ * @param timestamp      time the status was recorded, replayed into {@code box_statuses.timestamp}
+ * @param acceptedAt     time the status was appended to the journal, used for lag reporting
+ */
+public record StatusJournalRecord(
+        String macAddress,
+        double batteryLevel,
+        double signalStrength,
+        boolean opened,
+        Instant timestamp,
+        Instant acceptedAt
+) {
+
+    /**
+     * Creates a journal record from an accepted {@link BoxStatus}.
+     *
+     * @param status     the accepted status; its timestamp must be set
+     * @param acceptedAt the acceptance time
+     * @return the journal record
+     */
+    public static StatusJournalRecord of(BoxStatus status, Instant acceptedAt) {
+        return new StatusJournalRecord(
+                status.getMacAddress(),
+                status.getBatteryLevel(),
+                status.getSignalStrength(),
+                status.getOpened(),
+                status.getTimestamp().toInstant(),
+                acceptedAt
+        );
+    }
+
+    /**
+     * Converts the record back into a {@link BoxStatus} entity without an identifier.
+     *
+     * @return a new {@link BoxStatus}
+     */
+    public BoxStatus toEntity() {
+        return BoxStatus.builder()
+                .macAddress(macAddress)
+                .batteryLevel(batteryLevel)
+                .signalStrength(signalStrength)
+                .opened(opened)
+                .timestamp(Timestamp.from(timestamp))
+                .build();
+    }
+}
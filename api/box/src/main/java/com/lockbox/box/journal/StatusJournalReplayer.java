@@ -0,0 +1,132 @@
+package com.lockbox.box.journal;
+
+import com.lockbox.box.database.metrics.QueryMetrics;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.AccessLevel;
+import lombok.experimental.FieldDefaults;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Drains the {@link StatusJournal} into {@code box_statuses}.
+ * <p>
+ * Each tick inserts batches of up to {@code box.journal.batch-size} statuses with a single multi-row
+ * {@code INSERT} and advances the checkpoint after the statement succeeds, until the journal is empty.
+ * If a batch is rejected by a constraint (for example, a box deleted after its status was accepted),
+ * the batch is retried row by row and only the offending rows are dropped. Any other failure leaves the
+ * checkpoint untouched, so the batch is retried on the next tick.
+ * </p>
+ *
+ * @author serezk4
+ * @version 1.0
+ * @see StatusJournal
+ * @since 1.0
+ */
+@Component
+@ConditionalOnProperty(prefix = "box.journal", name = "enabled", havingValue = "true")
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+@Log4j2
+public class StatusJournalReplayer {
+
+    private static final String INSERT = """
+            INSERT INTO box_statuses (mac_address, battery_level, signal_strength, opened, timestamp)
+            VALUES\s""";
+
+    StatusJournal statusJournal;
+    DatabaseClient databaseClient;
+    QueryMetrics queryMetrics;
+    int batchSize;
+
+    Counter replayed;
+    Counter dropped;
+
+    public StatusJournalReplayer(
+            final StatusJournal statusJournal,
+            final StatusJournalProperties properties,
+            final DatabaseClient databaseClient,
+            final QueryMetrics queryMetrics,
+            final MeterRegistry meterRegistry
+    ) {
+        this.statusJournal = statusJournal;
+        this.databaseClient = databaseClient;
+        this.queryMetrics = queryMetrics;
+        this.batchSize = properties.batchSize();
+        this.replayed = Counter.builder("box.journal.replayed")
+                .description("Statuses replayed from the journal into box_statuses")
+                .register(meterRegistry);
+        this.dropped = Counter.builder("box.journal.dropped")
+                .description("Journaled statuses rejected by box_statuses constraints")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Replays pending statuses until the journal is drained or a batch fails.
+     *
+     * @return a {@link Mono} completing when this tick is over
+     */
+    @Scheduled(fixedDelayString = "${box.journal.replay-interval:PT0.2S}")
+    public Mono<Void> replay() {
+        return Mono.defer(this::replayBatch)
+                .repeat()
+                .takeWhile(replayedCount -> replayedCount == batchSize)
+                .doOnError(error -> log.warn("Status journal replay stalled, lag={}", statusJournal.lag(), error))
+                .onErrorComplete()
+                .then();
+    }
+
+    private Mono<Integer> replayBatch() {
+        return Mono.fromSupplier(() -> statusJournal.read(batchSize))
+                .flatMap(batch -> batch.isEmpty()
+                        ? Mono.just(0)
+                        : insert(batch.records())
+                        .onErrorResume(DataIntegrityViolationException.class, e -> insertOneByOne(batch.records()))
+                        .then(Mono.fromCallable(() -> {
+                            statusJournal.commit(batch.to());
+                            return batch.records().size();
+                        }).subscribeOn(Schedulers.boundedElastic())))
+                .doOnNext(count -> replayed.increment(count));
+    }
+
+    private Mono<Long> insert(List<StatusJournalRecord> records) {
+        StringBuilder sql = new StringBuilder(INSERT);
+        for (int i = 0; i < records.size(); i++) {
+            if (i > 0) sql.append(", ");
+            sql.append("(:m").append(i).append(", :b").append(i).append(", :s").append(i)
+                    .append(", :o").append(i).append(", :t").append(i).append(')');
+        }
+
+        DatabaseClient.GenericExecuteSpec spec = databaseClient.sql(sql.toString());
+        for (int i = 0; i < records.size(); i++) {
+            StatusJournalRecord record = records.get(i);
+            spec = spec.bind("m" + i, record.macAddress())
+                    .bind("b" + i, record.batteryLevel())
+                    .bind("s" + i, record.signalStrength())
+                    .bind("o" + i, record.opened())
+                    .bind("t" + i, Timestamp.from(record.timestamp()).toLocalDateTime());
+        }
+        return queryMetrics.timed("box_statuses.insertBatch", Map.of("rows", records), spec.fetch().rowsUpdated());
+    }
+
+    private Mono<Long> insertOneByOne(List<StatusJournalRecord> records) {
+        return Flux.fromIterable(records)
+                .concatMap(record -> insert(List.of(record))
+                        .onErrorResume(DataIntegrityViolationException.class, e -> {
+                            log.warn("Dropping journaled status for {}: {}", record.macAddress(), e.getMessage());
+                            dropped.increment();
+                            return Mono.just(0L);
+                        }))
+                .reduce(0L, Long::sum);
+    }
+}
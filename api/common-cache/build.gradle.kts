@@ -0,0 +1,74 @@
+import org.springframework.boot.gradle.plugin.SpringBootPlugin
+
+plugins {
+    `java-library`
+    id("org.springframework.boot") version "3.3.2" apply false
+    id("io.spring.dependency-management") version "1.1.6"
+    id("checkstyle")
+}
+
+group = "com.lockbox"
+version = "1"
+
+java {
+    toolchain {
+        languageVersion = JavaLanguageVersion.of(21)
+    }
+}
+
+configurations {
+    compileOnly {
+        extendsFrom(configurations.annotationProcessor.get())
+    }
+}
+
+repositories {
+    mavenCentral()
+}
+
+dependencyManagement {
+    imports {
+        mavenBom(SpringBootPlugin.BOM_COORDINATES)
+    }
+}
+
+// useful things
+dependencies {
+    compileOnly("org.projectlombok:lombok")
+    annotationProcessor("org.projectlombok:lombok")
+}
+
+// health
+dependencies {
+    implementation("io.micrometer:micrometer-core")
+}
+
+// json
+dependencies {
+    implementation("com.fasterxml.jackson.core:jackson-databind")
+    implementation("com.fasterxml.jackson.datatype:jackson-datatype-jsr310")
+    implementation("com.fasterxml.jackson.dataformat:jackson-dataformat-cbor")
+}
+
+// database (postgres (r2dbc) for invalidations & redis for caching)
+dependencies {
+    api("org.springframework.boot:spring-boot-starter-data-redis-reactive")
+    api("org.springframework.boot:spring-boot-starter-data-r2dbc")
+    implementation("org.postgresql:r2dbc-postgresql")
+    implementation("com.github.ben-manes.caffeine:caffeine")
+}
+
+// logging
+dependencies {
+    implementation("org.apache.logging.log4j:log4j-api:2.24.3")
+}
+
+configurations.all {
+    exclude(group = "org.springframework.boot", module = "spring-boot-starter-logging")
+    exclude(group = "ch.qos.logback", module = "logback-classic")
+    exclude(group = "ch.qos.logback", module = "logback-core")
+}
+
+checkstyle {
+    configDirectory = file("../config/checkstyle")
+}
@@ -0,0 +1,29 @@
+package com.lockbox.cache;
+
+/**
+ * Converts cached values to and from the bytes stored in the Redis level of a {@link TwoLevelCache}.
+ *
+ * @param <V> the value type
+ * @author serezk4
+ * @version 1.0
+ * @see CborCacheCodec
+ * @since 1.0
+ */
+public interface CacheCodec<V> {
+
+    /**
+     * Encodes a value.
+     *
+     * @param value the value, never {@code null}
+     * @return the encoded bytes
+     */
+    byte[] encode(V value);
+
+    /**
+     * Decodes a value.
+     *
+     * @param bytes the bytes produced by {@link #encode(Object)}
+     * @return the decoded value
+     */
+    V decode(byte[] bytes);
+}
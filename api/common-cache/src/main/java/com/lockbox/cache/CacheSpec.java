@@ -0,0 +1,75 @@
+package com.lockbox.cache;
+
+import lombok.Builder;
+import lombok.NonNull;
+import lombok.Singular;
+import lombok.Value;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Definition of a {@link TwoLevelCache}.
+ *
+ * <pre>{@code
+ * CacheSpec.<UUID, Flat>builder()
+ *         .name("flats")
+ *         .codec(CborCacheCodec.of(Flat.class))
+ *         .keyFormatter(UUID::toString)
+ *         .invalidatedBy(InvalidationEvent.Type.FLAT_CHANGED, UUID::fromString)
+ *         .build();
+ * }</pre>
+ *
+ * @param <K> the key type
+ * @param <V> the value type
+ * @author serezk4
+ * @version 1.0
+ * @since 1.0
+ */
+@Value
+@Builder
+public class CacheSpec<K, V> {
+
+    /**
+     * Name of the cache, used in metric tags and Redis keys.
+     */
+    @NonNull
+    String name;
+
+    /**
+     * Codec of the values stored in Redis.
+     */
+    @NonNull
+    CacheCodec<V> codec;
+
+    /**
+     * Turns a key into the suffix of its Redis key.
+     */
+    @NonNull
+    Function<? super K, String> keyFormatter;
+
+    /**
+     * Maximum number of entries kept in process.
+     */
+    @Builder.Default
+    long l1MaximumSize = 10_000;
+
+    /**
+     * How long an entry stays in process after it was loaded.
+     */
+    @Builder.Default
+    Duration l1Ttl = Duration.ofMinutes(1);
+
+    /**
+     * How long an entry stays in Redis after it was loaded, {@code null} to keep the cache in process only.
+     */
+    @Builder.Default
+    Duration l2Ttl = Duration.ofMinutes(10);
+
+    /**
+     * Invalidation events evicting an entry, with the mapping from the event key to the cache key.
+     */
+    @Singular("invalidatedBy")
+    Map<InvalidationEvent.Type, Function<String, ? extends K>> invalidatedBy;
+}
@@ -0,0 +1,81 @@
+package com.lockbox.cache;
+
+import com.fasterxml.jackson.annotation.JsonAutoDetect;
+import com.fasterxml.jackson.annotation.PropertyAccessor;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+
+/**
+ * {@link CacheCodec} writing values as CBOR, a compact binary encoding of the Jackson data model.
+ * <p>
+ * Values are mapped through their fields, so Lombok entities and records work without annotations.
+ * Unknown properties are ignored, which lets entries written by an older version of a class be read
+ * by a newer one.
+ * </p>
+ *
+ * @param <V> the value type
+ * @author serezk4
+ * @version 1.0
+ * @since 1.0
+ */
+public final class CborCacheCodec<V> implements CacheCodec<V> {
+
+    private static final ObjectMapper MAPPER = CBORMapper.builder()
+            .addModule(new JavaTimeModule())
+            .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+            .visibility(PropertyAccessor.FIELD, JsonAutoDetect.Visibility.ANY)
+            .build();
+
+    private final JavaType type;
+
+    private CborCacheCodec(JavaType type) {
+        this.type = type;
+    }
+
+    /**
+     * Creates a codec for single values.
+     *
+     * @param type the value class
+     * @param <V>  the value type
+     * @return the codec
+     */
+    public static <V> CborCacheCodec<V> of(Class<V> type) {
+        return new CborCacheCodec<>(MAPPER.constructType(type));
+    }
+
+    /**
+     * Creates a codec for lists, used by caches behind {@code Flux} methods.
+     *
+     * @param elementType the element class
+     * @param <E>         the element type
+     * @return the codec
+     */
+    public static <E> CborCacheCodec<List<E>> listOf(Class<E> elementType) {
+        return new CborCacheCodec<>(MAPPER.getTypeFactory().constructCollectionType(List.class, elementType));
+    }
+
+    @Override
+    public byte[] encode(V value) {
+        try {
+            return MAPPER.writeValueAsBytes(value);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public V decode(byte[] bytes) {
+        try {
+            return MAPPER.readValue(bytes, type);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,198 @@
+package com.lockbox.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.r2dbc.postgresql.api.PostgresqlConnection;
+import io.r2dbc.postgresql.api.PostgresqlResult;
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionFactory;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.boot.autoconfigure.r2dbc.R2dbcProperties;
+import org.springframework.boot.r2dbc.ConnectionFactoryBuilder;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.r2dbc.core.DatabaseClient;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.util.retry.Retry;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.regex.Pattern;
+
+/**
+ * Cluster-wide cache invalidation over Postgres {@code LISTEN}/{@code NOTIFY}.
+ * <p>
+ * Writers call {@link #publish(InvalidationEvent.Type, String)}, which issues {@code pg_notify} on the
+ * caller's connection: inside a transaction the notification is delivered only once it commits. Every node
+ * keeps one dedicated connection (outside of the pool) listening on the channel and re-emits received
+ * events through {@link #events()}, where in-process caches evict the affected entries.
+ * </p>
+ * <p>
+ * Notifications sent while a node is not listening are lost, so a {@link InvalidationEvent.Type#FLUSH} is
+ * emitted whenever the listening connection is lost and again once it is re-established. Reconnects back off
+ * exponentially between the given minimum and maximum backoff.
+ * </p>
+ * <p>
+ * Each service listens on its own channel, given by its configuration. Database triggers that notify the
+ * channel by name must use the same one.
+ * </p>
+ *
+ * @author serezk4
+ * @version 1.0
+ * @see InvalidationEvent
+ * @since 1.0
+ */
+@Log4j2
+public class InvalidationBus implements SmartLifecycle {
+
+    private static final Pattern CHANNEL = Pattern.compile("[a-z_][a-z0-9_]*");
+
+    private final DatabaseClient databaseClient;
+    private final ConnectionFactory listenerConnectionFactory;
+    private final String channel;
+    private final Duration reconnectMinBackoff;
+    private final Duration reconnectMaxBackoff;
+
+    private final Sinks.Many<InvalidationEvent> sink = Sinks.many().multicast().directBestEffort();
+    private final AtomicBoolean connected = new AtomicBoolean();
+    private final Counter received;
+    private final Counter flushes;
+
+    private volatile Disposable subscription;
+
+    public InvalidationBus(
+            final DatabaseClient databaseClient,
+            final R2dbcProperties r2dbcProperties,
+            final MeterRegistry meterRegistry,
+            final String channel,
+            final Duration reconnectMinBackoff,
+            final Duration reconnectMaxBackoff
+    ) {
+        if (!CHANNEL.matcher(channel).matches())
+            throw new IllegalArgumentException("invalid invalidation channel: " + channel);
+
+        this.databaseClient = databaseClient;
+        this.listenerConnectionFactory = ConnectionFactoryBuilder.withUrl(r2dbcProperties.getUrl())
+                .username(r2dbcProperties.getUsername())
+                .password(r2dbcProperties.getPassword())
+                .build();
+        this.channel = channel;
+        this.reconnectMinBackoff = reconnectMinBackoff;
+        this.reconnectMaxBackoff = reconnectMaxBackoff;
+
+        this.received = Counter.builder("cache.invalidation.received")
+                .description("Invalidation events received over LISTEN")
+                .register(meterRegistry);
+        this.flushes = Counter.builder("cache.invalidation.flushes")
+                .description("Full cache flushes caused by the invalidation connection being lost or re-established")
+                .register(meterRegistry);
+        Gauge.builder("cache.invalidation.connected", connected, state -> state.get() ? 1 : 0)
+                .description("Whether this node is currently listening for invalidations")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Publishes an invalidation event to every node, this one included.
+     * <p>
+     * The event is also emitted locally right away, so that this node does not serve its own stale entries
+     * while the notification travels.
+     * </p>
+     *
+     * @param type the kind of change
+     * @param key  the identifier of the changed entity
+     * @return a {@link Mono} completing once the notification is issued
+     */
+    public Mono<Void> publish(InvalidationEvent.Type type, String key) {
+        InvalidationEvent event = new InvalidationEvent(type, key);
+        return databaseClient.sql("SELECT pg_notify(:channel, :payload)")
+                .bind("channel", channel)
+                .bind("payload", event.encode())
+                .fetch().all()
+                .then(Mono.fromRunnable(() -> emit(event)));
+    }
+
+    /**
+     * Returns the stream of invalidation events seen by this node.
+     *
+     * @return a hot {@link Flux} of events; subscribers only see events emitted after they subscribe
+     */
+    public Flux<InvalidationEvent> events() {
+        return sink.asFlux();
+    }
+
+    /**
+     * Tells whether this node is currently listening for invalidations.
+     *
+     * @return {@code true} if the listening connection is up
+     */
+    public boolean isConnected() {
+        return connected.get();
+    }
+
+    @Override
+    public void start() {
+        subscription = Flux.defer(this::listen)
+                .doOnError(this::disconnected)
+                .retryWhen(Retry.backoff(Long.MAX_VALUE, reconnectMinBackoff)
+                        .maxBackoff(reconnectMaxBackoff)
+                        .transientErrors(true))
+                .subscribe(this::emit, error -> log.error("Invalidation bus stopped", error));
+    }
+
+    @Override
+    public void stop() {
+        Disposable current = subscription;
+        if (current != null) current.dispose();
+        connected.set(false);
+    }
+
+    @Override
+    public boolean isRunning() {
+        Disposable current = subscription;
+        return current != null && !current.isDisposed();
+    }
+
+    private Flux<InvalidationEvent> listen() {
+        return Flux.usingWhen(
+                        Mono.from(listenerConnectionFactory.create()).cast(PostgresqlConnection.class),
+                        connection -> connection.createStatement("LISTEN " + channel).execute()
+                                .flatMap(PostgresqlResult::getRowsUpdated)
+                                .then(Mono.fromRunnable(this::connected))
+                                .thenMany(connection.getNotifications())
+                                .concatWith(Mono.error(new IllegalStateException("notification stream completed"))),
+                        Connection::close
+                )
+                .handle((notification, events) -> {
+                    received.increment();
+                    try {
+                        events.next(InvalidationEvent.decode(notification.getParameter()));
+                    } catch (IllegalArgumentException e) {
+                        log.warn("Ignoring invalidation payload: {}", e.getMessage());
+                    }
+                });
+    }
+
+    private void connected() {
+        connected.set(true);
+        log.info("Listening for cache invalidations on {}", channel);
+        flush();
+    }
+
+    private void disconnected(Throwable error) {
+        if (!connected.getAndSet(false)) return;
+        log.warn("Cache invalidation connection lost, flushing local caches", error);
+        flush();
+    }
+
+    private void flush() {
+        flushes.increment();
+        emit(InvalidationEvent.flush());
+    }
+
+    private void emit(InvalidationEvent event) {
+        sink.emitNext(event, Sinks.EmitFailureHandler.busyLooping(Duration.ofSeconds(1)));
+    }
+}
@@ -0,0 +1,86 @@
+package com.lockbox.cache;
+
+/**
+ * Cache invalidation event carried by the {@link InvalidationBus}.
+ * <p>
+ * Events travel as {@code NOTIFY} payloads of the form {@code <TYPE>:<key>}.
+ * </p>
+ *
+ * @param type the kind of change
+ * @param key  the identifier of the changed entity, empty for {@link Type#FLUSH}
+ * @author serezk4
+ * @version 1.0
+ * @since 1.0
+ */
+public record InvalidationEvent(Type type, String key) {
+
+    private static final char SEPARATOR = ':';
+
+    /**
+     * Kinds of changes that invalidate cached data. Every service publishes its own kinds on its own channel.
+     */
+    public enum Type {
+        /**
+         * A box row changed; the key is its MAC address. Published by the box service.
+         */
+        BOX_CHANGED,
+
+        /**
+         * A box access grant was created or revoked; the key is the access id. Published by the box service.
+         */
+        BOX_ACCESS_CHANGED,
+
+        /**
+         * A flat row changed; the key is its id. Published by the flat service.
+         */
+        FLAT_CHANGED,
+
+        /**
+         * A price of a flat was added or changed; the key is the flat id. Published by a trigger on
+         * {@code flat_prices}, so writes made directly in SQL are covered too.
+         */
+        FLAT_PRICE_CHANGED,
+
+        /**
+         * An entry of the amenity catalog was added, renamed or removed; the key is its id. Published by
+         * a trigger on {@code amenities}.
+         */
+        AMENITY_CHANGED,
+
+        /**
+         * Everything cached may be stale. Emitted locally when the bus loses or regains its connection.
+         */
+        FLUSH
+    }
+
+    /**
+     * Returns the event telling every cache to drop all of its entries.
+     *
+     * @return the flush event
+     */
+    public static InvalidationEvent flush() {
+        return new InvalidationEvent(Type.FLUSH, "");
+    }
+
+    /**
+     * Encodes this event as a {@code NOTIFY} payload.
+     *
+     * @return the payload
+     */
+    public String encode() {
+        return type.name() + SEPARATOR + key;
+    }
+
+    /**
+     * Decodes a {@code NOTIFY} payload.
+     *
+     * @param payload the payload
+     * @return the decoded event
+     * @throws IllegalArgumentException if the payload is malformed or of an unknown type
+     */
+    public static InvalidationEvent decode(String payload) {
+        int separator = payload == null ? -1 : payload.indexOf(SEPARATOR);
+        if (separator < 0) throw new IllegalArgumentException("malformed invalidation payload: " + payload);
+        return new InvalidationEvent(Type.valueOf(payload.substring(0, separator)), payload.substring(separator + 1));
+    }
+}
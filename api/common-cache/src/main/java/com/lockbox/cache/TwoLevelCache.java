@@ -0,0 +1,265 @@
+package com.lockbox.cache;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Reactive read-through cache with a bounded in-process level (L1) in front of Redis (L2).
+ * <p>
+ * A lookup is answered from L1, then from L2, and only then by the loader; the loaded value is written
+ * to both levels. Concurrent misses for the same key on this node share a single load. Redis failures
+ * and undecodable entries are treated as misses, so the cache never fails a read the loader could serve.
+ * Empty results are not cached. Since a load is shared, it runs detached from the caller's subscription
+ * and does not see its Reactor context, such as a surrounding transaction.
+ * </p>
+ * <p>
+ * Entries are evicted by the {@link InvalidationEvent}s configured in the {@link CacheSpec}; a
+ * {@link InvalidationEvent.Type#FLUSH} drops L1 only, since Redis is shared and invalidated by the nodes
+ * that did receive the events. A load racing with an eviction still answers its callers but does not
+ * write its possibly stale value to Redis.
+ * </p>
+ *
+ * <p><strong>Metrics</strong> (tagged with {@code cache}):</p>
+ * <ul>
+ *     <li>{@code cache.gets} - lookups by {@code level} ({@code l1}, {@code l2}) and {@code result}.</li>
+ *     <li>{@code cache.load} - loader latency.</li>
+ *     <li>{@code cache.evictions} - L1 evictions by {@code cause} ({@code size}, {@code expired}).</li>
+ *     <li>{@code cache.size} - estimated number of L1 entries.</li>
+ *     <li>{@code cache.l2.errors} - failed Redis operations.</li>
+ * </ul>
+ *
+ * @param <K> the key type
+ * @param <V> the value type
+ * @author serezk4
+ * @version 1.0
+ * @see TwoLevelCaches
+ * @since 1.0
+ */
+@Log4j2
+public final class TwoLevelCache<K, V> {
+
+    private final CacheSpec<K, V> spec;
+    private final String keyPrefix;
+    private final ReactiveRedisTemplate<String, byte[]> redis;
+    private final Duration l2Timeout;
+    private final MeterRegistry meterRegistry;
+
+    private final AsyncCache<K, V> l1;
+    private final AtomicLong generation = new AtomicLong();
+
+    private final Counter l1Hits;
+    private final Counter l1Misses;
+    private final Counter l2Hits;
+    private final Counter l2Misses;
+    private final Counter l2Errors;
+    private final Timer loads;
+
+    TwoLevelCache(
+            CacheSpec<K, V> spec,
+            String keyPrefix,
+            ReactiveRedisTemplate<String, byte[]> redis,
+            Duration l2Timeout,
+            MeterRegistry meterRegistry
+    ) {
+        this.spec = spec;
+        this.keyPrefix = keyPrefix + spec.getName() + ":";
+        this.redis = redis;
+        this.l2Timeout = l2Timeout;
+        this.meterRegistry = meterRegistry;
+
+        this.l1 = Caffeine.newBuilder()
+                .maximumSize(spec.getL1MaximumSize())
+                .expireAfterWrite(spec.getL1Ttl())
+                .<K, V>removalListener((key, value, cause) -> {
+                    if (cause.wasEvicted()) evicted(cause);
+                })
+                .buildAsync();
+
+        this.l1Hits = gets("l1", "hit");
+        this.l1Misses = gets("l1", "miss");
+        this.l2Hits = gets("l2", "hit");
+        this.l2Misses = gets("l2", "miss");
+        this.l2Errors = Counter.builder("cache.l2.errors")
+                .description("Failed Redis operations of a two-level cache")
+                .tag("cache", spec.getName())
+                .register(meterRegistry);
+        this.loads = Timer.builder("cache.load")
+                .description("Time spent loading values missing from both cache levels")
+                .tag("cache", spec.getName())
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        Gauge.builder("cache.size", l1, cache -> cache.synchronous().estimatedSize())
+                .description("Estimated number of in-process cache entries")
+                .tag("cache", spec.getName())
+                .register(meterRegistry);
+    }
+
+    /**
+     * Returns the cached value of a {@code Flux} method, caching its elements as a list.
+     *
+     * @param cache  a cache of element lists
+     * @param key    the key
+     * @param loader loads the elements on a miss
+     * @param <K>    the key type
+     * @param <E>    the element type
+     * @return the cached or loaded elements
+     */
+    public static <K, E> Flux<E> getMany(
+            TwoLevelCache<K, List<E>> cache,
+            K key,
+            Function<? super K, Flux<E>> loader
+    ) {
+        return cache.get(key, k -> loader.apply(k).collectList())
+                .flatMapIterable(Function.identity());
+    }
+
+    /**
+     * Returns the cached value for a key, loading it on a miss.
+     *
+     * @param key    the key
+     * @param loader loads the value on a miss; an empty result is returned but not cached
+     * @return the cached or loaded value
+     */
+    public Mono<V> get(K key, Function<? super K, Mono<V>> loader) {
+        return Mono.defer(() -> {
+            CompletableFuture<V> cached = l1.getIfPresent(key);
+            if (cached != null) {
+                l1Hits.increment();
+                return Mono.fromFuture(cached, true);
+            }
+
+            l1Misses.increment();
+            return Mono.fromFuture(l1.get(key, (k, executor) -> loadThroughL2(k, loader).toFuture()), true);
+        });
+    }
+
+    /**
+     * Evicts a key from both levels on this node.
+     *
+     * @param key the key
+     * @return a {@link Mono} completing once the Redis entry is deleted
+     */
+    public Mono<Void> evict(K key) {
+        generation.incrementAndGet();
+        l1.synchronous().invalidate(key);
+        if (!hasL2()) return Mono.empty();
+
+        return redis.delete(redisKey(key))
+                .timeout(l2Timeout)
+                .doOnError(this::l2Failed)
+                .onErrorComplete()
+                .then();
+    }
+
+    /**
+     * Drops every in-process entry.
+     */
+    public void invalidateAll() {
+        generation.incrementAndGet();
+        l1.synchronous().invalidateAll();
+    }
+
+    /**
+     * Returns the name of this cache.
+     *
+     * @return the cache name
+     */
+    public String name() {
+        return spec.getName();
+    }
+
+    Mono<Void> onInvalidation(InvalidationEvent event) {
+        if (event.type() == InvalidationEvent.Type.FLUSH) {
+            invalidateAll();
+            return Mono.empty();
+        }
+
+        Function<String, ? extends K> key = spec.getInvalidatedBy().get(event.type());
+        return key == null ? Mono.empty() : evict(key.apply(event.key()));
+    }
+
+    private Mono<V> loadThroughL2(K key, Function<? super K, Mono<V>> loader) {
+        if (!hasL2()) return load(key, loader);
+
+        String redisKey = redisKey(key);
+        long loadGeneration = generation.get();
+        return redis.opsForValue().get(redisKey)
+                .timeout(l2Timeout)
+                .map(spec.getCodec()::decode)
+                .doOnNext(value -> l2Hits.increment())
+                .doOnError(this::l2Failed)
+                .onErrorResume(e -> Mono.empty())
+                .switchIfEmpty(Mono.defer(() -> {
+                    l2Misses.increment();
+                    return load(key, loader)
+                            .flatMap(value -> write(redisKey, value, loadGeneration).thenReturn(value));
+                }));
+    }
+
+    private Mono<V> load(K key, Function<? super K, Mono<V>> loader) {
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            return loader.apply(key)
+                    .doFinally(signal -> loads.record(System.nanoTime() - start, TimeUnit.NANOSECONDS));
+        });
+    }
+
+    private Mono<Void> write(String redisKey, V value, long loadGeneration) {
+        if (generation.get() != loadGeneration) return Mono.empty();
+
+        return Mono.fromCallable(() -> spec.getCodec().encode(value))
+                .flatMap(bytes -> redis.opsForValue().set(redisKey, bytes, spec.getL2Ttl()))
+                .timeout(l2Timeout)
+                .doOnError(this::l2Failed)
+                .onErrorComplete()
+                .then();
+    }
+
+    private boolean hasL2() {
+        return spec.getL2Ttl() != null && !spec.getL2Ttl().isZero();
+    }
+
+    private String redisKey(K key) {
+        return keyPrefix + spec.getKeyFormatter().apply(key);
+    }
+
+    private void l2Failed(Throwable error) {
+        l2Errors.increment();
+        log.warn("Cache {}: Redis operation failed: {}", spec.getName(), error.toString());
+    }
+
+    private void evicted(RemovalCause cause) {
+        Counter.builder("cache.evictions")
+                .description("In-process cache evictions")
+                .tag("cache", spec.getName())
+                .tag("cause", cause.name().toLowerCase(Locale.ROOT))
+                .register(meterRegistry)
+                .increment();
+    }
+
+    private Counter gets(String level, String result) {
+        return Counter.builder("cache.gets")
+                .description("Cache lookups")
+                .tag("cache", spec.getName())
+                .tag("level", level)
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,79 @@
+package com.lockbox.cache;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.data.redis.connection.ReactiveRedisConnectionFactory;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.data.redis.serializer.RedisSerializationContext;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import reactor.core.Disposable;
+import reactor.core.Disposables;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+
+/**
+ * Creates {@link TwoLevelCache}s and keeps them subscribed to the {@link InvalidationBus}.
+ * <p>
+ * Redis keys are namespaced as {@code <application>:cache:<cache name>:<key>}, so services sharing
+ * a Redis instance do not collide. Every Redis call is bounded by the L2 timeout. Each service declares one
+ * as a bean, along with its {@link InvalidationBus}.
+ * </p>
+ *
+ * @author serezk4
+ * @version 1.0
+ * @see TwoLevelCache
+ * @since 1.0
+ */
+@Log4j2
+public class TwoLevelCaches implements DisposableBean {
+
+    private final ReactiveRedisTemplate<String, byte[]> redis;
+    private final InvalidationBus invalidationBus;
+    private final MeterRegistry meterRegistry;
+    private final String keyPrefix;
+    private final Duration l2Timeout;
+
+    private final Disposable.Composite subscriptions = Disposables.composite();
+
+    public TwoLevelCaches(
+            final ReactiveRedisConnectionFactory redisConnectionFactory,
+            final InvalidationBus invalidationBus,
+            final MeterRegistry meterRegistry,
+            final String applicationName,
+            final Duration l2Timeout
+    ) {
+        this.redis = new ReactiveRedisTemplate<>(redisConnectionFactory, RedisSerializationContext
+                .<String, byte[]>newSerializationContext(RedisSerializer.string())
+                .value(RedisSerializer.byteArray())
+                .build());
+        this.invalidationBus = invalidationBus;
+        this.meterRegistry = meterRegistry;
+        this.keyPrefix = applicationName + ":cache:";
+        this.l2Timeout = l2Timeout;
+    }
+
+    /**
+     * Creates a cache and subscribes it to invalidation events.
+     *
+     * @param spec the cache definition
+     * @param <K>  the key type
+     * @param <V>  the value type
+     * @return the cache
+     */
+    public <K, V> TwoLevelCache<K, V> create(CacheSpec<K, V> spec) {
+        TwoLevelCache<K, V> cache = new TwoLevelCache<>(spec, keyPrefix, redis, l2Timeout, meterRegistry);
+        subscriptions.add(invalidationBus.events()
+                .flatMap(event -> Mono.defer(() -> cache.onInvalidation(event))
+                        .doOnError(error -> log.warn("Cache {} failed to apply {}", spec.getName(), event, error))
+                        .onErrorComplete())
+                .subscribe());
+        return cache;
+    }
+
+    @Override
+    public void destroy() {
+        subscriptions.dispose();
+    }
+}
@@ -4,6 +4,7 @@ plugins {
     id("io.spring.dependency-management") version "1.1.6"
     id("checkstyle")
     id("org.owasp.dependencycheck") version "11.1.0"
+    id("me.champeau.jmh") version "0.7.2"
 }
 
 group = "com.lockbox"
@@ -42,6 +43,11 @@ dependencies {
     implementation("org.springdoc:springdoc-openapi-starter-webflux-ui:2.5.0")
 }
 
+// shared caches
+dependencies {
+    implementation("com.lockbox:common-cache:1")
+}
+
 // useful things
 dependencies {
     compileOnly("org.projectlombok:lombok")
@@ -64,6 +70,7 @@ dependencies {
     implementation("com.fasterxml.jackson.core:jackson-core")
     implementation("com.fasterxml.jackson.core:jackson-annotations")
     implementation("com.fasterxml.jackson.datatype:jackson-datatype-jsr310")
+    implementation("com.fasterxml.jackson.dataformat:jackson-dataformat-cbor")
 }
 
 // validation
@@ -75,11 +82,13 @@ dependencies {
 // database (postgres (r2dbc) & flyway for migrations & redis for caching)
 dependencies {
     runtimeOnly("org.postgresql:postgresql")
-    runtimeOnly("org.postgresql:r2dbc-postgresql")
+    implementation("org.postgresql:r2dbc-postgresql")
     implementation("org.springframework.boot:spring-boot-starter-data-redis-reactive")
+    implementation("com.github.ben-manes.caffeine:caffeine")
     implementation("org.springframework.boot:spring-boot-starter-data-r2dbc")
     implementation("org.flywaydb:flyway-core")
     runtimeOnly("org.flywaydb:flyway-database-postgresql:10.15.0")
+    implementation("io.r2dbc:r2dbc-pool:1.0.2.RELEASE")
 }
 
 // security
@@ -99,6 +108,26 @@ dependencies {
     implementation("com.graphql-java:graphql-java-extended-scalars:22.0")
 }
 
+// logging
+dependencies {
+    implementation("org.springframework.boot:spring-boot-starter-log4j2")
+
+    implementation("org.apache.logging.log4j:log4j-slf4j2-impl:2.24.3") {
+        exclude(group = "org.apache.logging.log4j", module = "log4j-to-slf4j")
+    }
+
+    implementation("org.apache.logging.log4j:log4j-api:2.24.3")
+    implementation("org.apache.logging.log4j:log4j-core:2.24.3")
+    runtimeOnly("com.lmax:disruptor:4.0.0")
+    annotationProcessor("org.apache.logging.log4j:log4j-core:2.24.3")
+}
+
+configurations.all {
+    exclude(group = "org.springframework.boot", module = "spring-boot-starter-logging")
+    exclude(group = "ch.qos.logback", module = "logback-classic")
+    exclude(group = "ch.qos.logback", module = "logback-core")
+}
+
 // tests
 dependencies {
     testImplementation("org.springframework.boot:spring-boot-starter-test")
@@ -106,6 +135,13 @@ dependencies {
     testImplementation("org.springframework.security:spring-security-test")
     testRuntimeOnly("org.junit.platform:junit-platform-launcher")
     testImplementation("org.springframework.restdocs:spring-restdocs-mockmvc")
+    testImplementation("org.testcontainers:junit-jupiter")
+    testImplementation("org.testcontainers:postgresql")
+    testImplementation("org.springframework.kafka:spring-kafka-test:3.2.2")
+}
+
+jmh {
+    jmhVersion = "1.37"
 }
 
 tasks.withType<Test> {
@@ -1,2 +1,3 @@
 rootProject.name = "flat-api"
 
+includeBuild("../common-cache")
@@ -0,0 +1,91 @@
+package com.lockbox.flat.search;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency of a {@code k}-nearest query of {@link FlatKdTree}, and of the brute-force scan it replaces.
+ * <p>
+ * Vectors are drawn from a standard normal distribution in the six dimensions of {@link FlatSimilarityIndex}.
+ * Run with {@code ./gradlew jmh}.
+ * </p>
+ *
+ * @author serezk4
+ * @version 1.0
+ * @since 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FlatKdTreeBenchmark {
+
+    private static final int DIMENSIONS = 6;
+    private static final int QUERIES = 4096;
+
+    @Param({"10000", "100000", "1000000"})
+    int size;
+
+    @Param({"10"})
+    int k;
+
+    private FlatKdTree tree;
+    private UUID[] ids;
+    private double[][] vectors;
+    private double[][] queries;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        List<UUID> idList = new ArrayList<>(size);
+        List<double[]> vectorList = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            idList.add(new UUID(random.nextLong(), random.nextLong()));
+            double[] vector = new double[DIMENSIONS];
+            for (int d = 0; d < DIMENSIONS; d++) vector[d] = random.nextGaussian();
+            vectorList.add(vector);
+        }
+        tree = new FlatKdTree(DIMENSIONS, idList, vectorList);
+        ids = idList.toArray(UUID[]::new);
+        vectors = vectorList.toArray(double[][]::new);
+        queries = new double[QUERIES][];
+        for (int i = 0; i < QUERIES; i++) queries[i] = vectors[random.nextInt(size)];
+    }
+
+    @Benchmark
+    public List<FlatKdTree.Neighbour> tree() {
+        FlatKdTree.Nearest nearest = new FlatKdTree.Nearest(k);
+        tree.nearest(query(), id -> false, nearest);
+        return nearest.sorted();
+    }
+
+    @Benchmark
+    public List<FlatKdTree.Neighbour> bruteForce() {
+        double[] query = query();
+        FlatKdTree.Nearest nearest = new FlatKdTree.Nearest(k);
+        for (int i = 0; i < ids.length; i++) nearest.offer(ids[i], vectors[i], query);
+        return nearest.sorted();
+    }
+
+    private double[] query() {
+        return queries[next++ & (QUERIES - 1)];
+    }
+}
@@ -0,0 +1,102 @@
+package com.lockbox.flat.search;
+
+import com.lockbox.flat.database.dto.FlatFilterDto;
+import com.lockbox.flat.database.model.Flat;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency of a first page of 20 ids answered by the {@link FlatColumns} of {@link FlatSearchIndex}.
+ * <p>
+ * Flats are spread over a 0.6° × 0.5° city with the attribute mix of the consistency test: repeating areas,
+ * prices and creation times, a tenth without a price, and each of six amenities on 30% of the flats.
+ * Each query shape runs with the default grid of 0.05° cells. Run with {@code ./gradlew jmh}.
+ * </p>
+ *
+ * @author serezk4
+ * @version 1.0
+ * @since 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FlatSearchIndexBenchmark {
+
+    private static final int LIMIT = 20;
+    private static final Instant EPOCH = Instant.parse("2024-01-01T00:00:00Z");
+
+    @Param({"10000", "100000", "1000000"})
+    int size;
+
+    /**
+     * {@code newest}: no filter; {@code price}: a price range, cheapest first; {@code amenities}: two amenities;
+     * {@code radius}: 2 km, nearest first; {@code box}: a twentieth of the city, largest first.
+     */
+    @Param({"newest", "price", "amenities", "radius", "box"})
+    String query;
+
+    private FlatColumns columns;
+    private FlatCriteria criteria;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        UUID[] amenities = new UUID[6];
+        for (int i = 0; i < amenities.length; i++) amenities[i] = new UUID(random.nextLong(), random.nextLong());
+
+        columns = new FlatColumns(0.05);
+        for (int i = 0; i < size; i++) {
+            List<UUID> flatAmenities = new ArrayList<>();
+            for (UUID amenity : amenities)
+                if (random.nextDouble() < 0.3) flatAmenities.add(amenity);
+            columns.put(new FlatRow(
+                    new UUID(random.nextLong(), random.nextLong()),
+                    20 + random.nextInt(60) + random.nextInt(4) * 0.25,
+                    1 + random.nextInt(6),
+                    Flat.Status.values()[random.nextInt(Flat.Status.values().length)],
+                    random.nextInt(10) > 0 ? 3_000 + random.nextInt(200) * 250.0 : null,
+                    55.5 + random.nextDouble() * 0.5,
+                    37.3 + random.nextDouble() * 0.6,
+                    EPOCH.plus(random.nextInt(500_000), ChronoUnit.SECONDS),
+                    flatAmenities.toArray(UUID[]::new)
+            ));
+        }
+
+        FlatFilterDto filter = switch (query) {
+            case "newest" -> FlatFilterDto.builder().build();
+            case "price" -> FlatFilterDto.builder()
+                    .minPrice(10_000.0).maxPrice(20_000.0).orderBy("price").orderDirection("asc").build();
+            case "amenities" -> FlatFilterDto.builder().amenities(List.of(amenities[0], amenities[1])).build();
+            case "radius" -> FlatFilterDto.builder().latitude(55.75).longitude(37.62).radius(2_000.0).build();
+            case "box" -> FlatFilterDto.builder()
+                    .south(55.7).west(37.5).north(55.8).east(37.65).orderBy("area").build();
+            default -> throw new IllegalArgumentException("unknown query: " + query);
+        };
+        criteria = FlatCriteria.of(filter, null).orElseThrow();
+    }
+
+    @Benchmark
+    public List<UUID> search() {
+        return columns.search(criteria, 0, LIMIT);
+    }
+}
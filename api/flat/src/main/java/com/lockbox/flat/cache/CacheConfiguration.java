@@ -0,0 +1,96 @@
+package com.lockbox.flat.cache;
+
+import com.lockbox.cache.CacheSpec;
+import com.lockbox.cache.CborCacheCodec;
+import com.lockbox.cache.InvalidationBus;
+import com.lockbox.cache.InvalidationEvent;
+import com.lockbox.cache.TwoLevelCache;
+import com.lockbox.cache.TwoLevelCaches;
+import com.lockbox.flat.database.model.Flat;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.r2dbc.R2dbcProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.ReactiveRedisConnectionFactory;
+import org.springframework.r2dbc.core.DatabaseClient;
+
+import java.time.Duration;
+import java.util.UUID;
+
+/**
+ * Caches of the flat service.
+ *
+ * @author serezk4
+ * @version 1.0
+ * @see TwoLevelCaches
+ * @since 1.0
+ */
+@Configuration
+public class CacheConfiguration {
+
+    /**
+     * Channel of the invalidation notifications. The triggers of the {@code V2}, {@code V5} and {@code V6}
+     * migrations notify it by name, so it is not configurable.
+     */
+    public static final String INVALIDATION_CHANNEL = "flat_cache_invalidation";
+
+    /**
+     * Invalidation events of the flat service, on {@value #INVALIDATION_CHANNEL}.
+     *
+     * @param databaseClient      the client notifications are published with
+     * @param r2dbcProperties     the connection settings of the listening connection
+     * @param meterRegistry       the meter registry
+     * @param reconnectMinBackoff the first delay before reconnecting
+     * @param reconnectMaxBackoff the longest delay before reconnecting
+     * @return the invalidation bus
+     */
+    @Bean
+    InvalidationBus invalidationBus(
+            final DatabaseClient databaseClient,
+            final R2dbcProperties r2dbcProperties,
+            final MeterRegistry meterRegistry,
+            final @Value("${flat.cache.invalidation.reconnect-min-backoff:PT1S}") Duration reconnectMinBackoff,
+            final @Value("${flat.cache.invalidation.reconnect-max-backoff:PT30S}") Duration reconnectMaxBackoff
+    ) {
+        return new InvalidationBus(databaseClient, r2dbcProperties, meterRegistry,
+                INVALIDATION_CHANNEL, reconnectMinBackoff, reconnectMaxBackoff);
+    }
+
+    /**
+     * The factory of the caches below, bounding Redis calls by {@code flat.cache.l2-timeout}.
+     *
+     * @param redisConnectionFactory the Redis connection factory
+     * @param invalidationBus        the invalidation bus
+     * @param meterRegistry          the meter registry
+     * @param applicationName        the application name, prefixing Redis keys
+     * @param l2Timeout              the bound of every Redis call
+     * @return the cache factory
+     */
+    @Bean
+    TwoLevelCaches twoLevelCaches(
+            final ReactiveRedisConnectionFactory redisConnectionFactory,
+            final InvalidationBus invalidationBus,
+            final MeterRegistry meterRegistry,
+            final @Value("${spring.application.name}") String applicationName,
+            final @Value("${flat.cache.l2-timeout:PT0.2S}") Duration l2Timeout
+    ) {
+        return new TwoLevelCaches(redisConnectionFactory, invalidationBus, meterRegistry, applicationName, l2Timeout);
+    }
+
+    /**
+     * Flats by id, evicted whenever a flat is saved.
+     *
+     * @param caches the cache factory
+     * @return the flat cache
+     */
+    @Bean
+    TwoLevelCache<UUID, Flat> flatCache(TwoLevelCaches caches) {
+        return caches.create(CacheSpec.<UUID, Flat>builder()
+                .name("flats")
+                .codec(CborCacheCodec.of(Flat.class))
+                .keyFormatter(UUID::toString)
+                .invalidatedBy(InvalidationEvent.Type.FLAT_CHANGED, UUID::fromString)
+                .build());
+    }
+}
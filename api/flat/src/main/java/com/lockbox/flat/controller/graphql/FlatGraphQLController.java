@@ -0,0 +1,98 @@
+package com.lockbox.flat.controller.graphql;
+
+import com.lockbox.flat.database.dto.FlatColumn;
+import com.lockbox.flat.database.dto.FlatFilterDto;
+import com.lockbox.flat.database.dto.FlatPageDto;
+import com.lockbox.flat.database.model.Amenity;
+import com.lockbox.flat.database.model.FlatPrice;
+import com.lockbox.flat.database.model.FlatWithLatestPrice;
+import com.lockbox.flat.database.service.FlatService;
+import graphql.schema.DataFetchingFieldSelectionSet;
+import graphql.schema.SelectedField;
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.FieldDefaults;
+import org.springframework.graphql.data.method.annotation.Argument;
+import org.springframework.graphql.data.method.annotation.BatchMapping;
+import org.springframework.graphql.data.method.annotation.QueryMapping;
+import org.springframework.stereotype.Controller;
+import reactor.core.publisher.Mono;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * GraphQL queries over flats.
+ * <p>
+ * Only the columns of the selected fields are read, so a list view that does not ask for {@code description}
+ * never fetches it. Amenities and prices are resolved by batch mappings: the flats of a response are
+ * collected into one DataLoader call, which costs a single query however many flats are listed.
+ * </p>
+ *
+ * @author serezk4
+ * @version 1.0
+ * @since 1.0
+ */
+@Controller
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+@RequiredArgsConstructor
+public class FlatGraphQLController {
+
+    static final int MAX_PAGE_SIZE = 100;
+    static final int PRICE_HISTORY_LIMIT = 100;
+
+    FlatService flatService;
+
+    @QueryMapping
+    public Mono<FlatPageDto> flats(
+            final @Argument FlatFilterDto filter,
+            final @Argument int first,
+            final @Argument String after,
+            final DataFetchingFieldSelectionSet selection
+    ) {
+        if (first < 1 || first > MAX_PAGE_SIZE)
+            return Mono.error(new IllegalArgumentException("flat.page.size.invalid"));
+        return flatService.findPageByFilters(
+                filter == null ? FlatFilterDto.builder().build() : filter, after, first, columns(selection, "flats/*")
+        );
+    }
+
+    @QueryMapping
+    public Mono<FlatWithLatestPrice> flat(final @Argument UUID id, final DataFetchingFieldSelectionSet selection) {
+        return flatService.findById(id, columns(selection, "*"));
+    }
+
+    @BatchMapping(typeName = "Flat")
+    public Mono<Map<FlatWithLatestPrice, List<Amenity>>> amenities(final List<FlatWithLatestPrice> flats) {
+        return flatService.findAmenitiesByFlatIds(ids(flats))
+                .map(byId -> byFlat(flats, byId));
+    }
+
+    @BatchMapping(typeName = "Flat")
+    public Mono<Map<FlatWithLatestPrice, List<FlatPrice>>> prices(final List<FlatWithLatestPrice> flats) {
+        return flatService.findPriceHistoryByFlatIds(ids(flats), PRICE_HISTORY_LIMIT)
+                .map(byId -> byFlat(flats, byId));
+    }
+
+    private static Set<FlatColumn> columns(DataFetchingFieldSelectionSet selection, String fields) {
+        return FlatColumn.ofProperties(selection.getFields(fields).stream().map(SelectedField::getName).toList());
+    }
+
+    private static Set<UUID> ids(List<FlatWithLatestPrice> flats) {
+        return flats.stream().map(FlatWithLatestPrice::getFlatId).collect(Collectors.toSet());
+    }
+
+    private static <V> Map<FlatWithLatestPrice, List<V>> byFlat(
+            List<FlatWithLatestPrice> flats,
+            Map<UUID, List<V>> byId
+    ) {
+        Map<FlatWithLatestPrice, List<V>> values = new LinkedHashMap<>();
+        for (FlatWithLatestPrice flat : flats)
+            values.put(flat, byId.getOrDefault(flat.getFlatId(), List.of()));
+        return values;
+    }
+}
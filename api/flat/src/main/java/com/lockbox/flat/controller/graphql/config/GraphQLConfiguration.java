@@ -1,9 +1,15 @@
 package com.lockbox.flat.controller.graphql.config;
 
+import graphql.GraphQLError;
+import graphql.GraphqlErrorBuilder;
 import graphql.scalars.ExtendedScalars;
+import graphql.schema.DataFetchingEnvironment;
 import graphql.schema.GraphQLScalarType;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.graphql.execution.DataFetcherExceptionResolver;
+import org.springframework.graphql.execution.DataFetcherExceptionResolverAdapter;
+import org.springframework.graphql.execution.ErrorType;
 import org.springframework.graphql.execution.RuntimeWiringConfigurer;
 
 @Configuration
@@ -17,4 +23,22 @@ public class GraphQLConfiguration {
     public RuntimeWiringConfigurer runtimeWiringConfigurer(GraphQLScalarType longScalar) {
         return wiringBuilder -> wiringBuilder.scalar(longScalar);
     }
+
+    /**
+     * Reports rejected arguments, such as an unknown amenity or a malformed cursor, as {@code BAD_REQUEST}
+     * errors carrying the message key instead of internal errors.
+     */
+    @Bean
+    public DataFetcherExceptionResolver badRequestExceptionResolver() {
+        return new DataFetcherExceptionResolverAdapter() {
+            @Override
+            protected GraphQLError resolveToSingleError(Throwable ex, DataFetchingEnvironment env) {
+                if (!(ex instanceof IllegalArgumentException)) return null;
+                return GraphqlErrorBuilder.newError(env)
+                        .errorType(ErrorType.BAD_REQUEST)
+                        .message(ex.getMessage())
+                        .build();
+            }
+        };
+    }
 }
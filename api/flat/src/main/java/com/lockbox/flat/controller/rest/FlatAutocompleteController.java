@@ -0,0 +1,57 @@
+package com.lockbox.flat.controller.rest;
+
+import com.lockbox.flat.controller.response.ApiResponse;
+import com.lockbox.flat.database.service.FlatService;
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.FieldDefaults;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+/**
+ * Type-ahead suggestions of flat titles for the search box.
+ *
+ * <p><strong>Usage Example:</strong></p>
+ * <pre>{@code
+ * GET /autocomplete?q=студ&limit=5
+ * }</pre>
+ *
+ * @author serezk4
+ * @version 1.0
+ * @since 1.0
+ */
+@RestController
+@RequestMapping
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+@RequiredArgsConstructor
+@Validated
+public class FlatAutocompleteController {
+
+    static final int DEFAULT_LIMIT = 10;
+
+    FlatService flatService;
+
+    /**
+     * Returns the titles of available flats completing a typed text.
+     *
+     * @param q     the typed text
+     * @param limit the maximum number of titles; defaults to 10
+     * @return a {@link Mono} containing a {@link ResponseEntity} with an {@link ApiResponse.Body}
+     * wrapping the titles, those starting with the text first
+     */
+    @GetMapping("/autocomplete")
+    public Mono<ResponseEntity<ApiResponse.Body<List<String>>>> autocomplete(
+            final @RequestParam String q,
+            final @RequestParam(required = false) Integer limit
+    ) {
+        return flatService.findTitleCompletions(q, limit == null ? DEFAULT_LIMIT : limit)
+                .map(ApiResponse::ok);
+    }
+}
@@ -0,0 +1,98 @@
+package com.lockbox.flat.controller.rest;
+
+import com.lockbox.flat.controller.response.ApiResponse;
+import com.lockbox.flat.database.dto.FlatBookingDto;
+import com.lockbox.flat.database.dto.FlatBookingRequestDto;
+import com.lockbox.flat.database.service.FlatBookingService;
+import com.lockbox.flat.security.auth.model.CustomUserDetails;
+import jakarta.validation.Valid;
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.FieldDefaults;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Bookings and availability calendar of flats.
+ * <p>
+ * Without a range, the calendar covers the next 90 days. Flats free for a period are searched with the
+ * {@code availableFrom} and {@code availableTo} filters of the flat search.
+ * </p>
+ *
+ * <p><strong>Usage Example:</strong></p>
+ * <pre>{@code
+ * GET /{id}/bookings?from=2026-07-01T00:00:00Z&to=2026-08-01T00:00:00Z
+ * POST /{id}/bookings {"from": "2026-07-10T14:00:00Z", "to": "2026-07-17T12:00:00Z"}
+ * }</pre>
+ *
+ * @author serezk4
+ * @version 1.0
+ * @since 1.0
+ */
+@RestController
+@RequestMapping
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+@RequiredArgsConstructor
+@Validated
+public class FlatBookingController {
+
+    static final Duration DEFAULT_RANGE = Duration.ofDays(90);
+
+    FlatBookingService flatBookingService;
+
+    /**
+     * Returns the bookings of a flat overlapping a period.
+     *
+     * @param id   the unique identifier of the flat
+     * @param from the start of the period, inclusive; defaults to now
+     * @param to   the end of the period, exclusive; defaults to 90 days after {@code from}
+     * @return a {@link Mono} containing a {@link ResponseEntity} with an {@link ApiResponse.Body}
+     * wrapping the bookings, earliest first
+     */
+    @GetMapping("/{id}/bookings")
+    public Mono<ResponseEntity<ApiResponse.Body<List<FlatBookingDto>>>> getBookings(
+            final @PathVariable UUID id,
+            final @RequestParam(required = false) Instant from,
+            final @RequestParam(required = false) Instant to
+    ) {
+        Instant start = from == null ? Instant.now().truncatedTo(ChronoUnit.SECONDS) : from;
+        Instant end = to == null ? start.plus(DEFAULT_RANGE) : to;
+        return flatBookingService.findBookings(id, start, end)
+                .collectList()
+                .map(ApiResponse::ok);
+    }
+
+    /**
+     * Books a flat for the authenticated user.
+     *
+     * @param id          the unique identifier of the flat
+     * @param request     the booked period
+     * @param userDetails the authenticated guest
+     * @return a {@link Mono} containing a {@link ResponseEntity} with an {@link ApiResponse.Body}
+     * wrapping the booking
+     */
+    @PostMapping("/{id}/bookings")
+    public Mono<ResponseEntity<ApiResponse.Body<FlatBookingDto>>> book(
+            final @PathVariable UUID id,
+            final @Valid @RequestBody FlatBookingRequestDto request,
+            final @AuthenticationPrincipal CustomUserDetails userDetails
+    ) {
+        return flatBookingService.book(id, userDetails.getSub(), request.getFrom(), request.getTo())
+                .map(ApiResponse::ok);
+    }
+}
@@ -0,0 +1,69 @@
+package com.lockbox.flat.controller.rest;
+
+import com.lockbox.flat.controller.response.ApiResponse;
+import com.lockbox.flat.database.dto.FlatClusterDto;
+import com.lockbox.flat.database.dto.FlatFilterDto;
+import com.lockbox.flat.database.service.FlatService;
+import com.lockbox.flat.search.FlatClustersProperties;
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.FieldDefaults;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.ModelAttribute;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+/**
+ * Clustered flats for map views.
+ * <p>
+ * Accepts the filters of the flat search as query parameters. Responses may be cached by clients and proxies
+ * for {@code flat.search.clusters.ttl}.
+ * </p>
+ *
+ * <p><strong>Usage Example:</strong></p>
+ * <pre>{@code
+ * GET /clusters?south=59.80&west=30.10&north=60.05&east=30.55&zoom=11&minRooms=2
+ * }</pre>
+ *
+ * @author serezk4
+ * @version 1.0
+ * @since 1.0
+ */
+@RestController
+@RequestMapping
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+@RequiredArgsConstructor
+@Validated
+public class FlatClusterController {
+
+    FlatService flatService;
+    FlatClustersProperties flatClustersProperties;
+
+    /**
+     * Returns the clusters of the flats matching the filter within a box.
+     *
+     * @param zoom   the zoom level of the map
+     * @param filter the search filters with the visible box ({@code south}, {@code west}, {@code north},
+     *               {@code east}); the ordering is ignored
+     * @return a {@link Mono} containing a {@link ResponseEntity} with an {@link ApiResponse.Body}
+     * wrapping the clusters of every map tile covering the box
+     */
+    @GetMapping("/clusters")
+    public Mono<ResponseEntity<ApiResponse.Body<List<FlatClusterDto>>>> getClusters(
+            final @RequestParam int zoom,
+            final @ModelAttribute FlatFilterDto filter
+    ) {
+        return Mono.fromCallable(filter::box)
+                .flatMap(box -> flatService.findClustersByFilters(filter, box, zoom))
+                .map(clusters -> ResponseEntity.ok()
+                        .cacheControl(CacheControl.maxAge(flatClustersProperties.ttl()).cachePublic())
+                        .body(new ApiResponse.Body<>(clusters)));
+    }
+}
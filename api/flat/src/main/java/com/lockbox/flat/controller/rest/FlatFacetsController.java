@@ -0,0 +1,54 @@
+package com.lockbox.flat.controller.rest;
+
+import com.lockbox.flat.controller.response.ApiResponse;
+import com.lockbox.flat.database.dto.FlatFacetsDto;
+import com.lockbox.flat.database.dto.FlatFilterDto;
+import com.lockbox.flat.database.service.FlatService;
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.FieldDefaults;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.ModelAttribute;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Mono;
+
+/**
+ * Facet counts of the flat search, for the option counts next to the search filters.
+ * <p>
+ * Accepts the filters of the flat search as query parameters; the ordering is ignored.
+ * </p>
+ *
+ * <p><strong>Usage Example:</strong></p>
+ * <pre>{@code
+ * GET /facets?minArea=30&amenities={id1},{id2}&maxPrice=12000000
+ * }</pre>
+ *
+ * @author serezk4
+ * @version 1.0
+ * @since 1.0
+ */
+@RestController
+@RequestMapping
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+@RequiredArgsConstructor
+@Validated
+public class FlatFacetsController {
+
+    FlatService flatService;
+
+    /**
+     * Returns the counts of the flats matching the filter by rooms, price range and amenity.
+     *
+     * @param filter the search filters
+     * @return a {@link Mono} containing a {@link ResponseEntity} with an {@link ApiResponse.Body}
+     * wrapping the {@link FlatFacetsDto}
+     */
+    @GetMapping("/facets")
+    public Mono<ResponseEntity<ApiResponse.Body<FlatFacetsDto>>> getFacets(final @ModelAttribute FlatFilterDto filter) {
+        return flatService.findFacetsByFilters(filter)
+                .map(ApiResponse::ok);
+    }
+}
@@ -0,0 +1,62 @@
+package com.lockbox.flat.controller.rest;
+
+import com.lockbox.flat.controller.response.ApiResponse;
+import com.lockbox.flat.database.dto.FlatImportResultDto;
+import com.lockbox.flat.imports.FlatImportFormat;
+import com.lockbox.flat.imports.FlatImportService;
+import com.lockbox.flat.security.auth.model.CustomUserDetails;
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.FieldDefaults;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Mono;
+
+/**
+ * Bulk import of flats owned by the caller.
+ *
+ * <p><strong>Usage Example:</strong></p>
+ * <pre>{@code
+ * POST /import
+ * Content-Type: application/x-ndjson
+ *
+ * {"title":"Loft","description":"Bright loft near the park","area":54.5,"rooms":2,"price":8500000}
+ * {"title":"Studio","description":"Cozy studio in the center","area":24,"rooms":1,"price":4200000,"status":"available"}
+ * }</pre>
+ * CSV bodies ({@code text/csv}) start with a header row naming the same properties.
+ *
+ * @author serezk4
+ * @version 1.0
+ * @since 1.0
+ */
+@RestController
+@RequestMapping
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+@RequiredArgsConstructor
+public class FlatImportController {
+
+    FlatImportService flatImportService;
+
+    /**
+     * Imports the flats of the request body as it is streamed.
+     *
+     * @param request     the request, whose body is read incrementally
+     * @param userDetails the caller, owner of the imported flats
+     * @return a {@link Mono} containing a {@link ResponseEntity} with an {@link ApiResponse.Body}
+     * wrapping the {@link FlatImportResultDto}
+     */
+    @PostMapping(value = "/import", consumes = {MediaType.APPLICATION_NDJSON_VALUE, "text/csv"})
+    public Mono<ResponseEntity<ApiResponse.Body<FlatImportResultDto>>> importFlats(
+            final ServerHttpRequest request,
+            final @AuthenticationPrincipal CustomUserDetails userDetails
+    ) {
+        return Mono.fromCallable(() -> FlatImportFormat.of(request.getHeaders().getContentType()))
+                .flatMap(format -> flatImportService.importFlats(request.getBody(), format, userDetails.getSub()))
+                .map(ApiResponse::ok);
+    }
+}
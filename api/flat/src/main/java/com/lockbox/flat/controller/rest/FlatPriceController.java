@@ -0,0 +1,108 @@
+package com.lockbox.flat.controller.rest;
+
+import com.lockbox.flat.controller.response.ApiResponse;
+import com.lockbox.flat.database.dto.FlatPriceSeriesDto;
+import com.lockbox.flat.database.service.FlatPriceService;
+import jakarta.validation.constraints.NotEmpty;
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.FieldDefaults;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Price history of flats, downsampled for charts.
+ * <p>
+ * Without a range, the last year is returned; without a bucket, one point per day.
+ * </p>
+ *
+ * <p><strong>Usage Example:</strong></p>
+ * <pre>{@code
+ * GET /{id}/prices?from=2025-01-01T00:00:00Z&to=2025-07-01T00:00:00Z&bucket=P7D
+ * GET /prices?ids={id1},{id2}&bucket=P1D
+ * }</pre>
+ *
+ * @author serezk4
+ * @version 1.0
+ * @since 1.0
+ */
+@RestController
+@RequestMapping
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+@RequiredArgsConstructor
+@Validated
+public class FlatPriceController {
+
+    static final Duration DEFAULT_RANGE = Duration.ofDays(365);
+    static final Duration DEFAULT_BUCKET = Duration.ofDays(1);
+
+    FlatPriceService flatPriceService;
+
+    /**
+     * Returns the price series of a flat.
+     *
+     * @param id     the unique identifier of the flat
+     * @param from   the start of the range, inclusive; defaults to a year before {@code to}
+     * @param to     the end of the range, exclusive; defaults to now
+     * @param bucket the width of the buckets as an ISO-8601 duration; defaults to one day
+     * @return a {@link Mono} containing a {@link ResponseEntity} with an {@link ApiResponse.Body}
+     * wrapping the {@link FlatPriceSeriesDto}
+     */
+    @GetMapping("/{id}/prices")
+    public Mono<ResponseEntity<ApiResponse.Body<FlatPriceSeriesDto>>> getPrices(
+            final @PathVariable UUID id,
+            final @RequestParam(required = false) Instant from,
+            final @RequestParam(required = false) Instant to,
+            final @RequestParam(required = false) Duration bucket
+    ) {
+        return series(List.of(id), from, to, bucket)
+                .next()
+                .map(ApiResponse::ok);
+    }
+
+    /**
+     * Returns the price series of several flats over the same buckets, for comparison charts.
+     *
+     * @param ids    the unique identifiers of the flats, at most {@value FlatPriceService#MAX_FLATS}
+     * @param from   the start of the range, inclusive; defaults to a year before {@code to}
+     * @param to     the end of the range, exclusive; defaults to now
+     * @param bucket the width of the buckets as an ISO-8601 duration; defaults to one day
+     * @return a {@link Mono} containing a {@link ResponseEntity} with an {@link ApiResponse.Body}
+     * wrapping the series, in the order of {@code ids}
+     */
+    @GetMapping("/prices")
+    public Mono<ResponseEntity<ApiResponse.Body<List<FlatPriceSeriesDto>>>> comparePrices(
+            final @RequestParam @NotEmpty(message = "ids.not_empty") List<UUID> ids,
+            final @RequestParam(required = false) Instant from,
+            final @RequestParam(required = false) Instant to,
+            final @RequestParam(required = false) Duration bucket
+    ) {
+        return series(ids, from, to, bucket)
+                .collectList()
+                .map(ApiResponse::ok);
+    }
+
+    private Flux<FlatPriceSeriesDto> series(
+            List<UUID> ids,
+            Instant from,
+            Instant to,
+            Duration bucket
+    ) {
+        Instant end = to == null ? Instant.now().truncatedTo(ChronoUnit.SECONDS) : to;
+        Instant start = from == null ? end.minus(DEFAULT_RANGE) : from;
+        return flatPriceService.findPriceSeries(ids, start, end, bucket == null ? DEFAULT_BUCKET : bucket);
+    }
+}
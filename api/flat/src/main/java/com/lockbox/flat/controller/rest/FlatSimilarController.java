@@ -0,0 +1,61 @@
+package com.lockbox.flat.controller.rest;
+
+import com.lockbox.flat.controller.response.ApiResponse;
+import com.lockbox.flat.database.model.FlatWithLatestPrice;
+import com.lockbox.flat.database.service.FlatService;
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.FieldDefaults;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Similar flats, for the "similar listings" block of a flat page.
+ *
+ * <p><strong>Usage Example:</strong></p>
+ * <pre>{@code
+ * GET /{id}/similar?k=8
+ * }</pre>
+ *
+ * @author serezk4
+ * @version 1.0
+ * @since 1.0
+ */
+@RestController
+@RequestMapping
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+@RequiredArgsConstructor
+@Validated
+public class FlatSimilarController {
+
+    static final int DEFAULT_K = 10;
+
+    FlatService flatService;
+
+    /**
+     * Returns the available flats most similar to a flat by location, area, rooms and price.
+     *
+     * @param id the unique identifier of the flat
+     * @param k  the maximum number of flats, at most {@value FlatService#MAX_SIMILAR}; defaults to 10
+     * @return a {@link Mono} containing a {@link ResponseEntity} with an {@link ApiResponse.Body}
+     * wrapping the flats, most similar first
+     */
+    @GetMapping("/{id}/similar")
+    public Mono<ResponseEntity<ApiResponse.Body<List<FlatWithLatestPrice>>>> getSimilar(
+            final @PathVariable UUID id,
+            final @RequestParam(required = false) Integer k
+    ) {
+        return flatService.findSimilar(id, k == null ? DEFAULT_K : k)
+                .collectList()
+                .map(ApiResponse::ok);
+    }
+}
@@ -2,7 +2,9 @@ package com.lockbox.flat.controller.rest;
 
 import com.lockbox.flat.database.dto.FlatDto;
 import com.lockbox.flat.database.mapper.FlatMapper;
+import com.lockbox.flat.database.model.Amenity;
 import com.lockbox.flat.database.model.Flat;
+import com.lockbox.flat.database.service.AmenityCatalog;
 import com.lockbox.flat.database.service.FlatService;
 import com.lockbox.flat.security.auth.model.CustomUserDetails;
 import jakarta.validation.Valid;
@@ -13,6 +15,7 @@ import lombok.extern.log4j.Log4j2;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import java.util.UUID;
@@ -28,6 +31,8 @@ public class TestFlatController {
 
     FlatMapper flatMapper;
 
+    AmenityCatalog amenityCatalog;
+
     @PostMapping
     public Mono<Flat> createFlat(
             final @Valid @RequestBody FlatDto flat,
@@ -48,9 +53,13 @@ public class TestFlatController {
                 .filter(f -> f.getOwnerSub().equals(userDetails.getSub()))
                 .switchIfEmpty(Mono.error(new IllegalAccessException("flat not found or not owned by user")))
                 .flatMap(f -> flatService.save(flatMapper.partialUpdate(patch, f))
-                        .doOnSuccess(updatedFlat -> log.info("Flat updated successfully: {}", updatedFlat))
+                        .doOnSuccess(updatedFlat -> log.info("Flat updated: {}", updatedFlat.getFlatId()))
                         .doOnError(error -> log.error("Failed to update flat: {}", id, error))
                 ).map(flatMapper::toDto);
     }
 
+    @GetMapping("/amenities")
+    public Flux<Amenity> getAmenities() {
+        return Flux.fromIterable(amenityCatalog.all());
+    }
 }
@@ -0,0 +1,39 @@
+package com.lockbox.flat.database.dto;
+
+import lombok.Builder;
+import lombok.Value;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * A booked period of a flat, as shown in its availability calendar.
+ *
+ * @author serezk4
+ * @version 1.0
+ * @since 1.0
+ */
+@Value
+@Builder
+public class FlatBookingDto {
+
+    /**
+     * Unique identifier of the booking.
+     */
+    UUID bookingId;
+
+    /**
+     * The booked flat.
+     */
+    UUID flatId;
+
+    /**
+     * Start of the period, inclusive.
+     */
+    Instant from;
+
+    /**
+     * End of the period, exclusive.
+     */
+    Instant to;
+}
@@ -0,0 +1,41 @@
+package com.lockbox.flat.database.dto;
+
+import jakarta.validation.constraints.NotNull;
+import lombok.Value;
+
+import java.time.Instant;
+
+/**
+ * A request to book a flat for a period.
+ *
+ * @author serezk4
+ * @version 1.0
+ * @since 1.0
+ */
+@Value
+public class FlatBookingRequestDto {
+
+    /**
+     * Start of the period, inclusive.
+     * <p>
+     * <b>Restrictions:</b>
+     * <ul>
+     *     <li>Cannot be null</li>
+     *     <li>Must not be in the past</li>
+     * </ul>
+     */
+    @NotNull(message = "from.not_null")
+    Instant from;
+
+    /**
+     * End of the period, exclusive.
+     * <p>
+     * <b>Restrictions:</b>
+     * <ul>
+     *     <li>Cannot be null</li>
+     *     <li>Must be after {@code from}</li>
+     * </ul>
+     */
+    @NotNull(message = "to.not_null")
+    Instant to;
+}
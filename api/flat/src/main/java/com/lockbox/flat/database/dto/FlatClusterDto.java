@@ -0,0 +1,43 @@
+package com.lockbox.flat.database.dto;
+
+import lombok.Builder;
+import lombok.Value;
+import lombok.extern.jackson.Jacksonized;
+
+/**
+ * The flats of one cell of a clustered map tile.
+ *
+ * @author serezk4
+ * @version 1.0
+ * @since 1.0
+ */
+@Value
+@Builder
+@Jacksonized
+public class FlatClusterDto {
+
+    /**
+     * Latitude of the centroid of the flats.
+     */
+    double latitude;
+
+    /**
+     * Longitude of the centroid of the flats.
+     */
+    double longitude;
+
+    /**
+     * Number of flats in the cell.
+     */
+    long flats;
+
+    /**
+     * Lowest latest price in the cell, {@code null} if no flat has a price.
+     */
+    Double minPrice;
+
+    /**
+     * Highest latest price in the cell, {@code null} if no flat has a price.
+     */
+    Double maxPrice;
+}
@@ -0,0 +1,80 @@
+package com.lockbox.flat.database.dto;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Columns a flat search can be restricted to, by the property of
+ * {@link com.lockbox.flat.database.model.FlatWithLatestPrice} they fill.
+ * <p>
+ * Clients that show a list do not need every column; in particular {@code description} is a {@code TEXT}
+ * column and {@code snippet} is computed per row. The id and the sort key of the search are selected anyway,
+ * so pages can always be continued.
+ * </p>
+ *
+ * @author serezk4
+ * @version 1.0
+ * @since 1.0
+ */
+public enum FlatColumn {
+    FLAT_ID("flatId", "flat_id"),
+    OWNER_SUB("ownerSub", "owner_sub"),
+    TITLE("title", "title"),
+    DESCRIPTION("description", "description"),
+    LONGITUDE("longitude", "longitude"),
+    LATITUDE("latitude", "latitude"),
+    FLOOR("floor", "floor"),
+    AREA("area", "area"),
+    ROOMS("rooms", "rooms"),
+    STATUS("status", "status::text AS status"),
+    CREATED_AT("createdAt", "created_at"),
+    UPDATED_AT("updatedAt", "updated_at"),
+    LATEST_PRICE("latestPrice", "latest_price"),
+
+    /**
+     * Highlighted description fragments; only computed for searches with a text.
+     */
+    SNIPPET("snippet", null);
+
+    /**
+     * Every column, the default projection.
+     */
+    public static final Set<FlatColumn> ALL = Collections.unmodifiableSet(EnumSet.allOf(FlatColumn.class));
+
+    private final String property;
+    private final String expression;
+
+    FlatColumn(String property, String expression) {
+        this.property = property;
+        this.expression = expression;
+    }
+
+    public String getProperty() {
+        return property;
+    }
+
+    /**
+     * Returns the select list entry of this column, {@code null} for computed columns.
+     *
+     * @return the SQL expression, aliased to the column name
+     */
+    public String getExpression() {
+        return expression;
+    }
+
+    /**
+     * Resolves the columns filling the given properties; unknown properties, such as associations or
+     * computed values that are always selected, are ignored.
+     *
+     * @param properties the property names, e.g. {@code title}
+     * @return the columns
+     */
+    public static Set<FlatColumn> ofProperties(Collection<String> properties) {
+        Set<FlatColumn> columns = EnumSet.noneOf(FlatColumn.class);
+        for (FlatColumn column : values())
+            if (properties.contains(column.property)) columns.add(column);
+        return columns;
+    }
+}
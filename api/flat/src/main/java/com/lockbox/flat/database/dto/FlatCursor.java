@@ -0,0 +1,127 @@
+package com.lockbox.flat.database.dto;
+
+import com.lockbox.flat.database.model.FlatWithLatestPrice;
+import org.springframework.data.domain.Sort;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Base64;
+import java.util.UUID;
+
+/**
+ * Position of the last flat of a search page, from which the next page continues.
+ * <p>
+ * Clients receive it as an opaque token. It holds the order it was produced for, the sort value of the last
+ * flat and its id, so the next page is a range condition on the order index instead of an {@code OFFSET}.
+ * </p>
+ *
+ * @param order     the order of the search
+ * @param direction the direction of the order
+ * @param value     the sort value of the last flat, as text
+ * @param flatId    the id of the last flat
+ * @author serezk4
+ * @version 1.0
+ * @see FlatOrder
+ * @since 1.0
+ */
+public record FlatCursor(FlatOrder order, Sort.Direction direction, String value, UUID flatId) {
+
+    private static final char SEPARATOR = '|';
+
+    /**
+     * Returns the cursor continuing after a flat.
+     *
+     * @param flat      the last flat of the page
+     * @param order     the order of the search
+     * @param direction the direction of the order
+     * @return the cursor
+     */
+    public static FlatCursor after(FlatWithLatestPrice flat, FlatOrder order, Sort.Direction direction) {
+        Object value = switch (order) {
+            case CREATED_AT -> flat.getCreatedAt();
+            case PRICE -> flat.getLatestPrice();
+            case AREA -> flat.getArea();
+            case DISTANCE -> flat.getDistance();
+            case RELEVANCE -> flat.getRank();
+        };
+        return new FlatCursor(order, direction, String.valueOf(value), flat.getFlatId());
+    }
+
+    /**
+     * Returns the sort value in the type it is compared with in SQL: exact decimals for numeric columns,
+     * so that their indexes stay usable.
+     *
+     * @return the sort value
+     */
+    public Object sortValue() {
+        return switch (order) {
+            case CREATED_AT -> Instant.parse(value);
+            case PRICE, AREA -> new BigDecimal(value);
+            case DISTANCE -> Double.valueOf(value);
+            case RELEVANCE -> Float.valueOf(value);
+        };
+    }
+
+    /**
+     * Returns the sort value as a number; timestamps are in microseconds since the epoch.
+     *
+     * @return the sort value
+     */
+    public double numericValue() {
+        return order == FlatOrder.CREATED_AT
+                ? ChronoUnit.MICROS.between(Instant.EPOCH, Instant.parse(value))
+                : Double.parseDouble(value);
+    }
+
+    /**
+     * Checks that this cursor was produced by a search with the same order as the given one.
+     *
+     * @param filter the filtering criteria of the next page
+     * @return this cursor
+     * @throws IllegalArgumentException if the order or its direction differ
+     */
+    public FlatCursor requireFor(FlatFilterDto filter) {
+        FlatOrder expected = FlatOrder.of(filter);
+        if (order != expected || direction != expected.direction(filter))
+            throw new IllegalArgumentException("flat.cursor.invalid");
+        return this;
+    }
+
+    /**
+     * Encodes this cursor as an opaque, URL-safe token.
+     *
+     * @return the token
+     */
+    public String encode() {
+        String plain = order.getAlias() + SEPARATOR + direction.name() + SEPARATOR + value + SEPARATOR + flatId;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(plain.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decodes a token produced by {@link #encode()}.
+     *
+     * @param token the token
+     * @return the cursor
+     * @throws IllegalArgumentException if the token is malformed
+     */
+    public static FlatCursor decode(String token) {
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8)
+                    .split("\\|", -1);
+            if (parts.length != 4) throw new IllegalArgumentException("flat.cursor.invalid");
+
+            FlatCursor cursor = new FlatCursor(
+                    FlatOrder.fromAlias(parts[0]),
+                    Sort.Direction.valueOf(parts[1]),
+                    parts[2],
+                    UUID.fromString(parts[3])
+            );
+            cursor.sortValue();
+            return cursor;
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("flat.cursor.invalid", e);
+        }
+    }
+}
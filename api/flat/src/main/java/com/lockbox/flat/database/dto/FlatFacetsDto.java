@@ -0,0 +1,75 @@
+package com.lockbox.flat.database.dto;
+
+import lombok.Builder;
+import lombok.Value;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Counts of the flats matching a search, broken down by the options of the search filters.
+ * <p>
+ * Each breakdown counts the flats of the current result, so the counts add up to {@link #total} (amenities
+ * excepted, as a flat may have several). Options without flats are omitted.
+ * </p>
+ *
+ * @author serezk4
+ * @version 1.0
+ * @since 1.0
+ */
+@Value
+@Builder
+public class FlatFacetsDto {
+
+    /**
+     * Largest room count with its own option; larger flats are counted under {@code "3+"}.
+     */
+    public static final int MAX_ROOMS_BUCKET = 3;
+
+    /**
+     * Number of matching flats.
+     */
+    long total;
+
+    /**
+     * Flats by number of rooms: {@code "1"}, {@code "2"} and {@code "3+"}.
+     */
+    Map<String, Long> rooms;
+
+    /**
+     * Flats by price range, e.g. {@code "3000000-6000000"}, in ascending order; flats without a price are not
+     * counted.
+     */
+    Map<String, Long> prices;
+
+    /**
+     * Flats by amenity id.
+     */
+    Map<UUID, Long> amenities;
+
+    /**
+     * Returns the option of a room bucket.
+     *
+     * @param bucket the number of rooms, capped at {@link #MAX_ROOMS_BUCKET}
+     * @return the option label
+     */
+    public static String roomsLabel(int bucket) {
+        return bucket >= MAX_ROOMS_BUCKET ? MAX_ROOMS_BUCKET + "+" : String.valueOf(bucket);
+    }
+
+    /**
+     * Returns the option of a price bucket, numbered like {@code width_bucket}: bucket {@code i} holds prices
+     * from {@code edges[i - 1]} (inclusive) to {@code edges[i]} (exclusive).
+     *
+     * @param bucket the bucket, from {@code 0} to {@code edges.size()}
+     * @param edges  the ascending lower bounds of the buckets after the first
+     * @return the option label
+     */
+    public static String priceLabel(int bucket, List<BigDecimal> edges) {
+        if (bucket >= edges.size()) return edges.get(edges.size() - 1).toPlainString() + "+";
+        String from = bucket == 0 ? "0" : edges.get(bucket - 1).toPlainString();
+        return from + "-" + edges.get(bucket).toPlainString();
+    }
+}
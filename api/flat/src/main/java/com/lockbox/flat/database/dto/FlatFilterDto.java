@@ -3,11 +3,12 @@ package com.lockbox.flat.database.dto;
 import lombok.Builder;
 import lombok.Value;
 
+import java.time.Instant;
 import java.util.List;
 import java.util.UUID;
 
 @Value
-@Builder
+@Builder(toBuilder = true)
 public class FlatFilterDto {
     Double minArea;
     Double maxArea;
@@ -19,10 +20,68 @@ public class FlatFilterDto {
     Double longitude;
     Double radius;
 
+    // bounding box; west > east crosses the antimeridian
+    Double south;
+    Double west;
+    Double north;
+    Double east;
+
     String orderBy;
     String orderDirection;
     String search;
 
     Double minPrice; // currency = rub
     Double maxPrice; // currency = rub
+
+    // free of bookings for [availableFrom, availableTo)
+    Instant availableFrom;
+    Instant availableTo;
+
+    /**
+     * Checks whether both coordinates of a searched location are given.
+     *
+     * @return {@code true} if the search has a location
+     */
+    public boolean hasLocation() {
+        return latitude != null && longitude != null;
+    }
+
+    /**
+     * Checks whether any bound of a bounding box is given.
+     *
+     * @return {@code true} if the search is restricted to a box
+     */
+    public boolean hasBox() {
+        return south != null || west != null || north != null || east != null;
+    }
+
+    /**
+     * Returns the bounding box of the search.
+     *
+     * @return the box
+     * @throws IllegalArgumentException if a bound is missing or out of range
+     */
+    public GeoBox box() {
+        if (south == null || west == null || north == null || east == null)
+            throw new IllegalArgumentException("flat.bbox.incomplete");
+        return new GeoBox(south, west, north, east);
+    }
+
+    /**
+     * Checks whether any bound of an availability period is given.
+     *
+     * @return {@code true} if the search is restricted to flats free for a period
+     */
+    public boolean hasAvailability() {
+        return availableFrom != null || availableTo != null;
+    }
+
+    /**
+     * Checks whether a non-blank search text is given.
+     *
+     * @return {@code true} if the search has a text query
+     */
+    public boolean hasSearch() {
+        return search != null && !search.isBlank();
+    }
 }
@@ -0,0 +1,46 @@
+package com.lockbox.flat.database.dto;
+
+import lombok.Builder;
+import lombok.Value;
+
+import java.util.List;
+
+/**
+ * Outcome of a bulk flat import.
+ * <p>
+ * Valid rows are imported even when others are rejected. Rejected rows are reported by line, up to a configured
+ * number; {@link #failed} counts all of them.
+ * </p>
+ *
+ * @author serezk4
+ * @version 1.0
+ * @since 1.0
+ */
+@Value
+@Builder
+public class FlatImportResultDto {
+
+    /**
+     * Number of flats imported.
+     */
+    long imported;
+
+    /**
+     * Number of rows rejected.
+     */
+    long failed;
+
+    /**
+     * The first rejected rows, in line order.
+     */
+    List<RowError> errors;
+
+    /**
+     * A rejected row.
+     *
+     * @param line   the line the row starts on, from 1
+     * @param errors the reasons, as message keys
+     */
+    public record RowError(long line, List<String> errors) {
+    }
+}
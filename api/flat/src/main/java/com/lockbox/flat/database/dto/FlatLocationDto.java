@@ -0,0 +1,16 @@
+package com.lockbox.flat.database.dto;
+
+import java.util.UUID;
+
+/**
+ * The location of a flat.
+ *
+ * @param flatId    the flat id
+ * @param latitude  the latitude
+ * @param longitude the longitude
+ * @author serezk4
+ * @version 1.0
+ * @since 1.0
+ */
+public record FlatLocationDto(UUID flatId, double latitude, double longitude) {
+}
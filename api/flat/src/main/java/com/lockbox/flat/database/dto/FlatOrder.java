@@ -0,0 +1,93 @@
+package com.lockbox.flat.database.dto;
+
+import org.springframework.data.domain.Sort;
+
+/**
+ * Orders supported by the flat search, by the name accepted in {@link FlatFilterDto#getOrderBy()}.
+ * <p>
+ * Each order is backed by an index and always ends with the flat id, so pages can be fetched with a
+ * {@link FlatCursor} instead of an offset. Without an explicit order, a search text orders by relevance,
+ * a location alone orders nearest first, and otherwise the newest flats come first.
+ * </p>
+ *
+ * @author serezk4
+ * @version 1.0
+ * @see FlatCursor
+ * @since 1.0
+ */
+public enum FlatOrder {
+    CREATED_AT("created_at"),
+
+    /**
+     * Only flats that have a price are listed.
+     */
+    PRICE("price"),
+
+    AREA("area"),
+
+    /**
+     * Nearest first; needs a location, and only flats with a location are listed.
+     */
+    DISTANCE("distance"),
+
+    /**
+     * Best match first; needs a search text.
+     */
+    RELEVANCE("relevance");
+
+    private final String alias;
+
+    FlatOrder(String alias) {
+        this.alias = alias;
+    }
+
+    public String getAlias() {
+        return alias;
+    }
+
+    /**
+     * Resolves the order of a search.
+     *
+     * @param filter the filtering criteria
+     * @return the order
+     * @throws IllegalArgumentException if the order is unknown or lacks the location or search text it needs
+     */
+    public static FlatOrder of(FlatFilterDto filter) {
+        if (filter.getOrderBy() == null)
+            return filter.hasSearch() ? RELEVANCE : filter.hasLocation() ? DISTANCE : CREATED_AT;
+
+        FlatOrder order = fromAlias(filter.getOrderBy());
+        if (order == RELEVANCE && !filter.hasSearch())
+            throw new IllegalArgumentException("flat.order.relevance.search.required");
+        if (order == DISTANCE && !filter.hasLocation())
+            throw new IllegalArgumentException("flat.order.distance.location.required");
+        return order;
+    }
+
+    /**
+     * Resolves an order by its alias.
+     *
+     * @param alias the alias, e.g. {@code price}
+     * @return the matching order
+     * @throws IllegalArgumentException if no order has this alias
+     */
+    public static FlatOrder fromAlias(String alias) {
+        for (FlatOrder order : values())
+            if (order.alias.equals(alias)) return order;
+        throw new IllegalArgumentException("flat.order.invalid");
+    }
+
+    /**
+     * Resolves the direction of this order for a search. Distance is always ascending and relevance always
+     * descending; other orders default to descending.
+     *
+     * @param filter the filtering criteria
+     * @return the direction
+     * @throws IllegalArgumentException if the direction is neither {@code asc} nor {@code desc}
+     */
+    public Sort.Direction direction(FlatFilterDto filter) {
+        if (this == DISTANCE) return Sort.Direction.ASC;
+        if (this == RELEVANCE || filter.getOrderDirection() == null) return Sort.Direction.DESC;
+        return Sort.Direction.fromString(filter.getOrderDirection());
+    }
+}
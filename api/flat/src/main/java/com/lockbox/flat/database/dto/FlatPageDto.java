@@ -0,0 +1,29 @@
+package com.lockbox.flat.database.dto;
+
+import com.lockbox.flat.database.model.FlatWithLatestPrice;
+import lombok.Builder;
+import lombok.Value;
+
+import java.util.List;
+
+/**
+ * A page of flat search results.
+ *
+ * @author serezk4
+ * @version 1.0
+ * @since 1.0
+ */
+@Value
+@Builder
+public class FlatPageDto {
+
+    /**
+     * The flats of the page, in search order.
+     */
+    List<FlatWithLatestPrice> flats;
+
+    /**
+     * Token of the next page, {@code null} on the last page; see {@link FlatCursor}.
+     */
+    String nextCursor;
+}
@@ -0,0 +1,44 @@
+package com.lockbox.flat.database.dto;
+
+import lombok.Builder;
+import lombok.Value;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+/**
+ * The price changes of a flat within one bucket of a {@link FlatPriceSeriesDto}.
+ *
+ * @author serezk4
+ * @version 1.0
+ * @since 1.0
+ */
+@Value
+@Builder
+public class FlatPricePointDto {
+
+    /**
+     * Start of the bucket.
+     */
+    Instant bucket;
+
+    /**
+     * Lowest price set within the bucket.
+     */
+    BigDecimal minPrice;
+
+    /**
+     * Highest price set within the bucket.
+     */
+    BigDecimal maxPrice;
+
+    /**
+     * Price in effect at the end of the bucket.
+     */
+    BigDecimal lastPrice;
+
+    /**
+     * Number of price changes within the bucket.
+     */
+    long changes;
+}
@@ -0,0 +1,39 @@
+package com.lockbox.flat.database.dto;
+
+import lombok.Builder;
+import lombok.Value;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Price history of a flat over a time range, downsampled to fixed-width buckets.
+ * <p>
+ * Only buckets with a price change have a point; in between, the {@link FlatPricePointDto#getLastPrice()} of the
+ * previous point stays in effect, starting with {@link #openingPrice}.
+ * </p>
+ *
+ * @author serezk4
+ * @version 1.0
+ * @since 1.0
+ */
+@Value
+@Builder
+public class FlatPriceSeriesDto {
+
+    /**
+     * Identifier of the flat.
+     */
+    UUID flatId;
+
+    /**
+     * Price in effect at the start of the range, {@code null} if the flat had no price yet.
+     */
+    BigDecimal openingPrice;
+
+    /**
+     * The buckets with price changes, oldest first.
+     */
+    List<FlatPricePointDto> points;
+}
@@ -0,0 +1,47 @@
+package com.lockbox.flat.database.dto;
+
+import java.util.List;
+
+/**
+ * A rectangle of latitudes and longitudes, in degrees. A box crossing the antimeridian has its western
+ * longitude greater than its eastern one, e.g. {@code west = 170, east = -170}.
+ *
+ * @param south the southern latitude, from {@code -90} to {@code north}
+ * @param west  the western longitude, from {@code -180} to {@code 180}
+ * @param north the northern latitude, up to {@code 90}
+ * @param east  the eastern longitude, from {@code -180} to {@code 180}
+ * @author serezk4
+ * @version 1.0
+ * @since 1.0
+ */
+public record GeoBox(double south, double west, double north, double east) {
+
+    /**
+     * @throws IllegalArgumentException if a bound is out of range or the latitudes are swapped
+     */
+    public GeoBox {
+        if (!(-90 <= south && south <= north && north <= 90))
+            throw new IllegalArgumentException("flat.bbox.latitude.invalid");
+        if (!(-180 <= west && west <= 180 && -180 <= east && east <= 180))
+            throw new IllegalArgumentException("flat.bbox.longitude.invalid");
+    }
+
+    /**
+     * Checks whether this box crosses the antimeridian.
+     *
+     * @return {@code true} if the western longitude is greater than the eastern one
+     */
+    public boolean crossesAntimeridian() {
+        return west > east;
+    }
+
+    /**
+     * Splits this box at the antimeridian.
+     *
+     * @return the western and eastern halves if this box crosses the antimeridian, this box otherwise
+     */
+    public List<GeoBox> split() {
+        if (!crossesAntimeridian()) return List.of(this);
+        return List.of(new GeoBox(south, west, north, 180), new GeoBox(south, -180, north, east));
+    }
+}
@@ -0,0 +1,137 @@
+package com.lockbox.flat.database.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A tile of the Web Mercator grid used by map clients: at zoom {@code z} the world is split into
+ * {@code 2^z × 2^z} tiles, numbered from the north-west corner.
+ *
+ * @param zoom the zoom level, from {@code 0} to {@link #MAX_ZOOM}
+ * @param x    the column, from west to east
+ * @param y    the row, from north to south
+ * @author serezk4
+ * @version 1.0
+ * @since 1.0
+ */
+public record MapTile(int zoom, int x, int y) {
+
+    public static final int MAX_ZOOM = 22;
+
+    /**
+     * Northernmost latitude of the grid; the poles are not projected.
+     */
+    public static final double MAX_LATITUDE = 85.0511287798066;
+
+    /**
+     * @throws IllegalArgumentException if the zoom or the position is out of range
+     */
+    public MapTile {
+        if (zoom < 0 || zoom > MAX_ZOOM)
+            throw new IllegalArgumentException("flat.tile.zoom.invalid");
+        if (x < 0 || y < 0 || x >= 1 << zoom || y >= 1 << zoom)
+            throw new IllegalArgumentException("flat.tile.invalid");
+    }
+
+    /**
+     * Returns the tiles of a zoom level covering a box, row by row; a box crossing the antimeridian is covered
+     * from its western edge eastwards.
+     *
+     * @param box  the box, clipped to {@link #MAX_LATITUDE}
+     * @param zoom the zoom level
+     * @return the covering tiles
+     * @throws IllegalArgumentException if the zoom is out of range
+     */
+    public static List<MapTile> covering(GeoBox box, int zoom) {
+        if (zoom < 0 || zoom > MAX_ZOOM)
+            throw new IllegalArgumentException("flat.tile.zoom.invalid");
+
+        int last = (1 << zoom) - 1;
+        int west = column(box.west(), zoom, last);
+        int columns = columns(box, zoom, last);
+        int north = row(box.north(), zoom, last);
+        int south = row(box.south(), zoom, last);
+
+        List<MapTile> tiles = new ArrayList<>(columns * (south - north + 1));
+        for (int y = north; y <= south; y++)
+            for (int i = 0; i < columns; i++)
+                tiles.add(new MapTile(zoom, (west + i) % (last + 1), y));
+        return tiles;
+    }
+
+    /**
+     * Counts the tiles of a zoom level covering a box without listing them.
+     *
+     * @param box  the box
+     * @param zoom the zoom level
+     * @return the number of tiles {@link #covering(GeoBox, int)} would return
+     * @throws IllegalArgumentException if the zoom is out of range
+     */
+    public static long count(GeoBox box, int zoom) {
+        if (zoom < 0 || zoom > MAX_ZOOM)
+            throw new IllegalArgumentException("flat.tile.zoom.invalid");
+
+        int last = (1 << zoom) - 1;
+        long rows = row(box.south(), zoom, last) - row(box.north(), zoom, last) + 1;
+        return columns(box, zoom, last) * rows;
+    }
+
+    /**
+     * Returns the extent of this tile.
+     *
+     * @return the box of the tile; the first and last rows end at {@link #MAX_LATITUDE}
+     */
+    public GeoBox bounds() {
+        double size = 1 << zoom;
+        return new GeoBox(
+                latitude((y + 1) / size), x / size * 360 - 180,
+                latitude(y / size), (x + 1) / size * 360 - 180
+        );
+    }
+
+    /**
+     * Returns the projected northern edge of this tile, see {@link #mercator(double)}.
+     *
+     * @return the northern edge
+     */
+    public double mercatorNorth() {
+        return Math.PI * (1 - 2.0 * y / (1 << zoom));
+    }
+
+    /**
+     * Returns the projected height of this tile, see {@link #mercator(double)}.
+     *
+     * @return the height
+     */
+    public double mercatorHeight() {
+        return 2 * Math.PI / (1 << zoom);
+    }
+
+    /**
+     * Projects a latitude: {@code ln(tan(π/4 + φ/2))}, from {@code -π} to {@code π} within the grid.
+     *
+     * @param latitude the latitude in degrees
+     * @return the projected latitude
+     */
+    public static double mercator(double latitude) {
+        return Math.log(Math.tan(Math.PI / 4 + Math.toRadians(latitude) / 2));
+    }
+
+    private static int columns(GeoBox box, int zoom, int last) {
+        int columns = column(box.east(), zoom, last) - column(box.west(), zoom, last) + 1;
+        return box.crossesAntimeridian() ? Math.min(last + 1, columns + last + 1) : columns;
+    }
+
+    private static int column(double longitude, int zoom, int last) {
+        return Math.min(last, (int) Math.floor((longitude + 180) / 360 * (1 << zoom)));
+    }
+
+    private static int row(double latitude, int zoom, int last) {
+        double clipped = Math.max(-MAX_LATITUDE, Math.min(MAX_LATITUDE, latitude));
+        return Math.max(0, Math.min(last, (int) Math.floor((1 - mercator(clipped) / Math.PI) / 2 * (1 << zoom))));
+    }
+
+    private static double latitude(double fraction) {
+        return Math.toDegrees(Math.atan(Math.sinh(Math.PI * (1 - 2 * fraction))));
+    }
+}
@@ -0,0 +1,51 @@
+package com.lockbox.flat.database.metrics;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.repository.core.support.RepositoryMethodInvocationListener;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Records every repository method invocation through {@link QueryMetrics}.
+ * <p>
+ * The query is named {@code <Repository>.<method>}. Spring Data reports reactive invocations once the
+ * returned publisher terminates, so the recorded duration covers the actual database round trip.
+ * Argument values are not available here, so the bind shape of a slow repository query is the
+ * parameter signature of the method.
+ * </p>
+ *
+ * @author serezk4
+ * @version 1.0
+ * @see QueryMetrics
+ * @since 1.0
+ */
+class RepositoryQueryMetricsListener implements RepositoryMethodInvocationListener {
+
+    private final ObjectProvider<QueryMetrics> queryMetrics;
+
+    RepositoryQueryMetricsListener(ObjectProvider<QueryMetrics> queryMetrics) {
+        this.queryMetrics = queryMetrics;
+    }
+
+    @Override
+    public void afterInvocation(RepositoryMethodInvocation invocation) {
+        String query = invocation.getRepositoryInterface().getSimpleName() + "." + invocation.getMethod().getName();
+        String outcome = switch (invocation.getResult().getState()) {
+            case SUCCESS -> "success";
+            case ERROR -> "error";
+            default -> "cancelled";
+        };
+
+        queryMetrics.getObject().record(
+                query,
+                Duration.ofNanos(invocation.getDuration(TimeUnit.NANOSECONDS)),
+                outcome,
+                () -> Arrays.stream(invocation.getMethod().getParameterTypes())
+                        .map(Class::getSimpleName)
+                        .collect(Collectors.joining(", ", "(", ")"))
+        );
+    }
+}
@@ -205,6 +205,19 @@ public class Flat {
          * <p>Provides a more descriptive name for the status.</p>
          */
         String alias;
+
+        /**
+         * Resolves a status by its alias, which is also its {@code flat_status_enum} label.
+         *
+         * @param alias the alias, e.g. {@code available}
+         * @return the matching status
+         * @throws IllegalArgumentException if no status has this alias
+         */
+        public static Status fromAlias(String alias) {
+            for (Status status : values())
+                if (status.alias.equals(alias)) return status;
+            throw new IllegalArgumentException("flat.status.invalid");
+        }
     }
 
     /**
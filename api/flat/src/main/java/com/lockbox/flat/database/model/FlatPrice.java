@@ -0,0 +1,86 @@
+package com.lockbox.flat.database.model;
+
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.NotNull;
+import lombok.*;
+import lombok.experimental.Accessors;
+import lombok.experimental.FieldDefaults;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.relational.core.mapping.Column;
+import org.springframework.data.relational.core.mapping.Table;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Represents a price of a flat, recorded when it was set.
+ * <p>
+ * Prices are never updated; every change adds a row, so the rows of a flat are its price history.
+ * The latest one is mirrored on the flat itself.
+ * </p>
+ *
+ * @author serezk4
+ * @version 1.0
+ * @since 1.0
+ */
+@Table(name = "flat_prices")
+@FieldDefaults(level = AccessLevel.PRIVATE)
+@AllArgsConstructor
+@RequiredArgsConstructor
+@Getter
+@Setter
+@ToString
+@Builder
+@Accessors(chain = true)
+public class FlatPrice {
+
+    /**
+     * Unique identifier of the price.
+     * <p>
+     * <b>Restrictions:</b>
+     * <ul>
+     *     <li>Must be a valid UUID</li>
+     * </ul>
+     */
+    @Id
+    @Column("price_id")
+    UUID priceId;
+
+    /**
+     * Identifier of the flat the price belongs to.
+     * <p>
+     * <b>Restrictions:</b>
+     * <ul>
+     *     <li>Must be a valid UUID</li>
+     * </ul>
+     */
+    @NotNull(message = "flat_id.not_null")
+    @Column("flat_id")
+    UUID flatId;
+
+    /**
+     * The price, in rubles.
+     * <p>
+     * <b>Restrictions:</b>
+     * <ul>
+     *     <li>price.not_null</li>
+     *     <li>price.min:0.01</li>
+     * </ul>
+     */
+    @NotNull(message = "price.not_null")
+    @DecimalMin(value = "0.01", message = "price.min:0.01")
+    @Column("price")
+    BigDecimal price;
+
+    /**
+     * Timestamp when the price was set.
+     * <p>
+     * <b>Restrictions:</b>
+     * <ul>
+     *     <li>Cannot be null</li>
+     * </ul>
+     */
+    @Column("created_at")
+    Instant createdAt;
+}
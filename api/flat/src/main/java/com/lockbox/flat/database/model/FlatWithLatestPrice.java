@@ -6,6 +6,7 @@ import lombok.*;
 import lombok.experimental.Accessors;
 import lombok.experimental.FieldDefaults;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Transient;
 import org.springframework.data.relational.core.mapping.Column;
 import org.springframework.data.relational.core.mapping.Table;
 
@@ -16,9 +17,9 @@ import java.util.UUID;
  * Represents a read-only model for retrieving Flats along with their latest prices
  * from the <b>v_flats_with_latest_price</b> database view.
  * <p>
- * This entity maps to a view that consolidates data from both the
- * <i>flats</i> and <i>flat_prices</i> tables, thereby providing the latest
- * recorded price for each flat without the need for manual subqueries.
+ * This entity maps to a view over the <i>flats</i> table, whose <i>latest_price</i>
+ * column is kept equal to the latest recorded <i>flat_prices</i> row by a trigger,
+ * so price filters and price ordering are served by an index.
  * <p>
  * Note: Write operations (inserts/updates) are typically unsupported for entities
  * representing database views.
@@ -189,4 +190,38 @@ public class FlatWithLatestPrice {
      */
     @Column("latest_price")
     Double latestPrice;
+
+    /**
+     * Distance in meters from the searched location.
+     * <p>
+     * <b>Note:</b>
+     * <ul>
+     *     <li>Not a column of the view; only set by searches with a location.</li>
+     * </ul>
+     */
+    @Transient
+    Double distance;
+
+    /**
+     * Full-text relevance of the flat for the searched text, higher is better.
+     * <p>
+     * <b>Note:</b>
+     * <ul>
+     *     <li>Not a column of the view; only set by searches with a text.</li>
+     * </ul>
+     */
+    @Transient
+    Float rank;
+
+    /**
+     * Fragments of the description around the matched words, wrapped in {@code <mark>} tags.
+     * <p>
+     * <b>Note:</b>
+     * <ul>
+     *     <li>Not a column of the view; only set by searches with a text.</li>
+     *     <li>The text is not escaped; HTML clients must escape it and restore only the mark tags.</li>
+     * </ul>
+     */
+    @Transient
+    String snippet;
 }
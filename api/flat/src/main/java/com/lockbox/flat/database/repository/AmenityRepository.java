@@ -0,0 +1,26 @@
+package com.lockbox.flat.database.repository;
+
+import com.lockbox.flat.database.model.Amenity;
+import org.springframework.data.repository.reactive.ReactiveCrudRepository;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+
+import java.util.UUID;
+
+/**
+ * Repository interface for managing {@link Amenity} entities.
+ *
+ * @author serezk4
+ * @version 1.0
+ * @since 1.0
+ */
+@Repository
+public interface AmenityRepository extends ReactiveCrudRepository<Amenity, UUID> {
+
+    /**
+     * Retrieves the whole amenity catalog, ordered by name.
+     *
+     * @return a {@link Flux} emitting every {@link Amenity}
+     */
+    Flux<Amenity> findAllByOrderByNameAsc();
+}
@@ -0,0 +1,13 @@
+package com.lockbox.flat.database.repository;
+
+import com.lockbox.flat.database.dto.FlatPriceSeriesDto;
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+public interface CustomFlatPriceRepository {
+    Flux<FlatPriceSeriesDto> findPriceSeries(List<UUID> flatIds, Instant from, Instant to, Duration bucket);
+}
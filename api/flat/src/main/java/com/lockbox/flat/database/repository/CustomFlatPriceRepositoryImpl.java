@@ -0,0 +1,135 @@
+package com.lockbox.flat.database.repository;
+
+import com.lockbox.flat.database.dto.FlatPricePointDto;
+import com.lockbox.flat.database.dto.FlatPriceSeriesDto;
+import com.lockbox.flat.database.metrics.QueryMetrics;
+import com.lockbox.flat.database.model.FlatPrice;
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.FieldDefaults;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Implementation of the {@link CustomFlatPriceRepository} interface, reading downsampled price history of
+ * {@link FlatPrice} rows through {@link DatabaseClient}.
+ *
+ * @author serezk4
+ * @version 1.0
+ * @since 1.0
+ */
+@Repository
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+@RequiredArgsConstructor
+public class CustomFlatPriceRepositoryImpl implements CustomFlatPriceRepository {
+
+    /**
+     * Price in effect at the start of the range, per flat: one backward step on
+     * {@code idx_flat_prices_flat_id_created_at} each.
+     */
+    private static final String OPENING_PRICES = """
+            SELECT f.flat_id,
+                   (SELECT fp.price
+                    FROM flat_prices fp
+                    WHERE fp.flat_id = f.flat_id
+                      AND fp.created_at < :from
+                    ORDER BY fp.created_at DESC
+                    LIMIT 1) AS price
+            FROM unnest(:flatIds) AS f(flat_id)""";
+
+    /**
+     * Prices within the range, aggregated into buckets aligned on its start. The range of every flat is read
+     * from {@code idx_flat_prices_flat_id_created_at}, already in bucket order.
+     */
+    private static final String BUCKETS = """
+            SELECT flat_id,
+                   date_bin(make_interval(secs => :bucketSeconds), created_at, :from) AS bucket,
+                   min(price) AS min_price,
+                   max(price) AS max_price,
+                   (array_agg(price ORDER BY created_at DESC))[1] AS last_price,
+                   count(*) AS changes
+            FROM flat_prices
+            WHERE flat_id = ANY(:flatIds)
+              AND created_at >= :from
+              AND created_at < :to
+            GROUP BY flat_id, bucket
+            ORDER BY flat_id, bucket""";
+
+    DatabaseClient databaseClient;
+    QueryMetrics queryMetrics;
+
+    /**
+     * Retrieves the price series of several flats over a time range.
+     * <p>
+     * Every requested flat gets a series, in the requested order, with no points if it had no price changes
+     * in the range.
+     * </p>
+     *
+     * @param flatIds the flat ids
+     * @param from    the start of the range, inclusive; buckets are aligned on it
+     * @param to      the end of the range, exclusive
+     * @param bucket  the width of the buckets
+     * @return a {@link Flux} of the series, one per flat id
+     */
+    @Override
+    public Flux<FlatPriceSeriesDto> findPriceSeries(
+            final List<UUID> flatIds,
+            final Instant from, final Instant to,
+            final Duration bucket
+    ) {
+        if (flatIds.isEmpty()) return Flux.empty();
+        UUID[] ids = flatIds.toArray(UUID[]::new);
+        Map<String, Object> binds = Map.of("flatIds", ids, "from", from, "to", to, "bucket", bucket);
+
+        Flux<Map.Entry<UUID, Optional<BigDecimal>>> openings = queryMetrics.timed("flatPrice.findOpeningPrices", binds,
+                databaseClient.sql(OPENING_PRICES)
+                        .bind("flatIds", ids)
+                        .bind("from", from)
+                        .map(row -> Map.entry(
+                                row.get("flat_id", UUID.class),
+                                Optional.ofNullable(row.get("price", BigDecimal.class))
+                        ))
+                        .all());
+        Flux<Map.Entry<UUID, FlatPricePointDto>> points = queryMetrics.timed("flatPrice.findPriceBuckets", binds,
+                databaseClient.sql(BUCKETS)
+                        .bind("flatIds", ids)
+                        .bind("from", from)
+                        .bind("to", to)
+                        .bind("bucketSeconds", (double) bucket.toSeconds())
+                        .map(row -> Map.entry(
+                                row.get("flat_id", UUID.class),
+                                FlatPricePointDto.builder()
+                                        .bucket(row.get("bucket", Instant.class))
+                                        .minPrice(row.get("min_price", BigDecimal.class))
+                                        .maxPrice(row.get("max_price", BigDecimal.class))
+                                        .lastPrice(row.get("last_price", BigDecimal.class))
+                                        .changes(row.get("changes", Long.class))
+                                        .build()
+                        ))
+                        .all());
+
+        return openings.collectMap(Map.Entry::getKey, Map.Entry::getValue)
+                .zipWith(points.collect(HashMap<UUID, List<FlatPricePointDto>>::new,
+                        (byFlat, point) -> byFlat.computeIfAbsent(point.getKey(), id -> new ArrayList<>())
+                                .add(point.getValue())))
+                .flatMapIterable(series -> flatIds.stream()
+                        .distinct()
+                        .map(flatId -> FlatPriceSeriesDto.builder()
+                                .flatId(flatId)
+                                .openingPrice(series.getT1().getOrDefault(flatId, Optional.empty()).orElse(null))
+                                .points(series.getT2().getOrDefault(flatId, List.of()))
+                                .build())
+                        .toList());
+    }
+}
@@ -1,9 +1,42 @@
 package com.lockbox.flat.database.repository;
 
+import com.lockbox.flat.database.dto.FlatClusterDto;
+import com.lockbox.flat.database.dto.FlatColumn;
+import com.lockbox.flat.database.dto.FlatCursor;
+import com.lockbox.flat.database.dto.FlatFacetsDto;
 import com.lockbox.flat.database.dto.FlatFilterDto;
+import com.lockbox.flat.database.dto.FlatLocationDto;
+import com.lockbox.flat.database.dto.MapTile;
+import com.lockbox.flat.database.model.FlatAmenity;
 import com.lockbox.flat.database.model.FlatWithLatestPrice;
 import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
 
 public interface CustomFlatRepository {
     Flux<FlatWithLatestPrice> findFlatsByFilters(FlatFilterDto filter, int offset, int limit);
+
+    Flux<FlatWithLatestPrice> findFlatsByFilters(
+            FlatFilterDto filter,
+            FlatCursor after,
+            int limit,
+            Set<FlatColumn> columns
+    );
+
+    Mono<FlatFacetsDto> findFacetsByFilters(FlatFilterDto filter, List<BigDecimal> priceEdges);
+
+    Flux<FlatClusterDto> findClustersByFilters(FlatFilterDto filter, MapTile tile, int grid);
+
+    Flux<FlatWithLatestPrice> findFlatsByIds(FlatFilterDto filter, List<UUID> ids, Set<FlatColumn> columns);
+
+    Flux<FlatAmenity> findAmenitiesByFlatIds(Collection<UUID> flatIds);
+
+    Flux<String> findTitleCompletions(String prefix, int candidates, int limit);
+
+    Flux<FlatLocationDto> findAllLocations();
 }
@@ -1,28 +1,41 @@
 package com.lockbox.flat.database.repository;
 
+import com.lockbox.flat.database.dto.FlatClusterDto;
+import com.lockbox.flat.database.dto.FlatColumn;
+import com.lockbox.flat.database.dto.FlatCursor;
+import com.lockbox.flat.database.dto.FlatFacetsDto;
 import com.lockbox.flat.database.dto.FlatFilterDto;
+import com.lockbox.flat.database.dto.FlatLocationDto;
+import com.lockbox.flat.database.dto.MapTile;
+import com.lockbox.flat.database.metrics.QueryMetrics;
 import com.lockbox.flat.database.model.Flat;
+import com.lockbox.flat.database.model.FlatAmenity;
 import com.lockbox.flat.database.model.FlatWithLatestPrice;
 import io.r2dbc.spi.Row;
 import io.r2dbc.spi.RowMetadata;
 import lombok.AccessLevel;
 import lombok.RequiredArgsConstructor;
 import lombok.experimental.FieldDefaults;
-import org.springframework.data.domain.Sort;
-import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
-import org.springframework.data.relational.core.query.Criteria;
-import org.springframework.data.relational.core.query.Query;
 import org.springframework.r2dbc.core.DatabaseClient;
 import org.springframework.stereotype.Repository;
 import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
+import java.math.BigDecimal;
 import java.time.Instant;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
 import java.util.UUID;
 
 /**
  * Implementation of the {@link CustomFlatRepository} interface, providing advanced filtering capabilities
- * for {@link Flat} entities. Combines the power of Spring Data R2DBC Criteria API with custom SQL for
- * complex queries such as geolocation-based filtering.
+ * for {@link Flat} entities. Queries are composed as plain SQL with named bind parameters and executed
+ * through {@link DatabaseClient}.
  *
  * @author serezk4
  * @version 1.0
@@ -33,108 +46,317 @@ import java.util.UUID;
 @RequiredArgsConstructor
 public class CustomFlatRepositoryImpl implements CustomFlatRepository {
 
-    // todo а оно работает вообще? ://
-    R2dbcEntityTemplate r2dbcEntityTemplate;
+    /**
+     * Titles of available flats containing the prefix, those starting with it first. Titles starting with the
+     * prefix are read in order from {@code idx_flats_title_prefix}, up to {@code :limit} of them, so they are
+     * never cut. Other matches are read from {@code idx_flats_title_trgm} and capped at {@code :candidates} before
+     * they are ranked, so a prefix shared by most titles costs no more than a rare one.
+     */
+    private static final String TITLE_COMPLETIONS = """
+            SELECT title
+            FROM (SELECT DISTINCT ON (lower(title)) title, starts_with
+                  FROM ((SELECT DISTINCT ON (lower(title) COLLATE "C") title, true AS starts_with
+                         FROM flats
+                         WHERE status = 'available'
+                           AND lower(title) COLLATE "C" LIKE :startsWith ESCAPE '\\'
+                         ORDER BY lower(title) COLLATE "C"
+                         LIMIT :limit)
+                        UNION ALL
+                        (SELECT title, false AS starts_with
+                         FROM flats
+                         WHERE status = 'available'
+                           AND lower(title) LIKE :contains ESCAPE '\\'
+                         LIMIT :candidates)) candidates
+                  ORDER BY lower(title), starts_with DESC) titles
+            ORDER BY starts_with DESC,
+                     word_similarity(:prefix, lower(title)) DESC,
+                     title
+            LIMIT :limit""";
+
     DatabaseClient databaseClient;
+    QueryMetrics queryMetrics;
 
     /**
      * Retrieves a list of flats filtered by the given criteria.
-     * Supports dynamic filtering by amenities, area, rooms, status, and geolocation radius.
+     * Supports dynamic filtering by amenities, area, rooms, status, price, search and geolocation radius.
+     * <p>
+     * All filters, the ordering and the paging are applied by a single statement, see {@link FlatSearchQuery}.
+     * </p>
      *
      * @param filter the filtering criteria
      * @param offset the starting point for pagination
      * @param limit  the maximum number of results to return
      * @return a {@link Flux} of {@link Flat} objects matching the filters
+     * @throws IllegalArgumentException if the status or the ordering is not supported
      */
     @Override
     public Flux<FlatWithLatestPrice> findFlatsByFilters(
             final FlatFilterDto filter,
             final int offset, final int limit
     ) {
-        Criteria criteria = Criteria.empty();
-
-        if (filter.getAmenities() != null && !filter.getAmenities().isEmpty())
-            criteria = criteria.and("flat_id").in(filter.getAmenities());
-        if (filter.getMinArea() != null)
-            criteria = criteria.and("area").greaterThanOrEquals(filter.getMinArea());
-        if (filter.getMaxArea() != null)
-            criteria = criteria.and("area").lessThanOrEquals(filter.getMaxArea());
-        if (filter.getMinRooms() != null)
-            criteria = criteria.and("rooms").greaterThanOrEquals(filter.getMinRooms());
-        if (filter.getMaxRooms() != null)
-            criteria = criteria.and("rooms").lessThanOrEquals(filter.getMaxRooms());
-        if (filter.getStatus() != null && !filter.getStatus().isEmpty())
-            criteria = criteria.and("status").is(filter.getStatus());
-        if (filter.getMinPrice() != null)
-            criteria = criteria.and("latest_price").greaterThanOrEquals(filter.getMinPrice());
-        if (filter.getMaxPrice() != null)
-            criteria = criteria.and("latest_price").lessThanOrEquals(filter.getMaxPrice());
-
-
-        Query query = Query.query(criteria)
-                .offset(offset)
-                .limit(limit)
-                .sort(Sort.by(Sort.Direction.DESC, "created_at"));
-
-        if (filter.getLatitude() == null || filter.getLongitude() == null || filter.getRadius() == null) {
-            // todo add search here
-            return r2dbcEntityTemplate.select(FlatWithLatestPrice.class)
-                    .matching(query)
-                    .all();
-        }
+        return Flux.defer(() -> {
+            FlatSearchQuery query = FlatSearchQuery.of(filter);
+            String sql = query.page(filter, offset, limit);
+            return queryMetrics.timed("flat.findByFilters", query.binds(),
+                    query.bind(databaseClient.sql(sql)).map(this::mapRowToFlat).all());
+        });
+    }
 
-        String sql = String.join(" ", """
-                            SELECT * FROM v_flats_with_latest_price 
-                            WHERE flat_id = ANY(:ids) 
-                            AND earth_distance(ll_to_earth(:lat, :lon), ll_to_earth(latitude, longitude)) <= :radius 
-                        """,
-                (filter.getSearch() != null ? "AND (title ~* :search OR description ~* :search)" : ""),
-                ("OFFSET :off LIMIT :lim"));
+    /**
+     * Retrieves the page of flats following a cursor.
+     * <p>
+     * The page starts with a row comparison on the sort key and {@code flat_id}, so it is read from the order
+     * index wherever the previous page ended, without skipping rows.
+     * </p>
+     *
+     * @param filter the filtering criteria
+     * @param after   the position of the last flat of the previous page, {@code null} for the first page
+     * @param limit   the maximum number of results to return
+     * @param columns the columns to select, see {@link FlatSearchQuery#project}; other properties are left unset
+     * @return a {@link Flux} of {@link Flat} objects matching the filters
+     * @throws IllegalArgumentException if the status or the ordering is not supported, or the cursor was
+     *                                  produced for another ordering
+     */
+    @Override
+    public Flux<FlatWithLatestPrice> findFlatsByFilters(
+            final FlatFilterDto filter,
+            final FlatCursor after, final int limit,
+            final Set<FlatColumn> columns
+    ) {
+        return Flux.defer(() -> {
+            FlatSearchQuery query = FlatSearchQuery.of(filter).project(filter, columns);
+            String sql = query.keyset(filter, after, limit);
+            return queryMetrics.timed("flat.findByFiltersAfter", query.binds(),
+                    query.bind(databaseClient.sql(sql)).map(this::mapRowToFlat).all());
+        });
+    }
 
-        if (filter.getOrderBy() != null && filter.getOrderDirection() != null) {
-            query = query.sort(Sort.by(Sort.Direction.fromString(filter.getOrderDirection()), filter.getOrderBy()));
-        }
+    /**
+     * Counts the flats matching the filter by rooms, price range and amenity, see {@link FlatSearchQuery#facets}.
+     *
+     * @param filter     the filtering criteria
+     * @param priceEdges the ascending lower bounds of the price buckets after the first
+     * @return a {@link Mono} emitting the counts
+     * @throws IllegalArgumentException if the status or the ordering is not supported
+     */
+    @Override
+    public Mono<FlatFacetsDto> findFacetsByFilters(final FlatFilterDto filter, final List<BigDecimal> priceEdges) {
+        return Flux.defer(() -> {
+                    FlatSearchQuery query = FlatSearchQuery.of(filter);
+                    String sql = query.facets(filter, priceEdges);
+                    return queryMetrics.timed("flat.findFacetsByFilters", query.binds(),
+                            query.bind(databaseClient.sql(sql)).map(row -> new FacetRow(
+                                    row.get("grouping_id", Integer.class),
+                                    row.get("rooms_bucket", Integer.class),
+                                    row.get("price_bucket", Integer.class),
+                                    row.get("amenity_id", UUID.class),
+                                    row.get("flats", Long.class)
+                            )).all());
+                })
+                .reduceWith(() -> new FacetsAccumulator(priceEdges), FacetsAccumulator::add)
+                .map(FacetsAccumulator::build);
+    }
+
+    /**
+     * Clusters the flats of a map tile matching the filter, see {@link FlatSearchQuery#clusters}.
+     *
+     * @param filter the filtering criteria
+     * @param tile   the tile
+     * @param grid   the number of cells along each side of the tile
+     * @return a {@link Flux} of the non-empty cells, unordered
+     * @throws IllegalArgumentException if the status or the ordering is not supported
+     */
+    @Override
+    public Flux<FlatClusterDto> findClustersByFilters(final FlatFilterDto filter, final MapTile tile, final int grid) {
+        return Flux.defer(() -> {
+            FlatSearchQuery query = FlatSearchQuery.of(filter);
+            String sql = query.clusters(filter, tile, grid);
+            return queryMetrics.timed("flat.findClustersByFilters", query.binds(),
+                    query.bind(databaseClient.sql(sql)).map(row -> FlatClusterDto.builder()
+                            .latitude(row.get("latitude", Double.class))
+                            .longitude(row.get("longitude", Double.class))
+                            .flats(row.get("flats", Long.class))
+                            .minPrice(row.get("min_price", Double.class))
+                            .maxPrice(row.get("max_price", Double.class))
+                            .build()
+                    ).all());
+        });
+    }
+
+    /**
+     * Retrieves distinct titles of available flats for autocomplete.
+     *
+     * @param prefix     the typed text, lower-cased
+     * @param candidates the maximum number of titles ranked besides those starting with the prefix
+     * @param limit      the maximum number of titles to return
+     * @return a {@link Flux} of titles, those starting with the prefix first, then by word similarity
+     */
+    @Override
+    public Flux<String> findTitleCompletions(final String prefix, final int candidates, final int limit) {
+        String escaped = prefix.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+        return queryMetrics.timed("flat.findTitleCompletions", Map.of("prefix", prefix, "limit", limit),
+                databaseClient.sql(TITLE_COMPLETIONS)
+                        .bind("contains", "%" + escaped + "%")
+                        .bind("startsWith", escaped + "%")
+                        .bind("prefix", prefix)
+                        .bind("candidates", candidates)
+                        .bind("limit", limit)
+                        .map(row -> row.get("title", String.class))
+                        .all());
+    }
 
-        return r2dbcEntityTemplate.select(FlatWithLatestPrice.class)
-                .matching(query).all()
-                .map(FlatWithLatestPrice::getFlatId)
-                .collectList()
-                .flatMapMany(flatIds -> {
-                    if (flatIds.isEmpty()) return Flux.empty();
-
-                    DatabaseClient.GenericExecuteSpec spec = databaseClient.sql(sql)
-                            .bind("ids", flatIds.toArray(new UUID[0]))
-                            .bind("lat", filter.getLatitude())
-                            .bind("lon", filter.getLongitude())
-                            .bind("radius", filter.getRadius())
-                            .bind("off", offset)
-                            .bind("lim", limit);
-
-                    return spec.map(this::mapRowToFlat).all();
-                });
+    /**
+     * Retrieves the location of every located flat.
+     *
+     * @return a {@link Flux} of locations, in no particular order
+     */
+    @Override
+    public Flux<FlatLocationDto> findAllLocations() {
+        return queryMetrics.timed("flat.findAllLocations", Map.of(),
+                databaseClient.sql("""
+                                SELECT flat_id, latitude, longitude
+                                FROM flats
+                                WHERE latitude IS NOT NULL
+                                  AND longitude IS NOT NULL""")
+                        .map(row -> new FlatLocationDto(
+                                row.get("flat_id", UUID.class),
+                                row.get("latitude", Double.class),
+                                row.get("longitude", Double.class)
+                        ))
+                        .all());
+    }
+
+    /**
+     * Loads the given flats, keeping only those that still match the filter.
+     * <p>
+     * Used to hydrate the ids found by the in-memory search index: re-applying the filter drops rows changed
+     * since they were indexed, and the result keeps the order of {@code ids}.
+     * </p>
+     *
+     * @param filter  the filtering criteria the ids were found with
+     * @param ids     the flat ids, in search order
+     * @param columns the columns to select, see {@link FlatSearchQuery#project}; other properties are left unset
+     * @return a {@link Flux} of the matching flats, in the order of {@code ids}
+     * @throws IllegalArgumentException if the status is not supported
+     */
+    @Override
+    public Flux<FlatWithLatestPrice> findFlatsByIds(
+            final FlatFilterDto filter,
+            final List<UUID> ids,
+            final Set<FlatColumn> columns
+    ) {
+        if (ids.isEmpty()) return Flux.empty();
+        return Flux.defer(() -> {
+            FlatSearchQuery query = FlatSearchQuery.of(filter).project(filter, columns).ids(ids);
+            String sql = query.select(filter);
+            return queryMetrics.timed("flat.findByIds", query.binds(),
+                            query.bind(databaseClient.sql(sql)).map(this::mapRowToFlat).all())
+                    .collectMap(FlatWithLatestPrice::getFlatId)
+                    .flatMapIterable(byId -> ids.stream().map(byId::get).filter(Objects::nonNull).toList());
+        });
+    }
+
+    /**
+     * Retrieves the amenity ids of several flats in one statement, from their indexed {@code amenity_ids}.
+     *
+     * @param flatIds the flat ids
+     * @return a {@link Flux} of flat and amenity id pairs
+     */
+    @Override
+    public Flux<FlatAmenity> findAmenitiesByFlatIds(final Collection<UUID> flatIds) {
+        if (flatIds.isEmpty()) return Flux.empty();
+        UUID[] ids = flatIds.toArray(UUID[]::new);
+        return queryMetrics.timed("flat.findAmenitiesByFlatIds", Map.of("flatIds", ids),
+                databaseClient.sql("""
+                                SELECT flat_id, unnest(amenity_ids) AS amenity_id
+                                FROM flats
+                                WHERE flat_id = ANY(:flatIds)""")
+                        .bind("flatIds", ids)
+                        .map(row -> new FlatAmenity(row.get("flat_id", UUID.class), row.get("amenity_id", UUID.class)))
+                        .all());
     }
 
     /**
-     * Maps a database row to a {@link Flat} object.
+     * Maps a database row to a {@link Flat} object. Columns left out of the projection stay {@code null}.
      *
      * @param row the database row
      * @return a {@link Flat} object populated with data from the row
      */
     private FlatWithLatestPrice mapRowToFlat(Row row, RowMetadata metadata) {
+        String status = get(row, metadata, "status", String.class);
         return FlatWithLatestPrice.builder()
                 .flatId(row.get("flat_id", UUID.class))
-                .ownerSub(row.get("owner_sub", String.class))
-                .title(row.get("title", String.class))
-                .description(row.get("description", String.class))
-                .longitude(row.get("longitude", Double.class))
-                .latitude(row.get("latitude", Double.class))
-                .floor(row.get("floor", Integer.class))
-                .area(row.get("area", Double.class))
-                .rooms(row.get("rooms", Integer.class))
-                .status(Flat.Status.valueOf(row.get("status", String.class)))
-                .createdAt(row.get("created_at", Instant.class))
-                .updatedAt(row.get("updated_at", Instant.class))
-                .latestPrice(row.get("latest_price", Double.class))
+                .ownerSub(get(row, metadata, "owner_sub", String.class))
+                .title(get(row, metadata, "title", String.class))
+                .description(get(row, metadata, "description", String.class))
+                .longitude(get(row, metadata, "longitude", Double.class))
+                .latitude(get(row, metadata, "latitude", Double.class))
+                .floor(get(row, metadata, "floor", Integer.class))
+                .area(get(row, metadata, "area", Double.class))
+                .rooms(get(row, metadata, "rooms", Integer.class))
+                .status(status == null ? null : Flat.Status.fromAlias(status))
+                .createdAt(get(row, metadata, "created_at", Instant.class))
+                .updatedAt(get(row, metadata, "updated_at", Instant.class))
+                .latestPrice(get(row, metadata, "latest_price", Double.class))
+                .distance(get(row, metadata, "distance", Double.class))
+                .rank(get(row, metadata, "rank", Float.class))
+                .snippet(get(row, metadata, "snippet", String.class))
                 .build();
     }
+
+    private static <T> T get(Row row, RowMetadata metadata, String column, Class<T> type) {
+        return metadata.contains(column) ? row.get(column, type) : null;
+    }
+
+    /**
+     * A row of the facet query; only the bucket of its grouping set is set.
+     */
+    private record FacetRow(int groupingId, Integer roomsBucket, Integer priceBucket, UUID amenityId, long flats) {
+    }
+
+    /**
+     * Sorts the rows of the facet query into their breakdowns by {@code grouping_id}.
+     */
+    private static final class FacetsAccumulator {
+        final List<BigDecimal> priceEdges;
+        final Map<Integer, Long> rooms = new TreeMap<>();
+        final Map<Integer, Long> prices = new TreeMap<>();
+        final Map<UUID, Long> amenities = new LinkedHashMap<>();
+        long total;
+
+        FacetsAccumulator(List<BigDecimal> priceEdges) {
+            this.priceEdges = priceEdges;
+        }
+
+        FacetsAccumulator add(FacetRow row) {
+            switch (row.groupingId()) {
+                case FlatSearchQuery.FACET_ROOMS -> {
+                    if (row.roomsBucket() != null) rooms.put(row.roomsBucket(), row.flats());
+                }
+                case FlatSearchQuery.FACET_PRICES -> {
+                    if (row.priceBucket() != null) prices.put(row.priceBucket(), row.flats());
+                }
+                case FlatSearchQuery.FACET_AMENITIES -> {
+                    if (row.amenityId() != null) amenities.put(row.amenityId(), row.flats());
+                }
+                case FlatSearchQuery.FACET_TOTAL -> total = row.flats();
+                default -> {
+                }
+            }
+            return this;
+        }
+
+        FlatFacetsDto build() {
+            Map<String, Long> roomOptions = new LinkedHashMap<>();
+            rooms.forEach((bucket, flats) -> roomOptions.put(FlatFacetsDto.roomsLabel(bucket), flats));
+            Map<String, Long> priceOptions = new LinkedHashMap<>();
+            prices.forEach((bucket, flats) -> priceOptions.put(FlatFacetsDto.priceLabel(bucket, priceEdges), flats));
+            return FlatFacetsDto.builder()
+                    .total(total)
+                    .rooms(roomOptions)
+                    .prices(priceOptions)
+                    .amenities(amenities)
+                    .build();
+        }
+    }
 }
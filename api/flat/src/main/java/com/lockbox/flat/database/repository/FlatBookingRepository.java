@@ -0,0 +1,96 @@
+package com.lockbox.flat.database.repository;
+
+import com.lockbox.flat.database.dto.FlatBookingDto;
+import com.lockbox.flat.database.metrics.QueryMetrics;
+import io.r2dbc.spi.Row;
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.FieldDefaults;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Repository of the booked periods of flats.
+ * <p>
+ * Periods are stored as {@code tstzrange}, which has no R2DBC mapping, so bookings are read and written
+ * through {@link DatabaseClient} with their bounds unpacked.
+ * </p>
+ *
+ * @author serezk4
+ * @version 1.0
+ * @since 1.0
+ */
+@Repository
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+@RequiredArgsConstructor
+public class FlatBookingRepository {
+
+    private static final String INSERT = """
+            INSERT INTO flat_bookings (flat_id, guest_sub, period)
+            VALUES (:flatId, :guestSub, tstzrange(:from, :to))
+            RETURNING booking_id, flat_id, lower(period) AS starts_at, upper(period) AS ends_at""";
+
+    private static final String SELECT_OVERLAPPING = """
+            SELECT booking_id, flat_id, lower(period) AS starts_at, upper(period) AS ends_at
+            FROM flat_bookings
+            WHERE flat_id = :flatId
+              AND period && tstzrange(:from, :to)
+            ORDER BY lower(period)""";
+
+    DatabaseClient databaseClient;
+    QueryMetrics queryMetrics;
+
+    /**
+     * Books a flat.
+     *
+     * @param flatId   the flat
+     * @param guestSub the guest
+     * @param from     the start of the period, inclusive
+     * @param to       the end of the period, exclusive
+     * @return a {@link Mono} emitting the booking, or a
+     * {@link org.springframework.dao.DataIntegrityViolationException} if it overlaps another booking of the flat
+     */
+    public Mono<FlatBookingDto> insert(UUID flatId, String guestSub, Instant from, Instant to) {
+        return queryMetrics.timed("flatBooking.insert", Map.of("flatId", flatId, "from", from, "to", to),
+                databaseClient.sql(INSERT)
+                        .bind("flatId", flatId)
+                        .bind("guestSub", guestSub)
+                        .bind("from", from)
+                        .bind("to", to)
+                        .map(FlatBookingRepository::mapRowToBooking)
+                        .one());
+    }
+
+    /**
+     * Retrieves the bookings of a flat overlapping a period.
+     *
+     * @param flatId the flat
+     * @param from   the start of the period, inclusive
+     * @param to     the end of the period, exclusive
+     * @return a {@link Flux} of the bookings, earliest first
+     */
+    public Flux<FlatBookingDto> findOverlapping(UUID flatId, Instant from, Instant to) {
+        return queryMetrics.timed("flatBooking.findOverlapping", Map.of("flatId", flatId, "from", from, "to", to),
+                databaseClient.sql(SELECT_OVERLAPPING)
+                        .bind("flatId", flatId)
+                        .bind("from", from)
+                        .bind("to", to)
+                        .map(FlatBookingRepository::mapRowToBooking)
+                        .all());
+    }
+
+    private static FlatBookingDto mapRowToBooking(Row row) {
+        return FlatBookingDto.builder()
+                .bookingId(row.get("booking_id", UUID.class))
+                .flatId(row.get("flat_id", UUID.class))
+                .from(row.get("starts_at", Instant.class))
+                .to(row.get("ends_at", Instant.class))
+                .build();
+    }
+}
@@ -0,0 +1,48 @@
+package com.lockbox.flat.database.repository;
+
+import com.lockbox.flat.database.model.FlatPrice;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.data.repository.reactive.ReactiveCrudRepository;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+
+import java.util.UUID;
+
+/**
+ * Repository interface for managing {@link FlatPrice} entities.
+ *
+ * @author serezk4
+ * @version 1.0
+ * @since 1.0
+ */
+@Repository
+public interface FlatPriceRepository extends ReactiveCrudRepository<FlatPrice, UUID>, CustomFlatPriceRepository {
+
+    /**
+     * Retrieves the latest prices of several flats in one statement.
+     * <p>
+     * Each flat is read with its own bounded scan of {@code idx_flat_prices_flat_id_created_at}, so a flat with
+     * a long history costs no more than {@code limit} rows.
+     * </p>
+     *
+     * @param flatIds the flat ids
+     * @param limit   the maximum number of prices per flat
+     * @return a {@link Flux} of prices, newest first within each flat
+     */
+    @Query("""
+             SELECT p.price_id, p.flat_id, p.price, p.created_at
+             FROM unnest(:flatIds) AS f(flat_id)
+                      CROSS JOIN LATERAL (
+                 SELECT fp.price_id, fp.flat_id, fp.price, fp.created_at
+                 FROM flat_prices fp
+                 WHERE fp.flat_id = f.flat_id
+                 ORDER BY fp.created_at DESC
+                 LIMIT :limit
+                 ) p
+            """)
+    Flux<FlatPrice> findLatestByFlatIds(
+            final @Param("flatIds") UUID[] flatIds,
+            final @Param("limit") int limit
+    );
+}
@@ -32,9 +32,10 @@ public interface FlatRepository extends ReactiveCrudRepository<Flat, UUID>, Cust
     /**
      * Retrieves all flats within a specified radius from a given latitude and longitude.
      * <p>
-     * The query uses PostgreSQL's {@code earth_distance} function to calculate
-     * the distance between two geographic points. Results are paginated using
-     * {@code OFFSET} and {@code LIMIT}.
+     * Candidates are selected with {@code earth_box} containment, which is answered by the
+     * {@code flats_location_idx} GiST index, and refined with the exact {@code earth_distance}.
+     * Results are ordered nearest first through the KNN {@code <->} operator of the same index
+     * and paginated using {@code OFFSET} and {@code LIMIT}.
      * </p>
      *
      * @param latitude  the latitude of the central point
@@ -45,12 +46,14 @@ public interface FlatRepository extends ReactiveCrudRepository<Flat, UUID>, Cust
      * @return a {@link Flux} containing the paginated list of {@link Flat} entities
      */
     @Query("""
-             SELECT * 
+             SELECT *
              FROM flats
-             WHERE earth_distance(
-                 ll_to_earth(:latitude, :longitude),
-                 ll_to_earth(latitude, longitude)
-             ) <= :radius
+             WHERE earth_box(ll_to_earth(:latitude, :longitude), :radius) @> ll_to_earth(latitude, longitude)
+               AND earth_distance(
+                   ll_to_earth(:latitude, :longitude),
+                   ll_to_earth(latitude, longitude)
+               ) <= :radius
+             ORDER BY ll_to_earth(latitude, longitude) <-> ll_to_earth(:latitude, :longitude), flat_id
              OFFSET :offset LIMIT :limit
             """)
     Flux<Flat> findAllByRadiusPageable(
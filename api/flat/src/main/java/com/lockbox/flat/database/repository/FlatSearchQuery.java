@@ -0,0 +1,492 @@
+package com.lockbox.flat.database.repository;
+
+import com.lockbox.flat.database.dto.FlatColumn;
+import com.lockbox.flat.database.dto.FlatCursor;
+import com.lockbox.flat.database.dto.FlatFacetsDto;
+import com.lockbox.flat.database.dto.FlatFilterDto;
+import com.lockbox.flat.database.dto.FlatOrder;
+import com.lockbox.flat.database.dto.GeoBox;
+import com.lockbox.flat.database.dto.MapTile;
+import com.lockbox.flat.database.model.Flat;
+import org.springframework.r2dbc.core.DatabaseClient;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * Composes the flat search into a single SQL statement over {@code v_flats_with_latest_price}.
+ * <p>
+ * Every filter of {@link FlatFilterDto} becomes a predicate with named bind parameters; user input
+ * never ends up in the SQL text. Requested amenities must all be present, which is a containment test on
+ * the {@code amenity_ids} array answered by its GIN index. A bounding box, radius or both restrict the location
+ * through {@code flats_location_idx}. Ordering is restricted to the {@link FlatOrder}s, each
+ * backed by an index and ending with {@code flat_id}, so pages are stable and can continue from a
+ * {@link FlatCursor} with a row comparison instead of an {@code OFFSET}. When a location is given, results carry their
+ * {@code distance} and are ordered nearest first unless another ordering is requested. A search text
+ * is matched against the {@code search_vector} full-text index; results then carry their {@code rank}
+ * and a highlighted {@code snippet}, and are ordered by relevance first. An availability period keeps the flats
+ * without an overlapping booking, an anti-join answered by the exclusion constraint of {@code flat_bookings}.
+ * The selected columns can be narrowed to a {@link FlatColumn} projection, and the matching flats can be
+ * clustered by {@link MapTile}.
+ * </p>
+ *
+ * @author serezk4
+ * @version 1.0
+ * @see CustomFlatRepositoryImpl
+ * @since 1.0
+ */
+final class FlatSearchQuery {
+
+    /**
+     * Distance in meters from the searched location, selected as {@code distance} when a location is given.
+     */
+    static final String DISTANCE = "earth_distance(ll_to_earth(:lat, :lon), ll_to_earth(latitude, longitude))";
+
+    /**
+     * Radius predicate: the {@code earth_box} containment is answered by {@code flats_location_idx} and may
+     * include points slightly outside the radius, which the exact distance then discards.
+     */
+    static final String WITHIN_RADIUS = "earth_box(ll_to_earth(:lat, :lon), :radius)"
+            + " @> ll_to_earth(latitude, longitude)"
+            + "\n  AND " + DISTANCE + " <= :radius";
+
+    /**
+     * Nearest-first ordering. The cube {@code <->} operator is a KNN operator of GiST, so
+     * {@code flats_location_idx} returns rows already ordered and the scan stops after the page.
+     */
+    static final String NEAREST = "ll_to_earth(latitude, longitude) <-> ll_to_earth(:lat, :lon)";
+
+    /**
+     * The parsed search text. Web-search syntax (quotes, {@code or}, {@code -}) is accepted and never fails;
+     * the russian and simple parses are combined so that both stems and exact words match.
+     */
+    static final String SEARCH_QUERY = """
+            (SELECT websearch_to_tsquery('russian', :search) || websearch_to_tsquery('simple', :search) AS q) search""";
+
+    /**
+     * Relevance of a match, higher is better; title words weigh more than description words.
+     */
+    static final String RANK = "ts_rank(search_vector, search.q)";
+
+    /**
+     * Fragments of the description around the matched words, which are wrapped in {@code <mark>}.
+     * Only computed for the rows of the page.
+     */
+    static final String SNIPPET = """
+            ts_headline('russian', description, search.q,
+                        'StartSel=<mark>, StopSel=</mark>, MaxFragments=2, MaxWords=20, MinWords=5')""";
+
+    /**
+     * Radius of the earth in meters, as returned by the {@code earth()} function of {@code earthdistance}.
+     */
+    static final double EARTH_RADIUS = 6378168;
+
+    /**
+     * Box predicate: the containment in a cube enclosing the box is answered by {@code flats_location_idx};
+     * the exact bounds on latitude and longitude then discard the rows of the cube outside of the box.
+     */
+    static final String WITHIN_CUBE = "cube(CAST(:%1$sLow AS float8[]), CAST(:%1$sHigh AS float8[]))"
+            + " @> ll_to_earth(latitude, longitude)";
+
+    /**
+     * Availability predicate: the {@code flat_bookings_no_overlap} GiST index finds an overlapping booking of a
+     * flat with one probe on {@code (flat_id, period)}.
+     */
+    static final String AVAILABLE = """
+            NOT EXISTS (SELECT 1
+                        FROM flat_bookings b
+                        WHERE b.flat_id = v_flats_with_latest_price.flat_id
+                          AND b.period && tstzrange(:availableFrom, :availableTo))""";
+
+    static final int FACET_ROOMS = 0b011;
+    static final int FACET_PRICES = 0b101;
+    static final int FACET_AMENITIES = 0b110;
+    static final int FACET_TOTAL = 0b111;
+
+    private final List<String> predicates = new ArrayList<>();
+    private final Map<String, Object> binds = new LinkedHashMap<>();
+    private Set<FlatColumn> columns = FlatColumn.ALL;
+
+    private FlatSearchQuery() {
+    }
+
+    /**
+     * Builds the predicates of a filter.
+     *
+     * @param filter the filtering criteria
+     * @return the query
+     * @throws IllegalArgumentException if the status, the ordering or the availability period is not supported
+     */
+    static FlatSearchQuery of(FlatFilterDto filter) {
+        FlatSearchQuery query = new FlatSearchQuery();
+        FlatOrder order = FlatOrder.of(filter);
+
+        if (filter.getAmenities() != null && !filter.getAmenities().isEmpty()) {
+            UUID[] amenities = filter.getAmenities().stream().distinct().toArray(UUID[]::new);
+            query.where("amenity_ids @> :amenities").bind("amenities", amenities);
+        }
+        if (filter.getMinArea() != null)
+            query.where("area >= :minArea").bind("minArea", BigDecimal.valueOf(filter.getMinArea()));
+        if (filter.getMaxArea() != null)
+            query.where("area <= :maxArea").bind("maxArea", BigDecimal.valueOf(filter.getMaxArea()));
+        if (filter.getMinRooms() != null)
+            query.where("rooms >= :minRooms").bind("minRooms", filter.getMinRooms());
+        if (filter.getMaxRooms() != null)
+            query.where("rooms <= :maxRooms").bind("maxRooms", filter.getMaxRooms());
+        if (filter.getStatus() != null && !filter.getStatus().isEmpty())
+            query.where("status = CAST(:status AS flat_status_enum)")
+                    .bind("status", Flat.Status.fromAlias(filter.getStatus()).getAlias());
+        if (filter.getMinPrice() != null)
+            query.where("latest_price >= :minPrice").bind("minPrice", BigDecimal.valueOf(filter.getMinPrice()));
+        if (filter.getMaxPrice() != null)
+            query.where("latest_price <= :maxPrice").bind("maxPrice", BigDecimal.valueOf(filter.getMaxPrice()));
+        if (order == FlatOrder.PRICE)
+            query.where("latest_price IS NOT NULL");
+        if (order == FlatOrder.DISTANCE)
+            query.where("latitude IS NOT NULL AND longitude IS NOT NULL");
+        if (filter.hasLocation()) {
+            query.bind("lat", filter.getLatitude()).bind("lon", filter.getLongitude());
+            if (filter.getRadius() != null)
+                query.where(WITHIN_RADIUS).bind("radius", filter.getRadius());
+        }
+        if (filter.hasBox())
+            query.box(filter.box());
+        if (filter.hasAvailability()) {
+            if (filter.getAvailableFrom() == null || filter.getAvailableTo() == null
+                    || !filter.getAvailableFrom().isBefore(filter.getAvailableTo()))
+                throw new IllegalArgumentException("flat.availability.range.invalid");
+            query.where(AVAILABLE)
+                    .bind("availableFrom", filter.getAvailableFrom())
+                    .bind("availableTo", filter.getAvailableTo());
+        }
+        if (filter.hasSearch())
+            query.where("search_vector @@ search.q").bind("search", filter.getSearch().strip());
+
+        return query;
+    }
+
+    /**
+     * Returns the {@code WHERE} clause, {@code TRUE} if there are no predicates.
+     *
+     * @return the predicates joined with {@code AND}
+     */
+    String where() {
+        return predicates.isEmpty() ? "TRUE" : String.join("\n  AND ", predicates);
+    }
+
+    /**
+     * Returns the {@code FROM} clause the predicates of {@link #where()} apply to.
+     *
+     * @param filter the filtering criteria
+     * @return the view, joined with the parsed search text when there is one
+     */
+    static String from(FlatFilterDto filter) {
+        return filter.hasSearch() ? "v_flats_with_latest_price,\n" + SEARCH_QUERY : "v_flats_with_latest_price";
+    }
+
+    /**
+     * Returns the page of matching flats.
+     *
+     * @param filter the filtering criteria, for the ordering
+     * @param offset the number of rows to skip
+     * @param limit  the maximum number of rows to return
+     * @return the SQL statement; its parameters are in {@link #binds()}
+     * @throws IllegalArgumentException if the ordering is not supported
+     */
+    String page(FlatFilterDto filter, int offset, int limit) {
+        bind("offset", offset).bind("limit", limit);
+        return select(filter)
+                + "\nORDER BY " + orderBy(filter)
+                + "\nOFFSET :offset LIMIT :limit";
+    }
+
+    /**
+     * Returns the page of matching flats following a cursor.
+     *
+     * @param filter the filtering criteria, for the ordering
+     * @param after  the position of the last flat of the previous page, {@code null} for the first page
+     * @param limit  the maximum number of rows to return
+     * @return the SQL statement; its parameters are in {@link #binds()}
+     * @throws IllegalArgumentException if the cursor was produced for another ordering
+     */
+    String keyset(FlatFilterDto filter, FlatCursor after, int limit) {
+        FlatOrder order = FlatOrder.of(filter);
+        if (after != null) {
+            after.requireFor(filter);
+            String comparison = order.direction(filter).isAscending() ? ">" : "<";
+            where("(" + sortKey(order) + ", flat_id) " + comparison + " (:afterValue, :afterId)")
+                    .bind("afterValue", after.sortValue())
+                    .bind("afterId", after.flatId());
+        }
+        bind("limit", limit);
+        return select(filter)
+                + "\nORDER BY " + orderBy(filter)
+                + "\nLIMIT :limit";
+    }
+
+    /**
+     * Counts the matching flats by room bucket, price bucket and amenity, in a single scan.
+     * <p>
+     * The matching rows are read once and grouped by {@code GROUPING SETS}; {@code grouping_id} tells the sets
+     * apart: {@value #FACET_ROOMS} for rooms, {@value #FACET_PRICES} for prices, {@value #FACET_AMENITIES} for
+     * amenities and {@value #FACET_TOTAL} for the total. Amenities are unnested, so flats are counted distinct.
+     * </p>
+     *
+     * @param filter     the filtering criteria
+     * @param priceEdges the ascending lower bounds of the price buckets after the first
+     * @return the SQL statement; its parameters are in {@link #binds()}
+     */
+    String facets(FlatFilterDto filter, List<BigDecimal> priceEdges) {
+        bind("roomsBucket", FlatFacetsDto.MAX_ROOMS_BUCKET).bind("priceEdges", priceEdges.toArray(BigDecimal[]::new));
+        return """
+                WITH matched AS (
+                    SELECT flat_id,
+                           least(rooms, :roomsBucket) AS rooms_bucket,
+                           width_bucket(latest_price, :priceEdges) AS price_bucket,
+                           amenity_ids
+                    FROM %s
+                    WHERE %s
+                )
+                SELECT GROUPING(rooms_bucket, price_bucket, amenity_id) AS grouping_id,
+                       rooms_bucket, price_bucket, amenity_id,
+                       count(DISTINCT flat_id) AS flats
+                FROM matched
+                         LEFT JOIN LATERAL unnest(amenity_ids) AS amenity(amenity_id) ON TRUE
+                GROUP BY GROUPING SETS ((rooms_bucket), (price_bucket), (amenity_id), ())"""
+                .formatted(from(filter), where());
+    }
+
+    /**
+     * Groups the matching flats of a map tile into {@code grid × grid} cells, in a single scan.
+     * <p>
+     * Cells are square on the map: columns are even in longitude and rows are even in the Web Mercator projection
+     * of the latitude. Each cell yields its number of flats, their centroid and their price range; cells without
+     * flats are omitted.
+     * </p>
+     *
+     * @param filter the filtering criteria
+     * @param tile   the tile
+     * @param grid   the number of cells along each side of the tile
+     * @return the SQL statement; its parameters are in {@link #binds()}
+     */
+    String clusters(FlatFilterDto filter, MapTile tile, int grid) {
+        GeoBox bounds = tile.bounds();
+        tile(tile)
+                .bind("cellWidth", (bounds.east() - bounds.west()) / grid)
+                .bind("mercatorNorth", tile.mercatorNorth())
+                .bind("cellHeight", tile.mercatorHeight() / grid)
+                .bind("lastCell", grid - 1);
+        return """
+                SELECT least(floor((longitude - :tileWest) / :cellWidth), :lastCell) AS cell_x,
+                       greatest(0, least(floor((:mercatorNorth - ln(tan(pi() / 4 + radians(latitude) / 2)))
+                                               / :cellHeight), :lastCell)) AS cell_y,
+                       count(*) AS flats,
+                       avg(latitude) AS latitude,
+                       avg(longitude) AS longitude,
+                       min(latest_price) AS min_price,
+                       max(latest_price) AS max_price
+                FROM %s
+                WHERE %s
+                GROUP BY cell_x, cell_y""".formatted(from(filter), where());
+    }
+
+    /**
+     * Restricts the query to the flats of a map tile. Tiles share no flats: a tile includes its western and
+     * northern edges, and the tiles along the eastern and southern edges of the grid include those too.
+     *
+     * @param tile the tile
+     * @return this query
+     */
+    FlatSearchQuery tile(MapTile tile) {
+        GeoBox bounds = tile.bounds();
+        int last = (1 << tile.zoom()) - 1;
+        return within("tile", bounds)
+                .where("longitude >= :tileWest AND longitude " + (tile.x() == last ? "<=" : "<") + " :tileEast")
+                .where("latitude <= :tileNorth AND latitude " + (tile.y() == last ? ">=" : ">") + " :tileSouth")
+                .bind("tileWest", bounds.west())
+                .bind("tileEast", bounds.east())
+                .bind("tileNorth", bounds.north())
+                .bind("tileSouth", bounds.south());
+    }
+
+    /**
+     * Restricts the query to the flats within a box, edges included. A box crossing the antimeridian is looked up
+     * as its two halves, which Postgres combines with a bitmap {@code OR} of two index scans.
+     *
+     * @param box the box
+     * @return this query
+     */
+    FlatSearchQuery box(GeoBox box) {
+        where("latitude BETWEEN :boxSouth AND :boxNorth")
+                .bind("boxSouth", box.south())
+                .bind("boxNorth", box.north())
+                .bind("boxWest", box.west())
+                .bind("boxEast", box.east());
+        if (!box.crossesAntimeridian())
+            return within("box", box).where("longitude BETWEEN :boxWest AND :boxEast");
+
+        List<GeoBox> halves = box.split();
+        Double[][] western = enclosingCube(halves.get(0));
+        Double[][] eastern = enclosingCube(halves.get(1));
+        return where("(" + WITHIN_CUBE.formatted("boxWestern")
+                + "\n    OR " + WITHIN_CUBE.formatted("boxEastern") + ")")
+                .bind("boxWesternLow", western[0])
+                .bind("boxWesternHigh", western[1])
+                .bind("boxEasternLow", eastern[0])
+                .bind("boxEasternHigh", eastern[1])
+                .where("(longitude >= :boxWest OR longitude <= :boxEast)");
+    }
+
+    /**
+     * Restricts the query to the given flats, for hydrating ids found by the in-memory search index.
+     *
+     * @param ids the flat ids
+     * @return this query
+     */
+    FlatSearchQuery ids(List<UUID> ids) {
+        return where("flat_id = ANY(:ids)").bind("ids", ids.toArray(UUID[]::new));
+    }
+
+    /**
+     * Narrows the selected columns. The id and the sort key of the ordering stay selected, so the result can
+     * still be paged with a {@link FlatCursor}; distance and rank are selected whenever they apply.
+     *
+     * @param filter    the filtering criteria, for the ordering
+     * @param requested the columns to select
+     * @return this query
+     * @throws IllegalArgumentException if the ordering is not supported
+     */
+    FlatSearchQuery project(FlatFilterDto filter, Set<FlatColumn> requested) {
+        Set<FlatColumn> projected = EnumSet.of(FlatColumn.FLAT_ID);
+        projected.addAll(requested);
+        switch (FlatOrder.of(filter)) {
+            case CREATED_AT -> projected.add(FlatColumn.CREATED_AT);
+            case PRICE -> projected.add(FlatColumn.LATEST_PRICE);
+            case AREA -> projected.add(FlatColumn.AREA);
+            default -> {
+            }
+        }
+        columns = projected;
+        return this;
+    }
+
+    /**
+     * Returns every matching flat, unordered.
+     *
+     * @param filter the filtering criteria, for the computed columns
+     * @return the SQL statement; its parameters are in {@link #binds()}
+     */
+    String select(FlatFilterDto filter) {
+        return "SELECT " + columns.stream().map(FlatColumn::getExpression).filter(Objects::nonNull)
+                .collect(Collectors.joining(", "))
+                + (filter.hasLocation() ? ", " + DISTANCE + " AS distance" : "")
+                + (filter.hasSearch() ? ", " + RANK + " AS rank" : "")
+                + (filter.hasSearch() && columns.contains(FlatColumn.SNIPPET) ? ", " + SNIPPET + " AS snippet" : "")
+                + "\nFROM " + from(filter) + "\nWHERE " + where();
+    }
+
+    /**
+     * Returns the bind parameters by name, in the order they were added.
+     *
+     * @return the bind parameters
+     */
+    Map<String, Object> binds() {
+        return binds;
+    }
+
+    /**
+     * Binds every parameter of this query.
+     *
+     * @param spec the statement
+     * @return the statement with its parameters bound
+     */
+    DatabaseClient.GenericExecuteSpec bind(DatabaseClient.GenericExecuteSpec spec) {
+        for (Map.Entry<String, Object> bind : binds.entrySet())
+            spec = spec.bind(bind.getKey(), bind.getValue());
+        return spec;
+    }
+
+    /**
+     * Orders by the sort key, then by {@code flat_id} in the same direction. Distance is ordered by the KNN
+     * operator of {@code flats_location_idx}, which ranks like {@link #DISTANCE}.
+     */
+    private static String orderBy(FlatFilterDto filter) {
+        FlatOrder order = FlatOrder.of(filter);
+        String direction = order.direction(filter).name();
+        String key = order == FlatOrder.DISTANCE ? NEAREST : sortKey(order);
+        return key + " " + direction + ", flat_id " + direction;
+    }
+
+    private static String sortKey(FlatOrder order) {
+        return switch (order) {
+            case CREATED_AT -> "created_at";
+            case PRICE -> "latest_price";
+            case AREA -> "area";
+            case DISTANCE -> DISTANCE;
+            case RELEVANCE -> RANK;
+        };
+    }
+
+    /**
+     * Adds the index predicate of a box, see {@link #WITHIN_CUBE}; the exact bounds are left to the caller.
+     *
+     * @param name the prefix of the bind parameters
+     * @param box  the box
+     * @return this query
+     */
+    private FlatSearchQuery within(String name, GeoBox box) {
+        Double[][] cube = enclosingCube(box);
+        return where(WITHIN_CUBE.formatted(name)).bind(name + "Low", cube[0]).bind(name + "High", cube[1]);
+    }
+
+    /**
+     * Returns the corners of the smallest cube enclosing a box on the surface of the earth, in the coordinates
+     * of {@code ll_to_earth}: {@code x = R cos φ cos λ}, {@code y = R cos φ sin λ}, {@code z = R sin φ}.
+     * The cube is widened by a meter to absorb rounding.
+     */
+    private static Double[][] enclosingCube(GeoBox box) {
+        double south = Math.toRadians(box.south());
+        double north = Math.toRadians(box.north());
+        double west = Math.toRadians(box.west());
+        double east = Math.toRadians(box.east());
+
+        double maxCosLat = box.south() <= 0 && box.north() >= 0 ? 1 : Math.max(Math.cos(south), Math.cos(north));
+        double minCosLat = Math.min(Math.cos(south), Math.cos(north));
+        double maxCosLon = box.west() <= 0 && box.east() >= 0 ? 1 : Math.max(Math.cos(west), Math.cos(east));
+        double minCosLon = box.west() == -180 || box.east() == 180 ? -1 : Math.min(Math.cos(west), Math.cos(east));
+        double maxSinLon = box.west() <= 90 && box.east() >= 90 ? 1 : Math.max(Math.sin(west), Math.sin(east));
+        double minSinLon = box.west() <= -90 && box.east() >= -90 ? -1 : Math.min(Math.sin(west), Math.sin(east));
+
+        double margin = 1;
+        return new Double[][]{
+                {
+                        EARTH_RADIUS * (minCosLon >= 0 ? minCosLat : maxCosLat) * minCosLon - margin,
+                        EARTH_RADIUS * (minSinLon >= 0 ? minCosLat : maxCosLat) * minSinLon - margin,
+                        EARTH_RADIUS * Math.sin(south) - margin
+                },
+                {
+                        EARTH_RADIUS * (maxCosLon >= 0 ? maxCosLat : minCosLat) * maxCosLon + margin,
+                        EARTH_RADIUS * (maxSinLon >= 0 ? maxCosLat : minCosLat) * maxSinLon + margin,
+                        EARTH_RADIUS * Math.sin(north) + margin
+                }
+        };
+    }
+
+    private FlatSearchQuery where(String predicate) {
+        predicates.add(predicate);
+        return this;
+    }
+
+    private FlatSearchQuery bind(String name, Object value) {
+        binds.put(name, value);
+        return this;
+    }
+}
@@ -0,0 +1,21 @@
+package com.lockbox.flat.database.routing;
+
+/**
+ * Connection settings of the read replica.
+ * <p>
+ * The replica pool reuses the sizing configured under {@code spring.r2dbc.pool}.
+ * </p>
+ *
+ * @param url      the R2DBC URL of the replica
+ * @param username the login username, defaults to {@code spring.r2dbc.username}
+ * @param password the login password, defaults to {@code spring.r2dbc.password}
+ * @author serezk4
+ * @version 1.0
+ * @since 1.0
+ */
+public record ReplicaProperties(
+        String url,
+        String username,
+        String password
+) {
+}
@@ -0,0 +1,117 @@
+package com.lockbox.flat.database.service;
+
+import com.lockbox.cache.InvalidationBus;
+import com.lockbox.cache.InvalidationEvent;
+import com.lockbox.flat.database.model.Amenity;
+import com.lockbox.flat.database.repository.AmenityRepository;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * In-memory copy of the {@code amenities} catalog.
+ * <p>
+ * The catalog is small and read by every amenity-filtered search, so it is loaded once at startup and
+ * reloaded whenever the {@link InvalidationBus} reports an {@link InvalidationEvent.Type#AMENITY_CHANGED}
+ * or a flush. Reloads replace the whole snapshot; readers never block and never see a partial catalog.
+ * </p>
+ *
+ * @author serezk4
+ * @version 1.0
+ * @since 1.0
+ */
+@Component
+@Log4j2
+public class AmenityCatalog implements DisposableBean {
+
+    private final AmenityRepository amenityRepository;
+    private final InvalidationBus invalidationBus;
+
+    private volatile Map<UUID, Amenity> amenities = Map.of();
+    private volatile Disposable subscription;
+
+    public AmenityCatalog(AmenityRepository amenityRepository, InvalidationBus invalidationBus) {
+        this.amenityRepository = amenityRepository;
+        this.invalidationBus = invalidationBus;
+    }
+
+    /**
+     * Loads the catalog and follows its changes. A newer change cancels a reload still in flight.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        subscription = invalidationBus.events()
+                .filter(event -> event.type() == InvalidationEvent.Type.AMENITY_CHANGED
+                        || event.type() == InvalidationEvent.Type.FLUSH)
+                .startWith(InvalidationEvent.flush())
+                .switchMap(event -> reload()
+                        .doOnError(error -> log.warn("Amenity catalog reload failed", error))
+                        .onErrorComplete())
+                .subscribe();
+    }
+
+    /**
+     * Returns every amenity, ordered by name.
+     *
+     * @return the catalog snapshot
+     */
+    public Collection<Amenity> all() {
+        return amenities.values();
+    }
+
+    /**
+     * Looks up an amenity by id.
+     *
+     * @param id the amenity id
+     * @return the amenity, empty if it is not in the catalog
+     */
+    public Optional<Amenity> find(UUID id) {
+        return Optional.ofNullable(amenities.get(id));
+    }
+
+    /**
+     * Checks that every id belongs to the catalog. An unknown id triggers one reload before it is
+     * rejected, so an amenity created moments ago on another node is not refused.
+     *
+     * @param ids the amenity ids, may be {@code null}
+     * @return a {@link Mono} completing if all ids are known
+     * @throws IllegalArgumentException (signalled) if an id is still unknown after the reload
+     */
+    public Mono<Void> requireAll(Collection<UUID> ids) {
+        if (ids == null || amenities.keySet().containsAll(ids)) return Mono.empty();
+        return reload().then(Mono.defer(() -> amenities.keySet().containsAll(ids)
+                ? Mono.empty()
+                : Mono.error(new IllegalArgumentException("flat.amenity.unknown"))));
+    }
+
+    private Mono<Void> reload() {
+        return amenityRepository.findAllByOrderByNameAsc()
+                .collectList()
+                .doOnNext(this::swap)
+                .then();
+    }
+
+    private void swap(List<Amenity> loaded) {
+        Map<UUID, Amenity> snapshot = new LinkedHashMap<>();
+        loaded.forEach(amenity -> snapshot.put(amenity.getAmenityId(), amenity));
+        amenities = Collections.unmodifiableMap(snapshot);
+        log.debug("Amenity catalog loaded: {} amenities", snapshot.size());
+    }
+
+    @Override
+    public void destroy() {
+        if (subscription != null) subscription.dispose();
+    }
+}
@@ -0,0 +1,136 @@
+package com.lockbox.flat.database.service;
+
+import com.lockbox.cache.InvalidationBus;
+import com.lockbox.cache.InvalidationEvent;
+import com.lockbox.flat.database.dto.FlatBookingDto;
+import com.lockbox.flat.database.dto.FlatColumn;
+import com.lockbox.flat.database.model.Flat;
+import com.lockbox.flat.database.repository.FlatBookingRepository;
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.FieldDefaults;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Isolation;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Service class responsible for booking flats and reading their availability calendar.
+ * Overlapping bookings of a flat are rejected by the exclusion constraint of {@code flat_bookings}, so two
+ * concurrent requests for the same dates cannot both succeed. A booking is announced as a change of the flat,
+ * which drops the cached search pages that could list it as available.
+ *
+ * @author serezk4
+ * @version 1.0
+ * @since 1.0
+ */
+@Service
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+@RequiredArgsConstructor
+@Transactional(rollbackFor = Exception.class, isolation = Isolation.READ_COMMITTED)
+@Log4j2
+public class FlatBookingService {
+
+    /**
+     * Longest period a single booking may span.
+     */
+    public static final Duration MAX_BOOKING = Duration.ofDays(365);
+
+    /**
+     * Longest period a calendar may span.
+     */
+    public static final Duration MAX_CALENDAR = Duration.ofDays(366);
+
+    /**
+     * Name of the constraint rejecting overlapping bookings.
+     */
+    static final String NO_OVERLAP_CONSTRAINT = "flat_bookings_no_overlap";
+
+    /**
+     * Columns read to check the booked flat.
+     */
+    static final Set<FlatColumn> STATUS_COLUMNS = EnumSet.of(FlatColumn.FLAT_ID, FlatColumn.STATUS);
+
+    /**
+     * Repository for accessing bookings in the database.
+     */
+    FlatBookingRepository flatBookingRepository;
+
+    /**
+     * Service checking that the booked flat exists and is available.
+     */
+    FlatService flatService;
+
+    /**
+     * Bus announcing the booked flat as changed.
+     */
+    InvalidationBus invalidationBus;
+
+    /**
+     * Books a flat for a period.
+     *
+     * @param flatId   the unique identifier of the flat
+     * @param guestSub the guest booking the flat
+     * @param from     the start of the period, inclusive, not in the past
+     * @param to       the end of the period, exclusive, at most {@link #MAX_BOOKING} after {@code from}
+     * @return a {@link Mono} emitting the booking, or an {@link IllegalArgumentException} if the period is invalid,
+     * the flat is not found or not available, or it is already booked for part of the period
+     */
+    public Mono<FlatBookingDto> book(
+            final UUID flatId,
+            final String guestSub,
+            final Instant from,
+            final Instant to
+    ) {
+        if (!from.isBefore(to) || Duration.between(from, to).compareTo(MAX_BOOKING) > 0)
+            return Mono.error(new IllegalArgumentException("flat.booking.range.invalid"));
+        if (from.isBefore(Instant.now()))
+            return Mono.error(new IllegalArgumentException("flat.booking.past"));
+
+        return flatService.findById(flatId, STATUS_COLUMNS)
+                .switchIfEmpty(Mono.error(new IllegalArgumentException("flat.not_found")))
+                .filter(flat -> flat.getStatus() == Flat.Status.AVAILABLE)
+                .switchIfEmpty(Mono.error(new IllegalArgumentException("flat.booking.unavailable")))
+                .flatMap(flat -> flatBookingRepository.insert(flatId, guestSub, from, to))
+                .onErrorMap(DataIntegrityViolationException.class, error -> isOverlap(error)
+                        ? new IllegalArgumentException("flat.booking.overlap")
+                        : error)
+                .flatMap(booking -> invalidationBus.publish(InvalidationEvent.Type.FLAT_CHANGED, flatId.toString())
+                        .thenReturn(booking))
+                .doOnSuccess(booking -> log.info("Flat booked: {}, booking={}", flatId, booking.getBookingId()))
+                .doOnError(error -> log.warn("Failed to book flat: {}", flatId, error));
+    }
+
+    /**
+     * Retrieves the bookings of a flat overlapping a period, for its availability calendar.
+     *
+     * @param flatId the unique identifier of the flat
+     * @param from   the start of the period, inclusive
+     * @param to     the end of the period, exclusive, at most {@link #MAX_CALENDAR} after {@code from}
+     * @return a {@link Flux} emitting the bookings, earliest first, or an {@link IllegalArgumentException}
+     * if the period is invalid
+     */
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    public Flux<FlatBookingDto> findBookings(final UUID flatId, final Instant from, final Instant to) {
+        log.debug("Finding bookings: flat={}, from={}, to={}", flatId, from, to);
+        if (!from.isBefore(to) || Duration.between(from, to).compareTo(MAX_CALENDAR) > 0)
+            return Flux.error(new IllegalArgumentException("flat.booking.range.invalid"));
+
+        return flatBookingRepository.findOverlapping(flatId, from, to)
+                .doOnError(error -> log.error("Error finding bookings of flat: {}", flatId, error));
+    }
+
+    private static boolean isOverlap(DataIntegrityViolationException error) {
+        return error.getMessage() != null && error.getMessage().contains(NO_OVERLAP_CONSTRAINT);
+    }
+}
@@ -0,0 +1,87 @@
+package com.lockbox.flat.database.service;
+
+import com.lockbox.flat.database.dto.FlatPriceSeriesDto;
+import com.lockbox.flat.database.model.FlatPrice;
+import com.lockbox.flat.database.repository.FlatPriceRepository;
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.FieldDefaults;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Isolation;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Service class responsible for reading the price history of flats, as recorded in {@link FlatPrice}s.
+ * Series are downsampled in the database, so a chart costs at most {@value #MAX_POINTS} points per flat
+ * whatever the length of the history.
+ *
+ * @author serezk4
+ * @version 1.0
+ * @since 1.0
+ */
+@Service
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+@RequiredArgsConstructor
+@Transactional(rollbackFor = Exception.class, isolation = Isolation.READ_COMMITTED)
+@Log4j2
+public class FlatPriceService {
+
+    /**
+     * Largest number of buckets a series may span.
+     */
+    public static final int MAX_POINTS = 1_000;
+
+    /**
+     * Largest number of flats compared at once.
+     */
+    public static final int MAX_FLATS = 20;
+
+    /**
+     * Narrowest bucket.
+     */
+    public static final Duration MIN_BUCKET = Duration.ofMinutes(1);
+
+    /**
+     * Repository for accessing {@link FlatPrice} data in the database.
+     */
+    FlatPriceRepository flatPriceRepository;
+
+    /**
+     * Retrieves the downsampled price series of flats over a time range.
+     *
+     * @param flatIds the unique identifiers of the flats, at most {@value #MAX_FLATS}
+     * @param from    the start of the range, inclusive; buckets are aligned on it
+     * @param to      the end of the range, exclusive
+     * @param bucket  the width of the buckets, at least {@link #MIN_BUCKET}
+     * @return a {@link Flux} emitting one series per distinct flat id, in the requested order,
+     * or an {@link IllegalArgumentException} if the range, the bucket or the number of flats is invalid
+     */
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    public Flux<FlatPriceSeriesDto> findPriceSeries(
+            final List<UUID> flatIds,
+            final Instant from,
+            final Instant to,
+            final Duration bucket
+    ) {
+        log.debug("Finding price series: flats={}, from={}, to={}, bucket={}", flatIds.size(), from, to, bucket);
+        if (flatIds.isEmpty() || flatIds.size() > MAX_FLATS)
+            return Flux.error(new IllegalArgumentException("flat.prices.flats.size:1-" + MAX_FLATS));
+        if (!from.isBefore(to))
+            return Flux.error(new IllegalArgumentException("flat.prices.range.invalid"));
+        if (bucket.compareTo(MIN_BUCKET) < 0)
+            return Flux.error(new IllegalArgumentException("flat.prices.bucket.min:" + MIN_BUCKET));
+        if (Duration.between(from, to).dividedBy(bucket) >= MAX_POINTS)
+            return Flux.error(new IllegalArgumentException("flat.prices.points.max:" + MAX_POINTS));
+
+        return flatPriceRepository.findPriceSeries(flatIds, from, to, bucket)
+                .doOnError(error -> log.error("Error finding price series", error));
+    }
+}
@@ -1,25 +1,57 @@
 package com.lockbox.flat.database.service;
 
+import com.lockbox.cache.InvalidationBus;
+import com.lockbox.cache.InvalidationEvent;
+import com.lockbox.cache.TwoLevelCache;
+import com.lockbox.flat.database.dto.FlatClusterDto;
+import com.lockbox.flat.database.dto.FlatColumn;
+import com.lockbox.flat.database.dto.FlatCursor;
+import com.lockbox.flat.database.dto.FlatFacetsDto;
 import com.lockbox.flat.database.dto.FlatFilterDto;
+import com.lockbox.flat.database.dto.FlatOrder;
+import com.lockbox.flat.database.dto.FlatPageDto;
+import com.lockbox.flat.database.dto.GeoBox;
+import com.lockbox.flat.database.dto.MapTile;
+import com.lockbox.flat.database.model.Amenity;
 import com.lockbox.flat.database.model.Flat;
+import com.lockbox.flat.database.model.FlatAmenity;
+import com.lockbox.flat.database.model.FlatPrice;
 import com.lockbox.flat.database.model.FlatWithLatestPrice;
+import com.lockbox.flat.database.repository.FlatPriceRepository;
 import com.lockbox.flat.database.repository.FlatRepository;
+import com.lockbox.flat.search.FlatAutocomplete;
+import com.lockbox.flat.search.FlatClusterKey;
+import com.lockbox.flat.search.FlatClustersProperties;
+import com.lockbox.flat.search.FlatFacetsProperties;
+import com.lockbox.flat.search.FlatSearchIndex;
+import com.lockbox.flat.search.FlatSearchResultCache;
+import com.lockbox.flat.search.FlatSimilarityIndex;
 import lombok.AccessLevel;
 import lombok.RequiredArgsConstructor;
 import lombok.experimental.FieldDefaults;
 import lombok.extern.log4j.Log4j2;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Isolation;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.function.Function;
 
 /**
  * Service class responsible for managing {@link Flat} entities.
  * Provides methods for saving, retrieving, and filtering flats with transactional support.
- * Includes comprehensive logging for better traceability.
+ * Lookups run without a physical transaction and may be served by the read replica.
+ * Writes are logged at {@code INFO} by id; lookups run on hot paths and are logged at {@code DEBUG} only.
  *
  * @author serezk4
  * @version 1.0
@@ -32,11 +64,88 @@ import java.util.UUID;
 @Log4j2
 public class FlatService {
 
+    /**
+     * Number of map tiles clustered at the same time for one request.
+     */
+    static final int CLUSTER_TILE_CONCURRENCY = 4;
+
+    /**
+     * Largest number of similar flats returned for a flat.
+     */
+    public static final int MAX_SIMILAR = 50;
+
+    /**
+     * Filter the similar flats are read with.
+     */
+    static final FlatFilterDto SIMILAR_FILTER = FlatFilterDto.builder()
+            .status(Flat.Status.AVAILABLE.getAlias())
+            .build();
+
     /**
      * Repository for accessing {@link Flat} data in the database.
      */
     FlatRepository flatRepository;
 
+    /**
+     * Repository for reading the price history of flats.
+     */
+    FlatPriceRepository flatPriceRepository;
+
+    /**
+     * Bus announcing flat changes to the in-process caches of every node.
+     */
+    InvalidationBus invalidationBus;
+
+    /**
+     * Two-level cache of flats by id, kept fresh by {@link #invalidationBus}.
+     */
+    TwoLevelCache<UUID, Flat> flatCache;
+
+    /**
+     * In-memory amenity catalog, used to reject unknown amenities before querying.
+     */
+    AmenityCatalog amenityCatalog;
+
+    /**
+     * In-memory search index answering filter searches with ids, present with {@code flat.search.index.enabled}.
+     */
+    Optional<FlatSearchIndex> flatSearchIndex;
+
+    /**
+     * Short-lived cache of facet counts by filter.
+     */
+    TwoLevelCache<FlatFilterDto, FlatFacetsDto> flatFacetsCache;
+
+    /**
+     * Price ranges of the facets.
+     */
+    FlatFacetsProperties flatFacetsProperties;
+
+    /**
+     * Redis cache of search pages, present with {@code flat.search.result-cache.enabled}.
+     */
+    Optional<FlatSearchResultCache> flatSearchResultCache;
+
+    /**
+     * Short-lived cache of map clusters by tile and filter.
+     */
+    TwoLevelCache<FlatClusterKey, List<FlatClusterDto>> flatClustersCache;
+
+    /**
+     * Grid and limits of map clustering.
+     */
+    FlatClustersProperties flatClustersProperties;
+
+    /**
+     * In-memory index of similar flats, present with {@code flat.search.similar.enabled}.
+     */
+    Optional<FlatSimilarityIndex> flatSimilarityIndex;
+
+    /**
+     * Type-ahead completions of titles.
+     */
+    FlatAutocomplete flatAutocomplete;
+
     /**
      * Saves a new or existing flat to the database.
      *
@@ -44,10 +153,13 @@ public class FlatService {
      * @return a {@link Mono} emitting the saved {@link Flat} entity
      */
     public Mono<Flat> save(final Flat flat) {
-        log.info("Saving flat: {}", flat);
+        log.debug("Saving flat: id={}, owner={}", flat.getFlatId(), flat.getOwnerSub());
         return flatRepository.save(flat)
-                .doOnSuccess(savedFlat -> log.info("Flat saved successfully: {}", savedFlat))
-                .doOnError(error -> log.error("Failed to save flat: {}", flat, error));
+                .flatMap(savedFlat -> invalidationBus.publish(
+                        InvalidationEvent.Type.FLAT_CHANGED, savedFlat.getFlatId().toString()
+                ).thenReturn(savedFlat))
+                .doOnSuccess(savedFlat -> log.info("Flat saved: {}", savedFlat.getFlatId()))
+                .doOnError(error -> log.error("Failed to save flat: {}", flat.getFlatId(), error));
     }
 
     /**
@@ -60,6 +172,7 @@ public class FlatService {
      * @param size      the number of results per page
      * @return a {@link Flux} emitting the {@link Flat} entities matching the criteria
      */
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
     public Flux<Flat> findAllByRadius(
             final double latitude,
             final double longitude,
@@ -67,50 +180,321 @@ public class FlatService {
             final int page,
             final int size
     ) {
-        log.info("Finding flats by radius: latitude={}, longitude={}, radius={}, page={}, size={}",
+        log.debug("Finding flats by radius: latitude={}, longitude={}, radius={}, page={}, size={}",
                 latitude, longitude, radius, page, size);
         return flatRepository.findAllByRadiusPageable(
                         latitude, longitude, radius,
                         page * size, size
-                ).doOnComplete(() -> log.info("Completed finding flats by radius"))
+                ).doOnComplete(() -> log.debug("Completed finding flats by radius"))
                 .doOnError(error -> log.error("Error finding flats by radius", error));
     }
 
     /**
      * Retrieves flats based on dynamic filtering criteria.
+     * The page is found by the in-memory search index when it can answer the filter, and by SQL otherwise. Like
+     * {@link #loadPage}, a page whose indexed flats were not all found again is searched in SQL instead.
      *
      * @param filter the filtering criteria as a {@link FlatFilterDto}
      * @param page   the page index for pagination (zero-based)
      * @param size   the number of results per page
-     * @return a {@link Flux} emitting the {@link Flat} entities matching the filters
+     * @return a {@link Flux} emitting the {@link Flat} entities matching the filters,
+     * or an {@link IllegalArgumentException} if a requested amenity does not exist
      */
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
     public Flux<FlatWithLatestPrice> findAllByFilters(
             final FlatFilterDto filter,
             final int page,
             final int size
     ) {
-        log.info("Finding flats by filters: filter={}, page={}, size={}", filter, page, size);
-        return flatRepository.findFlatsByFilters(filter, page * size, size)
-                .doOnComplete(() -> log.info("Completed finding flats by filters"))
+        log.debug("Finding flats by filters: filter={}, page={}, size={}", filter, page, size);
+        return amenityCatalog.requireAll(filter.getAmenities())
+                .thenMany(Flux.defer(() -> {
+                    Flux<FlatWithLatestPrice> sql = Flux.defer(() ->
+                            flatRepository.findFlatsByFilters(filter, page * size, size));
+                    return flatSearchIndex
+                            .flatMap(index -> index.search(filter, page * size, size))
+                            .map(ids -> flatRepository.findFlatsByIds(filter, ids, FlatColumn.ALL)
+                                    .collectList()
+                                    .flatMapMany(flats -> flats.size() == ids.size() ? Flux.fromIterable(flats) : sql))
+                            .orElse(sql);
+                }))
+                .doOnComplete(() -> log.debug("Completed finding flats by filters"))
                 .doOnError(error -> log.error("Error finding flats by filters", error));
     }
 
     /**
-     * Retrieves a flat by its unique identifier.
+     * Retrieves a page of flats based on dynamic filtering criteria, continuing from a cursor.
+     * <p>
+     * Unlike {@link #findAllByFilters(FlatFilterDto, int, int)}, every page costs the same: it starts where
+     * the previous one ended instead of skipping rows. One extra flat is fetched to tell whether a next page
+     * exists.
+     * </p>
+     * <p>
+     * With the result cache enabled, the page may be served from {@link FlatSearchResultCache}; it is then the
+     * page of the exact filter, as geographic searches off the grid of the cache are not cached.
+     * </p>
+     *
+     * @param filter the filtering criteria as a {@link FlatFilterDto}
+     * @param after  the {@link FlatPageDto#getNextCursor()} of the previous page, {@code null} for the first page
+     * @param size   the number of results per page
+     * @return a {@link Mono} emitting the page, or an {@link IllegalArgumentException} if the cursor is
+     * malformed or was produced for another ordering
+     */
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    public Mono<FlatPageDto> findPageByFilters(
+            final FlatFilterDto filter,
+            final String after,
+            final int size
+    ) {
+        return findPageByFilters(filter, after, size, FlatColumn.ALL);
+    }
+
+    /**
+     * Retrieves a page of flats like {@link #findPageByFilters(FlatFilterDto, String, int)}, reading only the
+     * given columns; the properties of other columns are left {@code null}.
+     *
+     * @param filter  the filtering criteria as a {@link FlatFilterDto}
+     * @param after   the {@link FlatPageDto#getNextCursor()} of the previous page, {@code null} for the first page
+     * @param size    the number of results per page
+     * @param columns the columns to read
+     * @return a {@link Mono} emitting the page, or an {@link IllegalArgumentException} if the cursor is
+     * malformed or was produced for another ordering
+     */
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    public Mono<FlatPageDto> findPageByFilters(
+            final FlatFilterDto filter,
+            final String after,
+            final int size,
+            final Set<FlatColumn> columns
+    ) {
+        log.debug("Finding flat page by filters: filter={}, after={}, size={}, columns={}",
+                filter, after, size, columns);
+        return amenityCatalog.requireAll(filter.getAmenities())
+                .then(Mono.fromCallable(() -> after == null ? null : FlatCursor.decode(after).requireFor(filter))
+                        .map(Optional::of)
+                        .defaultIfEmpty(Optional.empty()))
+                .flatMap(cursor -> flatSearchResultCache
+                        .map(cache -> cache.get(filter, after, size, columns,
+                                key -> loadPage(key, cursor.orElse(null), size, columns)))
+                        .orElseGet(() -> loadPage(filter, cursor.orElse(null), size, columns)))
+                .doOnSuccess(page -> log.debug("Completed finding flat page by filters: {} flats",
+                        page.getFlats().size()))
+                .doOnError(error -> log.error("Error finding flat page by filters", error));
+    }
+
+    /**
+     * Loads a page, from the ids of the in-memory index when it can answer the filter. Hydration re-applies the
+     * filter, so a flat changed since it was indexed is dropped; the page would then come up short and could end
+     * the paging early, so it is searched again in SQL instead.
+     */
+    private Mono<FlatPageDto> loadPage(
+            final FlatFilterDto filter,
+            final FlatCursor after,
+            final int size,
+            final Set<FlatColumn> columns
+    ) {
+        Mono<List<FlatWithLatestPrice>> sql = Mono.defer(() ->
+                flatRepository.findFlatsByFilters(filter, after, size + 1, columns).collectList());
+        return Mono.defer(() -> flatSearchIndex
+                        .flatMap(index -> index.search(filter, after, size + 1))
+                        .map(ids -> flatRepository.findFlatsByIds(filter, ids, columns)
+                                .collectList()
+                                .flatMap(flats -> flats.size() == ids.size() ? Mono.just(flats) : sql))
+                        .orElse(sql))
+                .map(flats -> {
+                    if (flats.size() <= size) return FlatPageDto.builder().flats(flats).build();
+
+                    List<FlatWithLatestPrice> page = flats.subList(0, size);
+                    FlatOrder order = FlatOrder.of(filter);
+                    return FlatPageDto.builder()
+                            .flats(page)
+                            .nextCursor(FlatCursor.after(page.get(size - 1), order, order.direction(filter)).encode())
+                            .build();
+                });
+    }
+
+    /**
+     * Counts the flats matching the filter by rooms, price range and amenity.
+     * The counts come from the in-memory search index when it can answer the filter, and from a single
+     * grouping-sets query otherwise; either way they are reused for {@code flat.search.facets.ttl}. The ordering
+     * of the filter is ignored, so the counts do not change when the results are sorted differently.
+     *
+     * @param filter the filtering criteria as a {@link FlatFilterDto}
+     * @return a {@link Mono} emitting the counts,
+     * or an {@link IllegalArgumentException} if a requested amenity does not exist
+     */
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    public Mono<FlatFacetsDto> findFacetsByFilters(final FlatFilterDto filter) {
+        log.debug("Finding facets by filters: filter={}", filter);
+        FlatFilterDto facetFilter = filter.toBuilder().orderBy(null).orderDirection(null).build();
+        return amenityCatalog.requireAll(filter.getAmenities())
+                .then(flatFacetsCache.get(facetFilter, key -> Mono.defer(() -> flatSearchIndex
+                        .flatMap(index -> index.facets(key, flatFacetsProperties.priceBuckets()))
+                        .map(Mono::just)
+                        .orElseGet(() -> flatRepository
+                                .findFacetsByFilters(key, flatFacetsProperties.priceBuckets())))))
+                .doOnError(error -> log.error("Error finding facets by filters", error));
+    }
+
+    /**
+     * Clusters the flats matching the filter within a box, for map views zoomed out too far to show every flat.
+     * <p>
+     * The box is covered by the map tiles of the zoom level, each split into a grid of cells, so clusters stay put
+     * as the map is panned. Every tile is clustered by its own query and reused for
+     * {@code flat.search.clusters.ttl}: panning only loads the tiles that came into view. The ordering and the box
+     * of the filter are ignored.
+     * </p>
+     *
+     * @param filter the filtering criteria as a {@link FlatFilterDto}
+     * @param box    the visible box
+     * @param zoom   the zoom level of the map
+     * @return a {@link Mono} emitting the clusters of the covering tiles, row by row, or an
+     * {@link IllegalArgumentException} if the zoom is out of range, the box covers more than
+     * {@code flat.search.clusters.max-tiles} tiles or a requested amenity does not exist
+     */
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    public Mono<List<FlatClusterDto>> findClustersByFilters(
+            final FlatFilterDto filter,
+            final GeoBox box,
+            final int zoom
+    ) {
+        log.debug("Finding flat clusters by filters: filter={}, box={}, zoom={}", filter, box, zoom);
+        FlatFilterDto tileFilter = filter.toBuilder()
+                .orderBy(null).orderDirection(null)
+                .south(null).west(null).north(null).east(null)
+                .build();
+        return amenityCatalog.requireAll(filter.getAmenities())
+                .then(Mono.fromCallable(() -> {
+                    if (MapTile.count(box, zoom) > flatClustersProperties.maxTiles())
+                        throw new IllegalArgumentException("flat.clusters.tiles.max");
+                    return MapTile.covering(box, zoom);
+                }))
+                .flatMapMany(Flux::fromIterable)
+                .flatMapSequential(tile -> flatClustersCache.get(new FlatClusterKey(tileFilter, tile),
+                        key -> flatRepository.findClustersByFilters(
+                                key.filter(), key.tile(), flatClustersProperties.grid()
+                        ).collectList()), CLUSTER_TILE_CONCURRENCY)
+                .flatMapIterable(Function.identity())
+                .collectList()
+                .doOnError(error -> log.error("Error finding flat clusters by filters", error));
+    }
+
+    /**
+     * Completes a typed text with the titles of available flats, for the search box.
+     * Short texts are completed from memory only; see {@link FlatAutocomplete}.
+     *
+     * @param text  the typed text
+     * @param limit the maximum number of titles, at most {@value FlatAutocomplete#MAX_LIMIT}
+     * @return a {@link Mono} emitting the titles, those starting with the text first,
+     * or an {@link IllegalArgumentException} if {@code limit} is out of range
+     */
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    public Mono<List<String>> findTitleCompletions(final String text, final int limit) {
+        log.debug("Completing titles: text={}, limit={}", text, limit);
+        if (limit < 1 || limit > FlatAutocomplete.MAX_LIMIT)
+            return Mono.error(new IllegalArgumentException("flat.autocomplete.limit:1-" + FlatAutocomplete.MAX_LIMIT));
+
+        return flatAutocomplete.complete(text, limit)
+                .doOnError(error -> log.error("Error completing titles", error));
+    }
+
+    /**
+     * Retrieves the available flats most similar to a flat by location, area, rooms and price.
+     * The neighbours are found in the in-memory {@link FlatSimilarityIndex} and then read by id, so a flat that
+     * stopped being available since it was indexed is dropped.
+     *
+     * @param id the unique identifier of the flat
+     * @param k  the maximum number of flats, at most {@value #MAX_SIMILAR}
+     * @return a {@link Flux} emitting the flats, most similar first; empty if the flat has no location or price,
+     * or the index is disabled or not loaded; an {@link IllegalArgumentException} if {@code k} is out of range
+     */
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    public Flux<FlatWithLatestPrice> findSimilar(final UUID id, final int k) {
+        log.debug("Finding similar flats: id={}, k={}", id, k);
+        if (k < 1 || k > MAX_SIMILAR)
+            return Flux.error(new IllegalArgumentException("flat.similar.k:1-" + MAX_SIMILAR));
+
+        return Flux.defer(() -> {
+                    List<UUID> ids = flatSimilarityIndex.map(index -> index.similar(id, k)).orElse(List.of());
+                    return flatRepository.findFlatsByIds(SIMILAR_FILTER, ids, FlatColumn.ALL);
+                })
+                .doOnError(error -> log.error("Error finding similar flats: {}", id, error));
+    }
+
+    /**
+     * Retrieves a flat by its unique identifier, from the cache when possible.
      *
      * @param id the unique identifier of the flat
      * @return a {@link Mono} emitting the {@link Flat} entity, or {@code Mono.empty()} if not found
      */
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
     public Mono<Flat> findById(final UUID id) {
-        log.info("Finding flat by ID: {}", id);
-        return flatRepository.findById(id)
+        log.debug("Finding flat by ID: {}", id);
+        return flatCache.get(id, flatRepository::findById)
                 .doOnSuccess(flat -> {
-                    if (flat != null) log.info("Flat found: {}", flat);
-                    else log.warn("No flat found for ID: {}", id);
+                    if (flat != null) log.debug("Flat found: {}", id);
+                    else log.debug("No flat found for ID: {}", id);
                 })
                 .doOnError(error -> log.error("Error finding flat by ID: {}", id, error));
     }
 
+    /**
+     * Retrieves a flat with its latest price, reading only the given columns.
+     *
+     * @param id      the unique identifier of the flat
+     * @param columns the columns to read
+     * @return a {@link Mono} emitting the flat, or {@code Mono.empty()} if not found
+     */
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    public Mono<FlatWithLatestPrice> findById(final UUID id, final Set<FlatColumn> columns) {
+        log.debug("Finding flat by ID: {}, columns={}", id, columns);
+        return flatRepository.findFlatsByIds(FlatFilterDto.builder().build(), List.of(id), columns)
+                .next()
+                .doOnError(error -> log.error("Error finding flat by ID: {}", id, error));
+    }
+
+    /**
+     * Retrieves the amenities of several flats with a single query, resolved through the {@link AmenityCatalog}.
+     *
+     * @param flatIds the unique identifiers of the flats
+     * @return a {@link Mono} emitting the amenities by flat id, ordered by name; flats without amenities are absent
+     */
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    public Mono<Map<UUID, List<Amenity>>> findAmenitiesByFlatIds(final Collection<UUID> flatIds) {
+        log.debug("Finding amenities of {} flats", flatIds.size());
+        return flatRepository.findAmenitiesByFlatIds(flatIds)
+                .collectMultimap(FlatAmenity::getFlatId, FlatAmenity::getAmenityId)
+                .map(byFlat -> {
+                    Map<UUID, List<Amenity>> amenities = new HashMap<>();
+                    byFlat.forEach((flatId, ids) -> amenities.put(flatId, ids.stream()
+                            .map(amenityCatalog::find)
+                            .flatMap(Optional::stream)
+                            .sorted(Comparator.comparing(Amenity::getName))
+                            .toList()));
+                    return amenities;
+                });
+    }
+
+    /**
+     * Retrieves the latest prices of several flats with a single query.
+     *
+     * @param flatIds the unique identifiers of the flats
+     * @param limit   the maximum number of prices per flat
+     * @return a {@link Mono} emitting the prices by flat id, newest first; flats without prices are absent
+     */
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    public Mono<Map<UUID, List<FlatPrice>>> findPriceHistoryByFlatIds(final Collection<UUID> flatIds, final int limit) {
+        log.debug("Finding price history of {} flats", flatIds.size());
+        if (flatIds.isEmpty()) return Mono.just(Map.of());
+        return flatPriceRepository.findLatestByFlatIds(flatIds.toArray(UUID[]::new), limit)
+                .collectMultimap(FlatPrice::getFlatId)
+                .map(byFlat -> {
+                    Map<UUID, List<FlatPrice>> prices = new HashMap<>();
+                    byFlat.forEach((flatId, values) -> prices.put(flatId, List.copyOf(values)));
+                    return prices;
+                });
+    }
+
     /**
      * Retrieves all flats owned by a specific owner, with pagination support.
      *
@@ -119,14 +503,15 @@ public class FlatService {
      * @param size    the number of results per page
      * @return a {@link Flux} emitting the {@link Flat} entities owned by the specified owner
      */
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
     public Flux<Flat> findAllByOwnerId(
             final UUID ownerId,
             final int page,
             final int size
     ) {
-        log.info("Finding flats by owner ID: {}, page={}, size={}", ownerId, page, size);
+        log.debug("Finding flats by owner ID: {}, page={}, size={}", ownerId, page, size);
         return flatRepository.findAllByOwnerIdPageable(ownerId, page * size, size)
-                .doOnComplete(() -> log.info("Completed finding flats by owner ID: {}", ownerId))
+                .doOnComplete(() -> log.debug("Completed finding flats by owner ID: {}", ownerId))
                 .doOnError(error -> log.error("Error finding flats by owner ID: {}", ownerId, error));
     }
 }
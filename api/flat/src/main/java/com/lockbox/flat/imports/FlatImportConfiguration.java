@@ -0,0 +1,17 @@
+package com.lockbox.flat.imports;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Wires bulk flat imports.
+ *
+ * @author serezk4
+ * @version 1.0
+ * @see FlatImportProperties
+ * @since 1.0
+ */
+@Configuration
+@EnableConfigurationProperties(FlatImportProperties.class)
+public class FlatImportConfiguration {
+}
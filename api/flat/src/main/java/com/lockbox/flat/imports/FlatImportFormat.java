@@ -0,0 +1,37 @@
+package com.lockbox.flat.imports;
+
+import org.springframework.http.MediaType;
+
+/**
+ * Formats accepted by the bulk flat import.
+ *
+ * @author serezk4
+ * @version 1.0
+ * @since 1.0
+ */
+public enum FlatImportFormat {
+
+    /**
+     * One JSON object per line, with the properties of {@link FlatImportRow}.
+     */
+    NDJSON,
+
+    /**
+     * Comma-separated values with a header row naming the properties of {@link FlatImportRow}; amenity ids are
+     * separated by {@code ;}. Quoted values may contain commas, doubled quotes and line breaks.
+     */
+    CSV;
+
+    /**
+     * Resolves the format of a request body.
+     *
+     * @param contentType the content type of the body
+     * @return the format
+     * @throws IllegalArgumentException if the content type is neither NDJSON nor CSV
+     */
+    public static FlatImportFormat of(MediaType contentType) {
+        if (contentType != null && MediaType.APPLICATION_NDJSON.isCompatibleWith(contentType)) return NDJSON;
+        if (contentType != null && new MediaType("text", "csv").isCompatibleWith(contentType)) return CSV;
+        throw new IllegalArgumentException("flat.import.format.unsupported");
+    }
+}
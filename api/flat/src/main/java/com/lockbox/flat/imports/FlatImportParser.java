@@ -0,0 +1,217 @@
+package com.lockbox.flat.imports;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.codec.StringDecoder;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferLimitException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.function.Tuple2;
+import reactor.util.function.Tuples;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Function;
+
+/**
+ * Parses an import body into {@link ParsedRow}s as it arrives.
+ * <p>
+ * The body is split into lines without ever being held whole: at most one line, or one CSV record, is buffered,
+ * and a longer one than {@code maxLineSize} aborts the import. A record that cannot be parsed becomes a failed
+ * row instead of failing the import; only a malformed CSV header does.
+ * </p>
+ *
+ * @author serezk4
+ * @version 1.0
+ * @since 1.0
+ */
+final class FlatImportParser {
+
+    static final List<String> CSV_COLUMNS = List.of(
+            "title", "description", "longitude", "latitude", "floor", "area", "rooms", "status", "price", "amenities"
+    );
+
+    private static final String AMENITY_SEPARATOR = ";";
+
+    private final ObjectMapper objectMapper;
+    private final int maxLineSize;
+
+    FlatImportParser(ObjectMapper objectMapper, int maxLineSize) {
+        this.objectMapper = objectMapper;
+        this.maxLineSize = maxLineSize;
+    }
+
+    /**
+     * Parses a body.
+     *
+     * @param body   the body
+     * @param format the format of the body
+     * @return the records, in body order
+     */
+    Flux<ParsedRow> parse(Flux<DataBuffer> body, FlatImportFormat format) {
+        StringDecoder decoder = StringDecoder.allMimeTypes();
+        decoder.setMaxInMemorySize(maxLineSize);
+        Flux<Tuple2<Long, String>> lines = decoder.decode(body, ResolvableType.forClass(String.class), null, Map.of())
+                .onErrorMap(DataBufferLimitException.class,
+                        e -> new IllegalArgumentException("flat.import.line.too_long", e))
+                .index((index, line) -> Tuples.of(index + 1, line));
+
+        return switch (format) {
+            case NDJSON -> lines
+                    .filter(line -> !line.getT2().isBlank())
+                    .map(line -> json(line.getT1(), line.getT2()));
+            case CSV -> Flux.defer(() -> {
+                CsvReader reader = new CsvReader();
+                return lines.<ParsedRow>handle((line, sink) -> reader.accept(line.getT1(), line.getT2())
+                                .ifPresent(sink::next))
+                        .concatWith(Mono.justOrEmpty(reader.finish()));
+            });
+        };
+    }
+
+    private ParsedRow json(long line, String text) {
+        try {
+            return ParsedRow.of(line, objectMapper.readValue(text, FlatImportRow.class));
+        } catch (JsonProcessingException e) {
+            return ParsedRow.failed(line, "flat.import.json.invalid");
+        }
+    }
+
+    /**
+     * Assembles CSV records from lines; a record continues on the next line while a quoted value is open.
+     */
+    private final class CsvReader {
+        private Map<String, Integer> header;
+        private StringBuilder pending;
+        private long pendingLine;
+
+        Optional<ParsedRow> accept(long line, String text) {
+            String record;
+            long recordLine;
+            if (pending != null) {
+                pending.append('\n').append(text);
+                if (pending.length() > maxLineSize) throw new IllegalArgumentException("flat.import.line.too_long");
+                if (!closed(pending)) return Optional.empty();
+                record = pending.toString();
+                recordLine = pendingLine;
+                pending = null;
+            } else {
+                if (text.isBlank()) return Optional.empty();
+                if (!closed(text)) {
+                    pending = new StringBuilder(text);
+                    pendingLine = line;
+                    return Optional.empty();
+                }
+                record = text;
+                recordLine = line;
+            }
+
+            List<String> fields = split(record);
+            if (header == null) {
+                header = header(fields);
+                return Optional.empty();
+            }
+            return Optional.of(row(recordLine, fields));
+        }
+
+        Optional<ParsedRow> finish() {
+            return pending == null
+                    ? Optional.empty()
+                    : Optional.of(ParsedRow.failed(pendingLine, "flat.import.csv.quote.unterminated"));
+        }
+
+        private Map<String, Integer> header(List<String> fields) {
+            Map<String, Integer> columns = new HashMap<>();
+            for (int i = 0; i < fields.size(); i++) {
+                String name = fields.get(i).strip().toLowerCase();
+                if (!CSV_COLUMNS.contains(name) || columns.put(name, i) != null)
+                    throw new IllegalArgumentException("flat.import.csv.header.invalid:" + name);
+            }
+            return columns;
+        }
+
+        private ParsedRow row(long line, List<String> fields) {
+            if (fields.size() != header.size()) return ParsedRow.failed(line, "flat.import.csv.columns.count");
+            try {
+                return ParsedRow.of(line, new FlatImportRow(
+                        value(fields, "title", Function.identity()),
+                        value(fields, "description", Function.identity()),
+                        value(fields, "longitude", Double::valueOf),
+                        value(fields, "latitude", Double::valueOf),
+                        value(fields, "floor", Integer::valueOf),
+                        value(fields, "area", Double::valueOf),
+                        value(fields, "rooms", Integer::valueOf),
+                        value(fields, "status", Function.identity()),
+                        value(fields, "price", BigDecimal::new),
+                        value(fields, "amenities", amenities -> Arrays.stream(amenities.split(AMENITY_SEPARATOR))
+                                .map(String::strip)
+                                .filter(id -> !id.isEmpty())
+                                .map(UUID::fromString)
+                                .toList())
+                ));
+            } catch (InvalidValueException e) {
+                return ParsedRow.failed(line, e.getMessage());
+            }
+        }
+
+        private <T> T value(List<String> fields, String column, Function<String, T> parser) {
+            Integer index = header.get(column);
+            if (index == null || fields.get(index).isBlank()) return null;
+            try {
+                return parser.apply(fields.get(index).strip());
+            } catch (IllegalArgumentException e) {
+                throw new InvalidValueException(column + ".invalid");
+            }
+        }
+    }
+
+    /**
+     * Checks that a record does not end inside a quoted value: quotes, doubled ones included, come in pairs.
+     */
+    private static boolean closed(CharSequence record) {
+        int quotes = 0;
+        for (int i = 0; i < record.length(); i++)
+            if (record.charAt(i) == '"') quotes++;
+        return quotes % 2 == 0;
+    }
+
+    /**
+     * Splits a complete record into its values, unquoting them.
+     */
+    private static List<String> split(String record) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < record.length(); i++) {
+            char c = record.charAt(i);
+            if (quoted) {
+                if (c != '"') field.append(c);
+                else if (i + 1 < record.length() && record.charAt(i + 1) == '"') field.append(record.charAt(++i));
+                else quoted = false;
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    private static final class InvalidValueException extends RuntimeException {
+        InvalidValueException(String message) {
+            super(message, null, false, false);
+        }
+    }
+}
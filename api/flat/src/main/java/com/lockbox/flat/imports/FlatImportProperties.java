@@ -0,0 +1,20 @@
+package com.lockbox.flat.imports;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * Configuration of bulk flat imports ({@code flat.import.*}).
+ *
+ * @param batchSize          rows written per statement and transaction
+ * @param maxLineSize        largest accepted line (NDJSON) or record (CSV); a longer one aborts the import
+ * @param maxReportedErrors  rejected rows reported in detail; further ones are only counted
+ */
+@ConfigurationProperties(prefix = "flat.import")
+public record FlatImportProperties(
+        @DefaultValue("500") int batchSize,
+        @DefaultValue("64KB") DataSize maxLineSize,
+        @DefaultValue("100") int maxReportedErrors
+) {
+}
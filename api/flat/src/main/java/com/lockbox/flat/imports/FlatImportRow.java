@@ -0,0 +1,74 @@
+package com.lockbox.flat.imports;
+
+import jakarta.validation.constraints.DecimalMax;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.Digits;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * A flat of a bulk import, with its initial price and amenities.
+ * <p>
+ * The constraints mirror those of {@link com.lockbox.flat.database.model.Flat} and of the {@code flats} table,
+ * so a valid row is not rejected by the database.
+ * </p>
+ *
+ * @param title       title of the flat
+ * @param description description of the flat
+ * @param longitude   longitude, given together with the latitude
+ * @param latitude    latitude, given together with the longitude
+ * @param floor       floor number
+ * @param area        area in square meters
+ * @param rooms       number of rooms
+ * @param status      status alias, {@code hidden} if absent
+ * @param price       initial price, in rubles
+ * @param amenities   ids of existing amenities
+ * @author serezk4
+ * @version 1.0
+ * @since 1.0
+ */
+public record FlatImportRow(
+        @NotBlank(message = "title.not_blank")
+        @Size(min = 4, max = 255, message = "title.size:4-255")
+        String title,
+
+        @NotBlank(message = "description.not_blank")
+        @Size(min = 11, message = "description.min:11")
+        String description,
+
+        @DecimalMin(value = "-180.0", message = "longitude.min:-180.0")
+        @DecimalMax(value = "180.0", message = "longitude.max:180.0")
+        Double longitude,
+
+        @DecimalMin(value = "-90.0", message = "latitude.min:-90.0")
+        @DecimalMax(value = "90.0", message = "latitude.max:90.0")
+        Double latitude,
+
+        @Min(value = 0, message = "floor.min:0")
+        Integer floor,
+
+        @NotNull(message = "area.not_null")
+        @DecimalMin(value = "0.01", message = "area.min:0.01")
+        @Digits(integer = 2, fraction = 2, message = "area.digits:4,2")
+        Double area,
+
+        @NotNull(message = "rooms.not_null")
+        @Min(value = 1, message = "rooms.min:1")
+        Integer rooms,
+
+        String status,
+
+        @NotNull(message = "price.not_null")
+        @DecimalMin(value = "0.01", message = "price.min:0.01")
+        @Digits(integer = 10, fraction = 2, message = "price.digits:12,2")
+        BigDecimal price,
+
+        List<UUID> amenities
+) {
+}
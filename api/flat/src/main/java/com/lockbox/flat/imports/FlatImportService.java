@@ -0,0 +1,184 @@
+package com.lockbox.flat.imports;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lockbox.flat.database.dto.FlatImportResultDto;
+import com.lockbox.flat.database.model.Flat;
+import com.lockbox.flat.database.service.AmenityCatalog;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Imports flats in bulk from a streamed NDJSON or CSV body.
+ * <p>
+ * Records are parsed as the body arrives, validated one by one and written in batches of
+ * {@code flat.import.batch-size}; the next batch is only read once the previous one is written, so memory use
+ * does not depend on the size of the body. Invalid rows are reported and skipped. A batch violating a database
+ * constraint is retried row by row, so one bad row does not take the other rows of its batch down; any other
+ * database error aborts the import.
+ * </p>
+ *
+ * @author serezk4
+ * @version 1.0
+ * @see FlatImportProperties
+ * @since 1.0
+ */
+@Service
+@Log4j2
+public class FlatImportService {
+
+    private static final String DEFAULT_STATUS = Flat.Status.HIDDEN.getAlias();
+
+    private final FlatImportWriter writer;
+    private final AmenityCatalog amenityCatalog;
+    private final Validator validator;
+    private final FlatImportParser parser;
+    private final FlatImportProperties properties;
+    private final Counter importedRows;
+    private final Counter failedRows;
+
+    public FlatImportService(
+            final FlatImportWriter writer,
+            final AmenityCatalog amenityCatalog,
+            final Validator validator,
+            final ObjectMapper objectMapper,
+            final FlatImportProperties properties,
+            final MeterRegistry meterRegistry
+    ) {
+        this.writer = writer;
+        this.amenityCatalog = amenityCatalog;
+        this.validator = validator;
+        this.parser = new FlatImportParser(objectMapper, (int) properties.maxLineSize().toBytes());
+        this.properties = properties;
+        this.importedRows = Counter.builder("flat.import.rows")
+                .description("Rows of bulk imports")
+                .tag("result", "imported")
+                .register(meterRegistry);
+        this.failedRows = Counter.builder("flat.import.rows")
+                .description("Rows of bulk imports")
+                .tag("result", "failed")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Imports the flats of a body.
+     *
+     * @param body     the body
+     * @param format   the format of the body
+     * @param ownerSub the owner of the imported flats
+     * @return a {@link Mono} emitting the outcome once the whole body is processed, or an
+     * {@link IllegalArgumentException} if the body cannot be read at all (a malformed CSV header or an
+     * oversized line); batches written before that stay imported
+     */
+    public Mono<FlatImportResultDto> importFlats(
+            final Flux<DataBuffer> body,
+            final FlatImportFormat format,
+            final String ownerSub
+    ) {
+        log.info("Importing flats: format={}, owner={}", format, ownerSub);
+        return Mono.defer(() -> {
+            Report report = new Report(properties.maxReportedErrors());
+            return parser.parse(body, format)
+                    .map(this::validate)
+                    .filter(row -> {
+                        if (!row.valid()) report.failed(row);
+                        return row.valid();
+                    })
+                    .buffer(properties.batchSize())
+                    .concatMap(batch -> write(ownerSub, batch, report), 0)
+                    .then(Mono.fromCallable(report::toDto));
+        }).doOnSuccess(result -> log.info("Imported flats: imported={}, failed={}",
+                        result.getImported(), result.getFailed()))
+                .doOnError(error -> log.error("Error importing flats", error));
+    }
+
+    private ParsedRow validate(ParsedRow parsed) {
+        if (!parsed.valid()) return parsed;
+
+        FlatImportRow row = parsed.row();
+        List<String> errors = new ArrayList<>();
+        for (ConstraintViolation<FlatImportRow> violation : validator.validate(row))
+            errors.add(violation.getMessage());
+        if ((row.latitude() == null) != (row.longitude() == null))
+            errors.add("location.incomplete");
+        if (row.status() != null) {
+            try {
+                Flat.Status.fromAlias(row.status());
+            } catch (IllegalArgumentException e) {
+                errors.add(e.getMessage());
+            }
+        }
+        if (row.amenities() != null && row.amenities().stream().anyMatch(id -> amenityCatalog.find(id).isEmpty()))
+            errors.add("flat.amenity.unknown");
+        if (!errors.isEmpty()) return parsed.withErrors(errors);
+
+        return ParsedRow.of(parsed.line(), new FlatImportRow(
+                row.title(), row.description(), row.longitude(), row.latitude(), row.floor(), row.area(),
+                row.rooms(), row.status() == null ? DEFAULT_STATUS : row.status(), row.price(),
+                row.amenities() == null ? List.of() : row.amenities().stream().distinct().toList()
+        ));
+    }
+
+    private Mono<Void> write(String ownerSub, List<ParsedRow> batch, Report report) {
+        return writer.write(ownerSub, batch.stream().map(ParsedRow::row).toList())
+                .then(Mono.fromRunnable(() -> report.imported(batch.size())))
+                .onErrorResume(DataIntegrityViolationException.class, error -> {
+                    log.warn("Import batch of {} rows from line {} rejected, retrying row by row: {}",
+                            batch.size(), batch.get(0).line(), error.getMessage());
+                    return Flux.fromIterable(batch)
+                            .concatMap(row -> writer.write(ownerSub, List.of(row.row()))
+                                    .then(Mono.fromRunnable(() -> report.imported(1)))
+                                    .onErrorResume(DataIntegrityViolationException.class,
+                                            rowError -> Mono.fromRunnable(() -> report.failed(
+                                                    row.withErrors(List.of("flat.import.rejected"))))))
+                            .then();
+                })
+                .then();
+    }
+
+    /**
+     * Counts the rows of an import and keeps the first rejected ones. Updated from the parsing and the writing
+     * stages, which may run on different threads.
+     */
+    private final class Report {
+        private final int maxErrors;
+        private final List<FlatImportResultDto.RowError> errors = new ArrayList<>();
+        private long imported;
+        private long failed;
+
+        Report(int maxErrors) {
+            this.maxErrors = maxErrors;
+        }
+
+        synchronized void imported(int rows) {
+            imported += rows;
+            importedRows.increment(rows);
+        }
+
+        synchronized void failed(ParsedRow row) {
+            failed++;
+            failedRows.increment();
+            if (errors.size() < maxErrors) errors.add(new FlatImportResultDto.RowError(row.line(), row.errors()));
+        }
+
+        synchronized FlatImportResultDto toDto() {
+            List<FlatImportResultDto.RowError> sorted = new ArrayList<>(errors);
+            sorted.sort((a, b) -> Long.compare(a.line(), b.line()));
+            return FlatImportResultDto.builder()
+                    .imported(imported)
+                    .failed(failed)
+                    .errors(sorted)
+                    .build();
+        }
+    }
+}
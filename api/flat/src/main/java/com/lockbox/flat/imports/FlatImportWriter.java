@@ -0,0 +1,131 @@
+package com.lockbox.flat.imports;
+
+import com.lockbox.flat.database.metrics.QueryMetrics;
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.FieldDefaults;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Writes batches of imported flats with their prices and amenities.
+ * <p>
+ * A batch costs three statements whatever its size: each table is filled from bound arrays through
+ * {@code unnest}, in one transaction. Flat ids are generated here so that prices and amenities can refer to them
+ * without reading the inserted rows back. The triggers on prices and amenities maintain the latest price and
+ * amenity ids of the flats and announce them to every node, as for single writes.
+ * </p>
+ *
+ * @author serezk4
+ * @version 1.0
+ * @since 1.0
+ */
+@Component
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+@RequiredArgsConstructor
+class FlatImportWriter {
+
+    private static final String INSERT_FLATS = """
+            INSERT INTO flats (flat_id, owner_sub, title, description, longitude, latitude, floor, area, rooms, status)
+            SELECT flat_id, :ownerSub, title, description, longitude, latitude, floor, area, rooms,
+                   CAST(status AS flat_status_enum)
+            FROM unnest(CAST(:flatIds AS uuid[]), CAST(:titles AS text[]), CAST(:descriptions AS text[]),
+                        CAST(:longitudes AS float8[]), CAST(:latitudes AS float8[]), CAST(:floors AS int[]),
+                        CAST(:areas AS numeric[]), CAST(:rooms AS int[]), CAST(:statuses AS text[]))
+                     AS t(flat_id, title, description, longitude, latitude, floor, area, rooms, status)""";
+
+    private static final String INSERT_PRICES = """
+            INSERT INTO flat_prices (flat_id, price)
+            SELECT * FROM unnest(CAST(:flatIds AS uuid[]), CAST(:prices AS numeric[]))""";
+
+    private static final String INSERT_AMENITIES = """
+            INSERT INTO flat_amenities (flat_id, amenity_id)
+            SELECT * FROM unnest(CAST(:flatIds AS uuid[]), CAST(:amenityIds AS uuid[]))
+            ON CONFLICT DO NOTHING""";
+
+    DatabaseClient databaseClient;
+    TransactionalOperator transactionalOperator;
+    QueryMetrics queryMetrics;
+
+    /**
+     * Writes a batch of valid rows in one transaction.
+     *
+     * @param ownerSub the owner of the flats
+     * @param rows     the rows, with statuses resolved to aliases
+     * @return a {@link Mono} completing once the batch is committed
+     */
+    Mono<Void> write(String ownerSub, List<FlatImportRow> rows) {
+        int size = rows.size();
+        UUID[] flatIds = new UUID[size];
+        String[] titles = new String[size];
+        String[] descriptions = new String[size];
+        Double[] longitudes = new Double[size];
+        Double[] latitudes = new Double[size];
+        Integer[] floors = new Integer[size];
+        BigDecimal[] areas = new BigDecimal[size];
+        Integer[] rooms = new Integer[size];
+        String[] statuses = new String[size];
+        BigDecimal[] prices = new BigDecimal[size];
+        List<UUID> amenityFlatIds = new ArrayList<>();
+        List<UUID> amenityIds = new ArrayList<>();
+
+        for (int i = 0; i < size; i++) {
+            FlatImportRow row = rows.get(i);
+            flatIds[i] = UUID.randomUUID();
+            titles[i] = row.title();
+            descriptions[i] = row.description();
+            longitudes[i] = row.longitude();
+            latitudes[i] = row.latitude();
+            floors[i] = row.floor();
+            areas[i] = BigDecimal.valueOf(row.area());
+            rooms[i] = row.rooms();
+            statuses[i] = row.status();
+            prices[i] = row.price();
+            if (row.amenities() != null)
+                for (UUID amenityId : row.amenities()) {
+                    amenityFlatIds.add(flatIds[i]);
+                    amenityIds.add(amenityId);
+                }
+        }
+
+        Mono<Long> flats = queryMetrics.timed("flatImport.insertFlats", Map.of("rows", size),
+                databaseClient.sql(INSERT_FLATS)
+                        .bind("ownerSub", ownerSub)
+                        .bind("flatIds", flatIds)
+                        .bind("titles", titles)
+                        .bind("descriptions", descriptions)
+                        .bind("longitudes", longitudes)
+                        .bind("latitudes", latitudes)
+                        .bind("floors", floors)
+                        .bind("areas", areas)
+                        .bind("rooms", rooms)
+                        .bind("statuses", statuses)
+                        .fetch()
+                        .rowsUpdated());
+        Mono<Long> initialPrices = queryMetrics.timed("flatImport.insertPrices", Map.of("rows", size),
+                databaseClient.sql(INSERT_PRICES)
+                        .bind("flatIds", flatIds)
+                        .bind("prices", prices)
+                        .fetch()
+                        .rowsUpdated());
+        Mono<Long> amenities = amenityIds.isEmpty() ? Mono.just(0L) : queryMetrics.timed("flatImport.insertAmenities",
+                Map.of("rows", amenityIds.size()),
+                databaseClient.sql(INSERT_AMENITIES)
+                        .bind("flatIds", amenityFlatIds.toArray(UUID[]::new))
+                        .bind("amenityIds", amenityIds.toArray(UUID[]::new))
+                        .fetch()
+                        .rowsUpdated());
+
+        return flats.then(initialPrices).then(amenities)
+                .as(transactionalOperator::transactional)
+                .then();
+    }
+}
@@ -0,0 +1,29 @@
+package com.lockbox.flat.imports;
+
+import java.util.List;
+
+/**
+ * A record of the import body: the row it was parsed into, or why it could not be.
+ *
+ * @param line   the line the record starts on, from 1
+ * @param row    the parsed row, {@code null} if it could not be parsed
+ * @param errors the parse or validation errors, empty for a valid row
+ */
+record ParsedRow(long line, FlatImportRow row, List<String> errors) {
+
+    static ParsedRow of(long line, FlatImportRow row) {
+        return new ParsedRow(line, row, List.of());
+    }
+
+    static ParsedRow failed(long line, String error) {
+        return new ParsedRow(line, null, List.of(error));
+    }
+
+    boolean valid() {
+        return errors.isEmpty();
+    }
+
+    ParsedRow withErrors(List<String> errors) {
+        return new ParsedRow(line, row, errors);
+    }
+}
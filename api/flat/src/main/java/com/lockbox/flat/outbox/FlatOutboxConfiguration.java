@@ -0,0 +1,61 @@
+package com.lockbox.flat.outbox;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lockbox.flat.database.metrics.QueryMetrics;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.kafka.clients.admin.NewTopic;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.config.TopicBuilder;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.transaction.reactive.TransactionalOperator;
+
+/**
+ * Wires the relay of the flat outbox to Kafka.
+ * <p>
+ * Active unless {@code flat.outbox.enabled=false}. The outbox is written by database triggers either way, so
+ * a node without the relay still records its changes for the nodes that have it.
+ * </p>
+ *
+ * @author serezk4
+ * @version 1.0
+ * @see FlatOutboxRelay
+ * @since 1.0
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "flat.outbox", name = "enabled", havingValue = "true", matchIfMissing = true)
+@EnableConfigurationProperties(FlatOutboxProperties.class)
+public class FlatOutboxConfiguration {
+
+    @Bean
+    public NewTopic flatEventsTopic(final FlatOutboxProperties properties) {
+        return TopicBuilder.name(properties.topic())
+                .partitions(properties.partitions())
+                .replicas(properties.replicas())
+                .build();
+    }
+
+    @Bean
+    public FlatOutboxRelay flatOutboxRelay(
+            final FlatOutboxProperties properties,
+            final DatabaseClient databaseClient,
+            final TransactionalOperator transactionalOperator,
+            final KafkaTemplate<String, String> kafkaTemplate,
+            final ObjectMapper objectMapper,
+            final QueryMetrics queryMetrics,
+            final MeterRegistry meterRegistry
+    ) {
+        if (properties.batchSize() < 1)
+            throw new IllegalArgumentException("flat.outbox.batch-size must be positive");
+        if (properties.pollInterval().isNegative() || properties.pollInterval().isZero())
+            throw new IllegalArgumentException("flat.outbox.poll-interval must be positive");
+
+        return new FlatOutboxRelay(
+                databaseClient, transactionalOperator, kafkaTemplate,
+                objectMapper, queryMetrics, meterRegistry, properties
+        );
+    }
+}
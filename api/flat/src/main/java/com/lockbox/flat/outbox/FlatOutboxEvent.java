@@ -0,0 +1,21 @@
+package com.lockbox.flat.outbox;
+
+import com.fasterxml.jackson.annotation.JsonRawValue;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * A row of the {@code flat_outbox} table, serialized as is into the value of its Kafka record.
+ *
+ * @param eventId    the position of the event in the outbox, increasing with insertion
+ * @param flatId     the flat the event is about, the Kafka key
+ * @param eventType  the kind of change, e.g. {@code FLAT_PRICE_CHANGED}
+ * @param payload    the state after the change, as JSON
+ * @param occurredAt when the change was written
+ * @author serezk4
+ * @version 1.0
+ * @since 1.0
+ */
+record FlatOutboxEvent(long eventId, UUID flatId, String eventType, @JsonRawValue String payload, Instant occurredAt) {
+}
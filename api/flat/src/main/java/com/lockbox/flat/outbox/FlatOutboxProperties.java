@@ -0,0 +1,29 @@
+package com.lockbox.flat.outbox;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Configuration of the flat outbox relay ({@code flat.outbox.*}).
+ *
+ * @param enabled      whether this node relays outbox events to Kafka; at most one node relays at a time
+ * @param topic        topic the events are published to, keyed by flat id
+ * @param partitions   partitions of the topic, when it is created
+ * @param replicas     replication factor of the topic, when it is created
+ * @param batchSize    events relayed per transaction
+ * @param pollInterval pause between polls once the outbox is drained
+ * @param sendTimeout  how long a batch may wait for Kafka acknowledgements before it is retried
+ */
+@ConfigurationProperties(prefix = "flat.outbox")
+public record FlatOutboxProperties(
+        @DefaultValue("true") boolean enabled,
+        @DefaultValue("flat-events") String topic,
+        @DefaultValue("6") int partitions,
+        @DefaultValue("1") short replicas,
+        @DefaultValue("500") int batchSize,
+        @DefaultValue("PT0.5S") Duration pollInterval,
+        @DefaultValue("PT30S") Duration sendTimeout
+) {
+}
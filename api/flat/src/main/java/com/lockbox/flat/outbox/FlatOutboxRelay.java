@@ -0,0 +1,261 @@
+package com.lockbox.flat.outbox;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lockbox.flat.database.metrics.QueryMetrics;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.log4j.Log4j2;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Relays the flat outbox to Kafka.
+ * <p>
+ * Every poll drains the outbox in batches of {@code flat.outbox.batch-size}. A batch is one transaction: it takes
+ * a transaction-scoped advisory lock, reads the oldest events, publishes them keyed by flat id and deletes them
+ * once Kafka has acknowledged all of them. The lock lets a single node relay at a time, so events of a flat reach
+ * its partition in the order they were written; other nodes skip the poll. A failed batch is rolled back and sent
+ * again by the next poll, so delivery is at least once: consumers deduplicate on the {@code event-id} header.
+ * </p>
+ * <p>
+ * The {@code flat.outbox.lag} gauge reports the age of the oldest pending event and {@code flat.outbox.backlog}
+ * an upper bound of the number of pending events; {@code flat.outbox.delivery} times events from their write to
+ * their acknowledgement.
+ * </p>
+ *
+ * @author serezk4
+ * @version 1.0
+ * @see FlatOutboxConfiguration
+ * @since 1.0
+ */
+@Log4j2
+public class FlatOutboxRelay implements SmartLifecycle {
+
+    /**
+     * Advisory lock key of the relay, {@code "flat_out"} in ASCII.
+     */
+    static final long LOCK_KEY = 0x666c61745f6f7574L;
+
+    private static final String TRY_LOCK = "SELECT pg_try_advisory_xact_lock(:key)";
+
+    private static final String SELECT_BATCH = """
+            SELECT event_id, flat_id, event_type, CAST(payload AS text) AS payload, occurred_at
+            FROM flat_outbox
+            ORDER BY event_id
+            LIMIT :limit""";
+
+    private static final String DELETE_BATCH = "DELETE FROM flat_outbox WHERE event_id = ANY(:eventIds)";
+
+    private static final String SELECT_PENDING = """
+            SELECT o.event_id, o.occurred_at, (SELECT max(event_id) FROM flat_outbox) AS last_event_id
+            FROM flat_outbox o
+            ORDER BY o.event_id
+            LIMIT 1""";
+
+    private final DatabaseClient databaseClient;
+    private final TransactionalOperator transactionalOperator;
+    private final KafkaTemplate<String, String> kafkaTemplate;
+    private final ObjectMapper objectMapper;
+    private final QueryMetrics queryMetrics;
+    private final FlatOutboxProperties properties;
+
+    private final Counter relayed;
+    private final Counter failures;
+    private final Timer delivery;
+    private final AtomicLong oldestPendingAt = new AtomicLong();
+    private final AtomicLong backlog = new AtomicLong();
+
+    private volatile Disposable subscription;
+
+    public FlatOutboxRelay(
+            final DatabaseClient databaseClient,
+            final TransactionalOperator transactionalOperator,
+            final KafkaTemplate<String, String> kafkaTemplate,
+            final ObjectMapper objectMapper,
+            final QueryMetrics queryMetrics,
+            final MeterRegistry meterRegistry,
+            final FlatOutboxProperties properties
+    ) {
+        this.databaseClient = databaseClient;
+        this.transactionalOperator = transactionalOperator;
+        this.kafkaTemplate = kafkaTemplate;
+        this.objectMapper = objectMapper;
+        this.queryMetrics = queryMetrics;
+        this.properties = properties;
+
+        this.relayed = Counter.builder("flat.outbox.relayed")
+                .description("Outbox events acknowledged by Kafka")
+                .register(meterRegistry);
+        this.failures = Counter.builder("flat.outbox.failures")
+                .description("Outbox batches rolled back for a retry")
+                .register(meterRegistry);
+        this.delivery = Timer.builder("flat.outbox.delivery")
+                .description("Delay between an outbox event being written and acknowledged by Kafka")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        Gauge.builder("flat.outbox.lag", this, relay -> relay.lagSeconds())
+                .description("Age of the oldest pending outbox event")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+        Gauge.builder("flat.outbox.backlog", backlog, AtomicLong::get)
+                .description("Upper bound of pending outbox events")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void start() {
+        subscription = Flux.interval(Duration.ZERO, properties.pollInterval())
+                .onBackpressureDrop()
+                .concatMap(tick -> drain().then(measure()).onErrorResume(this::failed), 1)
+                .subscribe();
+        log.info("Relaying flat outbox to topic {}", properties.topic());
+    }
+
+    @Override
+    public void stop() {
+        Disposable current = subscription;
+        if (current != null) current.dispose();
+        subscription = null;
+    }
+
+    @Override
+    public boolean isRunning() {
+        Disposable current = subscription;
+        return current != null && !current.isDisposed();
+    }
+
+    /**
+     * Relays batches until one comes back short of {@code flat.outbox.batch-size}.
+     */
+    private Mono<Void> drain() {
+        return relayBatch()
+                .expand(count -> count >= properties.batchSize() ? relayBatch() : Mono.empty())
+                .then();
+    }
+
+    /**
+     * Relays the oldest events in one transaction.
+     *
+     * @return a {@link Mono} of the number of relayed events, {@code 0} when another node holds the lock
+     */
+    private Mono<Integer> relayBatch() {
+        Mono<Boolean> locked = databaseClient.sql(TRY_LOCK)
+                .bind("key", LOCK_KEY)
+                .map(row -> row.get(0, Boolean.class))
+                .one();
+
+        return locked
+                .filter(Boolean::booleanValue)
+                .flatMap(lock -> queryMetrics.timed("flatOutbox.selectBatch", Map.of("limit", properties.batchSize()),
+                        databaseClient.sql(SELECT_BATCH)
+                                .bind("limit", properties.batchSize())
+                                .map(row -> new FlatOutboxEvent(
+                                        row.get("event_id", Long.class),
+                                        row.get("flat_id", UUID.class),
+                                        row.get("event_type", String.class),
+                                        row.get("payload", String.class),
+                                        row.get("occurred_at", Instant.class)))
+                                .all()
+                ).collectList())
+                .filter(events -> !events.isEmpty())
+                .flatMap(events -> publish(events).then(delete(events)).thenReturn(events.size()))
+                .as(transactionalOperator::transactional)
+                .defaultIfEmpty(0);
+    }
+
+    /**
+     * Sends the events in outbox order and waits until Kafka has acknowledged all of them.
+     * <p>
+     * Sends are issued one after another on a blocking-capable thread, since the producer may block while it
+     * fetches metadata; the idempotent producer keeps their order within a partition.
+     * </p>
+     */
+    private Mono<Void> publish(List<FlatOutboxEvent> events) {
+        return Mono.fromCallable(() -> {
+                    CompletableFuture<?>[] sends = new CompletableFuture<?>[events.size()];
+                    for (int i = 0; i < sends.length; i++)
+                        sends[i] = send(events.get(i));
+                    return sends;
+                })
+                .subscribeOn(Schedulers.boundedElastic())
+                .flatMap(sends -> Mono.fromFuture(CompletableFuture.allOf(sends)))
+                .timeout(properties.sendTimeout())
+                .doOnSuccess(ignored -> {
+                    Instant now = Instant.now();
+                    for (FlatOutboxEvent event : events)
+                        delivery.record(Duration.between(event.occurredAt(), now));
+                    relayed.increment(events.size());
+                });
+    }
+
+    private CompletableFuture<SendResult<String, String>> send(FlatOutboxEvent event) throws JsonProcessingException {
+        ProducerRecord<String, String> record = new ProducerRecord<>(
+                properties.topic(), event.flatId().toString(), objectMapper.writeValueAsString(event)
+        );
+        record.headers()
+                .add("event-id", Long.toString(event.eventId()).getBytes(StandardCharsets.UTF_8))
+                .add("event-type", event.eventType().getBytes(StandardCharsets.UTF_8));
+        return kafkaTemplate.send(record);
+    }
+
+    private Mono<Long> delete(List<FlatOutboxEvent> events) {
+        Long[] eventIds = events.stream().map(FlatOutboxEvent::eventId).toArray(Long[]::new);
+        return queryMetrics.timed("flatOutbox.deleteBatch", Map.of("eventIds", eventIds),
+                databaseClient.sql(DELETE_BATCH)
+                        .bind("eventIds", eventIds)
+                        .fetch()
+                        .rowsUpdated());
+    }
+
+    /**
+     * Refreshes the lag and backlog gauges from the oldest and newest pending events.
+     */
+    private Mono<Void> measure() {
+        return queryMetrics.timed("flatOutbox.selectPending", Map.of(),
+                        databaseClient.sql(SELECT_PENDING)
+                                .map(row -> {
+                                    long first = row.get("event_id", Long.class);
+                                    long last = row.get("last_event_id", Long.class);
+                                    oldestPendingAt.set(row.get("occurred_at", Instant.class).toEpochMilli());
+                                    backlog.set(last - first + 1);
+                                    return first;
+                                })
+                                .one())
+                .switchIfEmpty(Mono.fromRunnable(() -> {
+                    oldestPendingAt.set(0);
+                    backlog.set(0);
+                }))
+                .then();
+    }
+
+    private double lagSeconds() {
+        long oldest = oldestPendingAt.get();
+        return oldest == 0 ? 0 : Math.max(0, System.currentTimeMillis() - oldest) / 1000.0;
+    }
+
+    private Mono<Void> failed(Throwable error) {
+        failures.increment();
+        log.warn("Failed to relay flat outbox, retrying on the next poll: {}", error.toString());
+        return Mono.empty();
+    }
+}
@@ -0,0 +1,146 @@
+package com.lockbox.flat.search;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.lockbox.cache.TwoLevelCache;
+import com.lockbox.flat.database.repository.FlatRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import reactor.core.publisher.Mono;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Type-ahead completions of flat titles.
+ * <p>
+ * A prefix of {@code min-database-length} characters or more is looked up in the {@code idx_flats_title_trgm}
+ * trigram index, and its completions are reused for {@code ttl} by every node. Shorter prefixes match most titles
+ * and cannot use the index; they are completed from the {@code popular-size} titles served most often, held in
+ * memory, and never reach the database. A popular title not served for {@code ttl} is dropped, so renamed and
+ * unavailable flats stop being completed. Until longer prefixes have been typed after a restart, short prefixes
+ * have fewer completions.
+ * </p>
+ * <p>
+ * Latency is recorded in {@code flat.autocomplete.latency}, tagged by the length of the prefix (up to
+ * {@value #LENGTH_BUCKETS}, longer prefixes share the last tag) and by where it was answered: {@code memory},
+ * {@code cache} or {@code database}. The prefix itself is not a tag, as every typed text would be a new series.
+ * </p>
+ *
+ * @author serezk4
+ * @version 1.0
+ * @see FlatAutocompleteConfiguration
+ * @since 1.0
+ */
+public class FlatAutocomplete {
+
+    /**
+     * Largest number of completions returned for a prefix.
+     */
+    public static final int MAX_LIMIT = 20;
+
+    /**
+     * Number of prefix length tags of the latency timer.
+     */
+    static final int LENGTH_BUCKETS = 8;
+
+    private static final String[] SOURCES = {"memory", "cache", "database"};
+    private static final int MEMORY = 0, CACHE = 1, DATABASE = 2;
+
+    /**
+     * A popular title and the number of times it was served.
+     */
+    private record Popular(String title, LongAdder hits) {
+    }
+
+    private final TwoLevelCache<String, List<String>> completions;
+    private final FlatRepository flatRepository;
+    private final FlatAutocompleteProperties properties;
+    private final Cache<String, Popular> popular;
+    private final Timer[][] latencies = new Timer[SOURCES.length][LENGTH_BUCKETS];
+
+    public FlatAutocomplete(
+            final TwoLevelCache<String, List<String>> completions,
+            final FlatRepository flatRepository,
+            final FlatAutocompleteProperties properties,
+            final MeterRegistry meterRegistry
+    ) {
+        this.completions = completions;
+        this.flatRepository = flatRepository;
+        this.properties = properties;
+        this.popular = Caffeine.newBuilder()
+                .maximumSize(properties.popularSize())
+                .expireAfterAccess(properties.ttl())
+                .build();
+        for (int source = 0; source < SOURCES.length; source++)
+            for (int length = 1; length <= LENGTH_BUCKETS; length++)
+                latencies[source][length - 1] = Timer.builder("flat.autocomplete.latency")
+                        .description("Latency of title completions by prefix length and source")
+                        .tag("length", length < LENGTH_BUCKETS ? String.valueOf(length) : LENGTH_BUCKETS + "+")
+                        .tag("source", SOURCES[source])
+                        .register(meterRegistry);
+    }
+
+    /**
+     * Completes a typed text.
+     *
+     * @param text  the typed text; case and repeated whitespace are ignored
+     * @param limit the maximum number of completions, at most {@value #MAX_LIMIT}
+     * @return a {@link Mono} emitting the titles, those starting with the text first
+     */
+    public Mono<List<String>> complete(String text, int limit) {
+        String prefix = normalize(text);
+        if (prefix.isEmpty()) return Mono.just(List.of());
+
+        long startedAt = System.nanoTime();
+        if (prefix.length() < properties.minDatabaseLength()) {
+            List<String> titles = popular(prefix, limit);
+            record(MEMORY, prefix, startedAt);
+            return Mono.just(titles);
+        }
+
+        AtomicBoolean loaded = new AtomicBoolean();
+        return completions.get(prefix, key -> {
+                    loaded.set(true);
+                    return flatRepository.findTitleCompletions(key, properties.candidates(), MAX_LIMIT).collectList();
+                })
+                .defaultIfEmpty(List.of())
+                .map(titles -> {
+                    List<String> served = titles.stream().limit(limit).toList();
+                    served.forEach(this::served);
+                    record(loaded.get() ? DATABASE : CACHE, prefix, startedAt);
+                    return served;
+                });
+    }
+
+    private List<String> popular(String prefix, int limit) {
+        String word = " " + prefix;
+        return popular.asMap().entrySet().stream()
+                .filter(entry -> entry.getKey().startsWith(prefix) || entry.getKey().contains(word))
+                .sorted(Comparator.<Map.Entry<String, Popular>, Boolean>comparing(
+                                entry -> !entry.getKey().startsWith(prefix))
+                        .thenComparing(entry -> entry.getValue().hits().sum(), Comparator.reverseOrder()))
+                .limit(limit)
+                .map(entry -> entry.getValue().title())
+                .toList();
+    }
+
+    private void served(String title) {
+        popular.get(title.toLowerCase(Locale.ROOT), key -> new Popular(title, new LongAdder())).hits().increment();
+    }
+
+    private void record(int source, String prefix, long startedAt) {
+        latencies[source][Math.min(prefix.length(), LENGTH_BUCKETS) - 1]
+                .record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+    }
+
+    private String normalize(String text) {
+        String prefix = text == null ? "" : text.strip().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+        return prefix.length() > properties.maxLength() ? prefix.substring(0, properties.maxLength()) : prefix;
+    }
+}
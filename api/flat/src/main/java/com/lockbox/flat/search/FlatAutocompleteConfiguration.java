@@ -0,0 +1,68 @@
+package com.lockbox.flat.search;
+
+import com.lockbox.cache.CacheSpec;
+import com.lockbox.cache.CborCacheCodec;
+import com.lockbox.cache.TwoLevelCaches;
+import com.lockbox.flat.database.repository.FlatRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Wires title autocomplete.
+ *
+ * @author serezk4
+ * @version 1.0
+ * @see FlatAutocomplete
+ * @since 1.0
+ */
+@Configuration
+@EnableConfigurationProperties(FlatAutocompleteProperties.class)
+public class FlatAutocompleteConfiguration {
+
+    /**
+     * Title autocomplete. The completions of a prefix are shared by every node through Redis for
+     * {@code flat.search.autocomplete.ttl}; like facet counts, they depend on many flats, so they expire instead of
+     * being invalidated.
+     *
+     * @param caches         the cache factory
+     * @param properties     the autocomplete configuration
+     * @param flatRepository the repository reading titles
+     * @param meterRegistry  the registry of the latency timers
+     * @return the autocomplete
+     */
+    @Bean
+    public FlatAutocomplete flatAutocomplete(
+            final TwoLevelCaches caches,
+            final FlatAutocompleteProperties properties,
+            final FlatRepository flatRepository,
+            final MeterRegistry meterRegistry
+    ) {
+        if (properties.minDatabaseLength() < 1 || properties.minDatabaseLength() > properties.maxLength())
+            throw new IllegalArgumentException(
+                    "flat.search.autocomplete.min-database-length must be in [1, max-length]");
+        if (properties.candidates() < FlatAutocomplete.MAX_LIMIT)
+            throw new IllegalArgumentException("flat.search.autocomplete.candidates must be at least "
+                    + FlatAutocomplete.MAX_LIMIT);
+        if (properties.popularSize() < 1)
+            throw new IllegalArgumentException("flat.search.autocomplete.popular-size must be positive");
+
+        return new FlatAutocomplete(
+                caches.create(CacheSpec.<String, List<String>>builder()
+                        .name("flat-title-completions")
+                        .codec(CborCacheCodec.listOf(String.class))
+                        .keyFormatter(Function.identity())
+                        .l1MaximumSize(10_000)
+                        .l1Ttl(properties.ttl())
+                        .l2Ttl(properties.ttl())
+                        .build()),
+                flatRepository,
+                properties,
+                meterRegistry
+        );
+    }
+}
@@ -0,0 +1,26 @@
+package com.lockbox.flat.search;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Configuration of title autocomplete ({@code flat.search.autocomplete.*}).
+ *
+ * @param minDatabaseLength shortest prefix looked up in the trigram index; shorter prefixes are only completed
+ *                          from the popular titles held in memory
+ * @param maxLength         longest prefix considered; longer input is truncated
+ * @param candidates        largest number of titles containing a prefix ranked; titles starting with it are not capped
+ * @param popularSize       number of popular titles held in memory
+ * @param ttl               how long the completions of a prefix are reused, and a popular title is kept unserved
+ */
+@ConfigurationProperties(prefix = "flat.search.autocomplete")
+public record FlatAutocompleteProperties(
+        @DefaultValue("3") int minDatabaseLength,
+        @DefaultValue("64") int maxLength,
+        @DefaultValue("500") int candidates,
+        @DefaultValue("2000") int popularSize,
+        @DefaultValue("PT1M") Duration ttl
+) {
+}
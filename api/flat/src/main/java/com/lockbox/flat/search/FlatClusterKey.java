@@ -0,0 +1,25 @@
+package com.lockbox.flat.search;
+
+import com.lockbox.flat.database.dto.FlatFilterDto;
+import com.lockbox.flat.database.dto.MapTile;
+
+/**
+ * Key of the clusters of a map tile.
+ *
+ * @param filter the filtering criteria, without an ordering or a box
+ * @param tile   the tile
+ * @author serezk4
+ * @version 1.0
+ * @since 1.0
+ */
+public record FlatClusterKey(FlatFilterDto filter, MapTile tile) {
+
+    /**
+     * Formats the key as {@code zoom/x/y:filter}.
+     *
+     * @return the key of the tile in Redis
+     */
+    String format() {
+        return tile.zoom() + "/" + tile.x() + "/" + tile.y() + ":" + filter;
+    }
+}
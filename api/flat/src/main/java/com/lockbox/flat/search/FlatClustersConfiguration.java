@@ -0,0 +1,53 @@
+package com.lockbox.flat.search;
+
+import com.lockbox.cache.CacheSpec;
+import com.lockbox.cache.CborCacheCodec;
+import com.lockbox.cache.TwoLevelCache;
+import com.lockbox.cache.TwoLevelCaches;
+import com.lockbox.flat.database.dto.FlatClusterDto;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.List;
+
+/**
+ * Wires map clustering.
+ *
+ * @author serezk4
+ * @version 1.0
+ * @see FlatClustersProperties
+ * @since 1.0
+ */
+@Configuration
+@EnableConfigurationProperties(FlatClustersProperties.class)
+public class FlatClustersConfiguration {
+
+    /**
+     * Clusters by tile and filter, shared by every node through Redis for {@code flat.search.clusters.ttl}.
+     * Like facet counts, clusters depend on every flat of the tile, so they expire instead of being invalidated.
+     *
+     * @param caches     the cache factory
+     * @param properties the clustering configuration
+     * @return the cluster cache
+     */
+    @Bean
+    TwoLevelCache<FlatClusterKey, List<FlatClusterDto>> flatClustersCache(
+            TwoLevelCaches caches,
+            FlatClustersProperties properties
+    ) {
+        if (properties.grid() < 1 || properties.grid() > 64)
+            throw new IllegalArgumentException("flat.search.clusters.grid must be between 1 and 64");
+        if (properties.maxTiles() < 1)
+            throw new IllegalArgumentException("flat.search.clusters.max-tiles must be positive");
+
+        return caches.create(CacheSpec.<FlatClusterKey, List<FlatClusterDto>>builder()
+                .name("flat-clusters")
+                .codec(CborCacheCodec.listOf(FlatClusterDto.class))
+                .keyFormatter(FlatClusterKey::format)
+                .l1MaximumSize(10_000)
+                .l1Ttl(properties.ttl())
+                .l2Ttl(properties.ttl())
+                .build());
+    }
+}
@@ -0,0 +1,21 @@
+package com.lockbox.flat.search;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Configuration of map clustering ({@code flat.search.clusters.*}).
+ *
+ * @param grid     cells along each side of a map tile; 8 makes cells of 32 pixels on 256-pixel tiles
+ * @param maxTiles largest number of tiles a request may cover
+ * @param ttl      how long the clusters of a tile are reused
+ */
+@ConfigurationProperties(prefix = "flat.search.clusters")
+public record FlatClustersProperties(
+        @DefaultValue("8") int grid,
+        @DefaultValue("64") int maxTiles,
+        @DefaultValue("PT1M") Duration ttl
+) {
+}
@@ -0,0 +1,110 @@
+package com.lockbox.flat.search;
+
+import com.lockbox.flat.database.dto.FlatCursor;
+import com.lockbox.flat.database.dto.FlatFilterDto;
+import com.lockbox.flat.database.dto.FlatOrder;
+import com.lockbox.flat.database.dto.GeoBox;
+import com.lockbox.flat.database.model.Flat;
+
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * A {@link FlatFilterDto} compiled for the {@link FlatColumns} scan.
+ * <p>
+ * Absent bounds are {@code NaN} or the extreme {@code int}, so the scan compares primitives only. The ordering
+ * is the {@link FlatOrder} of the SQL search, with ties broken by flat id.
+ * </p>
+ *
+ * @author serezk4
+ * @version 1.0
+ * @since 1.0
+ */
+record FlatCriteria(
+        double minArea,
+        double maxArea,
+        int minRooms,
+        int maxRooms,
+        int status,
+        double minPrice,
+        double maxPrice,
+        UUID[] amenities,
+        double latitude,
+        double longitude,
+        double radius,
+        double south,
+        double west,
+        double north,
+        double east,
+        FlatOrder order,
+        boolean descending,
+        FlatCursor after
+) {
+
+    /**
+     * Compiles a filter.
+     *
+     * @param filter the filtering criteria
+     * @param after  the position the page continues from, {@code null} for the first page
+     * @return the criteria, empty if the filter needs the database: a search text, an availability period, or a
+     * status, ordering or cursor the SQL search would reject; the SQL path then answers or rejects it
+     */
+    static Optional<FlatCriteria> of(FlatFilterDto filter, FlatCursor after) {
+        if (filter.hasSearch() || filter.hasAvailability()) return Optional.empty();
+
+        FlatOrder order;
+        boolean descending;
+        int status = -1;
+        GeoBox box = null;
+        try {
+            order = FlatOrder.of(filter);
+            descending = !order.direction(filter).isAscending();
+            if (after != null) after.requireFor(filter);
+            if (filter.getStatus() != null && !filter.getStatus().isEmpty())
+                status = Flat.Status.fromAlias(filter.getStatus()).ordinal();
+            if (filter.hasBox()) box = filter.box();
+        } catch (IllegalArgumentException e) {
+            return Optional.empty();
+        }
+
+        boolean located = filter.hasLocation();
+        return Optional.of(new FlatCriteria(
+                orNaN(filter.getMinArea()),
+                orNaN(filter.getMaxArea()),
+                filter.getMinRooms() == null ? Integer.MIN_VALUE : filter.getMinRooms(),
+                filter.getMaxRooms() == null ? Integer.MAX_VALUE : filter.getMaxRooms(),
+                status,
+                orNaN(filter.getMinPrice()),
+                orNaN(filter.getMaxPrice()),
+                filter.getAmenities() == null
+                        ? new UUID[0]
+                        : filter.getAmenities().stream().distinct().toArray(UUID[]::new),
+                located ? filter.getLatitude() : Double.NaN,
+                located ? filter.getLongitude() : Double.NaN,
+                located ? orNaN(filter.getRadius()) : Double.NaN,
+                box == null ? Double.NaN : box.south(),
+                box == null ? Double.NaN : box.west(),
+                box == null ? Double.NaN : box.north(),
+                box == null ? Double.NaN : box.east(),
+                order,
+                descending,
+                after
+        ));
+    }
+
+    boolean located() {
+        return !Double.isNaN(latitude);
+    }
+
+    boolean bounded() {
+        return located() && !Double.isNaN(radius);
+    }
+
+    boolean boxed() {
+        return !Double.isNaN(south);
+    }
+
+    private static double orNaN(Double value) {
+        return value == null ? Double.NaN : value;
+    }
+}
@@ -0,0 +1,57 @@
+package com.lockbox.flat.search;
+
+import com.lockbox.cache.CacheSpec;
+import com.lockbox.cache.CborCacheCodec;
+import com.lockbox.cache.TwoLevelCache;
+import com.lockbox.cache.TwoLevelCaches;
+import com.lockbox.flat.database.dto.FlatFacetsDto;
+import com.lockbox.flat.database.dto.FlatFilterDto;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Wires flat search facets.
+ *
+ * @author serezk4
+ * @version 1.0
+ * @see FlatFacetsProperties
+ * @since 1.0
+ */
+@Configuration
+@EnableConfigurationProperties(FlatFacetsProperties.class)
+public class FlatFacetsConfiguration {
+
+    /**
+     * Facet counts by filter, kept in process for {@code flat.search.facets.ttl}. Counts depend on every flat,
+     * so they are not invalidated per change but simply expire.
+     *
+     * @param caches     the cache factory
+     * @param properties the facet configuration
+     * @return the facet cache
+     */
+    @Bean
+    TwoLevelCache<FlatFilterDto, FlatFacetsDto> flatFacetsCache(
+            TwoLevelCaches caches,
+            FlatFacetsProperties properties
+    ) {
+        List<BigDecimal> edges = properties.priceBuckets();
+        for (int i = 0; i < edges.size(); i++)
+            if (edges.get(i).signum() <= 0 || i > 0 && edges.get(i).compareTo(edges.get(i - 1)) <= 0)
+                throw new IllegalArgumentException("flat.search.facets.price-buckets must be positive and ascending");
+        if (edges.isEmpty())
+            throw new IllegalArgumentException("flat.search.facets.price-buckets must not be empty");
+
+        return caches.create(CacheSpec.<FlatFilterDto, FlatFacetsDto>builder()
+                .name("flat-facets")
+                .codec(CborCacheCodec.of(FlatFacetsDto.class))
+                .keyFormatter(FlatFilterDto::toString)
+                .l1MaximumSize(1_000)
+                .l1Ttl(properties.ttl())
+                .l2Ttl(null)
+                .build());
+    }
+}
@@ -0,0 +1,21 @@
+package com.lockbox.flat.search;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Configuration of flat search facets ({@code flat.search.facets.*}).
+ *
+ * @param priceBuckets ascending lower bounds (rub) of the price ranges after the first, which starts at zero
+ * @param ttl          how long the counts of a filter are reused
+ */
+@ConfigurationProperties(prefix = "flat.search.facets")
+public record FlatFacetsProperties(
+        @DefaultValue({"3000000", "6000000", "10000000", "20000000"}) List<BigDecimal> priceBuckets,
+        @DefaultValue("PT30S") Duration ttl
+) {
+}
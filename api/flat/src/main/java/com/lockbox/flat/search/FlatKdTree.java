@@ -0,0 +1,237 @@
+package com.lockbox.flat.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Predicate;
+
+/**
+ * Immutable k-d tree of flat vectors, answering k-nearest-neighbour queries by euclidean distance.
+ * <p>
+ * The tree is implicit: points are stored in one flat array, reordered so that the median of every range is its
+ * splitting point, with the splitting dimension cycling with depth. A query descends to the leaf of the queried
+ * vector first and then visits the far side of a split only while it can still hold a closer point than the
+ * current {@code k}-th. For the ten nearest of a million normally distributed six-dimensional points, a query
+ * reads about two thousand of them (median; the 99th percentile is about nine thousand) and takes a fraction of
+ * a millisecond, see {@code FlatKdTreeBenchmark}.
+ * </p>
+ *
+ * @author serezk4
+ * @version 1.0
+ * @see FlatSimilarityIndex
+ * @since 1.0
+ */
+final class FlatKdTree {
+
+    /**
+     * A neighbour and its squared distance to the queried vector.
+     *
+     * @param flatId   the flat id
+     * @param distance the squared distance
+     */
+    record Neighbour(UUID flatId, double distance) implements Comparable<Neighbour> {
+
+        @Override
+        public int compareTo(Neighbour other) {
+            int byDistance = Double.compare(distance, other.distance);
+            return byDistance != 0 ? byDistance : flatId.compareTo(other.flatId);
+        }
+    }
+
+    private final int dimensions;
+    private final UUID[] ids;
+    private final double[] points;
+
+    /**
+     * Builds a tree in {@code O(n log n)}.
+     *
+     * @param dimensions the number of dimensions of every vector
+     * @param ids        the flat ids
+     * @param vectors    the vectors, in the order of {@code ids}
+     */
+    FlatKdTree(int dimensions, List<UUID> ids, List<double[]> vectors) {
+        this.dimensions = dimensions;
+        this.ids = ids.toArray(UUID[]::new);
+        this.points = new double[this.ids.length * dimensions];
+        for (int i = 0; i < this.ids.length; i++)
+            System.arraycopy(vectors.get(i), 0, points, i * dimensions, dimensions);
+        build(0, this.ids.length, 0);
+    }
+
+    /**
+     * Returns the number of flats in the tree.
+     *
+     * @return the number of flats
+     */
+    int size() {
+        return ids.length;
+    }
+
+    /**
+     * Offers the flats of the tree to the nearest flats of a vector.
+     *
+     * @param vector   the queried vector
+     * @param excluded the flats to skip, such as the queried flat or flats changed since the tree was built
+     * @param nearest  the nearest flats found so far, which also bound the search
+     */
+    void nearest(double[] vector, Predicate<UUID> excluded, Nearest nearest) {
+        search(0, ids.length, 0, vector, excluded, nearest);
+    }
+
+    private void build(int from, int to, int depth) {
+        while (to - from > 1) {
+            int dimension = depth % dimensions;
+            int median = (from + to) >>> 1;
+            select(from, to - 1, median, dimension);
+            build(from, median, depth + 1);
+            from = median + 1;
+            depth++;
+        }
+    }
+
+    /**
+     * Moves the point of rank {@code k} within {@code [left, right]} along a dimension to position {@code k},
+     * with smaller points before it and larger points after it.
+     */
+    private void select(int left, int right, int k, int dimension) {
+        while (right > left) {
+            int mid = (left + right) >>> 1;
+            double pivot = coordinate(mid, dimension);
+            swap(mid, right);
+            int store = left;
+            for (int i = left; i < right; i++)
+                if (coordinate(i, dimension) < pivot) swap(i, store++);
+            swap(store, right);
+
+            if (store == k) return;
+            if (store < k) left = store + 1;
+            else right = store - 1;
+        }
+    }
+
+    private void search(int from, int to, int depth, double[] vector, Predicate<UUID> excluded, Nearest nearest) {
+        while (from < to) {
+            int median = (from + to) >>> 1;
+            if (!excluded.test(ids[median])) nearest.offer(ids[median], distance(median, vector));
+
+            int dimension = depth % dimensions;
+            double delta = vector[dimension] - coordinate(median, dimension);
+            boolean left = delta < 0;
+            if (left) search(from, median, depth + 1, vector, excluded, nearest);
+            else search(median + 1, to, depth + 1, vector, excluded, nearest);
+
+            if (delta * delta >= nearest.bound()) return;
+            if (left) from = median + 1;
+            else to = median;
+            depth++;
+        }
+    }
+
+    private double distance(int index, double[] vector) {
+        double sum = 0;
+        int offset = index * dimensions;
+        for (int d = 0; d < dimensions; d++) {
+            double delta = points[offset + d] - vector[d];
+            sum += delta * delta;
+        }
+        return sum;
+    }
+
+    private double coordinate(int index, int dimension) {
+        return points[index * dimensions + dimension];
+    }
+
+    private void swap(int i, int j) {
+        if (i == j) return;
+        UUID id = ids[i];
+        ids[i] = ids[j];
+        ids[j] = id;
+        int a = i * dimensions, b = j * dimensions;
+        for (int d = 0; d < dimensions; d++) {
+            double value = points[a + d];
+            points[a + d] = points[b + d];
+            points[b + d] = value;
+        }
+    }
+
+    /**
+     * The {@code k} nearest flats seen so far, as a max-heap on distance.
+     */
+    static final class Nearest {
+
+        private final Neighbour[] heap;
+        private int size;
+
+        Nearest(int k) {
+            this.heap = new Neighbour[k];
+        }
+
+        /**
+         * Offers a flat at a vector.
+         */
+        void offer(UUID flatId, double[] flat, double[] vector) {
+            double sum = 0;
+            for (int d = 0; d < vector.length; d++) {
+                double delta = flat[d] - vector[d];
+                sum += delta * delta;
+            }
+            offer(flatId, sum);
+        }
+
+        /**
+         * Returns the squared distance a flat must beat to be kept.
+         */
+        double bound() {
+            return size < heap.length ? Double.POSITIVE_INFINITY : heap[0].distance();
+        }
+
+        void offer(UUID flatId, double distance) {
+            if (distance > bound()) return;
+            Neighbour neighbour = new Neighbour(flatId, distance);
+            if (size < heap.length) {
+                heap[size] = neighbour;
+                up(size++);
+            } else if (neighbour.compareTo(heap[0]) < 0) {
+                heap[0] = neighbour;
+                down(0);
+            }
+        }
+
+        /**
+         * Returns the nearest flats, nearest first.
+         */
+        List<Neighbour> sorted() {
+            List<Neighbour> neighbours = new ArrayList<>(Arrays.asList(heap).subList(0, size));
+            Collections.sort(neighbours);
+            return neighbours;
+        }
+
+        private void up(int i) {
+            while (i > 0) {
+                int parent = (i - 1) >>> 1;
+                if (heap[i].compareTo(heap[parent]) <= 0) return;
+                swap(i, parent);
+                i = parent;
+            }
+        }
+
+        private void down(int i) {
+            while (true) {
+                int largest = i, left = 2 * i + 1, right = left + 1;
+                if (left < size && heap[left].compareTo(heap[largest]) > 0) largest = left;
+                if (right < size && heap[right].compareTo(heap[largest]) > 0) largest = right;
+                if (largest == i) return;
+                swap(i, largest);
+                i = largest;
+            }
+        }
+
+        private void swap(int i, int j) {
+            Neighbour neighbour = heap[i];
+            heap[i] = heap[j];
+            heap[j] = neighbour;
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.lockbox.flat.search;
+
+import com.lockbox.flat.database.model.Flat;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * The attributes of a flat the search index filters and sorts on.
+ *
+ * @param flatId      the flat id
+ * @param area        the area
+ * @param rooms       the number of rooms
+ * @param status      the status
+ * @param latestPrice the current price, {@code null} if the flat has none
+ * @param latitude    the latitude, {@code null} if the flat has no location
+ * @param longitude   the longitude, {@code null} if the flat has no location
+ * @param createdAt   the creation time
+ * @param amenityIds  the ids of the amenities of the flat
+ * @author serezk4
+ * @version 1.0
+ * @since 1.0
+ */
+record FlatRow(
+        UUID flatId,
+        double area,
+        int rooms,
+        Flat.Status status,
+        Double latestPrice,
+        Double latitude,
+        Double longitude,
+        Instant createdAt,
+        UUID[] amenityIds
+) {
+}
@@ -0,0 +1,262 @@
+package com.lockbox.flat.search;
+
+import com.lockbox.cache.InvalidationBus;
+import com.lockbox.cache.InvalidationEvent;
+import com.lockbox.flat.database.dto.FlatCursor;
+import com.lockbox.flat.database.dto.FlatFacetsDto;
+import com.lockbox.flat.database.dto.FlatFilterDto;
+import com.lockbox.flat.database.metrics.QueryMetrics;
+import com.lockbox.flat.database.model.Flat;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.r2dbc.spi.Row;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.r2dbc.core.DatabaseClient;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory index answering flat filter searches with the ids of the matching page.
+ * <p>
+ * The whole {@code flats} table is loaded into a {@link FlatColumns} store once the application is ready, and
+ * again on every {@link InvalidationEvent.Type#FLUSH}. Flat and price changes announced on the
+ * {@link InvalidationBus} re-read the affected row, so the index follows writes of every node. Events are applied
+ * one at a time, in arrival order; a change arriving during a full load is applied after it.
+ * </p>
+ * <p>
+ * Searches with a text query, or with a status or ordering the SQL search would reject, are not answered here,
+ * nor are any searches while the index is loading or the bus is disconnected; callers then fall back to SQL.
+ * The ids returned should be hydrated with the same filter, so a row changed since it was indexed is dropped
+ * rather than returned out of filter.
+ * </p>
+ *
+ * @author serezk4
+ * @version 1.0
+ * @see FlatSearchIndexConfiguration
+ * @since 1.0
+ */
+@Log4j2
+public class FlatSearchIndex implements DisposableBean {
+
+    private static final String SELECT = """
+            SELECT flat_id, area, rooms, status::text AS status, latest_price, latitude, longitude,
+                   created_at, amenity_ids
+            FROM flats""";
+
+    private final DatabaseClient databaseClient;
+    private final InvalidationBus invalidationBus;
+    private final QueryMetrics queryMetrics;
+    private final double cellDegrees;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Timer searches;
+    private final Counter unsupported;
+    private final Counter unavailable;
+
+    private FlatColumns columns;
+    private volatile boolean ready;
+    private volatile Disposable subscription;
+
+    public FlatSearchIndex(
+            final DatabaseClient databaseClient,
+            final InvalidationBus invalidationBus,
+            final QueryMetrics queryMetrics,
+            final MeterRegistry meterRegistry,
+            final double cellDegrees
+    ) {
+        this.databaseClient = databaseClient;
+        this.invalidationBus = invalidationBus;
+        this.queryMetrics = queryMetrics;
+        this.cellDegrees = cellDegrees;
+        this.columns = new FlatColumns(cellDegrees);
+        this.searches = Timer.builder("flat.search.index.query")
+                .description("Filter searches answered from the in-memory index")
+                .register(meterRegistry);
+        this.unsupported = Counter.builder("flat.search.index.fallbacks")
+                .description("Filter searches the in-memory index left to SQL")
+                .tag("reason", "unsupported")
+                .register(meterRegistry);
+        this.unavailable = Counter.builder("flat.search.index.fallbacks")
+                .description("Filter searches the in-memory index left to SQL")
+                .tag("reason", "unavailable")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Loads the index and follows flat and price changes.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        subscription = invalidationBus.events()
+                .filter(event -> event.type() != InvalidationEvent.Type.AMENITY_CHANGED)
+                .startWith(InvalidationEvent.flush())
+                .onBackpressureBuffer()
+                .concatMap(event -> apply(event)
+                        .doOnError(error -> log.warn("Flat search index failed to apply {}", event, error))
+                        .onErrorComplete())
+                .subscribe();
+    }
+
+    /**
+     * Finds the ids of a page of flats matching a filter.
+     *
+     * @param filter the filtering criteria
+     * @param offset the number of matches to skip
+     * @param limit  the maximum number of ids to return
+     * @return the ids in search order, empty if the search has to be answered by SQL
+     */
+    public Optional<List<UUID>> search(FlatFilterDto filter, int offset, int limit) {
+        return search(filter, null, offset, limit);
+    }
+
+    /**
+     * Finds the ids of the page of flats following a cursor.
+     *
+     * @param filter the filtering criteria
+     * @param after  the position of the last flat of the previous page, {@code null} for the first page
+     * @param limit  the maximum number of ids to return
+     * @return the ids in search order, empty if the search has to be answered by SQL
+     */
+    public Optional<List<UUID>> search(FlatFilterDto filter, FlatCursor after, int limit) {
+        return search(filter, after, 0, limit);
+    }
+
+    private Optional<List<UUID>> search(FlatFilterDto filter, FlatCursor after, int offset, int limit) {
+        if (!ready || !invalidationBus.isConnected()) {
+            unavailable.increment();
+            return Optional.empty();
+        }
+
+        Optional<FlatCriteria> criteria = FlatCriteria.of(filter, after);
+        if (criteria.isEmpty()) {
+            unsupported.increment();
+            return Optional.empty();
+        }
+
+        lock.readLock().lock();
+        try {
+            return Optional.of(searches.record(() -> columns.search(criteria.get(), offset, limit)));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Counts the flats matching a filter by rooms, price range and amenity.
+     *
+     * @param filter     the filtering criteria
+     * @param priceEdges the ascending lower bounds of the price buckets after the first
+     * @return the counts, empty if the search has to be answered by SQL
+     */
+    public Optional<FlatFacetsDto> facets(FlatFilterDto filter, List<BigDecimal> priceEdges) {
+        if (!ready || !invalidationBus.isConnected()) {
+            unavailable.increment();
+            return Optional.empty();
+        }
+
+        Optional<FlatCriteria> criteria = FlatCriteria.of(filter, null);
+        if (criteria.isEmpty()) {
+            unsupported.increment();
+            return Optional.empty();
+        }
+
+        lock.readLock().lock();
+        try {
+            return Optional.of(columns.facets(criteria.get(), priceEdges));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the number of indexed flats.
+     *
+     * @return the number of flats
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return columns.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private Mono<Void> apply(InvalidationEvent event) {
+        return switch (event.type()) {
+            case FLUSH -> load();
+            case FLAT_CHANGED, FLAT_PRICE_CHANGED -> refresh(UUID.fromString(event.key()));
+            default -> Mono.empty();
+        };
+    }
+
+    private Mono<Void> load() {
+        long startedAt = System.nanoTime();
+        FlatColumns loaded = new FlatColumns(cellDegrees);
+        return queryMetrics.timed("flat.searchIndex.load", Map.of(),
+                        databaseClient.sql(SELECT).map(this::mapRow).all())
+                .doOnNext(loaded::put)
+                .then(Mono.fromRunnable(() -> {
+                    lock.writeLock().lock();
+                    try {
+                        columns = loaded;
+                    } finally {
+                        lock.writeLock().unlock();
+                    }
+                    ready = true;
+                    log.info("Flat search index loaded: {} flats in {} ms",
+                            loaded.size(), (System.nanoTime() - startedAt) / 1_000_000);
+                }));
+    }
+
+    private Mono<Void> refresh(UUID flatId) {
+        return queryMetrics.timed("flat.searchIndex.refresh", Map.of("flatId", flatId),
+                        databaseClient.sql(SELECT + " WHERE flat_id = :flatId")
+                                .bind("flatId", flatId)
+                                .map(this::mapRow)
+                                .one())
+                .map(Optional::of)
+                .defaultIfEmpty(Optional.empty())
+                .doOnNext(row -> {
+                    lock.writeLock().lock();
+                    try {
+                        row.ifPresentOrElse(columns::put, () -> columns.remove(flatId));
+                    } finally {
+                        lock.writeLock().unlock();
+                    }
+                })
+                .then();
+    }
+
+    private FlatRow mapRow(Row row) {
+        return new FlatRow(
+                row.get("flat_id", UUID.class),
+                row.get("area", Double.class),
+                row.get("rooms", Integer.class),
+                Flat.Status.fromAlias(row.get("status", String.class)),
+                row.get("latest_price", Double.class),
+                row.get("latitude", Double.class),
+                row.get("longitude", Double.class),
+                row.get("created_at", Instant.class),
+                row.get("amenity_ids", UUID[].class)
+        );
+    }
+
+    @Override
+    public void destroy() {
+        if (subscription != null) subscription.dispose();
+    }
+}
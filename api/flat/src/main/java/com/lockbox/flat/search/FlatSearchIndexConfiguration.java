@@ -0,0 +1,50 @@
+package com.lockbox.flat.search;
+
+import com.lockbox.cache.InvalidationBus;
+import com.lockbox.flat.database.metrics.QueryMetrics;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.r2dbc.core.DatabaseClient;
+
+/**
+ * Wires the optional in-memory flat search index.
+ * <p>
+ * Active only with {@code flat.search.index.enabled=true}; otherwise every filter search runs in SQL.
+ * Exposes the {@code flat.search.index.size} gauge (flats).
+ * </p>
+ *
+ * @author serezk4
+ * @version 1.0
+ * @see FlatSearchIndex
+ * @since 1.0
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "flat.search.index", name = "enabled", havingValue = "true")
+@EnableConfigurationProperties(FlatSearchIndexProperties.class)
+public class FlatSearchIndexConfiguration {
+
+    @Bean
+    public FlatSearchIndex flatSearchIndex(
+            final FlatSearchIndexProperties properties,
+            final DatabaseClient databaseClient,
+            final InvalidationBus invalidationBus,
+            final QueryMetrics queryMetrics,
+            final MeterRegistry meterRegistry
+    ) {
+        if (!(properties.cellDegrees() > 0 && properties.cellDegrees() <= 90))
+            throw new IllegalArgumentException("flat.search.index.cell-degrees must be in (0, 90]");
+
+        FlatSearchIndex index = new FlatSearchIndex(
+                databaseClient, invalidationBus, queryMetrics, meterRegistry, properties.cellDegrees()
+        );
+        Gauge.builder("flat.search.index.size", index, FlatSearchIndex::size)
+                .description("Flats held by the in-memory search index")
+                .baseUnit("flats")
+                .register(meterRegistry);
+        return index;
+    }
+}
@@ -0,0 +1,17 @@
+package com.lockbox.flat.search;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Configuration of the in-memory flat search index ({@code flat.search.index.*}).
+ *
+ * @param enabled     whether filter searches are answered from memory and only hydrated from the database
+ * @param cellDegrees side of a geo grid cell in degrees; radius searches only visit the cells they overlap
+ */
+@ConfigurationProperties(prefix = "flat.search.index")
+public record FlatSearchIndexProperties(
+        @DefaultValue("false") boolean enabled,
+        @DefaultValue("0.05") double cellDegrees
+) {
+}
@@ -0,0 +1,446 @@
+package com.lockbox.flat.search;
+
+import com.lockbox.cache.CborCacheCodec;
+import com.lockbox.cache.InvalidationBus;
+import com.lockbox.cache.InvalidationEvent;
+import com.lockbox.flat.database.dto.FlatColumn;
+import com.lockbox.flat.database.dto.FlatFilterDto;
+import com.lockbox.flat.database.dto.FlatPageDto;
+import com.lockbox.flat.database.dto.GeoBox;
+import com.lockbox.flat.database.model.FlatWithLatestPrice;
+import com.lockbox.flat.database.repository.FlatRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.EnumMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Function;
+
+/**
+ * Redis cache of flat search pages, shared by all nodes.
+ * <p>
+ * Map clients send many nearly identical searches while panning and zooming. A cached page is only ever served
+ * for the exact search it was loaded for, so a search is cached only if its location and area lie on a grid that
+ * such clients can snap to: a location at the center of a {@code cell-degrees} cell, a radius among the
+ * {@code radius-buckets} (or a multiple of the last one) and a box bounded by whole cells. Other geographic
+ * searches bypass the cache; searches without a location are always cached. Amenities are sorted and the text
+ * is stripped before lookup, which does not change the results. Entries expire after {@code ttl}.
+ * </p>
+ * <p>
+ * Changes are tracked with version counters per {@code invalidation-cell-degrees} cell. A box or radius search
+ * depends on the cells its bounding box overlaps, any other search on a global counter. An entry stores the
+ * versions it was loaded under and is ignored once one of them moved, so a page loaded while a flat changed is
+ * never served. Flat and price changes from the {@link InvalidationBus} bump the counters of the old and the new
+ * cell of the flat, and the global counter; the cells of existing flats are seeded at startup. Changes missed
+ * while the bus is disconnected are covered by the {@code ttl} only.
+ * </p>
+ * <p>
+ * Redis failures and timeouts never fail a search; it then runs uncached. Lookups are counted by query shape in
+ * {@code flat.search.cache.requests}, with the hit ratio of each shape in {@code flat.search.cache.hit.ratio}.
+ * </p>
+ *
+ * @author serezk4
+ * @version 1.0
+ * @see FlatSearchResultCacheConfiguration
+ * @since 1.0
+ */
+@Log4j2
+public class FlatSearchResultCache implements DisposableBean {
+
+    /**
+     * Radius of the sphere of the {@code earthdistance} module.
+     */
+    private static final double EARTH_RADIUS = 6_378_168;
+
+    /**
+     * Largest distance, in cells, of a coordinate from the grid for it to count as on the grid.
+     */
+    private static final double GRID_TOLERANCE = 1e-6;
+
+    /**
+     * Number of cells written to Redis at the same time while seeding.
+     */
+    private static final int SEED_CONCURRENCY = 64;
+
+    private static final CborCacheCodec<CachedPage> CODEC = CborCacheCodec.of(CachedPage.class);
+
+    /**
+     * Query shapes, as tagged on the metrics.
+     */
+    enum Shape {
+        RADIUS, NEAREST, BOX, TEXT, FILTER;
+
+        static Shape of(FlatFilterDto filter) {
+            if (filter.hasSearch()) return TEXT;
+            if (filter.hasBox()) return BOX;
+            if (!filter.hasLocation()) return FILTER;
+            return filter.getRadius() == null ? NEAREST : RADIUS;
+        }
+
+        String tag() {
+            return name().toLowerCase();
+        }
+    }
+
+    /**
+     * A cached page and the versions of the cells it depends on when it was loaded.
+     */
+    record CachedPage(List<Long> versions, List<FlatWithLatestPrice> flats, String nextCursor) {
+    }
+
+    private final ReactiveRedisTemplate<String, byte[]> redis;
+    private final ReactiveStringRedisTemplate versions;
+    private final InvalidationBus invalidationBus;
+    private final FlatRepository flatRepository;
+    private final FlatSearchResultCacheProperties properties;
+    private final String keyPrefix;
+    private final int invalidationColumns;
+
+    private final Map<Shape, Counter> hits = new EnumMap<>(Shape.class);
+    private final Map<Shape, Counter> misses = new EnumMap<>(Shape.class);
+    private final Map<Shape, Counter> bypasses = new EnumMap<>(Shape.class);
+    private final Counter errors;
+
+    private volatile Disposable subscription;
+    private volatile Disposable seeding;
+
+    public FlatSearchResultCache(
+            final ReactiveRedisTemplate<String, byte[]> redis,
+            final ReactiveStringRedisTemplate versions,
+            final InvalidationBus invalidationBus,
+            final FlatRepository flatRepository,
+            final FlatSearchResultCacheProperties properties,
+            final MeterRegistry meterRegistry,
+            final String applicationName
+    ) {
+        this.redis = redis;
+        this.versions = versions;
+        this.invalidationBus = invalidationBus;
+        this.flatRepository = flatRepository;
+        this.properties = properties;
+        this.keyPrefix = applicationName + ":flat-search:";
+        this.invalidationColumns = (int) Math.ceil(360 / properties.invalidationCellDegrees());
+
+        for (Shape shape : Shape.values()) {
+            Counter hit = Counter.builder("flat.search.cache.requests")
+                    .description("Flat search pages looked up in the result cache")
+                    .tag("shape", shape.tag())
+                    .tag("result", "hit")
+                    .register(meterRegistry);
+            Counter miss = Counter.builder("flat.search.cache.requests")
+                    .description("Flat search pages looked up in the result cache")
+                    .tag("shape", shape.tag())
+                    .tag("result", "miss")
+                    .register(meterRegistry);
+            hits.put(shape, hit);
+            misses.put(shape, miss);
+            bypasses.put(shape, Counter.builder("flat.search.cache.requests")
+                    .description("Flat search pages looked up in the result cache")
+                    .tag("shape", shape.tag())
+                    .tag("result", "bypass")
+                    .register(meterRegistry));
+            Gauge.builder("flat.search.cache.hit.ratio", () -> {
+                        double total = hit.count() + miss.count();
+                        return total == 0 ? Double.NaN : hit.count() / total;
+                    })
+                    .description("Share of flat search pages served from the result cache since startup")
+                    .tag("shape", shape.tag())
+                    .register(meterRegistry);
+        }
+        this.errors = Counter.builder("flat.search.cache.errors")
+                .description("Result cache lookups or writes that failed and were bypassed")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Seeds the cells of the flats, once per Redis, and follows flat and price changes.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        seeding = seed()
+                .doOnError(error -> log.warn("Flat search cache failed to seed the cells of flats", error))
+                .onErrorComplete()
+                .subscribe();
+        subscription = invalidationBus.events()
+                .filter(event -> event.type() == InvalidationEvent.Type.FLAT_CHANGED
+                        || event.type() == InvalidationEvent.Type.FLAT_PRICE_CHANGED)
+                .flatMap(event -> bump(UUID.fromString(event.key()))
+                        .doOnError(error -> log.warn("Flat search cache failed to apply {}", event, error))
+                        .onErrorComplete())
+                .subscribe();
+    }
+
+    /**
+     * Returns a cached search page, loading it on a miss or if the search is not on the grid.
+     *
+     * @param filter  the filtering criteria
+     * @param after   the cursor of the page, {@code null} for the first page
+     * @param size    the page size
+     * @param columns the columns the page is loaded with
+     * @param loader  loads the page for a filter equivalent to {@code filter}
+     * @return the page of the filter
+     */
+    public Mono<FlatPageDto> get(
+            FlatFilterDto filter,
+            String after,
+            int size,
+            Set<FlatColumn> columns,
+            Function<FlatFilterDto, Mono<FlatPageDto>> loader
+    ) {
+        return Mono.defer(() -> {
+            FlatFilterDto normalized = normalize(filter);
+            Shape shape = Shape.of(normalized);
+            if (!isOnGrid(normalized)) {
+                bypasses.get(shape).increment();
+                return loader.apply(filter);
+            }
+
+            String key = keyPrefix + "r:" + digest(normalized + "|" + after + "|" + size + "|" + columns);
+            List<String> versionKeys = versionKeys(normalized);
+
+            return Mono.zip(
+                            versions.opsForValue().multiGet(versionKeys)
+                                    .map(values -> values.stream()
+                                            .map(v -> v == null ? 0L : Long.parseLong(v))
+                                            .toList()),
+                            redis.opsForValue().get(key).map(Optional::of).defaultIfEmpty(Optional.empty())
+                    )
+                    .timeout(properties.timeout())
+                    .map(Optional::of)
+                    .onErrorResume(error -> {
+                        failed(error);
+                        return Mono.just(Optional.empty());
+                    })
+                    .flatMap(lookup -> {
+                        if (lookup.isEmpty()) return loader.apply(normalized);
+
+                        List<Long> current = lookup.get().getT1();
+                        Optional<CachedPage> cached = lookup.get().getT2().flatMap(this::decode)
+                                .filter(page -> page.versions().equals(current));
+                        if (cached.isPresent()) {
+                            hits.get(shape).increment();
+                            return Mono.just(FlatPageDto.builder()
+                                    .flats(cached.get().flats())
+                                    .nextCursor(cached.get().nextCursor())
+                                    .build());
+                        }
+
+                        misses.get(shape).increment();
+                        return loader.apply(normalized).flatMap(page -> store(key, current, page).thenReturn(page));
+                    });
+        });
+    }
+
+    /**
+     * Normalizes a filter so that equivalent searches share an entry. The normalized filter finds the same flats
+     * in the same order.
+     *
+     * @param filter the filtering criteria
+     * @return the equivalent filter the cached page is stored under
+     */
+    FlatFilterDto normalize(FlatFilterDto filter) {
+        return filter.toBuilder()
+                .amenities(filter.getAmenities() == null ? null
+                        : filter.getAmenities().stream().distinct().sorted().toList())
+                .search(filter.hasSearch() ? filter.getSearch().strip() : null)
+                .build();
+    }
+
+    /**
+     * Tells whether the location, radius and box of a search, where given, lie on the grid of cached searches.
+     *
+     * @param filter the filtering criteria
+     * @return {@code true} if the search may be cached
+     */
+    boolean isOnGrid(FlatFilterDto filter) {
+        double cell = properties.cellDegrees();
+        if (filter.hasLocation() && !(isMultiple(filter.getLatitude() / cell - 0.5)
+                && isMultiple(filter.getLongitude() / cell - 0.5)))
+            return false;
+        if (filter.getRadius() != null && !isBucket(filter.getRadius())) return false;
+        if (!filter.hasBox()) return true;
+        return filter.getSouth() != null && filter.getNorth() != null
+                && filter.getWest() != null && filter.getEast() != null
+                && isMultiple(filter.getSouth() / cell) && isMultiple(filter.getNorth() / cell)
+                && isMultiple(filter.getWest() / cell) && isMultiple(filter.getEast() / cell);
+    }
+
+    private boolean isBucket(double radius) {
+        List<Double> buckets = properties.radiusBuckets();
+        for (double bucket : buckets)
+            if (Math.abs(radius / bucket - 1) <= GRID_TOLERANCE) return true;
+        double largest = buckets.get(buckets.size() - 1);
+        return radius > largest && isMultiple(radius / largest);
+    }
+
+    private static boolean isMultiple(double cells) {
+        return Math.abs(cells - Math.rint(cells)) <= GRID_TOLERANCE;
+    }
+
+    /**
+     * Returns the version counters a search depends on: the cells overlapped by its box, or by the bounding box
+     * of a radius search, or the global counter.
+     */
+    private List<String> versionKeys(FlatFilterDto filter) {
+        if (filter.hasBox()) {
+            GeoBox box = filter.box();
+            double east = box.crossesAntimeridian() ? box.east() + 360 : box.east();
+            return versionKeys(box.south(), box.north(), box.west(), east);
+        }
+        if (!filter.hasLocation() || filter.getRadius() == null) return List.of(globalKey());
+
+        double latDelta = Math.toDegrees(filter.getRadius() / EARTH_RADIUS);
+        double south = Math.max(-90, filter.getLatitude() - latDelta);
+        double north = Math.min(90, filter.getLatitude() + latDelta);
+        double widest = Math.max(Math.abs(south), Math.abs(north));
+        if (widest >= 89) return List.of(globalKey());
+
+        double lonDelta = latDelta / Math.cos(Math.toRadians(widest));
+        return versionKeys(south, north, filter.getLongitude() - lonDelta, filter.getLongitude() + lonDelta);
+    }
+
+    /**
+     * Returns the counters of the cells overlapped by a box whose eastern longitude is unwrapped, so never below
+     * the western, or the global counter if there are more than {@code max-invalidation-cells}.
+     */
+    private List<String> versionKeys(double south, double north, double west, double east) {
+        double cell = properties.invalidationCellDegrees();
+        int fromRow = (int) Math.floor((south + 90) / cell), toRow = (int) Math.floor((north + 90) / cell);
+        int fromColumn = (int) Math.floor((west + 180) / cell);
+        int toColumn = (int) Math.floor((east + 180) / cell);
+        if ((long) (toRow - fromRow + 1) * (toColumn - fromColumn + 1) > properties.maxInvalidationCells())
+            return List.of(globalKey());
+
+        List<String> keys = new ArrayList<>();
+        for (int row = fromRow; row <= toRow; row++)
+            for (int column = fromColumn; column <= toColumn; column++)
+                keys.add(cellKey((long) row * invalidationColumns + Math.floorMod(column, invalidationColumns)));
+        return keys;
+    }
+
+    /**
+     * Moves the counters a change of a flat affects: its previous cell, its current cell and the global one.
+     * The cell of every flat is remembered in Redis, so a flat that moved or was deleted invalidates the
+     * searches around its previous location too.
+     */
+    private Mono<Void> bump(UUID flatId) {
+        String field = flatId.toString();
+        Mono<Optional<Long>> current = flatRepository.findById(flatId)
+                .map(flat -> Optional.ofNullable(invalidationCell(flat.getLatitude(), flat.getLongitude())))
+                .defaultIfEmpty(Optional.empty());
+        Mono<Optional<String>> previous = versions.<String, String>opsForHash().get(flatCellsKey(), field)
+                .map(Optional::of)
+                .defaultIfEmpty(Optional.empty());
+
+        return Mono.zip(current, previous).flatMap(cells -> {
+            Set<String> keys = new LinkedHashSet<>();
+            keys.add(globalKey());
+            cells.getT1().ifPresent(cell -> keys.add(cellKey(cell)));
+            cells.getT2().ifPresent(cell -> keys.add(cellKey(Long.parseLong(cell))));
+
+            Mono<?> remember = cells.getT1().isPresent()
+                    ? versions.<String, String>opsForHash().put(flatCellsKey(), field, cells.getT1().get().toString())
+                    : versions.<String, String>opsForHash().remove(flatCellsKey(), field);
+            return remember.thenMany(Flux.fromIterable(keys).flatMap(key -> versions.opsForValue().increment(key)))
+                    .then();
+        });
+    }
+
+    /**
+     * Remembers the cell of every located flat, so the first change of a flat after a deploy also invalidates the
+     * searches around its previous location. Cells already remembered by {@link #bump} are kept; a marker key
+     * records that the hash was seeded, so later nodes and restarts skip it.
+     */
+    private Mono<Void> seed() {
+        String seededKey = flatCellsKey() + ":seeded";
+        return versions.hasKey(seededKey).flatMap(seeded -> seeded ? Mono.<Void>empty() : flatRepository
+                .findAllLocations()
+                .flatMap(location -> versions.<String, String>opsForHash().putIfAbsent(flatCellsKey(),
+                        location.flatId().toString(),
+                        invalidationCell(location.latitude(), location.longitude()).toString()
+                ), SEED_CONCURRENCY)
+                .count()
+                .flatMap(flats -> versions.opsForValue().set(seededKey, "1")
+                        .doOnSuccess(ok -> log.info("Flat search cache seeded the cells of {} flats", flats)))
+                .then());
+    }
+
+    private Long invalidationCell(Double latitude, Double longitude) {
+        if (latitude == null || longitude == null) return null;
+        double cell = properties.invalidationCellDegrees();
+        long row = (long) Math.floor((latitude + 90) / cell);
+        long column = Math.floorMod((long) Math.floor((longitude + 180) / cell), invalidationColumns);
+        return row * invalidationColumns + column;
+    }
+
+    private Mono<Void> store(String key, List<Long> dependencies, FlatPageDto page) {
+        return Mono.fromCallable(() -> CODEC.encode(
+                        new CachedPage(dependencies, page.getFlats(), page.getNextCursor())))
+                .flatMap(bytes -> redis.opsForValue().set(key, bytes, properties.ttl()))
+                .timeout(properties.timeout())
+                .doOnError(this::failed)
+                .onErrorComplete()
+                .then();
+    }
+
+    private Optional<CachedPage> decode(byte[] bytes) {
+        try {
+            return Optional.of(CODEC.decode(bytes));
+        } catch (RuntimeException e) {
+            failed(e);
+            return Optional.empty();
+        }
+    }
+
+    private void failed(Throwable error) {
+        errors.increment();
+        log.debug("Flat search cache bypassed: {}", error.toString());
+    }
+
+    private String globalKey() {
+        return keyPrefix + "v:global";
+    }
+
+    private String cellKey(long cell) {
+        return keyPrefix + "v:" + cell;
+    }
+
+    private String flatCellsKey() {
+        return keyPrefix + "flat-cells";
+    }
+
+    private static String digest(String value) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(value.getBytes(StandardCharsets.UTF_8));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Override
+    public void destroy() {
+        if (seeding != null) seeding.dispose();
+        if (subscription != null) subscription.dispose();
+    }
+}
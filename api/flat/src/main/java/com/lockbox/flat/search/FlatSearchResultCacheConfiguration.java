@@ -0,0 +1,68 @@
+package com.lockbox.flat.search;
+
+import com.lockbox.cache.InvalidationBus;
+import com.lockbox.flat.database.repository.FlatRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.ReactiveRedisConnectionFactory;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.data.redis.serializer.RedisSerializationContext;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.util.List;
+
+/**
+ * Wires the optional Redis cache of flat search pages.
+ * <p>
+ * Active only with {@code flat.search.result-cache.enabled=true}; otherwise every page is searched for the exact
+ * filter. Geographic searches are cached only if they lie on its grid, see {@link FlatSearchResultCache}.
+ * </p>
+ *
+ * @author serezk4
+ * @version 1.0
+ * @see FlatSearchResultCache
+ * @since 1.0
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "flat.search.result-cache", name = "enabled", havingValue = "true")
+@EnableConfigurationProperties(FlatSearchResultCacheProperties.class)
+public class FlatSearchResultCacheConfiguration {
+
+    @Bean
+    public FlatSearchResultCache flatSearchResultCache(
+            final FlatSearchResultCacheProperties properties,
+            final ReactiveRedisConnectionFactory redisConnectionFactory,
+            final ReactiveStringRedisTemplate stringRedisTemplate,
+            final InvalidationBus invalidationBus,
+            final FlatRepository flatRepository,
+            final MeterRegistry meterRegistry,
+            final @Value("${spring.application.name}") String applicationName
+    ) {
+        if (!(properties.cellDegrees() > 0 && properties.cellDegrees() <= 1))
+            throw new IllegalArgumentException("flat.search.result-cache.cell-degrees must be in (0, 1]");
+        if (!(properties.invalidationCellDegrees() > 0 && properties.invalidationCellDegrees() <= 90))
+            throw new IllegalArgumentException("flat.search.result-cache.invalidation-cell-degrees must be in (0, 90]");
+        if (properties.maxInvalidationCells() < 1)
+            throw new IllegalArgumentException("flat.search.result-cache.max-invalidation-cells must be positive");
+        List<Double> buckets = properties.radiusBuckets();
+        if (buckets.isEmpty())
+            throw new IllegalArgumentException("flat.search.result-cache.radius-buckets must not be empty");
+        for (int i = 0; i < buckets.size(); i++)
+            if (buckets.get(i) <= 0 || i > 0 && buckets.get(i) <= buckets.get(i - 1))
+                throw new IllegalArgumentException(
+                        "flat.search.result-cache.radius-buckets must be positive and ascending");
+
+        ReactiveRedisTemplate<String, byte[]> redis = new ReactiveRedisTemplate<>(redisConnectionFactory,
+                RedisSerializationContext.<String, byte[]>newSerializationContext(RedisSerializer.string())
+                        .value(RedisSerializer.byteArray())
+                        .build());
+        return new FlatSearchResultCache(
+                redis, stringRedisTemplate, invalidationBus, flatRepository, properties, meterRegistry, applicationName
+        );
+    }
+}
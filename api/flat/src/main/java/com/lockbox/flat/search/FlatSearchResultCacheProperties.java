@@ -0,0 +1,32 @@
+package com.lockbox.flat.search;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Configuration of the flat search result cache ({@code flat.search.result-cache.*}).
+ *
+ * @param enabled                 whether search pages are cached in Redis
+ * @param ttl                     how long a cached page is kept
+ * @param timeout                 bound of every Redis call; on timeout the search runs uncached
+ * @param cellDegrees             side of the cells of the grid, in degrees; a geographic search is cached only if
+ *                                its location is the center of a cell and its box is bounded by whole cells
+ * @param radiusBuckets           ascending radii (meters) of cached radius searches; larger radii are cached if
+ *                                they are a multiple of the last one
+ * @param invalidationCellDegrees side of the cell whose flat changes invalidate the pages overlapping it
+ * @param maxInvalidationCells    largest number of cells a page may depend on before it depends on every change
+ */
+@ConfigurationProperties(prefix = "flat.search.result-cache")
+public record FlatSearchResultCacheProperties(
+        @DefaultValue("false") boolean enabled,
+        @DefaultValue("PT30S") Duration ttl,
+        @DefaultValue("PT0.2S") Duration timeout,
+        @DefaultValue("0.005") double cellDegrees,
+        @DefaultValue({"250", "500", "1000", "2000", "5000", "10000", "20000", "50000"}) List<Double> radiusBuckets,
+        @DefaultValue("0.1") double invalidationCellDegrees,
+        @DefaultValue("64") int maxInvalidationCells
+) {
+}
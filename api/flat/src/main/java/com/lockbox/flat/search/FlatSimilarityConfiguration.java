@@ -0,0 +1,53 @@
+package com.lockbox.flat.search;
+
+import com.lockbox.cache.InvalidationBus;
+import com.lockbox.flat.database.metrics.QueryMetrics;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.r2dbc.core.DatabaseClient;
+
+/**
+ * Wires the optional in-memory index of similar flats.
+ * <p>
+ * Active only with {@code flat.search.similar.enabled=true}; otherwise no similar flats are returned.
+ * Exposes the {@code flat.search.similar.size} gauge (flats).
+ * </p>
+ *
+ * @author serezk4
+ * @version 1.0
+ * @see FlatSimilarityIndex
+ * @since 1.0
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "flat.search.similar", name = "enabled", havingValue = "true")
+@EnableConfigurationProperties(FlatSimilarityProperties.class)
+public class FlatSimilarityConfiguration {
+
+    @Bean
+    public FlatSimilarityIndex flatSimilarityIndex(
+            final FlatSimilarityProperties properties,
+            final DatabaseClient databaseClient,
+            final InvalidationBus invalidationBus,
+            final QueryMetrics queryMetrics,
+            final MeterRegistry meterRegistry
+    ) {
+        if (!(properties.locationScale() > 0 && properties.areaScale() > 0
+                && properties.roomsScale() > 0 && properties.priceScale() > 0))
+            throw new IllegalArgumentException("flat.search.similar scales must be positive");
+        if (properties.rebuildThreshold() < 1)
+            throw new IllegalArgumentException("flat.search.similar.rebuild-threshold must be positive");
+
+        FlatSimilarityIndex index = new FlatSimilarityIndex(
+                databaseClient, invalidationBus, queryMetrics, meterRegistry, properties
+        );
+        Gauge.builder("flat.search.similar.size", index, FlatSimilarityIndex::size)
+                .description("Available flats held by the in-memory index of similar flats")
+                .baseUnit("flats")
+                .register(meterRegistry);
+        return index;
+    }
+}
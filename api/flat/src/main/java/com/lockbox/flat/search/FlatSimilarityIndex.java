@@ -0,0 +1,288 @@
+package com.lockbox.flat.search;
+
+import com.lockbox.cache.InvalidationBus;
+import com.lockbox.cache.InvalidationEvent;
+import com.lockbox.flat.database.metrics.QueryMetrics;
+import com.lockbox.flat.database.model.Flat;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.r2dbc.spi.Row;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.r2dbc.core.DatabaseClient;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory index answering "similar flats" with the ids of the nearest available flats.
+ * <p>
+ * Every flat with a location and a price is a vector of its location on the sphere, the logarithms of its area
+ * and price, and its rooms, each divided by its {@link FlatSimilarityProperties} scale. Nearby locations are then
+ * about as far apart as on the earth, so the distance of two flats needs no trigonometry at query time. The
+ * available flats are held in a {@link FlatKdTree}, so a query reads a few thousand of them rather than all.
+ * </p>
+ * <p>
+ * The index is loaded like {@link FlatSearchIndex}: fully once the application is ready and on every
+ * {@link InvalidationEvent.Type#FLUSH}, and one row at a time on flat and price changes. A changed flat is not
+ * written into the tree, which is immutable; it is kept aside and compared one by one, and the tree is rebuilt
+ * off the event loop once {@code rebuild-threshold} flats changed. While loading or while the bus is disconnected
+ * no similar flats are returned.
+ * </p>
+ *
+ * @author serezk4
+ * @version 1.0
+ * @see FlatSimilarityConfiguration
+ * @since 1.0
+ */
+@Log4j2
+public class FlatSimilarityIndex implements DisposableBean {
+
+    private static final String SELECT = """
+            SELECT flat_id, area, rooms, status::text AS status, latest_price, latitude, longitude
+            FROM flats""";
+
+    /**
+     * Radius of the sphere of the {@code earthdistance} module.
+     */
+    private static final double EARTH_RADIUS = 6_378_168;
+
+    private static final int DIMENSIONS = 6;
+
+    /**
+     * The vector of an indexed flat and whether it may be recommended.
+     */
+    private record Entry(double[] vector, boolean available) {
+    }
+
+    /**
+     * A row read from {@code flats}, with a {@code null} entry if the flat has no location or price.
+     */
+    private record IndexedRow(UUID flatId, Entry entry) {
+    }
+
+    private final DatabaseClient databaseClient;
+    private final InvalidationBus invalidationBus;
+    private final QueryMetrics queryMetrics;
+    private final FlatSimilarityProperties properties;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Timer queries;
+    private final Timer rebuilds;
+    private final Counter unavailable;
+
+    private Map<UUID, Entry> entries = new HashMap<>();
+    private FlatKdTree tree = new FlatKdTree(DIMENSIONS, List.of(), List.of());
+    private Set<UUID> changed = new HashSet<>();
+    private volatile boolean ready;
+    private volatile Disposable subscription;
+
+    public FlatSimilarityIndex(
+            final DatabaseClient databaseClient,
+            final InvalidationBus invalidationBus,
+            final QueryMetrics queryMetrics,
+            final MeterRegistry meterRegistry,
+            final FlatSimilarityProperties properties
+    ) {
+        this.databaseClient = databaseClient;
+        this.invalidationBus = invalidationBus;
+        this.queryMetrics = queryMetrics;
+        this.properties = properties;
+        this.queries = Timer.builder("flat.search.similar.query")
+                .description("Similar flats answered from the in-memory index")
+                .register(meterRegistry);
+        this.rebuilds = Timer.builder("flat.search.similar.rebuild")
+                .description("Rebuilds of the tree of the in-memory index of similar flats")
+                .register(meterRegistry);
+        this.unavailable = Counter.builder("flat.search.similar.unavailable")
+                .description("Similar flats requested while the in-memory index was loading or out of sync")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Loads the index and follows flat and price changes.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        subscription = invalidationBus.events()
+                .filter(event -> event.type() != InvalidationEvent.Type.AMENITY_CHANGED)
+                .startWith(InvalidationEvent.flush())
+                .onBackpressureBuffer()
+                .concatMap(event -> apply(event)
+                        .doOnError(error -> log.warn("Flat similarity index failed to apply {}", event, error))
+                        .onErrorComplete())
+                .subscribe();
+    }
+
+    /**
+     * Finds the available flats most similar to a flat.
+     *
+     * @param flatId the flat
+     * @param k      the maximum number of flats, at least one
+     * @return the ids, most similar first; empty if the flat has no location or price, or the index is not ready
+     */
+    public List<UUID> similar(UUID flatId, int k) {
+        if (!ready || !invalidationBus.isConnected()) {
+            unavailable.increment();
+            return List.of();
+        }
+
+        lock.readLock().lock();
+        try {
+            return queries.record(() -> {
+                Entry target = entries.get(flatId);
+                if (target == null) return List.of();
+
+                FlatKdTree.Nearest nearest = new FlatKdTree.Nearest(k);
+                for (UUID id : changed) {
+                    Entry entry = entries.get(id);
+                    if (entry != null && entry.available() && !id.equals(flatId))
+                        nearest.offer(id, entry.vector(), target.vector());
+                }
+                tree.nearest(target.vector(), id -> id.equals(flatId) || changed.contains(id), nearest);
+                return nearest.sorted().stream().map(FlatKdTree.Neighbour::flatId).toList();
+            });
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the number of indexed available flats.
+     *
+     * @return the number of flats
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return (int) entries.values().stream().filter(Entry::available).count();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private Mono<Void> apply(InvalidationEvent event) {
+        return switch (event.type()) {
+            case FLUSH -> load();
+            case FLAT_CHANGED, FLAT_PRICE_CHANGED -> refresh(UUID.fromString(event.key()));
+            default -> Mono.empty();
+        };
+    }
+
+    private Mono<Void> load() {
+        long startedAt = System.nanoTime();
+        Map<UUID, Entry> loaded = new HashMap<>();
+        return queryMetrics.timed("flat.similarityIndex.load", Map.of(),
+                        databaseClient.sql(SELECT).map(this::mapRow).all())
+                .filter(row -> row.entry() != null)
+                .doOnNext(row -> loaded.put(row.flatId(), row.entry()))
+                .then(Mono.fromCallable(() -> build(loaded)).subscribeOn(Schedulers.boundedElastic()))
+                .doOnNext(built -> {
+                    lock.writeLock().lock();
+                    try {
+                        entries = loaded;
+                        tree = built;
+                        changed = new HashSet<>();
+                    } finally {
+                        lock.writeLock().unlock();
+                    }
+                    ready = true;
+                    log.info("Flat similarity index loaded: {} flats in {} ms",
+                            built.size(), (System.nanoTime() - startedAt) / 1_000_000);
+                })
+                .then();
+    }
+
+    private Mono<Void> refresh(UUID flatId) {
+        return queryMetrics.timed("flat.similarityIndex.refresh", Map.of("flatId", flatId),
+                        databaseClient.sql(SELECT + " WHERE flat_id = :flatId")
+                                .bind("flatId", flatId)
+                                .map(this::mapRow)
+                                .one())
+                .map(row -> Optional.ofNullable(row.entry()))
+                .defaultIfEmpty(Optional.empty())
+                .flatMap(entry -> {
+                    lock.writeLock().lock();
+                    try {
+                        entry.ifPresentOrElse(e -> entries.put(flatId, e), () -> entries.remove(flatId));
+                        changed.add(flatId);
+                    } finally {
+                        lock.writeLock().unlock();
+                    }
+                    return changed.size() < properties.rebuildThreshold() ? Mono.<Void>empty() : rebuild();
+                })
+                .then();
+    }
+
+    /**
+     * Rebuilds the tree from the current entries. Only the event subscription writes to the index, so the
+     * entries can be read without the lock while the tree is built.
+     */
+    private Mono<Void> rebuild() {
+        Set<UUID> rebuilt = new HashSet<>(changed);
+        return Mono.fromCallable(() -> rebuilds.record(() -> build(entries)))
+                .subscribeOn(Schedulers.boundedElastic())
+                .doOnNext(built -> {
+                    lock.writeLock().lock();
+                    try {
+                        tree = built;
+                        changed.removeAll(rebuilt);
+                    } finally {
+                        lock.writeLock().unlock();
+                    }
+                    log.debug("Flat similarity index rebuilt: {} flats", built.size());
+                })
+                .then();
+    }
+
+    private static FlatKdTree build(Map<UUID, Entry> entries) {
+        List<UUID> ids = new ArrayList<>();
+        List<double[]> vectors = new ArrayList<>();
+        entries.forEach((id, entry) -> {
+            if (!entry.available()) return;
+            ids.add(id);
+            vectors.add(entry.vector());
+        });
+        return new FlatKdTree(DIMENSIONS, ids, vectors);
+    }
+
+    private IndexedRow mapRow(Row row) {
+        UUID flatId = row.get("flat_id", UUID.class);
+        Double price = row.get("latest_price", Double.class);
+        Double latitude = row.get("latitude", Double.class);
+        Double longitude = row.get("longitude", Double.class);
+        if (price == null || latitude == null || longitude == null) return new IndexedRow(flatId, null);
+
+        double lat = Math.toRadians(latitude), lon = Math.toRadians(longitude);
+        double location = EARTH_RADIUS / properties.locationScale();
+        double[] vector = {
+                location * Math.cos(lat) * Math.cos(lon),
+                location * Math.cos(lat) * Math.sin(lon),
+                location * Math.sin(lat),
+                Math.log(Math.max(row.get("area", Double.class), 0.01)) / properties.areaScale(),
+                row.get("rooms", Integer.class) / properties.roomsScale(),
+                Math.log(Math.max(price, 1)) / properties.priceScale()
+        };
+        boolean available = Flat.Status.fromAlias(row.get("status", String.class)) == Flat.Status.AVAILABLE;
+        return new IndexedRow(flatId, new Entry(vector, available));
+    }
+
+    @Override
+    public void destroy() {
+        if (subscription != null) subscription.dispose();
+    }
+}
@@ -0,0 +1,30 @@
+package com.lockbox.flat.search;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Configuration of the similar flats index ({@code flat.search.similar.*}).
+ * <p>
+ * Flats are compared by a weighted euclidean distance; each scale is the difference that counts as one unit,
+ * so a larger scale makes the attribute matter less.
+ * </p>
+ *
+ * @param enabled          whether similar flats are answered from the in-memory index
+ * @param locationScale    distance between two locations counting as one unit, in meters
+ * @param areaScale        ratio of two areas counting as one unit, as a difference of their natural logarithms
+ * @param roomsScale       difference in rooms counting as one unit
+ * @param priceScale       ratio of two prices counting as one unit, as a difference of their natural logarithms
+ * @param rebuildThreshold number of flats changed since the tree was built before it is rebuilt; until then they
+ *                         are compared one by one
+ */
+@ConfigurationProperties(prefix = "flat.search.similar")
+public record FlatSimilarityProperties(
+        @DefaultValue("false") boolean enabled,
+        @DefaultValue("5000") double locationScale,
+        @DefaultValue("0.25") double areaScale,
+        @DefaultValue("1") double roomsScale,
+        @DefaultValue("0.25") double priceScale,
+        @DefaultValue("1024") int rebuildThreshold
+) {
+}
@@ -0,0 +1,79 @@
+-- Transactional outbox of flat changes, relayed to Kafka by the service (flat.outbox.*).
+-- Rows are written by triggers, so they commit or roll back with the change itself, whatever writes it.
+CREATE TABLE IF NOT EXISTS flat_outbox
+(
+    event_id    BIGINT GENERATED ALWAYS AS IDENTITY PRIMARY KEY,
+    flat_id     UUID        NOT NULL,
+    event_type  VARCHAR(32) NOT NULL,
+    payload     JSONB       NOT NULL,
+    occurred_at TIMESTAMPTZ NOT NULL DEFAULT clock_timestamp()
+);
+
+-- Flat rows themselves. Updates made by the triggers maintaining latest_price and amenity_ids are
+-- left out by the column list; their own events come from flat_prices and flat_amenities.
+CREATE OR REPLACE FUNCTION outbox_flat_changed() RETURNS trigger AS
+$$
+BEGIN
+    IF TG_OP = 'DELETE' THEN
+        INSERT INTO flat_outbox (flat_id, event_type, payload)
+        VALUES (OLD.flat_id, 'FLAT_DELETED', jsonb_build_object('flat_id', OLD.flat_id));
+    ELSE
+        INSERT INTO flat_outbox (flat_id, event_type, payload)
+        VALUES (NEW.flat_id,
+                CASE TG_OP WHEN 'INSERT' THEN 'FLAT_CREATED' ELSE 'FLAT_UPDATED' END,
+                to_jsonb(NEW) - 'search_vector');
+    END IF;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER flats_outbox
+    AFTER INSERT OR DELETE OR UPDATE OF owner_sub, title, description, longitude, latitude, floor, area, rooms, status
+    ON flats
+    FOR EACH ROW
+EXECUTE FUNCTION outbox_flat_changed();
+
+-- Prices and amenities. Rows deleted together with their flat are covered by its FLAT_DELETED.
+-- The triggers are named to fire after the *_maintain_* ones, so they see the updated flat.
+CREATE OR REPLACE FUNCTION outbox_flat_price_changed() RETURNS trigger AS
+$$
+BEGIN
+    IF TG_OP = 'DELETE' AND NOT EXISTS (SELECT 1 FROM flats WHERE flat_id = OLD.flat_id) THEN
+        RETURN NULL;
+    END IF;
+    INSERT INTO flat_outbox (flat_id, event_type, payload)
+    SELECT COALESCE(NEW.flat_id, OLD.flat_id),
+           'FLAT_PRICE_CHANGED',
+           jsonb_build_object('flat_id', f.flat_id, 'latest_price', f.latest_price,
+                              'latest_price_at', f.latest_price_at)
+    FROM flats f
+    WHERE f.flat_id = COALESCE(NEW.flat_id, OLD.flat_id);
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER flat_prices_outbox
+    AFTER INSERT OR UPDATE OR DELETE
+    ON flat_prices
+    FOR EACH ROW
+EXECUTE FUNCTION outbox_flat_price_changed();
+
+CREATE OR REPLACE FUNCTION outbox_flat_amenities_changed() RETURNS trigger AS
+$$
+BEGIN
+    IF TG_OP = 'DELETE' AND NOT EXISTS (SELECT 1 FROM flats WHERE flat_id = OLD.flat_id) THEN
+        RETURN NULL;
+    END IF;
+    INSERT INTO flat_outbox (flat_id, event_type, payload)
+    SELECT f.flat_id, 'FLAT_AMENITIES_CHANGED', jsonb_build_object('flat_id', f.flat_id, 'amenity_ids', f.amenity_ids)
+    FROM flats f
+    WHERE f.flat_id = COALESCE(NEW.flat_id, OLD.flat_id);
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER flat_amenities_outbox
+    AFTER INSERT OR UPDATE OR DELETE
+    ON flat_amenities
+    FOR EACH ROW
+EXECUTE FUNCTION outbox_flat_amenities_changed();
@@ -0,0 +1,17 @@
+-- btree_gist lets a GiST index combine the flat_id equality with the range overlap.
+CREATE EXTENSION IF NOT EXISTS btree_gist;
+
+-- Booked periods of flats, half-open [from, to).
+CREATE TABLE IF NOT EXISTS flat_bookings
+(
+    booking_id UUID PRIMARY KEY     DEFAULT uuid_generate_v4(),
+    flat_id    UUID        NOT NULL,
+    guest_sub  VARCHAR(36) NOT NULL CHECK (length(guest_sub) = 36),
+    period     TSTZRANGE   NOT NULL CHECK (NOT isempty(period) AND NOT lower_inf(period) AND NOT upper_inf(period)),
+    created_at TIMESTAMPTZ NOT NULL DEFAULT NOW(),
+    CONSTRAINT fk_bookings_flat FOREIGN KEY (flat_id)
+        REFERENCES flats (flat_id) ON DELETE CASCADE,
+    -- A flat is never booked twice for the same time. The index behind the constraint also answers the
+    -- availability anti-join of the flat search and the calendar of a flat, one flat at a time.
+    CONSTRAINT flat_bookings_no_overlap EXCLUDE USING gist (flat_id WITH =, period WITH &&)
+);
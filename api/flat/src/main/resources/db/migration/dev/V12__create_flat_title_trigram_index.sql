@@ -0,0 +1,6 @@
+-- Trigram index for title autocomplete: lower(title) LIKE '%prefix%' is answered from the index for prefixes of
+-- three characters or more. Only available flats are suggested, so only they are indexed.
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+CREATE INDEX IF NOT EXISTS idx_flats_title_trgm ON flats USING gin (lower(title) gin_trgm_ops)
+    WHERE status = 'available';
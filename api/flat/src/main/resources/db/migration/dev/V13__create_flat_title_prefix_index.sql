@@ -0,0 +1,4 @@
+-- Prefix index for title autocomplete: titles starting with the typed prefix are read in order from this index
+-- before the capped trigram matches, so they are never cut. The "C" collation lets LIKE 'prefix%' use the index.
+CREATE INDEX IF NOT EXISTS idx_flats_title_prefix ON flats (lower(title) COLLATE "C")
+    WHERE status = 'available';
@@ -0,0 +1,14 @@
+-- Announce price changes on the cache invalidation channel (flat.cache.invalidation.channel)
+CREATE OR REPLACE FUNCTION notify_flat_price_changed() RETURNS trigger AS
+$$
+BEGIN
+    PERFORM pg_notify('flat_cache_invalidation', 'FLAT_PRICE_CHANGED:' || COALESCE(NEW.flat_id, OLD.flat_id));
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER flat_prices_notify_changed
+    AFTER INSERT OR UPDATE OR DELETE
+    ON flat_prices
+    FOR EACH ROW
+EXECUTE FUNCTION notify_flat_price_changed();
@@ -0,0 +1,24 @@
+-- Full-text search over title (weight A) and description (weight B).
+-- Each text is indexed with the russian config (stemming) and the simple config (exact words, other languages).
+ALTER TABLE flats
+    ADD COLUMN IF NOT EXISTS search_vector tsvector
+        GENERATED ALWAYS AS (
+            setweight(to_tsvector('russian'::regconfig, coalesce(title, '')), 'A') ||
+            setweight(to_tsvector('simple'::regconfig, coalesce(title, '')), 'A') ||
+            setweight(to_tsvector('russian'::regconfig, coalesce(description, '')), 'B') ||
+            setweight(to_tsvector('simple'::regconfig, coalesce(description, '')), 'B')
+            ) STORED;
+
+CREATE INDEX IF NOT EXISTS idx_flats_search_vector ON flats USING gin (search_vector);
+
+-- f.* is expanded when the view is created, so it has to be recreated to expose search_vector
+DROP VIEW IF EXISTS v_flats_with_latest_price;
+
+CREATE VIEW v_flats_with_latest_price AS
+SELECT f.*,
+       (SELECT fp.price
+        FROM flat_prices fp
+        WHERE fp.flat_id = f.flat_id
+        ORDER BY fp.created_at DESC
+        LIMIT 1) AS latest_price
+FROM flats f;
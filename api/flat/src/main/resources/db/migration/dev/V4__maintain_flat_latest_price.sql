@@ -0,0 +1,54 @@
+-- Keep the current price on the flat itself instead of looking it up per row in v_flats_with_latest_price
+ALTER TABLE flats
+    ADD COLUMN IF NOT EXISTS latest_price    NUMERIC(12, 2),
+    ADD COLUMN IF NOT EXISTS latest_price_at TIMESTAMPTZ;
+
+UPDATE flats f
+SET latest_price    = lp.price,
+    latest_price_at = lp.created_at
+FROM (SELECT DISTINCT ON (flat_id) flat_id, price, created_at
+      FROM flat_prices
+      ORDER BY flat_id, created_at DESC) lp
+WHERE lp.flat_id = f.flat_id;
+
+-- An inserted price only wins if it is not older than the current one;
+-- updates and deletes recompute the price of the flat from its history
+CREATE OR REPLACE FUNCTION maintain_flat_latest_price() RETURNS trigger AS
+$$
+BEGIN
+    IF TG_OP = 'INSERT' THEN
+        UPDATE flats
+        SET latest_price    = NEW.price,
+            latest_price_at = NEW.created_at
+        WHERE flat_id = NEW.flat_id
+          AND (latest_price_at IS NULL OR latest_price_at <= NEW.created_at);
+        RETURN NULL;
+    END IF;
+
+    -- NEW is NULL on DELETE; on UPDATE the row may have moved to another flat
+    UPDATE flats f
+    SET (latest_price, latest_price_at) = (SELECT fp.price, fp.created_at
+                                           FROM flat_prices fp
+                                           WHERE fp.flat_id = f.flat_id
+                                           ORDER BY fp.created_at DESC
+                                           LIMIT 1)
+    WHERE f.flat_id IN (OLD.flat_id, NEW.flat_id);
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER flat_prices_maintain_latest_price
+    AFTER INSERT OR UPDATE OR DELETE
+    ON flat_prices
+    FOR EACH ROW
+EXECUTE FUNCTION maintain_flat_latest_price();
+
+-- Price range filters and price ordering (ties broken by flat_id, as in the search)
+CREATE INDEX IF NOT EXISTS idx_flats_latest_price ON flats (latest_price, flat_id);
+
+-- The view keeps its name and columns for readers; latest_price now comes from flats
+DROP VIEW IF EXISTS v_flats_with_latest_price;
+
+CREATE VIEW v_flats_with_latest_price AS
+SELECT f.*
+FROM flats f;
@@ -0,0 +1,54 @@
+-- Amenities of a flat denormalized onto the flat, so "has all of" is a single GIN containment lookup
+ALTER TABLE flats
+    ADD COLUMN IF NOT EXISTS amenity_ids UUID[] NOT NULL DEFAULT '{}';
+
+UPDATE flats f
+SET amenity_ids = fa.amenity_ids
+FROM (SELECT flat_id, array_agg(amenity_id ORDER BY amenity_id) AS amenity_ids
+      FROM flat_amenities
+      GROUP BY flat_id) fa
+WHERE fa.flat_id = f.flat_id;
+
+-- Recomputes the array of every flat touched by the statement; NEW is NULL on DELETE, OLD on INSERT
+CREATE OR REPLACE FUNCTION maintain_flat_amenity_ids() RETURNS trigger AS
+$$
+BEGIN
+    UPDATE flats f
+    SET amenity_ids = COALESCE((SELECT array_agg(fa.amenity_id ORDER BY fa.amenity_id)
+                                FROM flat_amenities fa
+                                WHERE fa.flat_id = f.flat_id), '{}')
+    WHERE f.flat_id IN (OLD.flat_id, NEW.flat_id);
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER flat_amenities_maintain_amenity_ids
+    AFTER INSERT OR UPDATE OR DELETE
+    ON flat_amenities
+    FOR EACH ROW
+EXECUTE FUNCTION maintain_flat_amenity_ids();
+
+-- The GIN posting lists of the requested amenities are intersected as bitmaps in one index scan
+CREATE INDEX IF NOT EXISTS idx_flats_amenity_ids ON flats USING gin (amenity_ids);
+
+-- Announce catalog changes on the cache invalidation channel (flat.cache.invalidation.channel)
+CREATE OR REPLACE FUNCTION notify_amenity_changed() RETURNS trigger AS
+$$
+BEGIN
+    PERFORM pg_notify('flat_cache_invalidation', 'AMENITY_CHANGED:' || COALESCE(NEW.amenity_id, OLD.amenity_id));
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER amenities_notify_changed
+    AFTER INSERT OR UPDATE OR DELETE
+    ON amenities
+    FOR EACH ROW
+EXECUTE FUNCTION notify_amenity_changed();
+
+-- f.* is expanded when the view is created, so it has to be recreated to expose amenity_ids
+DROP VIEW IF EXISTS v_flats_with_latest_price;
+
+CREATE VIEW v_flats_with_latest_price AS
+SELECT f.*
+FROM flats f;
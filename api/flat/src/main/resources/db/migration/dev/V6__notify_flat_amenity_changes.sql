@@ -0,0 +1,14 @@
+-- Announce amenity changes of a flat as flat changes, so in-memory copies of flats re-read amenity_ids
+CREATE OR REPLACE FUNCTION notify_flat_amenities_changed() RETURNS trigger AS
+$$
+BEGIN
+    PERFORM pg_notify('flat_cache_invalidation', 'FLAT_CHANGED:' || COALESCE(NEW.flat_id, OLD.flat_id));
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER flat_amenities_notify_changed
+    AFTER INSERT OR UPDATE OR DELETE
+    ON flat_amenities
+    FOR EACH ROW
+EXECUTE FUNCTION notify_flat_amenities_changed();
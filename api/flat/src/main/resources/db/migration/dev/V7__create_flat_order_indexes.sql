@@ -0,0 +1,5 @@
+-- One index per search order (FlatOrder), keyed like the ORDER BY and the keyset row comparison:
+-- (sort key, flat_id). Scanned forward for ascending and backward for descending pages.
+-- Price uses idx_flats_latest_price (V4), distance the GiST flats_location_idx (V0).
+CREATE INDEX IF NOT EXISTS idx_flats_created_at ON flats (created_at, flat_id);
+CREATE INDEX IF NOT EXISTS idx_flats_area ON flats (area, flat_id);
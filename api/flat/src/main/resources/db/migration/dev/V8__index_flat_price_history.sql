@@ -0,0 +1,5 @@
+-- Price history is read per flat, newest first; the composite index serves it without a sort
+-- and supersedes the plain flat_id index.
+CREATE INDEX IF NOT EXISTS idx_flat_prices_flat_id_created_at ON flat_prices (flat_id, created_at DESC);
+
+DROP INDEX IF EXISTS idx_flat_prices_flat_id;
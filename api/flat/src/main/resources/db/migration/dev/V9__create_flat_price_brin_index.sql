@@ -0,0 +1,5 @@
+-- flat_prices is append-only, so created_at follows the physical row order and a BRIN index
+-- narrows time-range scans over the whole table to the matching blocks at a tiny fraction of a
+-- B-tree's size. Per-flat history keeps using idx_flat_prices_flat_id_created_at.
+CREATE INDEX IF NOT EXISTS idx_flat_prices_created_at_brin ON flat_prices
+    USING brin (created_at) WITH (pages_per_range = 32, autosummarize = on);
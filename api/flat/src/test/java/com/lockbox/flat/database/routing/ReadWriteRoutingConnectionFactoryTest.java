@@ -0,0 +1,157 @@
+package com.lockbox.flat.database.routing;
+
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.ConnectionFactoryMetadata;
+import io.r2dbc.spi.IsolationLevel;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.reactivestreams.Publisher;
+import org.springframework.r2dbc.connection.ConnectionFactoryUtils;
+import org.springframework.r2dbc.connection.R2dbcTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import org.springframework.transaction.support.DefaultTransactionDefinition;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.lang.reflect.Proxy;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Counts the connections and transaction round trips of a lookup, as service methods run it.
+ * <p>
+ * Lookups are {@code @Transactional(propagation = SUPPORTS, readOnly = true)} and writes keep the class-level
+ * {@code READ_COMMITTED} transaction. The connections record the calls the driver would turn into statements,
+ * so a lookup is shown to cost no {@code BEGIN} and no {@code COMMIT}, and to run on the replica.
+ * </p>
+ *
+ * @author serezk4
+ * @version 1.0
+ * @since 1.0
+ */
+class ReadWriteRoutingConnectionFactoryTest {
+
+    private CountingConnectionFactory primary;
+    private CountingConnectionFactory replica;
+    private ReadWriteRoutingConnectionFactory routing;
+    private R2dbcTransactionManager transactionManager;
+
+    @BeforeEach
+    void setUp() {
+        primary = new CountingConnectionFactory();
+        replica = new CountingConnectionFactory();
+        routing = new ReadWriteRoutingConnectionFactory(primary, replica);
+        transactionManager = new R2dbcTransactionManager(routing);
+    }
+
+    @Test
+    void lookupRunsOnReplicaWithoutTransaction() {
+        StepVerifier.create(useConnection(lookup())).verifyComplete();
+
+        assertThat(replica.connections()).isEqualTo(1);
+        assertThat(replica.calls("beginTransaction")).isZero();
+        assertThat(replica.calls("commitTransaction")).isZero();
+        assertThat(primary.connections()).isZero();
+    }
+
+    @Test
+    void writeRunsOnPrimaryInTransaction() {
+        StepVerifier.create(useConnection(write())).verifyComplete();
+
+        assertThat(primary.connections()).isEqualTo(1);
+        assertThat(primary.calls("beginTransaction")).isEqualTo(1);
+        assertThat(primary.calls("commitTransaction")).isEqualTo(1);
+        assertThat(replica.connections()).isZero();
+    }
+
+    @Test
+    void codeOutsideTransactionsRunsOnPrimary() {
+        StepVerifier.create(Mono.from(routing.create()).flatMap(connection -> Mono.from(connection.close())))
+                .verifyComplete();
+
+        assertThat(primary.connections()).isEqualTo(1);
+        assertThat(replica.connections()).isZero();
+    }
+
+    @Test
+    void lookupSavesTwoRoundTripsPerRead() {
+        for (int i = 0; i < 100; i++) {
+            useConnection(lookup()).block();
+            useConnection(write()).block();
+        }
+
+        int lookupRoundTrips = replica.calls("beginTransaction") + replica.calls("commitTransaction");
+        int transactionalRoundTrips = primary.calls("beginTransaction") + primary.calls("commitTransaction");
+        assertThat(lookupRoundTrips).isZero();
+        assertThat(transactionalRoundTrips).isEqualTo(200);
+    }
+
+    private static TransactionDefinition lookup() {
+        DefaultTransactionDefinition lookup =
+                new DefaultTransactionDefinition(TransactionDefinition.PROPAGATION_SUPPORTS);
+        lookup.setReadOnly(true);
+        return lookup;
+    }
+
+    private static TransactionDefinition write() {
+        DefaultTransactionDefinition write =
+                new DefaultTransactionDefinition(TransactionDefinition.PROPAGATION_REQUIRED);
+        write.setIsolationLevel(TransactionDefinition.ISOLATION_READ_COMMITTED);
+        return write;
+    }
+
+    private Mono<Void> useConnection(TransactionDefinition definition) {
+        return TransactionalOperator.create(transactionManager, definition)
+                .transactional(ConnectionFactoryUtils.getConnection(routing).then());
+    }
+
+    /**
+     * Connection factory whose connections complete every call at once and count them by method name.
+     */
+    private static final class CountingConnectionFactory implements ConnectionFactory {
+
+        private final AtomicInteger connections = new AtomicInteger();
+        private final Map<String, AtomicInteger> calls = new ConcurrentHashMap<>();
+
+        @Override
+        public Publisher<? extends Connection> create() {
+            return Mono.fromSupplier(() -> {
+                connections.incrementAndGet();
+                return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                        new Class<?>[]{Connection.class}, (proxy, method, args) -> {
+                            calls.computeIfAbsent(method.getName(), name -> new AtomicInteger()).incrementAndGet();
+                            return switch (method.getName()) {
+                                case "validate" -> Mono.just(true);
+                                case "isAutoCommit" -> true;
+                                case "getTransactionIsolationLevel" -> IsolationLevel.READ_COMMITTED;
+                                case "hashCode" -> System.identityHashCode(proxy);
+                                case "equals" -> proxy == args[0];
+                                case "toString" -> "CountingConnection";
+                                default -> Publisher.class.isAssignableFrom(method.getReturnType())
+                                        ? Mono.empty()
+                                        : null;
+                            };
+                        });
+            });
+        }
+
+        @Override
+        public ConnectionFactoryMetadata getMetadata() {
+            return () -> "counting";
+        }
+
+        int connections() {
+            return connections.get();
+        }
+
+        int calls(String method) {
+            AtomicInteger count = calls.get(method);
+            return count == null ? 0 : count.get();
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package com.lockbox.flat.logging;
+
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.core.Filter;
+import org.apache.logging.log4j.core.LogEvent;
+import org.apache.logging.log4j.core.filter.BurstFilter;
+import org.apache.logging.log4j.core.impl.Log4jLogEvent;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Counts the events the hot-path filters let through to the appenders.
+ * <p>
+ * The filters are chained as in {@code log4j2-spring.xml}: an event reaches the appenders unless a filter denies it.
+ * </p>
+ *
+ * @author serezk4
+ * @version 1.0
+ * @since 1.0
+ */
+class SamplingFilterTest {
+
+    private static final int EVENTS = 10_000;
+
+    @Test
+    void keepsOneEventInEvery() {
+        SamplingFilter filter = SamplingFilter.createFilter(Level.INFO, 10, null, null);
+
+        assertThat(filter.filter(event(Level.INFO))).isEqualTo(Filter.Result.NEUTRAL);
+        for (int i = 1; i < 10; i++)
+            assertThat(filter.filter(event(Level.INFO))).isEqualTo(Filter.Result.DENY);
+        assertThat(filter.filter(event(Level.INFO))).isEqualTo(Filter.Result.NEUTRAL);
+    }
+
+    @Test
+    void samplesLessSevereLevels() {
+        SamplingFilter filter = SamplingFilter.createFilter(Level.INFO, 10, null, null);
+
+        assertThat(passed(filter, Level.DEBUG)).isEqualTo(EVENTS / 10);
+    }
+
+    @Test
+    void passesMoreSevereLevels() {
+        SamplingFilter filter = SamplingFilter.createFilter(Level.INFO, 10, null, null);
+
+        assertThat(passed(filter, Level.WARN)).isEqualTo(EVENTS);
+        assertThat(passed(filter, Level.ERROR)).isEqualTo(EVENTS);
+    }
+
+    @Test
+    void severeEventsDoNotShiftTheSample() {
+        SamplingFilter filter = SamplingFilter.createFilter(Level.INFO, 2, null, null);
+
+        assertThat(filter.filter(event(Level.INFO))).isEqualTo(Filter.Result.NEUTRAL);
+        assertThat(filter.filter(event(Level.ERROR))).isEqualTo(Filter.Result.NEUTRAL);
+        assertThat(filter.filter(event(Level.INFO))).isEqualTo(Filter.Result.DENY);
+    }
+
+    @Test
+    void defaultsToInfoEveryTenth() {
+        SamplingFilter filter = SamplingFilter.createFilter(null, 10, null, null);
+
+        assertThat(filter).hasToString("level=INFO, every=10");
+        assertThat(filter.getOnMatch()).isEqualTo(Filter.Result.NEUTRAL);
+        assertThat(filter.getOnMismatch()).isEqualTo(Filter.Result.DENY);
+    }
+
+    @Test
+    void rejectsNonPositiveInterval() {
+        assertThatThrownBy(() -> SamplingFilter.createFilter(Level.INFO, 0, null, null))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void hotPathFiltersCutAppendedEvents() {
+        SamplingFilter sampling = SamplingFilter.createFilter(Level.INFO, 10, null, null);
+        BurstFilter burst = BurstFilter.newBuilder().setLevel(Level.INFO).setRate(50).setMaxBurst(500).build();
+
+        int appended = 0;
+        for (int i = 0; i < EVENTS; i++) {
+            LogEvent event = event(Level.INFO);
+            if (sampling.filter(event) != Filter.Result.DENY && burst.filter(event) != Filter.Result.DENY)
+                appended++;
+        }
+
+        assertThat(appended).isBetween(500, EVENTS / 10);
+    }
+
+    private static int passed(Filter filter, Level level) {
+        int passed = 0;
+        for (int i = 0; i < EVENTS; i++)
+            if (filter.filter(event(level)) != Filter.Result.DENY) passed++;
+        return passed;
+    }
+
+    private static LogEvent event(Level level) {
+        return Log4jLogEvent.newBuilder().setLevel(level).build();
+    }
+}
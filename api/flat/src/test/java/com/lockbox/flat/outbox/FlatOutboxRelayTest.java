@@ -0,0 +1,342 @@
+package com.lockbox.flat.outbox;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lockbox.flat.database.metrics.QueryMetrics;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.ConnectionFactoryOptions;
+import org.apache.kafka.clients.admin.NewTopic;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.KafkaException;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+import org.springframework.kafka.test.utils.KafkaTestUtils;
+import org.springframework.r2dbc.connection.R2dbcTransactionManager;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Relays outboxes written by the flat triggers to an embedded Kafka broker.
+ * <p>
+ * Postgres runs the service migrations, so the outbox rows are the ones the triggers write. Every test relays to
+ * a topic of its own with three partitions and reads it back from the start. Records are compared by their
+ * {@code event-id} header with the outbox rows read before the relay started.
+ * </p>
+ *
+ * @author serezk4
+ * @version 1.0
+ * @since 1.0
+ */
+@Testcontainers(disabledWithoutDocker = true)
+@EmbeddedKafka(partitions = 3)
+class FlatOutboxRelayTest {
+
+    private static final int FLATS = 20;
+    private static final int UPDATES = 4;
+    private static final int BATCH_SIZE = 10;
+    private static final Duration TIMEOUT = Duration.ofSeconds(30);
+    private static final AtomicInteger TOPICS = new AtomicInteger();
+
+    @Container
+    static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    private static EmbeddedKafkaBroker broker;
+    private static DatabaseClient databaseClient;
+    private static TransactionalOperator transactionalOperator;
+
+    private final List<FlatOutboxRelay> relays = new ArrayList<>();
+    private final List<DefaultKafkaProducerFactory<String, String>> producerFactories = new ArrayList<>();
+    private MeterRegistry meterRegistry;
+    private String topic;
+
+    @BeforeAll
+    static void setUp(EmbeddedKafkaBroker embeddedKafka) throws SQLException {
+        broker = embeddedKafka;
+        try (Connection connection = jdbc(); Statement statement = connection.createStatement()) {
+            statement.execute("CREATE EXTENSION IF NOT EXISTS cube");
+            statement.execute("CREATE EXTENSION IF NOT EXISTS earthdistance");
+        }
+        Flyway.configure()
+                .dataSource(POSTGRES.getJdbcUrl(), POSTGRES.getUsername(), POSTGRES.getPassword())
+                .locations("classpath:db/migration/dev")
+                .load()
+                .migrate();
+
+        ConnectionFactory connectionFactory = ConnectionFactories.get(
+                ConnectionFactoryOptions.parse("r2dbc:postgresql://" + POSTGRES.getHost() + ":"
+                                + POSTGRES.getMappedPort(PostgreSQLContainer.POSTGRESQL_PORT) + "/"
+                                + POSTGRES.getDatabaseName())
+                        .mutate()
+                        .option(ConnectionFactoryOptions.USER, POSTGRES.getUsername())
+                        .option(ConnectionFactoryOptions.PASSWORD, POSTGRES.getPassword())
+                        .build());
+        databaseClient = DatabaseClient.create(connectionFactory);
+        transactionalOperator = TransactionalOperator.create(new R2dbcTransactionManager(connectionFactory));
+    }
+
+    @BeforeEach
+    void writeChanges() throws SQLException {
+        meterRegistry = new SimpleMeterRegistry();
+        topic = "flat-events-" + TOPICS.incrementAndGet();
+        broker.addTopics(new NewTopic(topic, 3, (short) 1));
+
+        try (Connection connection = jdbc(); Statement statement = connection.createStatement()) {
+            statement.execute("TRUNCATE flats, flat_outbox CASCADE");
+            try (PreparedStatement insert = connection.prepareStatement("""
+                    INSERT INTO flats (owner_sub, title, description, area, rooms)
+                    VALUES (?, ?, 'A flat written by the outbox test', 42.5, 2)
+                    RETURNING flat_id""");
+                 PreparedStatement update = connection.prepareStatement(
+                         "UPDATE flats SET title = ? WHERE flat_id = ?")) {
+                for (int i = 0; i < FLATS; i++) {
+                    insert.setString(1, UUID.randomUUID().toString());
+                    insert.setString(2, "Flat " + i);
+                    UUID flatId;
+                    try (ResultSet inserted = insert.executeQuery()) {
+                        inserted.next();
+                        flatId = inserted.getObject(1, UUID.class);
+                    }
+                    for (int u = 0; u < UPDATES; u++) {
+                        update.setString(1, "Flat " + i + " v" + u);
+                        update.setObject(2, flatId);
+                        update.executeUpdate();
+                    }
+                }
+            }
+        }
+    }
+
+    @AfterEach
+    void stopRelays() {
+        relays.forEach(FlatOutboxRelay::stop);
+        producerFactories.forEach(DefaultKafkaProducerFactory::destroy);
+    }
+
+    @Test
+    void relaysEveryEventOnceInOrderOfEachFlat() throws SQLException {
+        Map<Long, String> pending = pending();
+        assertThat(pending).hasSize(FLATS * (1 + UPDATES));
+
+        start(relay(template(record -> false)));
+        consume(pending.size());
+        List<ConsumerRecord<String, String>> records = consume(pending.size() + 1, Duration.ofSeconds(3));
+
+        assertThat(eventIds(records)).containsExactlyInAnyOrderElementsOf(pending.keySet());
+        assertKeyedInOutboxOrder(records, pending);
+        assertThat(pending()).isEmpty();
+    }
+
+    @Test
+    void relaysNothingWhileAnotherNodeHoldsTheLock() throws SQLException {
+        Map<Long, String> pending = pending();
+        try (Connection other = jdbc()) {
+            other.setAutoCommit(false);
+            try (PreparedStatement lock = other.prepareStatement("SELECT pg_advisory_xact_lock(?)")) {
+                lock.setLong(1, FlatOutboxRelay.LOCK_KEY);
+                lock.execute();
+            }
+
+            start(relay(template(record -> false)));
+            assertThat(consume(1, Duration.ofSeconds(3))).isEmpty();
+            assertThat(pending()).isEqualTo(pending);
+
+            other.commit();
+        }
+
+        assertThat(eventIds(consume(pending.size()))).containsExactlyInAnyOrderElementsOf(pending.keySet());
+    }
+
+    @Test
+    void concurrentRelaysSendEveryEventOnce() throws SQLException {
+        Map<Long, String> pending = pending();
+
+        start(relay(template(record -> false)));
+        start(relay(template(record -> false)));
+        consume(pending.size());
+        List<ConsumerRecord<String, String>> records = consume(pending.size() + 1, Duration.ofSeconds(3));
+
+        assertThat(eventIds(records)).containsExactlyInAnyOrderElementsOf(pending.keySet());
+        assertKeyedInOutboxOrder(records, pending);
+        assertThat(pending()).isEmpty();
+    }
+
+    /**
+     * The broker goes away in the middle of the first batch, as when it stops acknowledging: the record sent then
+     * and the rest of the batch fail. The batch is rolled back and sent again whole by the next poll.
+     */
+    @Test
+    void failedSendRedeliversTheBatchWithTheSameEventIds() throws SQLException {
+        Map<Long, String> pending = pending();
+        long first = pending.keySet().iterator().next();
+        long failing = pending.keySet().stream().skip(BATCH_SIZE / 2).findFirst().orElseThrow();
+        AtomicBoolean down = new AtomicBoolean();
+        AtomicBoolean failed = new AtomicBoolean();
+
+        start(relay(template(record -> {
+            long eventId = eventId(record);
+            if (eventId == first) down.set(false);
+            if (eventId == failing && !failed.getAndSet(true)) down.set(true);
+            return down.get();
+        })));
+        consume(pending.size() + BATCH_SIZE / 2);
+        List<ConsumerRecord<String, String>> records = consume(pending.size() + BATCH_SIZE / 2 + 1,
+                Duration.ofSeconds(3));
+
+        List<Long> sentBeforeFailure = pending.keySet().stream().limit(BATCH_SIZE / 2).toList();
+        Map<Long, List<String>> deliveries = new LinkedHashMap<>();
+        for (ConsumerRecord<String, String> record : records)
+            deliveries.computeIfAbsent(eventId(record), eventId -> new ArrayList<>()).add(record.value());
+
+        assertThat(deliveries.keySet()).containsExactlyInAnyOrderElementsOf(pending.keySet());
+        deliveries.forEach((eventId, values) -> {
+            assertThat(values).hasSize(sentBeforeFailure.contains(eventId) ? 2 : 1);
+            assertThat(values).containsOnly(values.get(0));
+        });
+        assertKeyedInOutboxOrder(records, pending);
+        assertThat(meterRegistry.get("flat.outbox.failures").counter().count()).isEqualTo(1);
+        assertThat(pending()).isEmpty();
+    }
+
+    /**
+     * Checks that the records of each flat follow outbox order. A redelivered record repeats an event already
+     * seen, so only first deliveries are compared.
+     */
+    private static void assertKeyedInOutboxOrder(List<ConsumerRecord<String, String>> records,
+                                                 Map<Long, String> pending) {
+        Map<String, Set<Long>> byFlat = new LinkedHashMap<>();
+        for (ConsumerRecord<String, String> record : records)
+            byFlat.computeIfAbsent(record.key(), key -> new LinkedHashSet<>()).add(eventId(record));
+        Map<String, List<Long>> expected = new LinkedHashMap<>();
+        pending.forEach((eventId, flatId) -> expected.computeIfAbsent(flatId, key -> new ArrayList<>()).add(eventId));
+
+        assertThat(byFlat.keySet()).containsExactlyInAnyOrderElementsOf(expected.keySet());
+        byFlat.forEach((flatId, eventIds) -> assertThat(eventIds).as("flat %s", flatId)
+                .containsExactlyElementsOf(expected.get(flatId)));
+    }
+
+    private FlatOutboxRelay relay(KafkaTemplate<String, String> template) {
+        return new FlatOutboxRelay(
+                databaseClient, transactionalOperator, template, new ObjectMapper().findAndRegisterModules(),
+                new QueryMetrics(meterRegistry, Duration.ofSeconds(5)), meterRegistry,
+                new FlatOutboxProperties(true, topic, 3, (short) 1, BATCH_SIZE, Duration.ofMillis(100),
+                        Duration.ofSeconds(10))
+        );
+    }
+
+    private void start(FlatOutboxRelay relay) {
+        relays.add(relay);
+        relay.start();
+    }
+
+    /**
+     * Returns a template sending like the service's, except that records matching {@code fail} fail at once.
+     */
+    private KafkaTemplate<String, String> template(Predicate<ProducerRecord<String, String>> fail) {
+        Map<String, Object> producer = KafkaTestUtils.producerProps(broker);
+        producer.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+        producer.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+        producer.put(ProducerConfig.ACKS_CONFIG, "all");
+        producer.put(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, true);
+        DefaultKafkaProducerFactory<String, String> producerFactory = new DefaultKafkaProducerFactory<>(producer);
+        producerFactories.add(producerFactory);
+        return new KafkaTemplate<String, String>(producerFactory) {
+            @Override
+            public CompletableFuture<SendResult<String, String>> send(ProducerRecord<String, String> record) {
+                if (fail.test(record)) return CompletableFuture.failedFuture(new KafkaException("send failed"));
+                return super.send(record);
+            }
+        };
+    }
+
+    private List<ConsumerRecord<String, String>> consume(int count) {
+        List<ConsumerRecord<String, String>> records = consume(count, TIMEOUT);
+        assertThat(records).hasSizeGreaterThanOrEqualTo(count);
+        return records;
+    }
+
+    /**
+     * Reads the topic from its start until {@code count} records arrived or the timeout elapsed.
+     */
+    private List<ConsumerRecord<String, String>> consume(int count, Duration timeout) {
+        Map<String, Object> props = KafkaTestUtils.consumerProps(topic + "-" + UUID.randomUUID(), "false", broker);
+        List<ConsumerRecord<String, String>> records = new ArrayList<>();
+        try (Consumer<String, String> consumer = new DefaultKafkaConsumerFactory<>(
+                props, new StringDeserializer(), new StringDeserializer()).createConsumer()) {
+            broker.consumeFromAnEmbeddedTopic(consumer, topic);
+            long deadline = System.nanoTime() + timeout.toNanos();
+            while (records.size() < count && System.nanoTime() < deadline)
+                KafkaTestUtils.getRecords(consumer, Duration.ofMillis(200)).forEach(records::add);
+        }
+        return records;
+    }
+
+    /**
+     * Returns the flat ids of the pending outbox events by event id, in outbox order.
+     */
+    private static Map<Long, String> pending() throws SQLException {
+        Map<Long, String> pending = new LinkedHashMap<>();
+        try (Connection connection = jdbc();
+             Statement statement = connection.createStatement();
+             ResultSet rows = statement.executeQuery("SELECT event_id, flat_id FROM flat_outbox ORDER BY event_id")) {
+            while (rows.next()) pending.put(rows.getLong(1), rows.getString(2));
+        }
+        return pending;
+    }
+
+    private static List<Long> eventIds(List<ConsumerRecord<String, String>> records) {
+        return records.stream().map(FlatOutboxRelayTest::eventId).toList();
+    }
+
+    private static long eventId(ConsumerRecord<String, String> record) {
+        return Long.parseLong(new String(record.headers().lastHeader("event-id").value(), StandardCharsets.UTF_8));
+    }
+
+    private static long eventId(ProducerRecord<String, String> record) {
+        return Long.parseLong(new String(record.headers().lastHeader("event-id").value(), StandardCharsets.UTF_8));
+    }
+
+    private static Connection jdbc() throws SQLException {
+        return DriverManager.getConnection(POSTGRES.getJdbcUrl(), POSTGRES.getUsername(), POSTGRES.getPassword());
+    }
+}
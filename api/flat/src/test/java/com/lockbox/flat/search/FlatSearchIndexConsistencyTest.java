@@ -0,0 +1,259 @@
+package com.lockbox.flat.search;
+
+import com.lockbox.cache.InvalidationBus;
+import com.lockbox.flat.database.dto.FlatColumn;
+import com.lockbox.flat.database.dto.FlatCursor;
+import com.lockbox.flat.database.dto.FlatFilterDto;
+import com.lockbox.flat.database.dto.FlatOrder;
+import com.lockbox.flat.database.metrics.QueryMetrics;
+import com.lockbox.flat.database.model.FlatWithLatestPrice;
+import com.lockbox.flat.database.repository.CustomFlatRepositoryImpl;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactoryOptions;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import reactor.core.publisher.Flux;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Runs the same searches through {@link FlatSearchIndex} and through the SQL search, and compares the ids.
+ * <p>
+ * Postgres is started with the migrations of the service and seeded with random flats whose areas, prices and
+ * creation times repeat, so the pages also depend on ties being broken by flat id. Each filter is paged to the
+ * end by cursor, every cursor being taken from the SQL page as the service takes it from the hydrated page, and
+ * read at a few offsets.
+ * </p>
+ *
+ * @author serezk4
+ * @version 1.0
+ * @since 1.0
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class FlatSearchIndexConsistencyTest {
+
+    private static final int FLATS = 3_000;
+    private static final int PAGE = 25;
+    private static final String[] STATUSES = {"available", "hidden", "unavailable"};
+    private static final Instant EPOCH = Instant.parse("2024-01-01T00:00:00Z");
+
+    @Container
+    static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    private static final List<UUID> AMENITIES = new ArrayList<>();
+    private static FlatSearchIndex index;
+    private static CustomFlatRepositoryImpl repository;
+
+    @BeforeAll
+    static void setUp() throws SQLException, InterruptedException {
+        try (Connection connection = jdbc(); Statement statement = connection.createStatement()) {
+            statement.execute("CREATE EXTENSION IF NOT EXISTS cube");
+            statement.execute("CREATE EXTENSION IF NOT EXISTS earthdistance");
+        }
+        Flyway.configure()
+                .dataSource(POSTGRES.getJdbcUrl(), POSTGRES.getUsername(), POSTGRES.getPassword())
+                .locations("classpath:db/migration/dev")
+                .load()
+                .migrate();
+        seed(new Random(42));
+
+        DatabaseClient databaseClient = DatabaseClient.create(ConnectionFactories.get(
+                ConnectionFactoryOptions.parse("r2dbc:postgresql://" + POSTGRES.getHost() + ":"
+                                + POSTGRES.getMappedPort(PostgreSQLContainer.POSTGRESQL_PORT) + "/"
+                                + POSTGRES.getDatabaseName())
+                        .mutate()
+                        .option(ConnectionFactoryOptions.USER, POSTGRES.getUsername())
+                        .option(ConnectionFactoryOptions.PASSWORD, POSTGRES.getPassword())
+                        .build()));
+        MeterRegistry meterRegistry = new SimpleMeterRegistry();
+        QueryMetrics queryMetrics = new QueryMetrics(meterRegistry, Duration.ofSeconds(5));
+        InvalidationBus invalidationBus = mock(InvalidationBus.class);
+        when(invalidationBus.events()).thenReturn(Flux.never());
+        when(invalidationBus.isConnected()).thenReturn(true);
+
+        repository = new CustomFlatRepositoryImpl(databaseClient, queryMetrics);
+        index = new FlatSearchIndex(databaseClient, invalidationBus, queryMetrics, meterRegistry, 0.05);
+        index.start();
+        for (int i = 0; i < 600 && index.search(FlatFilterDto.builder().build(), 0, 1).isEmpty(); i++)
+            Thread.sleep(50);
+        assertThat(index.size()).isEqualTo(FLATS);
+    }
+
+    static Stream<Arguments> filters() {
+        return Stream.of(
+                Arguments.of("newest first", FlatFilterDto.builder().build()),
+                Arguments.of("oldest first", FlatFilterDto.builder().orderBy("created_at").orderDirection("asc")
+                        .build()),
+                Arguments.of("price range, cheapest first", FlatFilterDto.builder()
+                        .minPrice(10_000.0).maxPrice(40_000.0).orderBy("price").orderDirection("asc").build()),
+                Arguments.of("priced, dearest first", FlatFilterDto.builder().orderBy("price").build()),
+                Arguments.of("area and rooms, smallest first", FlatFilterDto.builder()
+                        .minArea(30.0).maxArea(70.5).minRooms(2).maxRooms(4)
+                        .orderBy("area").orderDirection("asc").build()),
+                Arguments.of("available, largest first", FlatFilterDto.builder()
+                        .status("available").orderBy("area").build()),
+                Arguments.of("two amenities", FlatFilterDto.builder()
+                        .amenities(List.of(AMENITIES.get(0), AMENITIES.get(1))).build()),
+                Arguments.of("radius, nearest first", FlatFilterDto.builder()
+                        .latitude(55.75).longitude(37.62).radius(5_000.0).build()),
+                Arguments.of("radius, cheapest first", FlatFilterDto.builder()
+                        .latitude(55.7).longitude(37.5).radius(20_000.0)
+                        .orderBy("price").orderDirection("asc").build()),
+                Arguments.of("location, nearest first", FlatFilterDto.builder()
+                        .latitude(55.9).longitude(37.8).build()),
+                Arguments.of("box", FlatFilterDto.builder()
+                        .south(55.6).west(37.4).north(55.8).east(37.7).orderBy("area").build()),
+                Arguments.of("box across the antimeridian", FlatFilterDto.builder()
+                        .south(64.5).west(179.7).north(65.5).east(-179.7).build()),
+                Arguments.of("everything", FlatFilterDto.builder()
+                        .amenities(List.of(AMENITIES.get(2))).status("available")
+                        .minPrice(5_000.0).maxPrice(50_000.0).minRooms(1).maxRooms(5)
+                        .south(55.5).west(37.3).north(56.0).east(37.9)
+                        .orderBy("price").orderDirection("desc").build())
+        );
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("filters")
+    void cursorPagesMatchSql(String name, FlatFilterDto filter) {
+        FlatOrder order = FlatOrder.of(filter);
+        FlatCursor after = null;
+        int pages = 0;
+        while (true) {
+            List<FlatWithLatestPrice> page = repository.findFlatsByFilters(filter, after, PAGE, FlatColumn.ALL)
+                    .collectList()
+                    .block();
+            List<UUID> ids = index.search(filter, after, PAGE).orElseThrow();
+
+            assertThat(ids).as("page %d", pages).isEqualTo(ids(page));
+            pages++;
+            if (page.size() < PAGE) break;
+            after = FlatCursor.after(page.get(PAGE - 1), order, order.direction(filter));
+        }
+        assertThat(pages).isGreaterThan(1);
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("filters")
+    void offsetPagesMatchSql(String name, FlatFilterDto filter) {
+        for (int offset : new int[]{0, PAGE, 4 * PAGE, 40 * PAGE}) {
+            List<FlatWithLatestPrice> page = repository.findFlatsByFilters(filter, offset, PAGE)
+                    .collectList()
+                    .block();
+            List<UUID> ids = index.search(filter, offset, PAGE).orElseThrow();
+
+            assertThat(ids).as("offset %d", offset).isEqualTo(ids(page));
+        }
+    }
+
+    private static List<UUID> ids(List<FlatWithLatestPrice> flats) {
+        return flats.stream().map(FlatWithLatestPrice::getFlatId).toList();
+    }
+
+    /**
+     * Inserts flats around Moscow, a few across the antimeridian and a few without a location. Areas, prices and
+     * creation times are drawn from small sets so they tie; a tenth of the flats has no price.
+     */
+    private static void seed(Random random) throws SQLException {
+        try (Connection connection = jdbc()) {
+            connection.setAutoCommit(false);
+            try (PreparedStatement amenity = connection.prepareStatement(
+                    "INSERT INTO amenities (amenity_id, name) VALUES (?, ?)")) {
+                for (int i = 0; i < 6; i++) {
+                    UUID amenityId = new UUID(random.nextLong(), random.nextLong());
+                    AMENITIES.add(amenityId);
+                    amenity.setObject(1, amenityId);
+                    amenity.setString(2, "amenity " + i);
+                    amenity.addBatch();
+                }
+                amenity.executeBatch();
+            }
+
+            try (PreparedStatement flat = connection.prepareStatement("""
+                    INSERT INTO flats (flat_id, owner_sub, title, description, longitude, latitude, area, rooms,
+                                       status, created_at)
+                    VALUES (?, ?, ?, ?, ?, ?, ?, ?, CAST(? AS flat_status_enum), ?)""");
+                 PreparedStatement price = connection.prepareStatement(
+                         "INSERT INTO flat_prices (flat_id, price) VALUES (?, ?)");
+                 PreparedStatement flatAmenity = connection.prepareStatement(
+                         "INSERT INTO flat_amenities (flat_id, amenity_id) VALUES (?, ?)")) {
+                for (int i = 0; i < FLATS; i++) {
+                    UUID flatId = new UUID(random.nextLong(), random.nextLong());
+                    flat.setObject(1, flatId);
+                    flat.setString(2, UUID.randomUUID().toString());
+                    flat.setString(3, "Flat " + i);
+                    flat.setString(4, "Seeded flat number " + i);
+                    double place = random.nextDouble();
+                    if (place < 0.9) {
+                        flat.setDouble(5, 37.3 + random.nextDouble() * 0.6);
+                        flat.setDouble(6, 55.5 + random.nextDouble() * 0.5);
+                    } else if (place < 0.95) {
+                        double longitude = 179.5 + random.nextDouble();
+                        flat.setDouble(5, longitude > 180 ? longitude - 360 : longitude);
+                        flat.setDouble(6, 64 + random.nextDouble() * 2);
+                    } else {
+                        flat.setNull(5, Types.DOUBLE);
+                        flat.setNull(6, Types.DOUBLE);
+                    }
+                    flat.setBigDecimal(7, BigDecimal.valueOf(20 + random.nextInt(60) + random.nextInt(4) * 0.25));
+                    flat.setInt(8, 1 + random.nextInt(6));
+                    flat.setString(9, STATUSES[random.nextInt(STATUSES.length)]);
+                    flat.setObject(10, OffsetDateTime.ofInstant(EPOCH
+                            .plus(random.nextInt(500), ChronoUnit.MINUTES)
+                            .plus(random.nextInt(3), ChronoUnit.MICROS), ZoneOffset.UTC));
+                    flat.addBatch();
+
+                    if (random.nextInt(10) > 0) {
+                        price.setObject(1, flatId);
+                        price.setBigDecimal(2, BigDecimal.valueOf(3_000 + random.nextInt(200) * 250L));
+                        price.addBatch();
+                    }
+                    for (UUID amenityId : AMENITIES) {
+                        if (random.nextDouble() < 0.3) {
+                            flatAmenity.setObject(1, flatId);
+                            flatAmenity.setObject(2, amenityId);
+                            flatAmenity.addBatch();
+                        }
+                    }
+                }
+                flat.executeBatch();
+                price.executeBatch();
+                flatAmenity.executeBatch();
+            }
+            connection.commit();
+        }
+    }
+
+    private static Connection jdbc() throws SQLException {
+        return DriverManager.getConnection(POSTGRES.getJdbcUrl(), POSTGRES.getUsername(), POSTGRES.getPassword());
+    }
+}
@@ -0,0 +1,103 @@
+package com.lockbox.gateway.logging;
+
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.Marker;
+import org.apache.logging.log4j.core.Filter;
+import org.apache.logging.log4j.core.LogEvent;
+import org.apache.logging.log4j.core.Logger;
+import org.apache.logging.log4j.core.config.Node;
+import org.apache.logging.log4j.core.config.plugins.Plugin;
+import org.apache.logging.log4j.core.config.plugins.PluginAttribute;
+import org.apache.logging.log4j.core.config.plugins.PluginFactory;
+import org.apache.logging.log4j.core.filter.AbstractFilter;
+import org.apache.logging.log4j.message.Message;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Log4j2 filter keeping one event out of {@code every} at {@code level} and below; more severe events always pass.
+ * <p>
+ * Meant for the {@code Logger} elements of hot paths, together with a {@code BurstFilter} capping the rate:
+ * </p>
+ * <pre>{@code
+ * <Logger name="com.lockbox.gateway.filter.LoggingFilter" level="INFO">
+ *     <Filters>
+ *         <SamplingFilter level="INFO" every="10"/>
+ *         <BurstFilter level="INFO" rate="50" maxBurst="500"/>
+ *     </Filters>
+ * </Logger>
+ * }</pre>
+ *
+ * @author serezk4
+ * @version 1.0
+ * @since 1.0
+ */
+@Plugin(name = "SamplingFilter", category = Node.CATEGORY, elementType = Filter.ELEMENT_TYPE, printObject = true)
+public final class SamplingFilter extends AbstractFilter {
+
+    private final Level level;
+    private final int every;
+    private final AtomicLong events = new AtomicLong();
+
+    private SamplingFilter(Level level, int every, Result onMatch, Result onMismatch) {
+        super(onMatch, onMismatch);
+        this.level = level;
+        this.every = every;
+    }
+
+    /**
+     * Creates the filter from its configuration.
+     *
+     * @param level      the most severe level sampled, {@code INFO} by default
+     * @param every      the sampling interval, {@code 10} by default
+     * @param onMatch    the result for kept events, {@code NEUTRAL} by default
+     * @param onMismatch the result for dropped events, {@code DENY} by default
+     * @return the filter
+     */
+    @PluginFactory
+    public static SamplingFilter createFilter(
+            @PluginAttribute("level") Level level,
+            @PluginAttribute(value = "every", defaultInt = 10) int every,
+            @PluginAttribute("onMatch") Result onMatch,
+            @PluginAttribute("onMismatch") Result onMismatch
+    ) {
+        if (every < 1)
+            throw new IllegalArgumentException("SamplingFilter every must be positive");
+        return new SamplingFilter(
+                level == null ? Level.INFO : level,
+                every,
+                onMatch == null ? Result.NEUTRAL : onMatch,
+                onMismatch == null ? Result.DENY : onMismatch
+        );
+    }
+
+    @Override
+    public Result filter(LogEvent event) {
+        return sample(event.getLevel());
+    }
+
+    @Override
+    public Result filter(Logger logger, Level level, Marker marker, Message msg, Throwable t) {
+        return sample(level);
+    }
+
+    @Override
+    public Result filter(Logger logger, Level level, Marker marker, Object msg, Throwable t) {
+        return sample(level);
+    }
+
+    @Override
+    public Result filter(Logger logger, Level level, Marker marker, String msg, Object... params) {
+        return sample(level);
+    }
+
+    private Result sample(Level eventLevel) {
+        if (eventLevel.isMoreSpecificThan(level) && eventLevel != level) return Result.NEUTRAL;
+        return events.getAndIncrement() % every == 0 ? onMatch : onMismatch;
+    }
+
+    @Override
+    public String toString() {
+        return "level=" + level + ", every=" + every;
+    }
+}
@@ -106,6 +106,8 @@ dependencies {
 
     implementation("org.apache.logging.log4j:log4j-api:2.24.3")
     implementation("org.apache.logging.log4j:log4j-core:2.24.3")
+    runtimeOnly("com.lmax:disruptor:4.0.0")
+    annotationProcessor("org.apache.logging.log4j:log4j-core:2.24.3")
 }
 
 configurations.all {
@@ -13,7 +13,6 @@ public class LoggingFilter implements WebFilter {
     @Override
     public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
         log.info("Request path: {}", exchange.getRequest().getPath());
-        log.info("Request headers: {}", exchange.getRequest().getHeaders());
         return chain.filter(exchange);
     }
 }